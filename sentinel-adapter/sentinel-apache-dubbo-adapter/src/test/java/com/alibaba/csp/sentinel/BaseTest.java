@@ -53,7 +53,7 @@ public class BaseTest {
     }
 
     private void cleanUpCstContext() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
         CtSph.resetChainMap();
         Method method = ContextUtil.class.getDeclaredMethod("resetContextMap");
         method.setAccessible(true);
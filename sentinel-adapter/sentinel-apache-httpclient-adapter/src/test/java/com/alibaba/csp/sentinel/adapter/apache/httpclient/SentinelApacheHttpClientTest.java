@@ -63,7 +63,7 @@ public class SentinelApacheHttpClientTest {
         ClusterNode cn = ClusterBuilderSlot.getClusterNode("httpclient:/httpclient/back");
         assertNotNull(cn);
         Constants.ROOT.removeChildList();
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
     }
 
     @Test
@@ -88,7 +88,7 @@ public class SentinelApacheHttpClientTest {
         ClusterNode cn = ClusterBuilderSlot.getClusterNode("httpclient:GET:/httpclient/back/{id}");
         assertNotNull(cn);
         Constants.ROOT.removeChildList();
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
     }
 
     private String getRemoteString(CloseableHttpClient httpclient, HttpGet httpGet) throws IOException {
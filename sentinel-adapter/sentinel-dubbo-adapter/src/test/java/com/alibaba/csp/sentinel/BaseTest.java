@@ -18,7 +18,7 @@ public class BaseTest {
      */
     protected static void cleanUpAll() {
         RpcContext.removeContext();
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
         CtSph.resetChainMap();
     }
 }
\ No newline at end of file
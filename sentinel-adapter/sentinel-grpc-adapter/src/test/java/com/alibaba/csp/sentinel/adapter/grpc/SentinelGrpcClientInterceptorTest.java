@@ -98,12 +98,12 @@ public class SentinelGrpcClientInterceptorTest {
     @Before
     public void cleanUpBefore() {
         FlowRuleManager.loadRules(null);
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
     }
 
     @After
     public void cleanUpAfter() {
         FlowRuleManager.loadRules(null);
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
     }
 }
@@ -91,7 +91,7 @@ public class ClientFilterTest {
 
         Constants.ROOT.removeChildList();
 
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
 
         // Clear chainMap in CtSph
         try {
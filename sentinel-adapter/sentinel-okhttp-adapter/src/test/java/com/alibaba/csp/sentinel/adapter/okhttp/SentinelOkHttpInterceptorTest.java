@@ -62,7 +62,7 @@ public class SentinelOkHttpInterceptorTest {
         assertNotNull(cn);
 
         Constants.ROOT.removeChildList();
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
     }
 
     @Test
@@ -93,6 +93,6 @@ public class SentinelOkHttpInterceptorTest {
         assertNotNull(cn);
 
         Constants.ROOT.removeChildList();
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
     }
 }
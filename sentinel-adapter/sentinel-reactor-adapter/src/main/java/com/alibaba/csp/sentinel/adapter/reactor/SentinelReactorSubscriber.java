@@ -16,18 +16,19 @@
 package com.alibaba.csp.sentinel.adapter.reactor;
 
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.alibaba.csp.sentinel.AsyncEntry;
 import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.Tracer;
 import com.alibaba.csp.sentinel.context.ContextUtil;
-import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.function.Supplier;
 
 import org.reactivestreams.Subscription;
 import reactor.core.CoreSubscriber;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.context.Context;
 
 /**
@@ -89,17 +90,13 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
             ContextUtil.enter(sentinelContextConfig.getContextName(), sentinelContextConfig.getOrigin());
         }
         try {
-            AsyncEntry entry = SphU.asyncEntry(entryConfig.getResourceName(), entryConfig.getResourceType(),
-                entryConfig.getEntryType(), entryConfig.getAcquireCount(), entryConfig.getArgs());
-            this.currentEntry = entry;
-            actual.onSubscribe(this);
-        } catch (BlockException ex) {
-            // Mark as completed (exited) explicitly.
-            entryExited.set(true);
-            // Signal cancel and propagate the {@code BlockException}.
-            cancel();
-            actual.onSubscribe(this);
-            actual.onError(ex);
+            // The cluster tokens are requested without blocking current thread. Once they are completed,
+            // the resource is entered and the downstream is subscribed on the elastic scheduler rather than
+            // the I/O thread of the token client, as both of them may block.
+            SphU.asyncEntryStage(entryConfig.getResourceName(), entryConfig.getResourceType(),
+                entryConfig.getEntryType(), entryConfig.getAcquireCount(), entryConfig.getArgs(),
+                task -> Schedulers.elastic().schedule(task))
+                .whenComplete(this::onEntryComplete);
         } finally {
             if (sentinelContextConfig != null) {
                 ContextUtil.exit();
@@ -107,6 +104,21 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
         }
     }
 
+    private void onEntryComplete(AsyncEntry entry, Throwable ex) {
+        if (ex == null) {
+            this.currentEntry = entry;
+            actual.onSubscribe(this);
+            return;
+        }
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        // Mark as completed (exited) explicitly.
+        entryExited.set(true);
+        // Signal cancel and propagate the {@code BlockException}.
+        cancel();
+        actual.onSubscribe(this);
+        actual.onError(cause);
+    }
+
     @Override
     protected void hookOnSubscribe(Subscription subscription) {
         doWithContextOrCurrent(() -> currentContext().getOrEmpty(SentinelReactorConstants.SENTINEL_CONTEXT_KEY),
@@ -44,7 +44,7 @@ public class BaseTest {
 
         Constants.ROOT.removeChildList();
 
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
 
         // Clear chainMap in CtSph
         try {
@@ -0,0 +1,161 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.codec.data.ParamFlowRequestDataWriter;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.limit.GlobalRequestLimiter;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.ParamFlowRequestData;
+import com.alibaba.csp.sentinel.cluster.server.codec.netty.FlyweightFlowRequestHandler;
+import com.alibaba.csp.sentinel.cluster.server.codec.netty.NettyRequestDecoder;
+import com.alibaba.csp.sentinel.cluster.server.codec.netty.NettyResponseEncoder;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionPool;
+import com.alibaba.csp.sentinel.cluster.server.init.DefaultClusterServerInitFunc;
+import com.alibaba.csp.sentinel.cluster.server.processor.RequestProcessor;
+import com.alibaba.csp.sentinel.cluster.server.processor.RequestProcessorProvider;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark for the codec path of cluster flow requests on the token server, with the default codec
+ * (request and response entities) and the flyweight codec ({@code FlyweightFlowRequestHandler}),
+ * and for the client-side encoding of parameter flow requests.</p>
+ *
+ * <p>Run with {@code -prof gc} to see the allocation rate ({@code gc.alloc.rate.norm}) per operation.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class ClusterCodecBenchmark {
+
+    private static final String NAMESPACE = "benchmark-codec";
+    private static final long FLOW_ID = 20210701L;
+
+    private EmbeddedChannel defaultChannel;
+    private EmbeddedChannel flyweightChannel;
+    private int xid;
+
+    private final ParamFlowRequestDataWriter paramWriter = new ParamFlowRequestDataWriter();
+    private final ParamFlowRequestData paramRequestData = new ParamFlowRequestData()
+        .setFlowId(FLOW_ID)
+        .setCount(1)
+        .setParams(Arrays.<Object>asList("user-20210701", 42, 7L));
+    private ByteBuf paramBuf;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        new DefaultClusterServerInitFunc().init();
+        ClusterFlowConfig config = new ClusterFlowConfig();
+        config.setFlowId(FLOW_ID);
+        FlowRule rule = new FlowRule("benchmark-codec-resource")
+            .setCount(Integer.MAX_VALUE)
+            .setClusterMode(true)
+            .setClusterConfig(config);
+        ClusterFlowRuleManager.registerPropertyIfAbsent(NAMESPACE);
+        ClusterFlowRuleManager.loadRules(NAMESPACE, Collections.singletonList(rule));
+        GlobalRequestLimiter.initIfAbsent(NAMESPACE);
+        GlobalRequestLimiter.applyMaxQpsChange(Integer.MAX_VALUE);
+
+        defaultChannel = newChannel(false);
+        flyweightChannel = newChannel(true);
+        paramBuf = PooledByteBufAllocator.DEFAULT.buffer(256);
+    }
+
+    private static EmbeddedChannel newChannel(boolean flyweight) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+        if (flyweight) {
+            channel.pipeline().addLast(new FlyweightFlowRequestHandler(new ConnectionPool()));
+        }
+        channel.pipeline().addLast(new NettyRequestDecoder(), new LengthFieldPrepender(2),
+            new NettyResponseEncoder(), new ProcessorHandler());
+        return channel;
+    }
+
+    private int roundTrip(EmbeddedChannel channel) {
+        ByteBuf frame = PooledByteBufAllocator.DEFAULT.buffer(18);
+        frame.writeInt(++xid);
+        frame.writeByte(ClusterConstants.MSG_TYPE_FLOW);
+        frame.writeLong(FLOW_ID);
+        frame.writeInt(1);
+        frame.writeBoolean(false);
+        channel.writeInbound(frame);
+
+        int size = 0;
+        Object out;
+        while ((out = channel.readOutbound()) != null) {
+            size += ((ByteBuf)out).readableBytes();
+            ReferenceCountUtil.release(out);
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int testDefaultCodecFlowRequest() {
+        return roundTrip(defaultChannel);
+    }
+
+    @Benchmark
+    public int testFlyweightCodecFlowRequest() {
+        return roundTrip(flyweightChannel);
+    }
+
+    @Benchmark
+    public int testWriteParamFlowRequest() {
+        paramBuf.clear();
+        paramWriter.writeTo(paramRequestData, paramBuf);
+        return paramBuf.readableBytes();
+    }
+
+    /**
+     * Same as the request processing of {@code TokenServerHandler}, without the connection management.
+     */
+    private static class ProcessorHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ClusterRequest request = (ClusterRequest)msg;
+            RequestProcessor processor = RequestProcessorProvider.getProcessor(request.getType());
+            ctx.writeAndFlush(processor.processRequest(request));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.NettyTransportClient;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.client.init.DefaultClusterClientInitFunc;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.limit.GlobalRequestLimiter;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.server.NettyTransportServer;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
+import com.alibaba.csp.sentinel.cluster.server.init.DefaultClusterServerInitFunc;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Loopback benchmark of cluster flow requests between a token client and a token server, which
+ * reports both the throughput and the latency distribution (p50 / p99 / p99.9 in the sample time mode).</p>
+ *
+ * <p>The native (epoll) transport is used only when {@code netty-transport-native-epoll} (with the
+ * classifier of the platform) is on the classpath, or else both sides fall back to NIO, so add the
+ * dependency to compare the two with {@code -p nativeTransport=true,false}.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Threads(4)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ClusterTransportBenchmark {
+
+    private static final String NAMESPACE = "benchmark-transport";
+    private static final long FLOW_ID = 20210801L;
+
+    @Param({"false", "true"})
+    private boolean nativeTransport;
+
+    private NettyTransportServer server;
+    private NettyTransportClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        new DefaultClusterServerInitFunc().init();
+        new DefaultClusterClientInitFunc().init();
+        ClusterFlowConfig config = new ClusterFlowConfig();
+        config.setFlowId(FLOW_ID);
+        FlowRule rule = new FlowRule("benchmark-transport-resource")
+            .setCount(Integer.MAX_VALUE)
+            .setClusterMode(true)
+            .setClusterConfig(config);
+        ClusterFlowRuleManager.registerPropertyIfAbsent(NAMESPACE);
+        ClusterFlowRuleManager.loadRules(NAMESPACE, Collections.singletonList(rule));
+        GlobalRequestLimiter.initIfAbsent(NAMESPACE);
+        GlobalRequestLimiter.applyMaxQpsChange(Integer.MAX_VALUE);
+
+        int port = findFreePort();
+        server = new NettyTransportServer(new ServerTransportConfig()
+            .setPort(port)
+            .setNativeTransport(nativeTransport));
+        server.start();
+
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig()
+            .setRequestTimeout(1000)
+            .setNativeTransport(nativeTransport));
+        client = new NettyTransportClient("127.0.0.1", port);
+        client.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!client.isReady()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Token client is not ready on port " + port);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.stop();
+        server.stop();
+    }
+
+    private static int findFreePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Benchmark
+    public ClusterResponse testFlowRequest() throws Exception {
+        FlowRequestData data = new FlowRequestData()
+            .setFlowId(FLOW_ID)
+            .setCount(1)
+            .setPriority(false);
+        return client.sendRequest(new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.ResourceHandle;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark for the synchronous entry path with entry pooling enabled. Compare it with the same benchmark
+ * run with {@code -jvmArgsAppend -Dcsp.sentinel.entry.pool.enabled=false}.</p>
+ *
+ * <p>Run with {@code -prof gc} to see the allocation rate ({@code gc.alloc.rate.norm}) per operation.</p>
+ */
+@Fork(value = 1, jvmArgsAppend = "-Dcsp.sentinel.entry.pool.enabled=true")
+@Warmup(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class EntryPoolBenchmark {
+
+    private static final String RESOURCE_NAME = "benchmark-pooled";
+    private static final ResourceHandle RESOURCE = SphU.resource(RESOURCE_NAME);
+
+    private static void exit(Entry entry) {
+        if (entry != null) {
+            entry.exit();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadEntryByName() {
+        Entry entry = null;
+        try {
+            entry = SphU.entry(RESOURCE_NAME);
+        } catch (BlockException e) {
+        } finally {
+            exit(entry);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadEntryByHandle() {
+        Entry entry = null;
+        try {
+            entry = SphU.entry(RESOURCE);
+        } catch (BlockException e) {
+        } finally {
+            exit(entry);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadNestedEntries() {
+        Entry outer = null;
+        try {
+            outer = SphU.entry(RESOURCE);
+            Entry inner = null;
+            try {
+                inner = SphU.entry(RESOURCE_NAME);
+            } finally {
+                exit(inner);
+            }
+        } catch (BlockException e) {
+        } finally {
+            exit(outer);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void test4ThreadsEntryByHandle() {
+        Entry entry = null;
+        try {
+            entry = SphU.entry(RESOURCE);
+        } catch (BlockException e) {
+        } finally {
+            exit(entry);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricSearcher;
+import com.alibaba.csp.sentinel.node.metric.MetricWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark for parallel range queries of {@link MetricSearcher}, which is what the dashboard does
+ * (6-second windows) when several dashboards or scrapers pull metrics at the same time.</p>
+ *
+ * <p>The metric directory (1 GB by default, in files of 50 MB) is generated in the format of {@link MetricWriter}
+ * before the trial, which may take a while.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class MetricSearcherBenchmark {
+
+    private static final String BASE_FILE_NAME = "benchmark-metrics.log";
+    private static final long BASE_TIME = 1600000000000L;
+    private static final long SINGLE_FILE_SIZE = 50 * 1024 * 1024;
+    private static final int QUERY_WINDOW_SECONDS = 6;
+
+    @Param({"1024"})
+    private int dataSizeInMb;
+
+    @Param({"5000"})
+    private int resourceCount;
+
+    private File baseDir;
+    private int totalSeconds;
+    private MetricSearcher searcher;
+
+    @Setup(Level.Trial)
+    public void prepareMetricFiles() throws Exception {
+        baseDir = File.createTempFile("sentinel-metric-benchmark", "");
+        baseDir.delete();
+        baseDir.mkdirs();
+
+        Charset charset = Charset.forName("UTF-8");
+        long totalBytes = dataSizeInMb * 1024L * 1024L;
+        long writtenBytes = 0;
+        int fileNo = 0;
+        while (writtenBytes < totalBytes) {
+            File metricFile = new File(baseDir, BASE_FILE_NAME + ".2020-09-13." + fileNo++);
+            FileOutputStream out = new FileOutputStream(metricFile);
+            BufferedOutputStream bufferedOut = new BufferedOutputStream(out, 64 * 1024);
+            DataOutputStream indexOut = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(MetricWriter.formIndexFileName(metricFile.getAbsolutePath()))));
+            long fileBytes = 0;
+            try {
+                while (fileBytes < SINGLE_FILE_SIZE && writtenBytes + fileBytes < totalBytes) {
+                    long time = BASE_TIME + totalSeconds * 1000L;
+                    indexOut.writeLong(time / 1000);
+                    indexOut.writeLong(fileBytes);
+                    for (int i = 0; i < resourceCount; i++) {
+                        MetricNode node = new MetricNode();
+                        node.setTimestamp(time);
+                        node.setResource("/api/resource/" + i);
+                        node.setPassQps(ThreadLocalRandom.current().nextInt(1000));
+                        node.setSuccessQps(node.getPassQps());
+                        node.setRt(ThreadLocalRandom.current().nextInt(100));
+                        byte[] line = node.toFatString().getBytes(charset);
+                        bufferedOut.write(line);
+                        fileBytes += line.length;
+                    }
+                    totalSeconds++;
+                }
+            } finally {
+                bufferedOut.close();
+                indexOut.close();
+            }
+            writtenBytes += fileBytes;
+        }
+        searcher = new MetricSearcher(baseDir.getAbsolutePath(), BASE_FILE_NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void removeMetricFiles() {
+        File[] files = baseDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        baseDir.delete();
+    }
+
+    private long randomBeginTime() {
+        int second = ThreadLocalRandom.current().nextInt(totalSeconds - QUERY_WINDOW_SECONDS);
+        return BASE_TIME + second * 1000L;
+    }
+
+    private List<MetricNode> queryWindow(String identity) throws Exception {
+        long beginTime = randomBeginTime();
+        return searcher.findByTimeAndResource(beginTime, beginTime + (QUERY_WINDOW_SECONDS - 1) * 1000L,
+            identity);
+    }
+
+    private String randomResource() {
+        return "/api/resource/" + ThreadLocalRandom.current().nextInt(resourceCount);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<MetricNode> testRangeQuerySingleThread() throws Exception {
+        return queryWindow(null);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<MetricNode> testRangeQuery8Threads() throws Exception {
+        return queryWindow(null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<MetricNode> testResourceQuerySingleThread() throws Exception {
+        return queryWindow(randomResource());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<MetricNode> testResourceQuery8Threads() throws Exception {
+        return queryWindow(randomResource());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.util.ConcurrentRegistry;
+import com.alibaba.csp.sentinel.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for cold-start registration of resources, comparing {@link ConcurrentRegistry}
+ * with the copy-on-write map guarded by a global lock.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ResourceRegistryBenchmark {
+
+    private static final Function<ResourceWrapper, ClusterNode> NODE_FACTORY
+        = new Function<ResourceWrapper, ClusterNode>() {
+        @Override
+        public ClusterNode apply(ResourceWrapper resourceWrapper) {
+            return new ClusterNode(resourceWrapper.getName(), resourceWrapper.getResourceType());
+        }
+    };
+
+    @Param({"10000"})
+    private int resourceCount;
+
+    private ResourceWrapper[] resources;
+
+    private ConcurrentRegistry<ResourceWrapper, ClusterNode> registry;
+
+    private volatile Map<ResourceWrapper, ClusterNode> copyOnWriteMap;
+    private final Object lock = new Object();
+
+    @Setup(Level.Trial)
+    public void prepareResources() {
+        resources = new ResourceWrapper[resourceCount];
+        for (int i = 0; i < resourceCount; i++) {
+            resources[i] = new StringResourceWrapper("/api/resource/" + i, EntryType.IN);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        registry = new ConcurrentRegistry<>();
+        copyOnWriteMap = new HashMap<>();
+    }
+
+    private void registerAll(Blackhole bh) {
+        for (ResourceWrapper resource : resources) {
+            bh.consume(registry.getOrCreate(resource, NODE_FACTORY));
+        }
+    }
+
+    private void registerAllCopyOnWrite(Blackhole bh) {
+        for (ResourceWrapper resource : resources) {
+            ClusterNode node = copyOnWriteMap.get(resource);
+            if (node == null) {
+                synchronized (lock) {
+                    node = copyOnWriteMap.get(resource);
+                    if (node == null) {
+                        node = NODE_FACTORY.apply(resource);
+                        Map<ResourceWrapper, ClusterNode> newMap = new HashMap<>(copyOnWriteMap.size() + 1);
+                        newMap.putAll(copyOnWriteMap);
+                        newMap.put(resource, node);
+                        copyOnWriteMap = newMap;
+                    }
+                }
+            }
+            bh.consume(node);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testRegistrySingleThread(Blackhole bh) {
+        registerAll(bh);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void testRegistry4Threads(Blackhole bh) {
+        registerAll(bh);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testCopyOnWriteSingleThread(Blackhole bh) {
+        registerAllCopyOnWrite(bh);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void testCopyOnWrite4Threads(Blackhole bh) {
+        registerAllCopyOnWrite(bh);
+    }
+}
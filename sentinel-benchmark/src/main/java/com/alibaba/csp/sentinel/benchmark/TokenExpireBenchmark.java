@@ -0,0 +1,135 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.CurrentConcurrencyManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNode;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire.TimingWheelExpireStrategy;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.googlecode.concurrentlinkedhashmap.Weighers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark for the timing wheel expiry of cluster concurrent tokens with 1M outstanding tokens.</p>
+ *
+ * <ul>
+ * <li>{@code testCacheAndReleaseToken}: cache and release a token while 1M long-running tokens are
+ * outstanding, which shows the cost of scheduling and of the ticks.</li>
+ * <li>{@code testExpireAllTokens}: expire 1M leaked tokens, of which the average time per token
+ * is the score divided by 1M.</li>
+ * </ul>
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TokenExpireBenchmark {
+
+    private static final String NAMESPACE = "benchmark-expire";
+    private static final long FLOW_ID = 20210601L;
+    private static final int OUTSTANDING_COUNT = 1000000;
+    private static final String OFFLINE_CLIENT = "127.0.0.1:20210";
+
+    private ConcurrentLinkedHashMap<Long, TokenCacheNode> cache;
+    private TimingWheelExpireStrategy strategy;
+    private long nextTokenId;
+
+    @Setup(Level.Trial)
+    public void prepareRule() {
+        ClusterFlowConfig config = new ClusterFlowConfig();
+        config.setFlowId(FLOW_ID);
+        config.setResourceTimeout(1000);
+        config.setClientOfflineTime(1000);
+        config.setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL);
+        FlowRule rule = new FlowRule("benchmark-concurrent")
+            .setCount(Integer.MAX_VALUE)
+            .setGrade(RuleConstant.FLOW_GRADE_THREAD)
+            .setClusterMode(true)
+            .setClusterConfig(config);
+        ClusterFlowRuleManager.registerPropertyIfAbsent(NAMESPACE);
+        ClusterFlowRuleManager.loadRules(NAMESPACE, Collections.singletonList(rule));
+        CurrentConcurrencyManager.put(FLOW_ID, 0);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareTokens() {
+        cache = new ConcurrentLinkedHashMap.Builder<Long, TokenCacheNode>()
+            .maximumWeightedCapacity(Integer.MAX_VALUE)
+            .weigher(Weighers.singleton())
+            .build();
+        strategy = new TimingWheelExpireStrategy(cache);
+        for (nextTokenId = 0; nextTokenId < OUTSTANDING_COUNT; nextTokenId++) {
+            // Deadlines are spread over 10 seconds.
+            cacheToken(1000 + nextTokenId % 9000);
+        }
+        // Move the tokens to the wheel.
+        strategy.expireUntil(System.currentTimeMillis());
+    }
+
+    private TokenCacheNode cacheToken(long timeout) {
+        TokenCacheNode node = new TokenCacheNode();
+        node.setTokenId(nextTokenId);
+        node.setFlowId(FLOW_ID);
+        node.setResourceTimeout(timeout);
+        node.setClientTimeout(timeout);
+        node.setClientAddress(OFFLINE_CLIENT);
+        node.setAcquireCount(1);
+        CurrentConcurrencyManager.addConcurrency(FLOW_ID, 1);
+        cache.put(nextTokenId, node);
+        strategy.onTokenCached(node);
+        return node;
+    }
+
+    @Benchmark
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int testCacheAndReleaseToken() {
+        TokenCacheNode node = cacheToken(100);
+        nextTokenId++;
+        if (cache.remove(node.getTokenId()) != null) {
+            CurrentConcurrencyManager.addConcurrency(FLOW_ID, -1);
+        }
+        return strategy.expireUntil(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int testExpireAllTokens() {
+        return strategy.expireUntil(System.currentTimeMillis() + 20000);
+    }
+}
@@ -24,6 +24,17 @@ public final class ClientConstants {
     public static final int TYPE_PING = 0;
     public static final int TYPE_FLOW = 1;
     public static final int TYPE_PARAM_FLOW = 2;
+    public static final int TYPE_FLOW_LEASE = 5;
+    public static final int TYPE_FLOW_LEASE_RETURN = 6;
+    public static final int TYPE_BATCH = 7;
+
+    /**
+     * Max count of requests in a batch, so that the batch of requests (and responses) fits in a frame.
+     */
+    public static final int MAX_REQUEST_BATCH_SIZE = 1024;
+
+    public static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
+    public static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
 
     public static final int CLIENT_STATUS_OFF = 0;
     public static final int CLIENT_STATUS_PENDING = 1;
@@ -15,7 +15,10 @@
  */
 package com.alibaba.csp.sentinel.cluster.client;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.alibaba.csp.sentinel.cluster.ClusterConstants;
@@ -24,6 +27,7 @@ import com.alibaba.csp.sentinel.cluster.ClusterTransportClient;
 import com.alibaba.csp.sentinel.cluster.TokenResult;
 import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
 import com.alibaba.csp.sentinel.cluster.TokenServerDescriptor;
+import com.alibaba.csp.sentinel.cluster.TokenServerPartition;
 import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientAssignConfig;
 import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
 import com.alibaba.csp.sentinel.cluster.client.config.ServerChangeObserver;
@@ -47,16 +51,31 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
     private ClusterTransportClient transportClient;
     private TokenServerDescriptor serverDescriptor;
 
+    /**
+     * Per-server transport clients of the token server partition, which is null if not partitioned.
+     */
+    private volatile PartitionRoute partitionRoute;
+
     private final AtomicBoolean shouldStart = new AtomicBoolean(false);
 
+    private final TokenLeaseManager leaseManager = new TokenLeaseManager(this);
+
     public DefaultClusterTokenClient() {
         ClusterClientConfigManager.addServerChangeObserver(new ServerChangeObserver() {
             @Override
             public void onRemoteServerChange(ClusterClientAssignConfig assignConfig) {
                 changeServer(assignConfig);
             }
+
+            @Override
+            public void onPartitionChange(TokenServerPartition partition) {
+                changePartition(partition);
+            }
         });
         initNewConnection();
+        if (ClusterClientConfigManager.getPartition() != null) {
+            changePartition(ClusterClientConfigManager.getPartition());
+        }
     }
 
     private boolean serverEqual(TokenServerDescriptor descriptor, ClusterClientAssignConfig config) {
@@ -93,6 +112,8 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
             if (transportClient != null) {
                 transportClient.stop();
             }
+            // The leases are granted by the former server.
+            leaseManager.clear();
             // Replace with new, even if the new client is not ready.
             this.transportClient = new NettyTransportClient(config.getServerHost(), config.getServerPort());
             this.serverDescriptor = new TokenServerDescriptor(config.getServerHost(), config.getServerPort());
@@ -103,13 +124,48 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         }
     }
 
+    private synchronized void changePartition(TokenServerPartition partition) {
+        PartitionRoute oldRoute = this.partitionRoute;
+        ClusterTransportClient[] clients = null;
+        if (partition != null) {
+            clients = new ClusterTransportClient[partition.size()];
+            for (int i = 0; i < clients.length; i++) {
+                TokenServerDescriptor server = partition.getServers().get(i);
+                ClusterTransportClient client = oldRoute == null ? null : oldRoute.findClient(server);
+                if (client == null) {
+                    try {
+                        client = new NettyTransportClient(server.getHost(), server.getPort());
+                        if (shouldStart.get()) {
+                            client.start();
+                        }
+                    } catch (Exception ex) {
+                        RecordLog.warn("[DefaultClusterTokenClient] Failed to create client for partition server: "
+                            + server, ex);
+                    }
+                }
+                clients[i] = client;
+            }
+        }
+        this.partitionRoute = partition == null ? null : new PartitionRoute(partition, clients);
+        // The flows may be owned by other servers now, and so are the leases.
+        leaseManager.clear();
+        if (oldRoute != null) {
+            oldRoute.stopAllExcept(clients);
+        }
+        RecordLog.info("[DefaultClusterTokenClient] Token server partition changed: {}", partition);
+    }
+
     private void startClientIfScheduled() throws Exception {
         if (shouldStart.get()) {
             if (transportClient != null) {
                 transportClient.start();
-            } else {
+            } else if (partitionRoute == null) {
                 RecordLog.warn("[DefaultClusterTokenClient] Cannot start transport client: client not created");
             }
+            PartitionRoute route = partitionRoute;
+            if (route != null) {
+                route.startAll();
+            }
         }
     }
 
@@ -118,6 +174,10 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
             if (transportClient != null) {
                 transportClient.stop();
             }
+            PartitionRoute route = partitionRoute;
+            if (route != null) {
+                route.stopAll();
+            }
         }
     }
 
@@ -131,10 +191,15 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
     @Override
     public void stop() throws Exception {
         stopClientIfStarted();
+        leaseManager.stop();
     }
 
     @Override
     public int getState() {
+        PartitionRoute route = partitionRoute;
+        if (route != null) {
+            return route.isAnyReady() ? ClientConstants.CLIENT_STATUS_STARTED : ClientConstants.CLIENT_STATUS_OFF;
+        }
         if (transportClient == null) {
             return ClientConstants.CLIENT_STATUS_OFF;
         }
@@ -151,6 +216,12 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         if (notValidRequest(flowId, acquireCount)) {
             return badRequest();
         }
+        if (!prioritized) {
+            TokenResult leaseResult = leaseManager.tryAcquire(flowId, acquireCount);
+            if (leaseResult != null) {
+                return leaseResult;
+            }
+        }
         FlowRequestData data = new FlowRequestData().setCount(acquireCount)
             .setFlowId(flowId).setPriority(prioritized);
         ClusterRequest<FlowRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data);
@@ -182,6 +253,35 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         }
     }
 
+    @Override
+    public CompletionStage<TokenResult> requestTokenAsync(Long flowId, int acquireCount, boolean prioritized) {
+        if (notValidRequest(flowId, acquireCount)) {
+            return CompletableFuture.completedFuture(badRequest());
+        }
+        if (!prioritized) {
+            TokenResult leaseResult = leaseManager.tryAcquire(flowId, acquireCount);
+            if (leaseResult != null) {
+                return CompletableFuture.completedFuture(leaseResult);
+            }
+        }
+        FlowRequestData data = new FlowRequestData().setCount(acquireCount)
+            .setFlowId(flowId).setPriority(prioritized);
+        ClusterRequest<FlowRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data);
+        return sendTokenRequestAsync(request);
+    }
+
+    @Override
+    public CompletionStage<TokenResult> requestParamTokenAsync(Long flowId, int acquireCount,
+                                                              Collection<Object> params) {
+        if (notValidRequest(flowId, acquireCount) || params == null || params.isEmpty()) {
+            return CompletableFuture.completedFuture(badRequest());
+        }
+        ParamFlowRequestData data = new ParamFlowRequestData().setCount(acquireCount)
+            .setFlowId(flowId).setParams(params);
+        ClusterRequest<ParamFlowRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_PARAM_FLOW, data);
+        return sendTokenRequestAsync(request);
+    }
+
     @Override
     public TokenResult requestConcurrentToken(String clientAddress, Long ruleId, int acquireCount) {
         return null;
@@ -203,18 +303,62 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         }
     }
 
-    private TokenResult sendTokenRequest(ClusterRequest request) throws Exception {
-        if (transportClient == null) {
+    TokenResult sendTokenRequest(ClusterRequest request) throws Exception {
+        ClusterTransportClient client = pickTransportClient(request);
+        if (client == null) {
             RecordLog.warn(
                 "[DefaultClusterTokenClient] Client not created, please check your config for cluster client");
             return clientFail();
         }
-        ClusterResponse response = transportClient.sendRequest(request);
+        return toTokenResult(client.sendRequest(request));
+    }
+
+    private CompletionStage<TokenResult> sendTokenRequestAsync(ClusterRequest request) {
+        ClusterTransportClient client = pickTransportClient(request);
+        if (client == null) {
+            RecordLog.warn(
+                "[DefaultClusterTokenClient] Client not created, please check your config for cluster client");
+            return CompletableFuture.completedFuture(clientFail());
+        }
+        // Completed on the I/O thread of the transport client.
+        return client.sendRequestAsync(request).handle((response, ex) -> {
+            if (ex != null) {
+                ClusterClientStatLogUtil.log(ex.getMessage());
+                return clientFail();
+            }
+            TokenResult result = toTokenResult(response);
+            logForResult(result);
+            return result;
+        });
+    }
+
+    /**
+     * Pick the client of the server owning the flow in partitioned mode, or else the client of the assigned server.
+     */
+    private ClusterTransportClient pickTransportClient(ClusterRequest request) {
+        PartitionRoute route = partitionRoute;
+        if (route == null) {
+            return transportClient;
+        }
+        Object data = request.getData();
+        if (data instanceof FlowRequestData) {
+            return route.clientOf(((FlowRequestData) data).getFlowId());
+        }
+        if (data instanceof ParamFlowRequestData) {
+            return route.clientOf(((ParamFlowRequestData) data).getFlowId());
+        }
+        return transportClient;
+    }
+
+    private TokenResult toTokenResult(ClusterResponse response) {
         TokenResult result = new TokenResult(response.getStatus());
         if (response.getData() != null) {
             FlowTokenResponseData responseData = (FlowTokenResponseData)response.getData();
             result.setRemaining(responseData.getRemainingCount())
-                .setWaitInMs(responseData.getWaitInMs());
+                .setWaitInMs(responseData.getWaitInMs())
+                .setConnectedCount(responseData.getConnectedCount());
+            // The lease ID is carried as the token ID (only for the lease responses).
+            result.setTokenId(responseData.getLeaseId());
         }
         return result;
     }
@@ -230,4 +374,66 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
     private TokenResult clientFail() {
         return new TokenResult(TokenResultStatus.FAIL);
     }
+
+    private static final class PartitionRoute {
+
+        private final TokenServerPartition partition;
+        private final ClusterTransportClient[] clients;
+
+        PartitionRoute(TokenServerPartition partition, ClusterTransportClient[] clients) {
+            this.partition = partition;
+            this.clients = clients;
+        }
+
+        ClusterTransportClient clientOf(long flowId) {
+            return clients[partition.indexOf(flowId)];
+        }
+
+        ClusterTransportClient findClient(TokenServerDescriptor server) {
+            for (int i = 0; i < clients.length; i++) {
+                TokenServerDescriptor s = partition.getServers().get(i);
+                if (s.getHost().equals(server.getHost()) && s.getPort() == server.getPort()) {
+                    return clients[i];
+                }
+            }
+            return null;
+        }
+
+        boolean isAnyReady() {
+            for (ClusterTransportClient client : clients) {
+                if (client != null && client.isReady()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void startAll() throws Exception {
+            for (ClusterTransportClient client : clients) {
+                if (client != null) {
+                    client.start();
+                }
+            }
+        }
+
+        void stopAll() {
+            stopAllExcept(null);
+        }
+
+        /**
+         * Stop the clients except the ones taken over by the new route.
+         */
+        void stopAllExcept(ClusterTransportClient[] reused) {
+            for (ClusterTransportClient client : clients) {
+                if (client == null || (reused != null && Arrays.asList(reused).contains(client))) {
+                    continue;
+                }
+                try {
+                    client.stop();
+                } catch (Exception ex) {
+                    RecordLog.warn("[DefaultClusterTokenClient] Failed to stop partition client", ex);
+                }
+            }
+        }
+    }
 }
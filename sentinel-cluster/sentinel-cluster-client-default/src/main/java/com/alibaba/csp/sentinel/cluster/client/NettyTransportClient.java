@@ -16,12 +16,14 @@
 package com.alibaba.csp.sentinel.cluster.client;
 
 import java.util.AbstractMap.SimpleEntry;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.alibaba.csp.sentinel.cluster.NativeTransportSupport;
 import com.alibaba.csp.sentinel.cluster.ClusterErrorMessages;
 import com.alibaba.csp.sentinel.cluster.ClusterTransportClient;
 import com.alibaba.csp.sentinel.cluster.client.codec.netty.NettyRequestEncoder;
@@ -45,12 +47,13 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
 
 /**
  * Netty transport client implementation for Sentinel cluster transport.
@@ -70,7 +73,8 @@ public class NettyTransportClient implements ClusterTransportClient {
     private final int port;
 
     private Channel channel;
-    private NioEventLoopGroup eventLoopGroup;
+    private volatile RequestBatcher requestBatcher;
+    private EventLoopGroup eventLoopGroup;
     private TokenClientHandler clientHandler;
 
     private final AtomicInteger idGenerator = new AtomicInteger(0);
@@ -88,10 +92,15 @@ public class NettyTransportClient implements ClusterTransportClient {
 
     private Bootstrap initClientBootstrap() {
         Bootstrap b = new Bootstrap();
-        eventLoopGroup = new NioEventLoopGroup();
+        eventLoopGroup = NativeTransportSupport.newEventLoopGroup(ClusterClientConfigManager.getEventLoopThreads(),
+            ClusterClientConfigManager.isNativeTransport());
+        final int maxFrameLength = ClusterClientConfigManager.getMaxFrameLength();
         b.group(eventLoopGroup)
-            .channel(NioSocketChannel.class)
-            .option(ChannelOption.TCP_NODELAY, true)
+            .channel(NativeTransportSupport.channelClass(eventLoopGroup))
+            .option(ChannelOption.TCP_NODELAY, ClusterClientConfigManager.isTcpNoDelay())
+            .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                ClusterClientConfigManager.getWriteBufferLowWaterMark(),
+                ClusterClientConfigManager.getWriteBufferHighWaterMark()))
             .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, ClusterClientConfigManager.getConnectTimeout())
             .handler(new ChannelInitializer<SocketChannel>() {
@@ -100,7 +109,7 @@ public class NettyTransportClient implements ClusterTransportClient {
                     clientHandler = new TokenClientHandler(currentState, disconnectCallback);
 
                     ChannelPipeline pipeline = ch.pipeline();
-                    pipeline.addLast(new LengthFieldBasedFrameDecoder(1024, 0, 2, 0, 2));
+                    pipeline.addLast(new LengthFieldBasedFrameDecoder(maxFrameLength, 0, 2, 0, 2));
                     pipeline.addLast(new NettyResponseDecoder());
                     pipeline.addLast(new LengthFieldPrepender(2));
                     pipeline.addLast(new NettyRequestEncoder());
@@ -126,6 +135,7 @@ public class NettyTransportClient implements ClusterTransportClient {
                     } else {
                         failConnectedTime.set(0);
                         channel = future.channel();
+                        requestBatcher = new RequestBatcher(channel);
                         RecordLog.info("[NettyTransportClient] Successfully connect to server <{}:{}>", host, port);
                     }
                 }
@@ -170,6 +180,7 @@ public class NettyTransportClient implements ClusterTransportClient {
         if (channel != null) {
             channel.close();
             channel = null;
+            requestBatcher = null;
         }
         if (eventLoopGroup != null) {
             eventLoopGroup.shutdownGracefully();
@@ -216,11 +227,17 @@ public class NettyTransportClient implements ClusterTransportClient {
         try {
             request.setId(xid);
 
-            channel.writeAndFlush(request);
-
+            // Register the promise before the request goes out, or the response may arrive earlier.
             ChannelPromise promise = channel.newPromise();
             TokenClientPromiseHolder.putPromise(xid, promise);
 
+            RequestBatcher batcher = requestBatcher;
+            if (batcher != null && ClusterClientConfigManager.getRequestBatchSize() > 1) {
+                batcher.write(request);
+            } else {
+                channel.writeAndFlush(request);
+            }
+
             if (!promise.await(ClusterClientConfigManager.getRequestTimeout())) {
                 throw new SentinelClusterException(ClusterErrorMessages.REQUEST_TIME_OUT);
             }
@@ -236,6 +253,48 @@ public class NettyTransportClient implements ClusterTransportClient {
         }
     }
 
+    @Override
+    public CompletableFuture<ClusterResponse> sendRequestAsync(ClusterRequest request) {
+        CompletableFuture<ClusterResponse> future = new CompletableFuture<>();
+        if (!isReady()) {
+            future.completeExceptionally(new SentinelClusterException(ClusterErrorMessages.CLIENT_NOT_READY));
+            return future;
+        }
+        if (!validRequest(request)) {
+            future.completeExceptionally(new SentinelClusterException(ClusterErrorMessages.BAD_REQUEST));
+            return future;
+        }
+        final int xid = getCurrentId();
+        request.setId(xid);
+
+        ChannelPromise promise = channel.newPromise();
+        TokenClientPromiseHolder.putPromise(xid, promise);
+        // Both the timeout and the response are handled on the event loop, so the promise is completed once.
+        final ScheduledFuture<?> timeoutFuture = channel.eventLoop().schedule(
+            () -> promise.tryFailure(new SentinelClusterException(ClusterErrorMessages.REQUEST_TIME_OUT)),
+            ClusterClientConfigManager.getRequestTimeout(), TimeUnit.MILLISECONDS);
+        promise.addListener(f -> {
+            timeoutFuture.cancel(false);
+            SimpleEntry<ChannelPromise, ClusterResponse> entry = TokenClientPromiseHolder.getEntry(xid);
+            TokenClientPromiseHolder.remove(xid);
+            if (!f.isSuccess()) {
+                future.completeExceptionally(f.cause());
+            } else if (entry == null || entry.getValue() == null) {
+                future.completeExceptionally(new SentinelClusterException(ClusterErrorMessages.UNEXPECTED_STATUS));
+            } else {
+                future.complete(entry.getValue());
+            }
+        });
+
+        RequestBatcher batcher = requestBatcher;
+        if (batcher != null && ClusterClientConfigManager.getRequestBatchSize() > 1) {
+            batcher.write(request);
+        } else {
+            channel.writeAndFlush(request);
+        }
+        return future;
+    }
+
     private int getCurrentId() {
         int pre, next;
         do {
@@ -245,28 +304,6 @@ public class NettyTransportClient implements ClusterTransportClient {
         return next;
     }
 
-    /*public CompletableFuture<ClusterResponse> sendRequestAsync(ClusterRequest request) {
-        // Uncomment this when min target JDK is 1.8.
-        if (!validRequest(request)) {
-            return CompletableFuture.failedFuture(new IllegalArgumentException("Bad request"));
-        }
-        int xid = getCurrentId();
-        request.setId(xid);
-
-        CompletableFuture<ClusterResponse> future = new CompletableFuture<>();
-        channel.writeAndFlush(request)
-            .addListener(f -> {
-                if (f.isSuccess()) {
-                    future.complete(someResult);
-                } else if (f.cause() != null) {
-                    future.completeExceptionally(f.cause());
-                } else {
-                    future.cancel(false);
-                }
-            });
-        return future;
-    }*/
-
     private static final int MIN_ID = 1;
     private static final int MAX_ID = 999_999_999;
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+
+import io.netty.channel.Channel;
+
+/**
+ * <p>Coalesces the requests written by concurrent threads into batch frames. Requests are queued, and
+ * drained by a single task on the event loop of the channel, so all the requests queued before the task runs
+ * are written in one pass and flushed once (one syscall at most), rather than a {@code writeAndFlush}
+ * for each of them.</p>
+ *
+ * <p>Only the fixed-size flow requests are coalesced into {@link ClusterConstants#MSG_TYPE_BATCH} requests
+ * (at most {@code batchSize} in a batch), while the others are written as they are.</p>
+ */
+final class RequestBatcher {
+
+    private final Channel channel;
+    private final Queue<ClusterRequest> pendingRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled.set(false);
+            flushPending();
+        }
+    };
+
+    RequestBatcher(Channel channel) {
+        this.channel = channel;
+    }
+
+    void write(ClusterRequest request) {
+        pendingRequests.offer(request);
+        if (flushScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().execute(flushTask);
+        }
+    }
+
+    private void flushPending() {
+        int batchSize = Math.min(ClusterClientConfigManager.getRequestBatchSize(),
+            ClientConstants.MAX_REQUEST_BATCH_SIZE);
+        List<ClusterRequest> batch = null;
+        ClusterRequest request;
+        while ((request = pendingRequests.poll()) != null) {
+            if (batchSize <= 1 || !canBatch(request)) {
+                channel.write(request);
+                continue;
+            }
+            if (batch == null) {
+                batch = new ArrayList<>(batchSize);
+            }
+            batch.add(request);
+            if (batch.size() >= batchSize) {
+                writeBatch(batch);
+                batch = null;
+            }
+        }
+        if (batch != null) {
+            writeBatch(batch);
+        }
+        channel.flush();
+    }
+
+    private void writeBatch(List<ClusterRequest> batch) {
+        if (batch.size() == 1) {
+            channel.write(batch.get(0));
+        } else {
+            channel.write(new ClusterRequest<>(0, ClusterConstants.MSG_TYPE_BATCH, batch));
+        }
+    }
+
+    private static boolean canBatch(ClusterRequest request) {
+        int type = request.getType();
+        return type == ClusterConstants.MSG_TYPE_FLOW || type == ClusterConstants.MSG_TYPE_FLOW_LEASE
+            || type == ClusterConstants.MSG_TYPE_FLOW_LEASE_RETURN;
+    }
+}
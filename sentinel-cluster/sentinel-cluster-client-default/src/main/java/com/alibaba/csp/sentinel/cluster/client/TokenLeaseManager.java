@@ -0,0 +1,315 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.log.ClusterClientStatLogUtil;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>Leases batches of tokens of cluster flow rules from the token server, so that most of the token
+ * requests are served locally rather than a round trip each. Leasing is enabled when the
+ * {@code leaseBatchSize} of the client config is positive.</p>
+ *
+ * <p>The lease of a flow is refilled asynchronously once less than half of the batch is left. Each grant
+ * of the token server expires on its own, the tokens are taken in the order of grants, and the unused tokens
+ * of a grant are returned to the token server (with the lease ID of the grant) when it expires. The tokens which
+ * fail to be returned are released as the sliding window of the token server moves on. Requests that cannot
+ * be served by the lease (e.g. the lease is exhausted before refilled, or the token server refuses to lease)
+ * turn back to the normal token request.</p>
+ *
+ * <p>The lease executor is created when a lease is refilled at first, and shut down when the token client
+ * stops.</p>
+ */
+final class TokenLeaseManager {
+
+    private static final int EXPIRE_CHECK_INTERVAL_MS = 50;
+    private static final int BLOCKED_RETRY_INTERVAL_MS = 100;
+    private static final int FAIL_RETRY_INTERVAL_MS = 1000;
+
+    private final DefaultClusterTokenClient tokenClient;
+    private final Map<Long, TokenLease> leases = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService leaseExecutor;
+
+    TokenLeaseManager(DefaultClusterTokenClient tokenClient) {
+        this.tokenClient = tokenClient;
+    }
+
+    /**
+     * Try to acquire tokens from the lease of the flow.
+     *
+     * @return the result if acquired from the lease, or null if the request should be sent to the token server
+     */
+    TokenResult tryAcquire(long flowId, int acquireCount) {
+        int batchSize = ClusterClientConfigManager.getLeaseBatchSize();
+        if (batchSize <= 0 || acquireCount > batchSize) {
+            return null;
+        }
+        TokenLease lease = leases.get(flowId);
+        if (lease == null) {
+            TokenLease newLease = new TokenLease(flowId);
+            lease = leases.putIfAbsent(flowId, newLease);
+            if (lease == null) {
+                lease = newLease;
+            }
+        }
+        long now = TimeUtil.currentTimeMillis();
+        if (now >= lease.nextExpireAt) {
+            scheduleReturn(lease, lease.expire(now));
+        }
+        int remaining = lease.take(acquireCount);
+        if (remaining < batchSize / 2) {
+            refillIfNeeded(lease, batchSize, now);
+        }
+        if (remaining < 0) {
+            return null;
+        }
+        return new TokenResult(TokenResultStatus.OK)
+            .setRemaining(remaining)
+            .setWaitInMs(0);
+    }
+
+    /**
+     * Drop all the leases, e.g. when the token server is changed.
+     */
+    void clear() {
+        leases.clear();
+    }
+
+    /**
+     * Drop all the leases and shut down the lease executor, which is created again if leasing is used later.
+     */
+    void stop() {
+        synchronized (this) {
+            if (leaseExecutor != null) {
+                leaseExecutor.shutdownNow();
+                leaseExecutor = null;
+            }
+        }
+        leases.clear();
+    }
+
+    synchronized boolean isExecutorStarted() {
+        return leaseExecutor != null;
+    }
+
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    private synchronized ScheduledExecutorService getLeaseExecutor() {
+        if (leaseExecutor == null) {
+            leaseExecutor = Executors.newSingleThreadScheduledExecutor(
+                new NamedThreadFactory("sentinel-cluster-token-lease-task", true));
+            leaseExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    returnExpiredTokens();
+                }
+            }, EXPIRE_CHECK_INTERVAL_MS, EXPIRE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        return leaseExecutor;
+    }
+
+    private void refillIfNeeded(final TokenLease lease, final int batchSize, long now) {
+        if (now < lease.retryAt || !lease.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            getLeaseExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        refill(lease, batchSize);
+                    } finally {
+                        lease.refilling.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            lease.refilling.set(false);
+        }
+    }
+
+    private void refill(TokenLease lease, int batchSize) {
+        FlowRequestData data = new FlowRequestData().setFlowId(lease.flowId).setCount(batchSize);
+        TokenResult result;
+        try {
+            result = tokenClient.sendTokenRequest(
+                new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW_LEASE, data));
+        } catch (Exception ex) {
+            ClusterClientStatLogUtil.log(ex.getMessage());
+            result = new TokenResult(TokenResultStatus.FAIL);
+        }
+        long now = TimeUtil.currentTimeMillis();
+        if (result.getStatus() == TokenResultStatus.OK && result.getRemaining() > 0) {
+            lease.grant(result.getRemaining(), result.getTokenId(), now + result.getWaitInMs());
+        } else if (result.getStatus() == TokenResultStatus.BLOCKED) {
+            lease.retryAt = now + BLOCKED_RETRY_INTERVAL_MS;
+        } else {
+            lease.retryAt = now + FAIL_RETRY_INTERVAL_MS;
+        }
+    }
+
+    private void returnExpiredTokens() {
+        long now = TimeUtil.currentTimeMillis();
+        for (TokenLease lease : leases.values()) {
+            if (now >= lease.nextExpireAt) {
+                returnTokens(lease.flowId, lease.expire(now));
+            }
+        }
+    }
+
+    private void scheduleReturn(final TokenLease lease, final List<Grant> expiredGrants) {
+        if (expiredGrants.isEmpty()) {
+            return;
+        }
+        try {
+            getLeaseExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    returnTokens(lease.flowId, expiredGrants);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // The tokens are released as the sliding window of the token server moves on.
+        }
+    }
+
+    private void returnTokens(long flowId, List<Grant> expiredGrants) {
+        for (Grant grant : expiredGrants) {
+            if (grant.leaseId == 0) {
+                // Granted by a token server without lease IDs, which cannot take the tokens back.
+                continue;
+            }
+            FlowRequestData data = new FlowRequestData().setFlowId(flowId).setCount(grant.unusedCount)
+                .setLeaseId(grant.leaseId);
+            try {
+                tokenClient.sendTokenRequest(new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW_LEASE_RETURN, data));
+            } catch (Exception ex) {
+                ClusterClientStatLogUtil.log(ex.getMessage());
+            }
+        }
+    }
+
+    static final class Grant {
+
+        final int count;
+        final long leaseId;
+        final long expireAt;
+        int unusedCount;
+
+        Grant(int count, long leaseId, long expireAt) {
+            this.count = count;
+            this.leaseId = leaseId;
+            this.expireAt = expireAt;
+        }
+    }
+
+    static final class TokenLease {
+
+        final long flowId;
+        final AtomicInteger available = new AtomicInteger(0);
+        final AtomicBoolean refilling = new AtomicBoolean(false);
+
+        /**
+         * Grants not expired yet, in the order of granting (and expiry, as the lease time is the same).
+         */
+        private final Deque<Grant> grants = new ArrayDeque<>();
+        private int grantedCount = 0;
+
+        volatile long nextExpireAt = Long.MAX_VALUE;
+        volatile long retryAt = 0;
+
+        TokenLease(long flowId) {
+            this.flowId = flowId;
+        }
+
+        /**
+         * @return the remaining count after taken, or -1 if there are not enough tokens
+         */
+        int take(int count) {
+            while (true) {
+                int current = available.get();
+                if (current < count) {
+                    return -1;
+                }
+                if (available.compareAndSet(current, current - count)) {
+                    return current - count;
+                }
+            }
+        }
+
+        synchronized void grant(int count, long leaseId, long expireAt) {
+            grants.addLast(new Grant(count, leaseId, expireAt));
+            grantedCount += count;
+            available.addAndGet(count);
+            nextExpireAt = grants.peekFirst().expireAt;
+        }
+
+        /**
+         * Remove the expired grants. As the tokens are taken in the order of grants, the available tokens
+         * belong to the latest grants, and the unused tokens of an expired grant are the available ones
+         * beyond the count of the later grants.
+         *
+         * @return the expired grants of which some tokens are unused
+         */
+        synchronized List<Grant> expire(long now) {
+            List<Grant> expiredGrants = Collections.emptyList();
+            Grant grant;
+            while ((grant = grants.peekFirst()) != null && now >= grant.expireAt) {
+                int laterCount = grantedCount - grant.count;
+                int unusedCount;
+                while (true) {
+                    int current = available.get();
+                    unusedCount = Math.max(0, current - laterCount);
+                    if (available.compareAndSet(current, current - unusedCount)) {
+                        break;
+                    }
+                }
+                grants.pollFirst();
+                grantedCount = laterCount;
+                if (unusedCount > 0) {
+                    grant.unusedCount = unusedCount;
+                    if (expiredGrants.isEmpty()) {
+                        expiredGrants = new ArrayList<>();
+                    }
+                    expiredGrants.add(grant);
+                }
+            }
+            nextExpireAt = grant == null ? Long.MAX_VALUE : grant.expireAt;
+            return expiredGrants;
+        }
+    }
+}
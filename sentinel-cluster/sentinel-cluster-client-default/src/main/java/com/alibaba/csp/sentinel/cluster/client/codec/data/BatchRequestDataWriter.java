@@ -0,0 +1,50 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client.codec.data;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.client.codec.ClientEntityCodecProvider;
+import com.alibaba.csp.sentinel.cluster.codec.EntityWriter;
+import com.alibaba.csp.sentinel.cluster.codec.request.RequestEntityWriter;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.Request;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p>Writer for a batch of requests, each of them is written by the global request entity writer.</p>
+ *
+ * <pre>
+ * +----------+-----------+--------------------+-----+
+ * | count(2) | length(2) | xid + type + data  | ... |
+ * +----------+-----------+--------------------+-----+
+ * </pre>
+ */
+public class BatchRequestDataWriter implements EntityWriter<List<ClusterRequest>, ByteBuf> {
+
+    @Override
+    public void writeTo(List<ClusterRequest> entity, ByteBuf target) {
+        RequestEntityWriter<Request, ByteBuf> requestWriter = ClientEntityCodecProvider.getRequestEntityWriter();
+        target.writeShort(entity.size());
+        for (ClusterRequest request : entity) {
+            int lengthIndex = target.writerIndex();
+            target.writeShort(0);
+            requestWriter.writeTo(request, target);
+            target.setShort(lengthIndex, target.writerIndex() - lengthIndex - 2);
+        }
+    }
+}
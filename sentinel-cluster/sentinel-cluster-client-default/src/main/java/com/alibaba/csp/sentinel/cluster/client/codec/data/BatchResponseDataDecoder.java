@@ -0,0 +1,85 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client.codec.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.codec.ClientEntityCodecProvider;
+import com.alibaba.csp.sentinel.cluster.codec.EntityDecoder;
+import com.alibaba.csp.sentinel.cluster.codec.response.ResponseEntityDecoder;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.Response;
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p>Decoder for a batch of responses, each of them is decoded by the global response entity decoder.
+ * A response that cannot be decoded is kept as a failed response with no data (matched by its xid),
+ * rather than leaving the request to time out.</p>
+ *
+ * <pre>
+ * +----------+-----------+------------------------------+-----+
+ * | count(2) | length(2) | xid + type + status + data   | ... |
+ * +----------+-----------+------------------------------+-----+
+ * </pre>
+ */
+public class BatchResponseDataDecoder implements EntityDecoder<ByteBuf, List<ClusterResponse>> {
+
+    @Override
+    public List<ClusterResponse> decode(ByteBuf source) {
+        ResponseEntityDecoder<ByteBuf, Response> responseDecoder = ClientEntityCodecProvider
+            .getResponseEntityDecoder();
+        if (responseDecoder == null || source.readableBytes() < 2) {
+            return null;
+        }
+        int count = source.readUnsignedShort();
+        List<ClusterResponse> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = source.readableBytes() >= 2 ? source.readUnsignedShort() : -1;
+            if (length < 0 || source.readableBytes() < length) {
+                RecordLog.warn("[BatchResponseDataDecoder] Truncated batch, {} of {} responses dropped",
+                    count - i, count);
+                break;
+            }
+            ByteBuf entity = source.readSlice(length);
+            Response response = decodeEntity(responseDecoder, entity);
+            if (response instanceof ClusterResponse) {
+                responses.add((ClusterResponse) response);
+            } else if (entity.capacity() >= 5) {
+                int xid = entity.getInt(0);
+                int type = entity.getByte(4);
+                RecordLog.warn("[BatchResponseDataDecoder] Undecodable response in batch, xid: {}, type: {}",
+                    xid, type);
+                responses.add(new ClusterResponse<>(xid, type, ClusterConstants.RESPONSE_STATUS_BAD, null));
+            } else {
+                RecordLog.warn("[BatchResponseDataDecoder] Undecodable response without xid in batch dropped");
+            }
+        }
+        return responses;
+    }
+
+    private static Response decodeEntity(ResponseEntityDecoder<ByteBuf, Response> responseDecoder,
+                                         ByteBuf entity) {
+        try {
+            return responseDecoder.decode(entity);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+}
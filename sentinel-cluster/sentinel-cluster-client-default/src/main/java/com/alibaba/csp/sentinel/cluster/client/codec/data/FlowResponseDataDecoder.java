@@ -30,10 +30,14 @@ public class FlowResponseDataDecoder implements EntityDecoder<ByteBuf, FlowToken
     public FlowTokenResponseData decode(ByteBuf source) {
         FlowTokenResponseData data = new FlowTokenResponseData();
 
-        if (source.readableBytes() == 8) {
+        if (source.readableBytes() >= 8) {
             data.setRemainingCount(source.readInt());
             data.setWaitInMs(source.readInt());
         }
+        // The connected count is appended by the token server optionally.
+        if (source.readableBytes() >= 4) {
+            data.setConnectedCount(source.readInt());
+        }
         return data;
     }
 }
@@ -49,15 +49,31 @@ public class ParamFlowRequestDataWriter implements EntityWriter<ParamFlowRequest
         target.writeLong(entity.getFlowId());
         target.writeInt(entity.getCount());
 
-        Collection<Object> params = entity.getParams();
-
-        params = resolveValidParams(params);
-        target.writeInt(params.size());
-
+        // The amount is written back when the valid parameters are resolved,
+        // so that parameters are encoded in one pass without the intermediate list.
+        int amountIndex = target.writerIndex();
+        target.writeInt(0);
+        int amount = 0;
+        int size = 0;
         // Serialize parameters with type flag.
-        for (Object param : params) {
+        for (Object param : entity.getParams()) {
+            int s = calculateParamTransportSize(param);
+            if (s <= 0) {
+                RecordLog.warn("[ParamFlowRequestDataWriter] WARN: Non-primitive type detected in params of "
+                        + "cluster parameter flow control, which is not supported: " + param);
+                continue;
+            }
+            if (size + s > maxParamByteSize) {
+                RecordLog.warn("[ParamFlowRequestDataWriter] WARN: params size is too big." +
+                        " the configure value is : " + maxParamByteSize + ", the params size is: "
+                        + entity.getParams().size());
+                break;
+            }
+            size += s;
             encodeValue(param, target);
+            amount++;
         }
+        target.setInt(amountIndex, amount);
     }
 
     /**
@@ -119,7 +135,7 @@ public class ParamFlowRequestDataWriter implements EntityWriter<ParamFlowRequest
 
     private void encodeString(String param, ByteBuf target) {
         target.writeByte(ClusterConstants.PARAM_TYPE_STRING);
-        byte[] tmpChars = param.getBytes();
+        byte[] tmpChars = ENCODED_STRINGS.getBytes(param);
         target.writeInt(tmpChars.length);
         target.writeBytes(tmpChars);
     }
@@ -136,7 +152,7 @@ public class ParamFlowRequestDataWriter implements EntityWriter<ParamFlowRequest
         } else if (value instanceof String) {
             // Layout for string: |type flag(1)|length(4)|string content|
             String tmpValue = (String) value;
-            byte[] tmpChars = tmpValue.getBytes();
+            byte[] tmpChars = ENCODED_STRINGS.getBytes(tmpValue);
             return 1 + 4 + tmpChars.length;
         } else if (boolean.class.isInstance(value) || value instanceof Boolean) {
             return 2;
@@ -157,4 +173,53 @@ public class ParamFlowRequestDataWriter implements EntityWriter<ParamFlowRequest
     }
 
     private static final int DEFAULT_PARAM_MAX_SIZE = 1024;
+
+    private static final EncodedStringCache ENCODED_STRINGS = new EncodedStringCache(1024, 256);
+
+    /**
+     * Direct-mapped cache of the encoded bytes of hot string parameters, so that a string parameter
+     * is not encoded again for the size calculation and for each request. Entries are immutable,
+     * so the cache is safe to be read and replaced without locking.
+     */
+    static final class EncodedStringCache {
+
+        private final Entry[] entries;
+        private final int mask;
+        private final int maxCachedLength;
+
+        EncodedStringCache(int capacity, int maxCachedLength) {
+            int size = 1;
+            while (size < capacity) {
+                size <<= 1;
+            }
+            this.entries = new Entry[size];
+            this.mask = size - 1;
+            this.maxCachedLength = maxCachedLength;
+        }
+
+        byte[] getBytes(String value) {
+            if (value.length() > maxCachedLength) {
+                return value.getBytes();
+            }
+            int hash = value.hashCode();
+            int index = (hash ^ (hash >>> 16)) & mask;
+            Entry entry = entries[index];
+            if (entry != null && entry.value.equals(value)) {
+                return entry.bytes;
+            }
+            byte[] bytes = value.getBytes();
+            entries[index] = new Entry(value, bytes);
+            return bytes;
+        }
+
+        private static final class Entry {
+            private final String value;
+            private final byte[] bytes;
+
+            Entry(String value, byte[] bytes) {
+                this.value = value;
+                this.bytes = bytes;
+            }
+        }
+    }
 }
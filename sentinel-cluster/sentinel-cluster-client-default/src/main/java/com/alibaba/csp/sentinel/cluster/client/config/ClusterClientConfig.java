@@ -22,6 +22,28 @@ package com.alibaba.csp.sentinel.cluster.client.config;
 public class ClusterClientConfig {
 
     private Integer requestTimeout;
+    /**
+     * Count of tokens to lease from the token server in a batch, leasing is disabled if absent or 0.
+     */
+    private Integer leaseBatchSize;
+    /**
+     * Max count of concurrent token requests coalesced in a frame, batching is disabled if absent or no more than 1.
+     */
+    private Integer requestBatchSize;
+
+    /**
+     * Whether to use the native epoll transport if available, true by default.
+     * The transport options take effect on the next connection.
+     */
+    private Boolean nativeTransport;
+    /**
+     * Count of event loop threads of a connection, 0 for the default count of Netty.
+     */
+    private Integer eventLoopThreads;
+    private Boolean tcpNoDelay;
+    private Integer writeBufferLowWaterMark;
+    private Integer writeBufferHighWaterMark;
+    private Integer maxFrameLength;
 
     public Integer getRequestTimeout() {
         return requestTimeout;
@@ -32,10 +54,90 @@ public class ClusterClientConfig {
         return this;
     }
 
+    public Integer getLeaseBatchSize() {
+        return leaseBatchSize;
+    }
+
+    public ClusterClientConfig setLeaseBatchSize(Integer leaseBatchSize) {
+        this.leaseBatchSize = leaseBatchSize;
+        return this;
+    }
+
+    public Integer getRequestBatchSize() {
+        return requestBatchSize;
+    }
+
+    public ClusterClientConfig setRequestBatchSize(Integer requestBatchSize) {
+        this.requestBatchSize = requestBatchSize;
+        return this;
+    }
+
+    public Boolean getNativeTransport() {
+        return nativeTransport;
+    }
+
+    public ClusterClientConfig setNativeTransport(Boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+        return this;
+    }
+
+    public Integer getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    public ClusterClientConfig setEventLoopThreads(Integer eventLoopThreads) {
+        this.eventLoopThreads = eventLoopThreads;
+        return this;
+    }
+
+    public Boolean getTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public ClusterClientConfig setTcpNoDelay(Boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public Integer getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public ClusterClientConfig setWriteBufferLowWaterMark(Integer writeBufferLowWaterMark) {
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+        return this;
+    }
+
+    public Integer getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    public ClusterClientConfig setWriteBufferHighWaterMark(Integer writeBufferHighWaterMark) {
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+        return this;
+    }
+
+    public Integer getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    public ClusterClientConfig setMaxFrameLength(Integer maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "ClusterClientConfig{" +
             "requestTimeout=" + requestTimeout +
+            ", leaseBatchSize=" + leaseBatchSize +
+            ", requestBatchSize=" + requestBatchSize +
+            ", nativeTransport=" + nativeTransport +
+            ", eventLoopThreads=" + eventLoopThreads +
+            ", tcpNoDelay=" + tcpNoDelay +
+            ", writeBufferLowWaterMark=" + writeBufferLowWaterMark +
+            ", writeBufferHighWaterMark=" + writeBufferHighWaterMark +
+            ", maxFrameLength=" + maxFrameLength +
             '}';
     }
 }
@@ -19,6 +19,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenServerPartition;
+import com.alibaba.csp.sentinel.cluster.client.ClientConstants;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
@@ -40,14 +42,35 @@ public final class ClusterClientConfigManager {
 
     private static volatile int requestTimeout = ClusterConstants.DEFAULT_REQUEST_TIMEOUT;
     private static volatile int connectTimeout = ClusterConstants.DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    private static volatile int leaseBatchSize = 0;
+    private static volatile int requestBatchSize = 0;
+
+    /**
+     * Transport options, which take effect on the next connection.
+     */
+    private static volatile boolean nativeTransport = true;
+    private static volatile int eventLoopThreads = 0;
+    private static volatile boolean tcpNoDelay = true;
+    private static volatile int writeBufferLowWaterMark = ClientConstants.DEFAULT_WRITE_BUFFER_LOW_WATER_MARK;
+    private static volatile int writeBufferHighWaterMark = ClientConstants.DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK;
+    private static volatile int maxFrameLength = ClusterConstants.MAX_FRAME_LENGTH;
+
+    /**
+     * Partition of the token servers, which is absent when all requests go to the assigned server.
+     */
+    private static volatile TokenServerPartition partition = null;
 
     private static final PropertyListener<ClusterClientConfig> CONFIG_PROPERTY_LISTENER
         = new ClientConfigPropertyListener();
     private static final PropertyListener<ClusterClientAssignConfig> ASSIGN_PROPERTY_LISTENER
         = new ClientAssignPropertyListener();
+    private static final PropertyListener<ClusterClientPartitionConfig> PARTITION_PROPERTY_LISTENER
+        = new ClientPartitionPropertyListener();
 
     private static SentinelProperty<ClusterClientConfig> clientConfigProperty = new DynamicSentinelProperty<>();
     private static SentinelProperty<ClusterClientAssignConfig> clientAssignProperty = new DynamicSentinelProperty<>();
+    private static SentinelProperty<ClusterClientPartitionConfig> clientPartitionProperty
+        = new DynamicSentinelProperty<>();
 
     private static final List<ServerChangeObserver> SERVER_CHANGE_OBSERVERS = new ArrayList<>();
 
@@ -59,11 +82,13 @@ public final class ClusterClientConfigManager {
         removePropertyListener();
         clientAssignProperty.addListener(ASSIGN_PROPERTY_LISTENER);
         clientConfigProperty.addListener(CONFIG_PROPERTY_LISTENER);
+        clientPartitionProperty.addListener(PARTITION_PROPERTY_LISTENER);
     }
 
     private static void removePropertyListener() {
         clientAssignProperty.removeListener(ASSIGN_PROPERTY_LISTENER);
         clientConfigProperty.removeListener(CONFIG_PROPERTY_LISTENER);
+        clientPartitionProperty.removeListener(PARTITION_PROPERTY_LISTENER);
     }
 
     public static void registerServerAssignProperty(SentinelProperty<ClusterClientAssignConfig> property) {
@@ -88,6 +113,17 @@ public final class ClusterClientConfigManager {
         }
     }
 
+    public static void registerServerPartitionProperty(SentinelProperty<ClusterClientPartitionConfig> property) {
+        AssertUtil.notNull(property, "property cannot be null");
+        synchronized (PARTITION_PROPERTY_LISTENER) {
+            RecordLog.info("[ClusterClientConfigManager] Registering new server partition property to cluster "
+                + "client config manager");
+            clientPartitionProperty.removeListener(PARTITION_PROPERTY_LISTENER);
+            property.addListener(PARTITION_PROPERTY_LISTENER);
+            clientPartitionProperty = property;
+        }
+    }
+
     public static void addServerChangeObserver(ServerChangeObserver observer) {
         AssertUtil.notNull(observer, "observer cannot be null");
         SERVER_CHANGE_OBSERVERS.add(observer);
@@ -137,6 +173,51 @@ public final class ClusterClientConfigManager {
         }
     }
 
+    /**
+     * Apply new {@link ClusterClientPartitionConfig}. An empty server list removes the partition.
+     *
+     * @param config new partition config to apply
+     */
+    public static void applyNewPartitionConfig(ClusterClientPartitionConfig config) {
+        clientPartitionProperty.updateValue(config);
+    }
+
+    private static class ClientPartitionPropertyListener implements PropertyListener<ClusterClientPartitionConfig> {
+        @Override
+        public void configLoad(ClusterClientPartitionConfig config) {
+            if (config == null) {
+                return;
+            }
+            applyConfig(config);
+        }
+
+        @Override
+        public void configUpdate(ClusterClientPartitionConfig config) {
+            applyConfig(config);
+        }
+
+        private synchronized void applyConfig(ClusterClientPartitionConfig config) {
+            TokenServerPartition newPartition = null;
+            if (config != null && config.getServers() != null && !config.getServers().isEmpty()) {
+                if (!isValidPartitionConfig(config)) {
+                    RecordLog.warn(
+                        "[ClusterClientConfigManager] Invalid cluster client partition config, ignoring: " + config);
+                    return;
+                }
+                newPartition = new TokenServerPartition(config.getServers(), config.getVirtualNodeCount());
+            }
+            if (newPartition == null ? partition == null : newPartition.equals(partition)) {
+                return;
+            }
+            RecordLog.info("[ClusterClientConfigManager] Token server partition changed: {}", newPartition);
+
+            for (ServerChangeObserver observer : SERVER_CHANGE_OBSERVERS) {
+                observer.onPartitionChange(newPartition);
+            }
+            partition = newPartition;
+        }
+    }
+
     private static class ClientConfigPropertyListener implements PropertyListener<ClusterClientConfig> {
 
         @Override
@@ -170,6 +251,30 @@ public final class ClusterClientConfigManager {
         if (config.getRequestTimeout() != requestTimeout) {
             requestTimeout = config.getRequestTimeout();
         }
+        if (config.getLeaseBatchSize() != null) {
+            leaseBatchSize = config.getLeaseBatchSize();
+        }
+        if (config.getRequestBatchSize() != null) {
+            requestBatchSize = config.getRequestBatchSize();
+        }
+        if (config.getNativeTransport() != null) {
+            nativeTransport = config.getNativeTransport();
+        }
+        if (config.getEventLoopThreads() != null) {
+            eventLoopThreads = config.getEventLoopThreads();
+        }
+        if (config.getTcpNoDelay() != null) {
+            tcpNoDelay = config.getTcpNoDelay();
+        }
+        if (config.getWriteBufferLowWaterMark() != null) {
+            writeBufferLowWaterMark = config.getWriteBufferLowWaterMark();
+        }
+        if (config.getWriteBufferHighWaterMark() != null) {
+            writeBufferHighWaterMark = config.getWriteBufferHighWaterMark();
+        }
+        if (config.getMaxFrameLength() != null) {
+            maxFrameLength = config.getMaxFrameLength();
+        }
     }
 
     private static void updateServerAssignment(/*@Valid*/ ClusterClientAssignConfig config) {
@@ -190,8 +295,34 @@ public final class ClusterClientConfigManager {
             && config.getServerPort() <= 65535;
     }
 
+    public static boolean isValidPartitionConfig(ClusterClientPartitionConfig config) {
+        if (config == null || config.getServers() == null || config.getVirtualNodeCount() <= 0) {
+            return false;
+        }
+        for (String address : config.getServers()) {
+            if (!TokenServerPartition.isValidAddress(address)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static boolean isValidClientConfig(ClusterClientConfig config) {
-        return config != null && config.getRequestTimeout() > 0;
+        return config != null && config.getRequestTimeout() > 0
+            && (config.getLeaseBatchSize() == null || config.getLeaseBatchSize() >= 0)
+            && (config.getRequestBatchSize() == null || config.getRequestBatchSize() >= 0)
+            && (config.getEventLoopThreads() == null || config.getEventLoopThreads() >= 0)
+            && isValidWaterMark(config)
+            && (config.getMaxFrameLength() == null
+                || (config.getMaxFrameLength() > 0 && config.getMaxFrameLength() <= ClusterConstants.MAX_FRAME_LENGTH));
+    }
+
+    private static boolean isValidWaterMark(ClusterClientConfig config) {
+        int low = config.getWriteBufferLowWaterMark() == null ? writeBufferLowWaterMark
+            : config.getWriteBufferLowWaterMark();
+        int high = config.getWriteBufferHighWaterMark() == null ? writeBufferHighWaterMark
+            : config.getWriteBufferHighWaterMark();
+        return low >= 0 && high >= low;
     }
 
     public static String getServerHost() {
@@ -202,6 +333,10 @@ public final class ClusterClientConfigManager {
         return serverPort;
     }
 
+    public static TokenServerPartition getPartition() {
+        return partition;
+    }
+
     public static int getRequestTimeout() {
         return requestTimeout;
     }
@@ -210,5 +345,37 @@ public final class ClusterClientConfigManager {
         return connectTimeout;
     }
 
+    public static int getLeaseBatchSize() {
+        return leaseBatchSize;
+    }
+
+    public static int getRequestBatchSize() {
+        return requestBatchSize;
+    }
+
+    public static boolean isNativeTransport() {
+        return nativeTransport;
+    }
+
+    public static int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    public static boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public static int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public static int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    public static int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
     private ClusterClientConfigManager() {}
 }
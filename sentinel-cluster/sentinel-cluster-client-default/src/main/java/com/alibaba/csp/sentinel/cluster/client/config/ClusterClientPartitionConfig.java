@@ -0,0 +1,60 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.TokenServerPartition;
+
+/**
+ * Partition config of the token servers. When present, the token requests are routed to the server
+ * owning the flow ID (see {@link TokenServerPartition}) instead of the assigned server.
+ */
+public class ClusterClientPartitionConfig {
+
+    /**
+     * Addresses of all token servers in {@code host:port} format, which should be the same as the servers.
+     */
+    private List<String> servers = new ArrayList<>();
+    private int virtualNodeCount = TokenServerPartition.DEFAULT_VIRTUAL_NODE_COUNT;
+
+    public List<String> getServers() {
+        return servers;
+    }
+
+    public ClusterClientPartitionConfig setServers(List<String> servers) {
+        this.servers = servers;
+        return this;
+    }
+
+    public int getVirtualNodeCount() {
+        return virtualNodeCount;
+    }
+
+    public ClusterClientPartitionConfig setVirtualNodeCount(int virtualNodeCount) {
+        this.virtualNodeCount = virtualNodeCount;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterClientPartitionConfig{" +
+            "servers=" + servers +
+            ", virtualNodeCount=" + virtualNodeCount +
+            '}';
+    }
+}
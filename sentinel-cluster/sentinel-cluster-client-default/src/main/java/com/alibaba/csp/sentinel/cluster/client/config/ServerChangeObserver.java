@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.cluster.client.config;
 
+import com.alibaba.csp.sentinel.cluster.TokenServerPartition;
+
 /**
  * @author Eric Zhao
  * @since 1.4.0
@@ -27,4 +29,11 @@ public interface ServerChangeObserver {
      * @param assignConfig new cluster assignment config
      */
     void onRemoteServerChange(ClusterClientAssignConfig assignConfig);
+
+    /**
+     * Callback on token server partition change.
+     *
+     * @param partition new token server partition, or null if the partition is removed
+     */
+    default void onPartitionChange(TokenServerPartition partition) {}
 }
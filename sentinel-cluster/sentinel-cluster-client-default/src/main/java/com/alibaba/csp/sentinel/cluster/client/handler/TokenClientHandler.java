@@ -16,6 +16,7 @@
 package com.alibaba.csp.sentinel.cluster.client.handler;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.alibaba.csp.sentinel.cluster.ClusterConstants;
@@ -60,11 +61,26 @@ public class TokenClientHandler extends ChannelInboundHandlerAdapter {
                 handlePingResponse(ctx, response);
                 return;
             }
+            if (response.getType() == ClusterConstants.MSG_TYPE_BATCH) {
+                handleBatchResponse(response);
+                return;
+            }
 
             TokenClientPromiseHolder.completePromise(response.getId(), response);
         }
     }
 
+    private void handleBatchResponse(ClusterResponse<?> response) {
+        if (response.getData() == null) {
+            RecordLog.warn("[TokenClientHandler] Bad batch response, status: {}", response.getStatus());
+            return;
+        }
+        for (Object item : (List<?>) response.getData()) {
+            ClusterResponse<?> subResponse = (ClusterResponse<?>) item;
+            TokenClientPromiseHolder.completePromise(subResponse.getId(), subResponse);
+        }
+    }
+
     private void fireClientPing(ChannelHandlerContext ctx) {
         // Data body: namespace of the client.
         ClusterRequest<String> ping = new ClusterRequest<String>().setId(0)
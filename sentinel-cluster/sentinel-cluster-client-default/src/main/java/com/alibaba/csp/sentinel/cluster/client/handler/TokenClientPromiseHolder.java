@@ -18,36 +18,55 @@ package com.alibaba.csp.sentinel.cluster.client.handler;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
 
 import io.netty.channel.ChannelPromise;
 
 /**
+ * <p>Holds the promises of in-flight requests. As the xid is generated sequentially, the promises are kept in
+ * a preallocated slot array indexed by the xid, and only the ones colliding with a still in-flight request
+ * (more than {@link #SLOT_COUNT} requests in flight) go to the overflow map.</p>
+ *
  * @author Eric Zhao
  * @since 1.4.0
  */
 public final class TokenClientPromiseHolder {
 
-    private static final Map<Integer, SimpleEntry<ChannelPromise, ClusterResponse>> PROMISE_MAP = new ConcurrentHashMap<>();
+    private static final int SLOT_COUNT = 1 << 14;
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+
+    private static final AtomicReferenceArray<PromiseEntry> PROMISE_SLOTS = new AtomicReferenceArray<>(SLOT_COUNT);
+    private static final Map<Integer, PromiseEntry> OVERFLOW_PROMISE_MAP = new ConcurrentHashMap<>();
 
     public static void putPromise(int xid, ChannelPromise promise) {
-        PROMISE_MAP.put(xid, new SimpleEntry<ChannelPromise, ClusterResponse>(promise, null));
+        PromiseEntry entry = new PromiseEntry(xid, promise);
+        if (!PROMISE_SLOTS.compareAndSet(xid & SLOT_MASK, null, entry)) {
+            OVERFLOW_PROMISE_MAP.put(xid, entry);
+        }
     }
 
     public static SimpleEntry<ChannelPromise, ClusterResponse> getEntry(int xid) {
-        return PROMISE_MAP.get(xid);
+        PromiseEntry entry = PROMISE_SLOTS.get(xid & SLOT_MASK);
+        if (entry != null && entry.xid == xid) {
+            return entry;
+        }
+        return OVERFLOW_PROMISE_MAP.isEmpty() ? null : OVERFLOW_PROMISE_MAP.get(xid);
     }
 
     public static void remove(int xid) {
-        PROMISE_MAP.remove(xid);
+        int slot = xid & SLOT_MASK;
+        PromiseEntry entry = PROMISE_SLOTS.get(slot);
+        if (entry != null && entry.xid == xid) {
+            PROMISE_SLOTS.compareAndSet(slot, entry, null);
+        } else {
+            OVERFLOW_PROMISE_MAP.remove(xid);
+        }
     }
 
     public static <T> boolean completePromise(int xid, ClusterResponse<T> response) {
-        if (!PROMISE_MAP.containsKey(xid)) {
-            return false;
-        }
-        SimpleEntry<ChannelPromise, ClusterResponse> entry = PROMISE_MAP.get(xid);
+        SimpleEntry<ChannelPromise, ClusterResponse> entry = getEntry(xid);
         if (entry != null) {
             ChannelPromise promise = entry.getKey();
             if (promise.isDone() || promise.isCancelled()) {
@@ -60,5 +79,15 @@ public final class TokenClientPromiseHolder {
         return false;
     }
 
+    private static final class PromiseEntry extends SimpleEntry<ChannelPromise, ClusterResponse> {
+
+        private final int xid;
+
+        PromiseEntry(int xid, ChannelPromise promise) {
+            super(promise, null);
+            this.xid = xid;
+        }
+    }
+
     private TokenClientPromiseHolder() {}
 }
@@ -30,6 +30,8 @@ public class ClusterClientStateEntity {
     private Integer clientState;
 
     private Integer requestTimeout;
+    private Integer leaseBatchSize;
+    private Integer requestBatchSize;
 
     public String getServerHost() {
         return serverHost;
@@ -58,6 +60,24 @@ public class ClusterClientStateEntity {
         return this;
     }
 
+    public Integer getLeaseBatchSize() {
+        return leaseBatchSize;
+    }
+
+    public ClusterClientStateEntity setLeaseBatchSize(Integer leaseBatchSize) {
+        this.leaseBatchSize = leaseBatchSize;
+        return this;
+    }
+
+    public Integer getRequestBatchSize() {
+        return requestBatchSize;
+    }
+
+    public ClusterClientStateEntity setRequestBatchSize(Integer requestBatchSize) {
+        this.requestBatchSize = requestBatchSize;
+        return this;
+    }
+
     public Integer getClientState() {
         return clientState;
     }
@@ -68,7 +88,9 @@ public class ClusterClientStateEntity {
     }
 
     public ClusterClientConfig toClientConfig() {
-        return new ClusterClientConfig().setRequestTimeout(requestTimeout);
+        return new ClusterClientConfig().setRequestTimeout(requestTimeout)
+            .setLeaseBatchSize(leaseBatchSize)
+            .setRequestBatchSize(requestBatchSize);
     }
 
     public ClusterClientAssignConfig toAssignConfig() {
@@ -84,6 +106,8 @@ public class ClusterClientStateEntity {
             ", serverPort=" + serverPort +
             ", clientState=" + clientState +
             ", requestTimeout=" + requestTimeout +
+            ", leaseBatchSize=" + leaseBatchSize +
+            ", requestBatchSize=" + requestBatchSize +
             '}';
     }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NativeTransportSupportTest {
+
+    @Test
+    public void testFallbackToNioWithoutNativeTransport() {
+        // The native epoll artifact is absent in the test classpath.
+        assertFalse(NativeTransportSupport.isEpollAvailable());
+
+        EventLoopGroup group = NativeTransportSupport.newEventLoopGroup(1, true);
+        try {
+            assertTrue(group instanceof NioEventLoopGroup);
+            assertEquals(NioServerSocketChannel.class, NativeTransportSupport.serverChannelClass(group));
+            assertEquals(NioSocketChannel.class, NativeTransportSupport.channelClass(group));
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link TokenServerPartition}.
+ */
+public class TokenServerPartitionTest {
+
+    @Test
+    public void testRouteEvenly() {
+        List<String> servers = Arrays.asList("10.0.0.1:18730", "10.0.0.2:18730", "10.0.0.3:18730",
+            "10.0.0.4:18730");
+        TokenServerPartition partition = new TokenServerPartition(servers);
+        int flowCount = 40000;
+        int[] counts = new int[servers.size()];
+        for (long flowId = 1; flowId <= flowCount; flowId++) {
+            counts[partition.indexOf(flowId)]++;
+        }
+        double totalShare = 0;
+        for (int i = 0; i < servers.size(); i++) {
+            // Each server owns about a quarter of the flows.
+            assertEquals(flowCount / 4.0, counts[i], flowCount * 0.05);
+            assertEquals(counts[i] / (double) flowCount, partition.getShare(i), 0.03);
+            totalShare += partition.getShare(i);
+        }
+        assertEquals(1, totalShare, 0.0001);
+
+        // The same server list always results in the same partition.
+        TokenServerPartition another = new TokenServerPartition(servers);
+        assertEquals(partition, another);
+        for (long flowId = 1; flowId <= 1000; flowId++) {
+            assertEquals(partition.indexOf(flowId), another.indexOf(flowId));
+        }
+        TokenServerDescriptor server = partition.route(42L);
+        assertEquals(servers.get(partition.indexOf(42L)), server.getHost() + ":" + server.getPort());
+    }
+
+    @Test
+    public void testOnlyFlowsOfAddedServerMove() {
+        TokenServerPartition before = new TokenServerPartition(Arrays.asList("a:1", "b:2", "c:3"));
+        TokenServerPartition after = new TokenServerPartition(Arrays.asList("a:1", "b:2", "c:3", "d:4"));
+        int moved = 0;
+        for (long flowId = 1; flowId <= 10000; flowId++) {
+            int index = after.indexOf(flowId);
+            if (index != before.indexOf(flowId)) {
+                // Flows only move to the new server.
+                assertEquals(3, index);
+                moved++;
+            }
+        }
+        assertEquals(2500, moved, 500);
+    }
+
+    @Test
+    public void testSingleServer() {
+        TokenServerPartition partition = new TokenServerPartition(Collections.singletonList("localhost:18730"), 1);
+        assertEquals(0, partition.indexOf(Long.MAX_VALUE));
+        assertEquals(0, partition.indexOf(1L));
+        assertEquals(1, partition.getShare(0), 0.0001);
+    }
+
+    @Test
+    public void testValidAddress() {
+        assertTrue(TokenServerPartition.isValidAddress("localhost:18730"));
+        assertFalse(TokenServerPartition.isValidAddress("localhost"));
+        assertFalse(TokenServerPartition.isValidAddress("localhost:"));
+        assertFalse(TokenServerPartition.isValidAddress(":18730"));
+        assertFalse(TokenServerPartition.isValidAddress("localhost:65536"));
+        assertFalse(TokenServerPartition.isValidAddress(null));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.ParamFlowRequestData;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RequestBatcherTest {
+
+    @After
+    public void tearDown() {
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(20)
+            .setRequestBatchSize(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCoalesceRequestsInOneTick() {
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(20)
+            .setRequestBatchSize(2));
+        EmbeddedChannel channel = new EmbeddedChannel();
+        RequestBatcher batcher = new RequestBatcher(channel);
+
+        batcher.write(flowRequest(1));
+        batcher.write(new ClusterRequest<>(2, ClusterConstants.MSG_TYPE_PARAM_FLOW, new ParamFlowRequestData()));
+        batcher.write(flowRequest(3));
+        batcher.write(flowRequest(4));
+        batcher.write(flowRequest(5));
+        batcher.write(flowRequest(6));
+        // Nothing is written until the event loop runs the flush task.
+        assertNull(channel.readOutbound());
+        channel.runPendingTasks();
+
+        ClusterRequest request = channel.readOutbound();
+        assertEquals(2, request.getId());
+        request = channel.readOutbound();
+        assertEquals(ClusterConstants.MSG_TYPE_BATCH, request.getType());
+        List<ClusterRequest> batch = (List<ClusterRequest>) request.getData();
+        assertEquals(2, batch.size());
+        assertEquals(1, batch.get(0).getId());
+        assertEquals(3, batch.get(1).getId());
+        request = channel.readOutbound();
+        assertEquals(ClusterConstants.MSG_TYPE_BATCH, request.getType());
+        assertEquals(2, ((List<ClusterRequest>) request.getData()).size());
+        // The single one left is written as it is.
+        request = channel.readOutbound();
+        assertEquals(ClusterConstants.MSG_TYPE_FLOW, request.getType());
+        assertEquals(6, request.getId());
+        assertNull(channel.readOutbound());
+
+        // A new flush task is scheduled for later requests.
+        batcher.write(flowRequest(7));
+        channel.runPendingTasks();
+        request = channel.readOutbound();
+        assertEquals(7, request.getId());
+        channel.finishAndReleaseAll();
+    }
+
+    private ClusterRequest<FlowRequestData> flowRequest(int xid) {
+        return new ClusterRequest<>(xid, ClusterConstants.MSG_TYPE_FLOW,
+            new FlowRequestData().setFlowId(100L).setCount(1));
+    }
+}
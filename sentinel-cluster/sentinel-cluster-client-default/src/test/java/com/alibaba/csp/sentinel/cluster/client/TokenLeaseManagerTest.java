@@ -0,0 +1,151 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TokenLeaseManagerTest {
+
+    private static final long FLOW_ID = 111L;
+    private static final int LEASE_MS = 200;
+
+    private final AtomicInteger serverQuota = new AtomicInteger();
+    private final AtomicInteger leaseRequests = new AtomicInteger();
+    private final AtomicInteger returnedCount = new AtomicInteger();
+    private final AtomicLong returnedLeaseId = new AtomicLong();
+
+    private TokenLeaseManager leaseManager;
+
+    @Before
+    public void setUp() {
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(20)
+            .setLeaseBatchSize(10));
+        leaseManager = new TokenLeaseManager(new DefaultClusterTokenClient() {
+            @Override
+            TokenResult sendTokenRequest(ClusterRequest request) {
+                FlowRequestData data = (FlowRequestData) request.getData();
+                assertEquals(FLOW_ID, data.getFlowId());
+                if (request.getType() == ClusterConstants.MSG_TYPE_FLOW_LEASE) {
+                    int leaseId = leaseRequests.incrementAndGet();
+                    int granted = Math.min(data.getCount(), serverQuota.getAndSet(0));
+                    if (granted <= 0) {
+                        return new TokenResult(TokenResultStatus.BLOCKED);
+                    }
+                    TokenResult result = new TokenResult(TokenResultStatus.OK).setRemaining(granted)
+                        .setWaitInMs(LEASE_MS);
+                    result.setTokenId(leaseId);
+                    return result;
+                }
+                returnedLeaseId.set(data.getLeaseId());
+                returnedCount.addAndGet(data.getCount());
+                return new TokenResult(TokenResultStatus.OK);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        leaseManager.stop();
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(20)
+            .setLeaseBatchSize(0));
+    }
+
+    @Test
+    public void testAcquireFromLease() throws Exception {
+        serverQuota.set(10);
+        // No lease at first, the refill is triggered.
+        assertNull(leaseManager.tryAcquire(FLOW_ID, 1));
+        waitFor(leaseRequests, 1);
+        for (int i = 0; i < 10; i++) {
+            TokenResult result = leaseManager.tryAcquire(FLOW_ID, 1);
+            assertNotNull(result);
+            assertEquals(TokenResultStatus.OK, (int) result.getStatus());
+            assertEquals(9 - i, result.getRemaining());
+        }
+        // Exhausted, and the server refuses to lease more.
+        assertNull(leaseManager.tryAcquire(FLOW_ID, 1));
+        assertNull(leaseManager.tryAcquire(FLOW_ID, 11));
+    }
+
+    @Test
+    public void testReturnUnusedTokensOnExpiry() throws Exception {
+        serverQuota.set(8);
+        assertNull(leaseManager.tryAcquire(FLOW_ID, 2));
+        waitFor(leaseRequests, 1);
+        assertNotNull(leaseManager.tryAcquire(FLOW_ID, 3));
+        waitFor(returnedCount, 5);
+        assertEquals(1, returnedLeaseId.get());
+        assertNull(leaseManager.tryAcquire(FLOW_ID, 1));
+    }
+
+    @Test
+    public void testEachGrantExpiresOnItsOwn() throws Exception {
+        serverQuota.set(10);
+        assertNull(leaseManager.tryAcquire(FLOW_ID, 1));
+        waitFor(leaseRequests, 1);
+        // Less than half is left, but the server refuses to lease more at first.
+        assertNotNull(leaseManager.tryAcquire(FLOW_ID, 6));
+        waitFor(leaseRequests, 2);
+
+        serverQuota.set(10);
+        Thread.sleep(100);
+        TokenResult result = leaseManager.tryAcquire(FLOW_ID, 1);
+        assertEquals(3, result.getRemaining());
+        waitFor(leaseRequests, 3);
+
+        // The first grant expires with 3 tokens unused, while the refilled one is still valid.
+        waitFor(returnedCount, 3);
+        assertEquals(1, returnedLeaseId.get());
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(leaseManager.tryAcquire(FLOW_ID, 1));
+        }
+        assertNull(leaseManager.tryAcquire(FLOW_ID, 1));
+    }
+
+    @Test
+    public void testLeaseDisabled() {
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(20)
+            .setLeaseBatchSize(0));
+        serverQuota.set(10);
+        assertNull(leaseManager.tryAcquire(FLOW_ID, 1));
+        assertEquals(0, leaseRequests.get());
+        assertFalse(leaseManager.isExecutorStarted());
+    }
+
+    private void waitFor(AtomicInteger counter, int expected) throws InterruptedException {
+        for (int i = 0; i < 100 && counter.get() < expected; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, counter.get());
+        // Make sure the response has been applied.
+        Thread.sleep(20);
+    }
+}
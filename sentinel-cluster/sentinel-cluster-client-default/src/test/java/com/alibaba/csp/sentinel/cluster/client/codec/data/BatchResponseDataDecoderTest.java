@@ -0,0 +1,88 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client.codec.data;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.codec.registry.ResponseDataDecodeRegistry;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowTokenResponseData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BatchResponseDataDecoderTest {
+
+    @Test
+    public void testDecode() {
+        ResponseDataDecodeRegistry.addDecoder(ClusterConstants.MSG_TYPE_FLOW, new FlowResponseDataDecoder());
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeShort(2);
+        // Response with data.
+        buf.writeShort(14);
+        buf.writeInt(11);
+        buf.writeByte(ClusterConstants.MSG_TYPE_FLOW);
+        buf.writeByte(0);
+        buf.writeInt(7);
+        buf.writeInt(0);
+        // Bad response without data.
+        buf.writeShort(6);
+        buf.writeInt(12);
+        buf.writeByte(ClusterConstants.MSG_TYPE_FLOW);
+        buf.writeByte(ClusterConstants.RESPONSE_STATUS_BAD);
+
+        List<ClusterResponse> responses = new BatchResponseDataDecoder().decode(buf);
+        assertEquals(2, responses.size());
+        assertEquals(11, responses.get(0).getId());
+        assertEquals(new FlowTokenResponseData().setRemainingCount(7), responses.get(0).getData());
+        assertEquals(12, responses.get(1).getId());
+        assertEquals(ClusterConstants.RESPONSE_STATUS_BAD, responses.get(1).getStatus());
+        assertNull(responses.get(1).getData());
+        buf.release();
+    }
+
+    @Test
+    public void testDecodeUndecodableResponseAsBad() {
+        ResponseDataDecodeRegistry.addDecoder(ClusterConstants.MSG_TYPE_FLOW, new FlowResponseDataDecoder());
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeShort(2);
+        // Response of unknown type.
+        buf.writeShort(10);
+        buf.writeInt(21);
+        buf.writeByte(99);
+        buf.writeByte(0);
+        buf.writeInt(7);
+        buf.writeShort(14);
+        buf.writeInt(22);
+        buf.writeByte(ClusterConstants.MSG_TYPE_FLOW);
+        buf.writeByte(0);
+        buf.writeInt(7);
+        buf.writeInt(0);
+
+        List<ClusterResponse> responses = new BatchResponseDataDecoder().decode(buf);
+        assertEquals(2, responses.size());
+        assertEquals(21, responses.get(0).getId());
+        assertEquals(ClusterConstants.RESPONSE_STATUS_BAD, responses.get(0).getStatus());
+        assertNull(responses.get(0).getData());
+        assertEquals(22, responses.get(1).getId());
+        assertEquals(ClusterConstants.RESPONSE_STATUS_OK, responses.get(1).getStatus());
+        buf.release();
+    }
+}
@@ -33,4 +33,18 @@ public class FlowResponseDataDecoderTest {
         buf.writeInt(13);
         Assert.assertEquals(decoder.decode(buf), data);
     }
+
+    @Test
+    public void testDecodeWithConnectedCount() {
+        ByteBuf buf = Unpooled.buffer();
+        FlowResponseDataDecoder decoder = new FlowResponseDataDecoder();
+        FlowTokenResponseData data = new FlowTokenResponseData()
+            .setRemainingCount(12)
+            .setWaitInMs(0)
+            .setConnectedCount(3);
+        buf.writeInt(12);
+        buf.writeInt(0);
+        buf.writeInt(3);
+        Assert.assertEquals(data, decoder.decode(buf));
+    }
 }
@@ -1,8 +1,14 @@
 package com.alibaba.csp.sentinel.cluster.client.codec.data;
 
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.request.data.ParamFlowRequestData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -55,6 +61,33 @@ public class ParamFlowRequestDataWriterTest {
     }
 
 
+    @Test
+    public void testWriteToInOnePass() {
+        ParamFlowRequestDataWriter writer = new ParamFlowRequestDataWriter(20);
+        ParamFlowRequestData data = new ParamFlowRequestData()
+            .setFlowId(1L)
+            .setCount(2)
+            .setParams(Arrays.<Object>asList("Sentinel", new SomePojo(), 3, 4L));
+        ByteBuf buf = Unpooled.buffer();
+        // Encoded string bytes are cached, so the second write is the same.
+        for (int i = 0; i < 2; i++) {
+            buf.clear();
+            writer.writeTo(data, buf);
+
+            assertEquals(1L, buf.readLong());
+            assertEquals(2, buf.readInt());
+            // The POJO is skipped, and the long parameter exceeds the max size.
+            assertEquals(2, buf.readInt());
+            assertEquals(ClusterConstants.PARAM_TYPE_STRING, buf.readByte());
+            byte[] bytes = new byte[buf.readInt()];
+            buf.readBytes(bytes);
+            assertEquals("Sentinel", new String(bytes));
+            assertEquals(ClusterConstants.PARAM_TYPE_INTEGER, buf.readByte());
+            assertEquals(3, buf.readInt());
+            assertEquals(0, buf.readableBytes());
+        }
+    }
+
     private static class SomePojo {
         private String param1;
 
@@ -0,0 +1,59 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client.handler;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TokenClientPromiseHolderTest {
+
+    @Test
+    public void testCompletePromise() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        // The two xids share the same slot.
+        int xid1 = 1001;
+        int xid2 = xid1 + (1 << 14);
+        ChannelPromise promise1 = channel.newPromise();
+        ChannelPromise promise2 = channel.newPromise();
+        TokenClientPromiseHolder.putPromise(xid1, promise1);
+        TokenClientPromiseHolder.putPromise(xid2, promise2);
+
+        ClusterResponse<Integer> response2 = new ClusterResponse<>(xid2, ClusterConstants.MSG_TYPE_FLOW, 0, null);
+        assertTrue(TokenClientPromiseHolder.completePromise(xid2, response2));
+        assertTrue(promise2.isSuccess());
+        assertFalse(promise1.isDone());
+        assertSame(response2, TokenClientPromiseHolder.getEntry(xid2).getValue());
+        // Completed only once.
+        assertFalse(TokenClientPromiseHolder.completePromise(xid2, response2));
+
+        ClusterResponse<Integer> response1 = new ClusterResponse<>(xid1, ClusterConstants.MSG_TYPE_FLOW, 0, null);
+        assertTrue(TokenClientPromiseHolder.completePromise(xid1, response1));
+        assertSame(response1, TokenClientPromiseHolder.getEntry(xid1).getValue());
+
+        TokenClientPromiseHolder.remove(xid1);
+        TokenClientPromiseHolder.remove(xid2);
+        assertNull(TokenClientPromiseHolder.getEntry(xid1));
+        assertNull(TokenClientPromiseHolder.getEntry(xid2));
+        assertFalse(TokenClientPromiseHolder.completePromise(xid1, response1));
+        channel.finishAndReleaseAll();
+    }
+}
@@ -26,7 +26,20 @@ public final class ClusterConstants {
     public static final int MSG_TYPE_PARAM_FLOW = 2;
     public static final int MSG_TYPE_CONCURRENT_FLOW_ACQUIRE = 3;
     public static final int MSG_TYPE_CONCURRENT_FLOW_RELEASE = 4;
-
+    /**
+     * Lease a batch of flow tokens, the granted count is carried as {@code remainingCount}
+     * and the lease time is carried as {@code waitInMs} of the flow response.
+     */
+    public static final int MSG_TYPE_FLOW_LEASE = 5;
+    /**
+     * Return the unused tokens of an expired lease, the time elapsed since the tokens were leased is
+     * appended to the flow request.
+     */
+    public static final int MSG_TYPE_FLOW_LEASE_RETURN = 6;
+    /**
+     * Requests (or responses) coalesced in a frame, each of them is prefixed with its length.
+     */
+    public static final int MSG_TYPE_BATCH = 7;
 
     public static final int RESPONSE_STATUS_BAD = -1;
     public static final int RESPONSE_STATUS_OK = 0;
@@ -43,6 +56,10 @@ public final class ClusterConstants {
     public static final int DEFAULT_CLUSTER_SERVER_PORT = 18730;
     public static final int DEFAULT_REQUEST_TIMEOUT = 20;
     public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+    /**
+     * Max length of a frame, which is limited by the 2-byte length field.
+     */
+    public static final int MAX_FRAME_LENGTH = 65535;
 
     private ClusterConstants() {}
 }
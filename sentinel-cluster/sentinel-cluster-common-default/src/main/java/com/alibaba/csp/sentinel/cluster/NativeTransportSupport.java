@@ -0,0 +1,117 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * <p>Support of the native epoll transport of Netty for the cluster token server and client.</p>
+ *
+ * <p>The native transport is resolved reflectively, so it is used only when the
+ * {@code netty-transport-native-epoll} artifact (same version as Netty) is present in the classpath and
+ * available on the platform. Otherwise the NIO transport is used.</p>
+ */
+public final class NativeTransportSupport {
+
+    private static final String EPOLL_CLASS = "io.netty.channel.epoll.Epoll";
+    private static final String EPOLL_EVENT_LOOP_GROUP_CLASS = "io.netty.channel.epoll.EpollEventLoopGroup";
+    private static final String EPOLL_SERVER_SOCKET_CHANNEL_CLASS = "io.netty.channel.epoll.EpollServerSocketChannel";
+    private static final String EPOLL_SOCKET_CHANNEL_CLASS = "io.netty.channel.epoll.EpollSocketChannel";
+
+    private static final boolean EPOLL_AVAILABLE = detectEpoll();
+
+    private static boolean detectEpoll() {
+        try {
+            Class<?> epoll = Class.forName(EPOLL_CLASS);
+            return (Boolean)epoll.getMethod("isAvailable").invoke(null);
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return whether the native epoll transport is available
+     */
+    public static boolean isEpollAvailable() {
+        return EPOLL_AVAILABLE;
+    }
+
+    /**
+     * Create a new event loop group, of the native epoll transport if preferred and available.
+     *
+     * @param nThreads     count of threads, 0 for the default count of Netty
+     * @param preferNative whether to use the native transport if available
+     * @return new event loop group
+     */
+    public static EventLoopGroup newEventLoopGroup(int nThreads, boolean preferNative) {
+        if (preferNative && EPOLL_AVAILABLE) {
+            try {
+                return (EventLoopGroup)Class.forName(EPOLL_EVENT_LOOP_GROUP_CLASS)
+                    .getConstructor(int.class)
+                    .newInstance(nThreads);
+            } catch (Throwable ex) {
+                RecordLog.warn("[NativeTransportSupport] Failed to create epoll event loop group, fallback to NIO",
+                    ex);
+            }
+        }
+        return new NioEventLoopGroup(nThreads);
+    }
+
+    /**
+     * @param group event loop group created by {@link #newEventLoopGroup(int, boolean)}
+     * @return server channel class matching the event loop group
+     */
+    @SuppressWarnings("unchecked")
+    public static Class<? extends ServerChannel> serverChannelClass(EventLoopGroup group) {
+        if (isEpoll(group)) {
+            try {
+                return (Class<? extends ServerChannel>)Class.forName(EPOLL_SERVER_SOCKET_CHANNEL_CLASS);
+            } catch (ClassNotFoundException ex) {
+                // Not possible when the epoll event loop group is created.
+            }
+        }
+        return NioServerSocketChannel.class;
+    }
+
+    /**
+     * @param group event loop group created by {@link #newEventLoopGroup(int, boolean)}
+     * @return socket channel class matching the event loop group
+     */
+    @SuppressWarnings("unchecked")
+    public static Class<? extends Channel> channelClass(EventLoopGroup group) {
+        if (isEpoll(group)) {
+            try {
+                return (Class<? extends Channel>)Class.forName(EPOLL_SOCKET_CHANNEL_CLASS);
+            } catch (ClassNotFoundException ex) {
+                // Not possible when the epoll event loop group is created.
+            }
+        }
+        return NioSocketChannel.class;
+    }
+
+    private static boolean isEpoll(EventLoopGroup group) {
+        return group != null && EPOLL_EVENT_LOOP_GROUP_CLASS.equals(group.getClass().getName());
+    }
+
+    private NativeTransportSupport() {}
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>Partition of flow IDs among multiple token servers. The servers are placed on a consistent-hash ring
+ * with virtual nodes, and each flow ID is owned by the first server clockwise from its hash, so that only
+ * the flow IDs of the added (or removed) server move when the servers change.</p>
+ *
+ * <p>The partition only depends on the server address list (in order), so the clients and servers
+ * build the same partition from the same list.</p>
+ */
+public final class TokenServerPartition {
+
+    public static final int DEFAULT_VIRTUAL_NODE_COUNT = 160;
+
+    private static final double RING_SIZE = Math.pow(2, 64);
+
+    private final List<TokenServerDescriptor> servers;
+    private final List<String> addresses;
+    private final int virtualNodeCount;
+
+    private final long[] ringHashes;
+    private final int[] ringOwners;
+    private final double[] shares;
+
+    public TokenServerPartition(List<String> addresses) {
+        this(addresses, DEFAULT_VIRTUAL_NODE_COUNT);
+    }
+
+    /**
+     * @param addresses        addresses of the token servers in {@code host:port} format
+     * @param virtualNodeCount count of virtual nodes of each server on the hash ring
+     */
+    public TokenServerPartition(List<String> addresses, int virtualNodeCount) {
+        AssertUtil.isTrue(addresses != null && !addresses.isEmpty(), "server addresses cannot be empty");
+        AssertUtil.isTrue(virtualNodeCount > 0, "virtualNodeCount should be positive");
+        List<TokenServerDescriptor> serverList = new ArrayList<>(addresses.size());
+        for (String address : addresses) {
+            serverList.add(parseAddress(address));
+        }
+        this.servers = Collections.unmodifiableList(serverList);
+        this.addresses = Collections.unmodifiableList(new ArrayList<>(addresses));
+        this.virtualNodeCount = virtualNodeCount;
+
+        int nodeCount = addresses.size() * virtualNodeCount;
+        long[] hashes = new long[nodeCount];
+        for (int i = 0; i < addresses.size(); i++) {
+            for (int v = 0; v < virtualNodeCount; v++) {
+                hashes[i * virtualNodeCount + v] = hashNode(addresses.get(i), v);
+            }
+        }
+        // Sort the virtual nodes by hash, and keep the owner of each.
+        Integer[] order = new Integer[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        this.ringHashes = new long[nodeCount];
+        this.ringOwners = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            ringHashes[i] = hashes[order[i]];
+            ringOwners[i] = order[i] / virtualNodeCount;
+        }
+        this.shares = calcShares(addresses.size());
+    }
+
+    private double[] calcShares(int serverCount) {
+        double[] result = new double[serverCount];
+        int n = ringHashes.length;
+        for (int i = 0; i < n; i++) {
+            // The arc ending at a node is owned by the node.
+            long prev = ringHashes[i == 0 ? n - 1 : i - 1];
+            long arc = ringHashes[i] - prev;
+            result[ringOwners[i]] += unsignedToDouble(arc);
+        }
+        for (int i = 0; i < serverCount; i++) {
+            result[i] = n == 1 ? 1 : result[i] / RING_SIZE;
+        }
+        return result;
+    }
+
+    /**
+     * Get the index of the server owning the flow ID.
+     *
+     * @param flowId the unique flow ID
+     * @return index of the owning server in the server list
+     */
+    public int indexOf(long flowId) {
+        long hash = mix64(flowId);
+        int low = 0;
+        int high = ringHashes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ringHashes[mid] < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return ringOwners[low == ringHashes.length ? 0 : low];
+    }
+
+    public TokenServerDescriptor route(long flowId) {
+        return servers.get(indexOf(flowId));
+    }
+
+    /**
+     * Get the proportion of flow IDs owned by the server.
+     *
+     * @param index index of the server
+     * @return the owned proportion within (0, 1]
+     */
+    public double getShare(int index) {
+        return shares[index];
+    }
+
+    public List<TokenServerDescriptor> getServers() {
+        return servers;
+    }
+
+    public List<String> getAddresses() {
+        return addresses;
+    }
+
+    public int size() {
+        return servers.size();
+    }
+
+    public int getVirtualNodeCount() {
+        return virtualNodeCount;
+    }
+
+    public static boolean isValidAddress(String address) {
+        try {
+            parseAddress(address);
+            return true;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private static TokenServerDescriptor parseAddress(String address) {
+        AssertUtil.isTrue(StringUtil.isNotBlank(address), "server address cannot be blank");
+        int idx = address.lastIndexOf(':');
+        AssertUtil.isTrue(idx > 0 && idx < address.length() - 1, "bad server address: " + address);
+        String host = address.substring(0, idx).trim();
+        int port;
+        try {
+            port = Integer.parseInt(address.substring(idx + 1).trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("bad server address: " + address);
+        }
+        AssertUtil.isTrue(StringUtil.isNotBlank(host) && port > 0 && port <= 65535,
+            "bad server address: " + address);
+        return new TokenServerDescriptor(host, port);
+    }
+
+    private static long hashNode(String address, int virtualNode) {
+        // FNV-1a of the node name, which is stable among JVMs.
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : (address + '#' + virtualNode).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix64(hash);
+    }
+
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static double unsignedToDouble(long value) {
+        return value >= 0 ? value : RING_SIZE + value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TokenServerPartition that = (TokenServerPartition) o;
+        return virtualNodeCount == that.virtualNodeCount && addresses.equals(that.addresses);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * addresses.hashCode() + virtualNodeCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenServerPartition{" +
+            "addresses=" + addresses +
+            ", virtualNodeCount=" + virtualNodeCount +
+            '}';
+    }
+}
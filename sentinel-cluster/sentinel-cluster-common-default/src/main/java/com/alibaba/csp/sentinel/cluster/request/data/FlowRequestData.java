@@ -24,6 +24,10 @@ public class FlowRequestData {
     private long flowId;
     private int count;
     private boolean priority;
+    /**
+     * ID of the lease whose tokens are returned, only for the lease returns.
+     */
+    private long leaseId;
 
     public long getFlowId() {
         return flowId;
@@ -52,12 +56,22 @@ public class FlowRequestData {
         return this;
     }
 
+    public long getLeaseId() {
+        return leaseId;
+    }
+
+    public FlowRequestData setLeaseId(long leaseId) {
+        this.leaseId = leaseId;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "FlowRequestData{" +
             "flowId=" + flowId +
             ", count=" + count +
             ", priority=" + priority +
+            ", leaseId=" + leaseId +
             '}';
     }
 }
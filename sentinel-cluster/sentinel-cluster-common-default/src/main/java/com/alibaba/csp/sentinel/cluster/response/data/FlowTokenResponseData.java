@@ -23,6 +23,11 @@ public class FlowTokenResponseData {
 
     private int remainingCount;
     private int waitInMs;
+    private int connectedCount;
+    /**
+     * ID of the granted lease, only for the lease responses.
+     */
+    private long leaseId;
 
     public int getRemainingCount() {
         return remainingCount;
@@ -42,6 +47,24 @@ public class FlowTokenResponseData {
         return this;
     }
 
+    public int getConnectedCount() {
+        return connectedCount;
+    }
+
+    public FlowTokenResponseData setConnectedCount(int connectedCount) {
+        this.connectedCount = connectedCount;
+        return this;
+    }
+
+    public long getLeaseId() {
+        return leaseId;
+    }
+
+    public FlowTokenResponseData setLeaseId(long leaseId) {
+        this.leaseId = leaseId;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -51,13 +74,16 @@ public class FlowTokenResponseData {
             return false;
         }
         FlowTokenResponseData that = (FlowTokenResponseData) o;
-        return this.remainingCount == that.remainingCount && this.waitInMs == that.waitInMs;
+        return this.remainingCount == that.remainingCount && this.waitInMs == that.waitInMs
+            && this.connectedCount == that.connectedCount && this.leaseId == that.leaseId;
     }
 
     @Override
     public int hashCode() {
         int result = remainingCount;
         result = 31 * result + waitInMs;
+        result = 31 * result + connectedCount;
+        result = 31 * result + (int) (leaseId ^ (leaseId >>> 32));
         return result;
     }
 
@@ -66,6 +92,8 @@ public class FlowTokenResponseData {
         return "FlowTokenResponseData{" +
                 "remainingCount=" + remainingCount +
                 ", waitInMs=" + waitInMs +
+                ", connectedCount=" + connectedCount +
+                ", leaseId=" + leaseId +
                 '}';
     }
 }
@@ -19,13 +19,18 @@ import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
 import com.alibaba.csp.sentinel.cluster.TokenResult;
 import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.limit.FlowTokenBucket;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.limit.GlobalRequestLimiter;
 import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.lease.TokenLeaseNode;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.lease.TokenLeaseNodeManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
 import com.alibaba.csp.sentinel.cluster.server.log.ClusterServerStatLogUtil;
+import com.alibaba.csp.sentinel.node.OccupyTimeoutProperty;
 import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * Flow checker for cluster flow rules.
@@ -47,6 +52,10 @@ final class ClusterFlowChecker {
         }
     }
 
+    private static boolean isTokenBucketRule(FlowRule rule) {
+        return rule.getClusterConfig().getStrategy() == ClusterRuleConstant.FLOW_CLUSTER_STRATEGY_TOKEN_BUCKET;
+    }
+
     static boolean allowProceed(long flowId) {
         String namespace = ClusterFlowRuleManager.getNamespace(flowId);
         return GlobalRequestLimiter.tryPass(namespace);
@@ -63,6 +72,9 @@ final class ClusterFlowChecker {
         if (metric == null) {
             return new TokenResult(TokenResultStatus.FAIL);
         }
+        if (isTokenBucketRule(rule)) {
+            return acquireBucketToken(rule, metric, acquireCount, prioritized);
+        }
 
         double latestQps = metric.getAvg(ClusterFlowEvent.PASS);
         double globalThreshold = calcGlobalThreshold(rule) * ClusterServerConfigManager.getExceedCount();
@@ -97,18 +109,142 @@ final class ClusterFlowChecker {
                 }
             }
             // Blocked.
-            metric.add(ClusterFlowEvent.BLOCK, acquireCount);
-            metric.add(ClusterFlowEvent.BLOCK_REQUEST, 1);
-            ClusterServerStatLogUtil.log("flow|block|" + id, acquireCount);
-            ClusterServerStatLogUtil.log("flow|block_request|" + id, 1);
+            return block(metric, id, acquireCount, prioritized);
+        }
+    }
+
+    /**
+     * Check by the token bucket of the flow, which takes constant time and passes no more than
+     * the threshold atomically. Prioritized requests may take the tokens refilled within the occupy timeout.
+     */
+    private static TokenResult acquireBucketToken(/*@Valid*/ FlowRule rule, ClusterMetric metric, int acquireCount,
+                                                  boolean prioritized) {
+        Long id = rule.getClusterConfig().getFlowId();
+        double globalThreshold = calcGlobalThreshold(rule) * ClusterServerConfigManager.getExceedCount();
+        FlowTokenBucket bucket = metric.getTokenBucket();
+        long waitInMs = bucket.tryAcquire(acquireCount, globalThreshold,
+            prioritized ? OccupyTimeoutProperty.getOccupyTimeout() : 0);
+        if (waitInMs == 0) {
+            metric.add(ClusterFlowEvent.PASS, acquireCount);
+            metric.add(ClusterFlowEvent.PASS_REQUEST, 1);
             if (prioritized) {
-                // Add prioritized block.
-                metric.add(ClusterFlowEvent.OCCUPIED_BLOCK, acquireCount);
-                ClusterServerStatLogUtil.log("flow|occupied_block|" + id, 1);
+                metric.add(ClusterFlowEvent.OCCUPIED_PASS, acquireCount);
             }
+            return new TokenResult(TokenResultStatus.OK)
+                .setRemaining((int) Math.min(Integer.MAX_VALUE, bucket.getAvailableCount(globalThreshold)))
+                .setWaitInMs(0);
+        }
+        if (waitInMs > 0) {
+            metric.add(ClusterFlowEvent.WAITING, acquireCount);
+            metric.add(ClusterFlowEvent.OCCUPIED_PASS, acquireCount);
+            ClusterServerStatLogUtil.log("flow|waiting|" + id);
+            return new TokenResult(TokenResultStatus.SHOULD_WAIT)
+                .setRemaining(0)
+                .setWaitInMs((int) waitInMs);
+        }
+        return block(metric, id, acquireCount, prioritized);
+    }
+
+    private static TokenResult block(ClusterMetric metric, Long id, int acquireCount, boolean prioritized) {
+        metric.add(ClusterFlowEvent.BLOCK, acquireCount);
+        metric.add(ClusterFlowEvent.BLOCK_REQUEST, 1);
+        ClusterServerStatLogUtil.log("flow|block|" + id, acquireCount);
+        ClusterServerStatLogUtil.log("flow|block_request|" + id, 1);
+        if (prioritized) {
+            // Add prioritized block.
+            metric.add(ClusterFlowEvent.OCCUPIED_BLOCK, acquireCount);
+            ClusterServerStatLogUtil.log("flow|occupied_block|" + id, 1);
+        }
+        return blockedResult();
+    }
+
+    /**
+     * Grant a batch of tokens to the client, which will be consumed locally in the lease time. The granted
+     * tokens are counted as passed at once, and each grant is limited to the fair share of the client
+     * (global threshold / connected count), so that a client cannot take the quota of others.
+     * The lease time is half of the statistic interval, so the unused tokens are returned while they
+     * are still counted in the sliding window.
+     *
+     * @return the result, of which the {@code remaining} is the granted count and the {@code waitInMs}
+     * is the lease time
+     */
+    static TokenResult acquireLeaseToken(/*@Valid*/ FlowRule rule, int batchCount) {
+        Long id = rule.getClusterConfig().getFlowId();
+
+        if (!allowProceed(id)) {
+            return new TokenResult(TokenResultStatus.TOO_MANY_REQUEST);
+        }
+
+        ClusterMetric metric = ClusterMetricStatistics.getMetric(id);
+        if (metric == null) {
+            return new TokenResult(TokenResultStatus.FAIL);
+        }
+
+        double globalThreshold = calcGlobalThreshold(rule) * ClusterServerConfigManager.getExceedCount();
+        int connectedCount = Math.max(1, ClusterFlowRuleManager.getConnectedCount(id));
+        double fairShare = Math.max(1, globalThreshold / connectedCount);
+        int grantedCount;
+        if (isTokenBucketRule(rule)) {
+            grantedCount = metric.getTokenBucket().tryAcquireUpTo((int) Math.min(batchCount, fairShare),
+                globalThreshold);
+        } else {
+            double latestQps = metric.getAvg(ClusterFlowEvent.PASS);
+            grantedCount = (int) Math.min(batchCount, Math.min(fairShare, globalThreshold - latestQps));
+        }
+
+        if (grantedCount > 0) {
+            metric.add(ClusterFlowEvent.PASS, grantedCount);
+            metric.add(ClusterFlowEvent.PASS_REQUEST, 1);
+            ClusterServerStatLogUtil.log("flow|lease|" + id, grantedCount);
+            int intervalMs = rule.getClusterConfig().getWindowIntervalMs();
+            long now = TimeUtil.currentTimeMillis();
+            TokenLeaseNode lease = TokenLeaseNodeManager.putLease(id, grantedCount, now, now + intervalMs);
+            TokenResult result = new TokenResult(TokenResultStatus.OK)
+                .setRemaining(grantedCount)
+                .setWaitInMs(intervalMs / 2);
+            result.setTokenId(lease.getLeaseId());
+            return result;
+        }
+        metric.add(ClusterFlowEvent.BLOCK_REQUEST, 1);
+        ClusterServerStatLogUtil.log("flow|block_request|" + id, 1);
+        return blockedResult();
+    }
 
-            return blockedResult();
+    /**
+     * Take back the unused tokens of an expired lease, so that they could be granted again. Only the leases
+     * granted by this token server for the same flow could be returned, and no more than the tokens still
+     * outstanding of the lease are taken back. The tokens are taken back from the bucket where they were
+     * counted when granted, and the returns of the leases older than the statistic interval are ignored,
+     * since their tokens have been released as the window slid.
+     *
+     * @param leaseId     the lease ID issued when the tokens were granted
+     * @param unusedCount unused token count of the lease
+     */
+    static void returnLeaseToken(/*@Valid*/ FlowRule rule, long leaseId, int unusedCount) {
+        Long id = rule.getClusterConfig().getFlowId();
+        TokenLeaseNode lease = TokenLeaseNodeManager.getLease(leaseId);
+        if (lease == null || lease.getFlowId() != id) {
+            ClusterServerStatLogUtil.log("flow|lease_return_unknown|" + id, unusedCount);
+            return;
+        }
+        int returnCount = lease.takeBack(unusedCount);
+        if (lease.getOutstandingCount() == 0) {
+            TokenLeaseNodeManager.removeLease(lease);
+        }
+        ClusterMetric metric = ClusterMetricStatistics.getMetric(id);
+        if (metric == null || returnCount <= 0) {
+            return;
+        }
+        int passCount = (int) metric.takeBack(lease.getGrantedAt(), ClusterFlowEvent.PASS, returnCount);
+        if (passCount <= 0) {
+            ClusterServerStatLogUtil.log("flow|lease_return_expired|" + id, returnCount);
+            return;
+        }
+        if (isTokenBucketRule(rule)) {
+            double globalThreshold = calcGlobalThreshold(rule) * ClusterServerConfigManager.getExceedCount();
+            metric.getTokenBucket().release(passCount, globalThreshold);
         }
+        ClusterServerStatLogUtil.log("flow|lease_return|" + id, passCount);
     }
 
     private static TokenResult blockedResult() {
@@ -20,6 +20,7 @@ import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
 import com.alibaba.csp.sentinel.cluster.TokenService;
 import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
 import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterParamFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
 import com.alibaba.csp.sentinel.spi.Spi;
@@ -42,11 +43,13 @@ public class DefaultTokenService implements TokenService {
         }
         // The rule should be valid.
         FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(ruleId);
-        if (rule == null) {
+        if (rule == null || notOwned(ruleId)) {
             return new TokenResult(TokenResultStatus.NO_RULE_EXISTS);
         }
 
-        return ClusterFlowChecker.acquireClusterToken(rule, acquireCount, prioritized);
+        // The clients estimate their local quota with the connected count when the server is not available.
+        return ClusterFlowChecker.acquireClusterToken(rule, acquireCount, prioritized)
+            .setConnectedCount(ClusterFlowRuleManager.getConnectedCount(ruleId));
     }
 
     @Override
@@ -56,7 +59,7 @@ public class DefaultTokenService implements TokenService {
         }
         // The rule should be valid.
         ParamFlowRule rule = ClusterParamFlowRuleManager.getParamRuleById(ruleId);
-        if (rule == null) {
+        if (rule == null || notOwned(ruleId)) {
             return new TokenResult(TokenResultStatus.NO_RULE_EXISTS);
         }
 
@@ -70,7 +73,7 @@ public class DefaultTokenService implements TokenService {
         }
         // The rule should be valid.
         FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(ruleId);
-        if (rule == null) {
+        if (rule == null || notOwned(ruleId)) {
             return new TokenResult(TokenResultStatus.NO_RULE_EXISTS);
         }
         return ConcurrentClusterFlowChecker.acquireConcurrentToken(clientAddress, rule, acquireCount);
@@ -84,6 +87,48 @@ public class DefaultTokenService implements TokenService {
         ConcurrentClusterFlowChecker.releaseConcurrentToken(tokenId);
     }
 
+    /**
+     * Lease a batch of tokens, which the client consumes locally until the lease expires.
+     *
+     * @param ruleId the unique rule ID
+     * @param batchCount token count to lease
+     * @return result of the lease, of which the {@code remaining} is the granted count,
+     * the {@code waitInMs} is the lease time and the {@code tokenId} is the lease ID
+     */
+    public TokenResult requestLeaseToken(Long ruleId, int batchCount) {
+        if (notValidRequest(ruleId, batchCount)) {
+            return badRequest();
+        }
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(ruleId);
+        if (rule == null || notOwned(ruleId)) {
+            return new TokenResult(TokenResultStatus.NO_RULE_EXISTS);
+        }
+        return ClusterFlowChecker.acquireLeaseToken(rule, batchCount);
+    }
+
+    /**
+     * Return the unused tokens of an expired lease.
+     *
+     * @param ruleId the unique rule ID
+     * @param leaseId the lease ID issued when the tokens were leased
+     * @param unusedCount unused token count of the lease
+     */
+    public void returnLeaseToken(Long ruleId, long leaseId, int unusedCount) {
+        if (notValidRequest(ruleId, unusedCount)) {
+            return;
+        }
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(ruleId);
+        if (rule == null || notOwned(ruleId)) {
+            return;
+        }
+        ClusterFlowChecker.returnLeaseToken(rule, leaseId, unusedCount);
+    }
+
+    private boolean notOwned(Long id) {
+        // The flow is owned by another token server in partitioned mode.
+        return !ClusterServerConfigManager.isOwnedFlowId(id);
+    }
+
     private boolean notValidRequest(Long id, int count) {
         return id == null || id <= 0 || count <= 0;
     }
@@ -19,6 +19,7 @@ import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.CurrentConcurrencyManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
 import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
 import com.alibaba.csp.sentinel.cluster.server.util.ClusterRuleUtil;
 import com.alibaba.csp.sentinel.log.RecordLog;
@@ -322,6 +323,25 @@ public final class ClusterFlowRuleManager {
         return FLOW_NAMESPACE_MAP.get(flowId);
     }
 
+    /**
+     * Prepare the cluster metrics of the flows owned by current token server,
+     * and remove the metrics of the flows which are not owned any more.
+     */
+    public static void applyPartitionChange() {
+        synchronized (UPDATE_LOCK) {
+            for (FlowRule rule : FLOW_RULES.values()) {
+                ClusterFlowConfig clusterConfig = rule.getClusterConfig();
+                Long flowId = clusterConfig.getFlowId();
+                if (ClusterServerConfigManager.isOwnedFlowId(flowId)) {
+                    ClusterMetricStatistics.putMetricIfAbsent(flowId,
+                            new ClusterMetric(clusterConfig.getSampleCount(), clusterConfig.getWindowIntervalMs()));
+                } else {
+                    ClusterMetricStatistics.removeMetric(flowId);
+                }
+            }
+        }
+    }
+
     private static void applyClusterFlowRule(List<FlowRule> list, /*@Valid*/ String namespace) {
         if (list == null || list.isEmpty()) {
             clearAndResetRulesFor(namespace);
@@ -357,9 +377,13 @@ public final class ClusterFlowRuleManager {
                 CurrentConcurrencyManager.put(flowId, 0);
             }
 
-            // Prepare cluster metric from valid flow ID.
-            ClusterMetricStatistics.putMetricIfAbsent(flowId,
-                    new ClusterMetric(clusterConfig.getSampleCount(), clusterConfig.getWindowIntervalMs()));
+            // Prepare cluster metric from valid flow ID owned by current token server.
+            if (ClusterServerConfigManager.isOwnedFlowId(flowId)) {
+                ClusterMetricStatistics.putMetricIfAbsent(flowId,
+                        new ClusterMetric(clusterConfig.getSampleCount(), clusterConfig.getWindowIntervalMs()));
+            } else {
+                ClusterMetricStatistics.removeMetric(flowId);
+            }
         }
 
         // Cleanup unused cluster metrics.
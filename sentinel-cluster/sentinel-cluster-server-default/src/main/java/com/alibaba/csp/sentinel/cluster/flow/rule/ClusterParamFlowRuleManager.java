@@ -23,7 +23,9 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterParamMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamFlowMetric;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamMetric;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamSketchMetric;
 import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
 import com.alibaba.csp.sentinel.cluster.server.util.ClusterRuleUtil;
@@ -31,10 +33,12 @@ import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowClusterConfig;
 import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
 import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRuleUtil;
+import com.alibaba.csp.sentinel.slots.statistic.sketch.FrequencySketch;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.StringUtil;
 import com.alibaba.csp.sentinel.util.function.Function;
@@ -351,8 +355,7 @@ public final class ClusterParamFlowRuleManager {
             flowIdSet.add(flowId);
 
             // Prepare cluster parameter metric from valid rule ID.
-            ClusterParamMetricStatistics.putMetricIfAbsent(flowId,
-                new ClusterParamMetric(clusterConfig.getSampleCount(), clusterConfig.getWindowIntervalMs()));
+            prepareMetric(flowId, clusterConfig);
         }
 
         // Cleanup unused cluster parameter metrics.
@@ -367,5 +370,25 @@ public final class ClusterParamFlowRuleManager {
         NAMESPACE_FLOW_ID_MAP.put(namespace, flowIdSet);
     }
 
+    private static void prepareMetric(Long flowId, ParamFlowClusterConfig clusterConfig) {
+        ClusterParamFlowMetric metric = ClusterParamMetricStatistics.getMetric(flowId);
+        if (clusterConfig.getStatisticType() == ClusterRuleConstant.PARAM_STATISTIC_TYPE_SKETCH) {
+            int depth = FrequencySketch.depthOf(clusterConfig.getSketchDelta());
+            int width = FrequencySketch.widthOf(clusterConfig.getSketchEpsilon());
+            if (metric instanceof ClusterParamSketchMetric && ((ClusterParamSketchMetric) metric).getDepth() == depth
+                && ((ClusterParamSketchMetric) metric).getWidth() == width) {
+                return;
+            }
+            // Absent, or the statistic type or the error bounds of the rule are changed.
+            ClusterParamMetricStatistics.putMetric(flowId, new ClusterParamSketchMetric(
+                clusterConfig.getSampleCount(), clusterConfig.getWindowIntervalMs(), depth, width,
+                ClusterParamSketchMetric.DEFAULT_HEAVY_HITTER_CAPACITY));
+        } else if (!(metric instanceof ClusterParamMetric)) {
+            // Absent, or the statistic type of the rule is changed.
+            ClusterParamMetricStatistics.putMetric(flowId,
+                new ClusterParamMetric(clusterConfig.getSampleCount(), clusterConfig.getWindowIntervalMs()));
+        }
+    }
+
     private ClusterParamFlowRuleManager() {}
 }
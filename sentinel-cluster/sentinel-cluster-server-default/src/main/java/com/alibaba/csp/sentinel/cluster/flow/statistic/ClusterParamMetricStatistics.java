@@ -19,7 +19,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamFlowMetric;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamMetric;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamSketchMetric;
 import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 
@@ -29,18 +31,18 @@ import com.alibaba.csp.sentinel.util.AssertUtil;
  */
 public final class ClusterParamMetricStatistics {
 
-    private static final Map<Long, ClusterParamMetric> METRIC_MAP = new ConcurrentHashMap<>();
+    private static final Map<Long, ClusterParamFlowMetric> METRIC_MAP = new ConcurrentHashMap<>();
 
     public static void clear() {
         METRIC_MAP.clear();
     }
 
-    public static void putMetric(long id, ClusterParamMetric metric) {
+    public static void putMetric(long id, ClusterParamFlowMetric metric) {
         AssertUtil.notNull(metric, "metric cannot be null");
         METRIC_MAP.put(id, metric);
     }
 
-    public static boolean putMetricIfAbsent(long id, ClusterParamMetric metric) {
+    public static boolean putMetricIfAbsent(long id, ClusterParamFlowMetric metric) {
         AssertUtil.notNull(metric, "metric cannot be null");
         if (METRIC_MAP.containsKey(id)) {
             return false;
@@ -53,15 +55,23 @@ public final class ClusterParamMetricStatistics {
         METRIC_MAP.remove(id);
     }
 
-    public static ClusterParamMetric getMetric(long id) {
+    public static ClusterParamFlowMetric getMetric(long id) {
         return METRIC_MAP.get(id);
     }
 
     public static void resetFlowMetrics() {
         Set<Long> keySet = METRIC_MAP.keySet();
         for (Long id : keySet) {
-            METRIC_MAP.put(id, new ClusterParamMetric(ClusterServerConfigManager.getSampleCount(),
-                ClusterServerConfigManager.getIntervalMs()));
+            int sampleCount = ClusterServerConfigManager.getSampleCount();
+            int intervalMs = ClusterServerConfigManager.getIntervalMs();
+            ClusterParamFlowMetric metric = METRIC_MAP.get(id);
+            if (metric instanceof ClusterParamSketchMetric) {
+                ClusterParamSketchMetric sketchMetric = (ClusterParamSketchMetric) metric;
+                METRIC_MAP.put(id, new ClusterParamSketchMetric(sampleCount, intervalMs, sketchMetric.getDepth(),
+                    sketchMetric.getWidth(), sketchMetric.getHeavyHitterCapacity()));
+            } else {
+                METRIC_MAP.put(id, new ClusterParamMetric(sampleCount, intervalMs));
+            }
         }
     }
 
@@ -15,7 +15,8 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent;
 
-import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire.RegularExpireStrategy;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire.ExpireStrategy;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire.TimingWheelExpireStrategy;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import com.googlecode.concurrentlinkedhashmap.Weighers;
@@ -27,6 +28,7 @@ import java.util.Set;
  */
 public class TokenCacheNodeManager {
     private static ConcurrentLinkedHashMap<Long, TokenCacheNode> TOKEN_CACHE_NODE_MAP;
+    private static ExpireStrategy expireStrategy;
 
 
     private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
@@ -45,9 +47,12 @@ public class TokenCacheNodeManager {
                 .maximumWeightedCapacity(maximumWeightedCapacity)
                 .weigher(Weighers.singleton())
                 .build();
-        // Start the task of regularly clearing expired keys
-        RegularExpireStrategy strategy = new RegularExpireStrategy(TOKEN_CACHE_NODE_MAP);
-        strategy.startClearTaskRegularly();
+        // Start the task of clearing expired keys, which expires each token at its deadline.
+        if (expireStrategy != null) {
+            expireStrategy.stopClearTask();
+        }
+        expireStrategy = new TimingWheelExpireStrategy(TOKEN_CACHE_NODE_MAP);
+        expireStrategy.startClearTaskRegularly();
     }
 
 
@@ -58,6 +63,7 @@ public class TokenCacheNodeManager {
 
     public static void putTokenCacheNode(long tokenId, TokenCacheNode cacheNode) {
         TOKEN_CACHE_NODE_MAP.put(tokenId, cacheNode);
+        expireStrategy.onTokenCached(cacheNode);
     }
 
     public static boolean isContainsTokenId(long tokenId) {
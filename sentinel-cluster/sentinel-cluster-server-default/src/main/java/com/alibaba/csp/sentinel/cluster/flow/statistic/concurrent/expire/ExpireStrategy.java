@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire;
 
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNode;
+
 /**
  * @author yunfeiyagnggzq
  */
@@ -23,4 +25,17 @@ public interface ExpireStrategy {
      * clean expired token regularly.
      */
     void startClearTaskRegularly();
+
+    /**
+     * Notify the strategy of a newly cached token, so that strategies tracking the deadline
+     * of each token could schedule it.
+     *
+     * @param node the cached token
+     */
+    default void onTokenCached(TokenCacheNode node) {}
+
+    /**
+     * stop the clean task.
+     */
+    default void stopClearTask() {}
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire;
+
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.CurrentConcurrencyManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNode;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Expire strategy backed by a hashed timing wheel, of which each token is scheduled at its own deadline
+ * when it is cached. Every tick only visits the tokens hashed to the current bucket, so the expiry takes O(1)
+ * amortized time for each token regardless of the cache size, and an expired token is cleared within a tick.</p>
+ *
+ * <p>The deadline of a token is the earlier one of the client offline time and two times of the resource
+ * timeout (same as {@link RegularExpireStrategy}). If the client is still online when the client offline time
+ * is reached, the token is checked again later. Released tokens are not removed from the wheel, but skipped
+ * when their bucket is visited.</p>
+ */
+public class TimingWheelExpireStrategy implements ExpireStrategy {
+
+    private static final long DEFAULT_TICK_MS = 100;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    private static final ScheduledExecutorService EXECUTOR = Executors.newScheduledThreadPool(1,
+        new NamedThreadFactory("sentinel-cluster-token-expire-wheel", true));
+
+    private final ConcurrentLinkedHashMap<Long, TokenCacheNode> localCache;
+    private final long tickMs;
+    private final int mask;
+    private final WheelEntry[] buckets;
+    /**
+     * Tokens cached by the request threads, which are moved to the buckets by the tick.
+     */
+    private final Queue<WheelEntry> pendingEntries = new ConcurrentLinkedQueue<>();
+    private final long startTime;
+
+    /**
+     * The next tick to visit, guarded by {@code this}.
+     */
+    private long tick = 0;
+    private ScheduledFuture<?> tickFuture;
+
+    public TimingWheelExpireStrategy(ConcurrentLinkedHashMap<Long, TokenCacheNode> localCache) {
+        this(localCache, DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE);
+    }
+
+    public TimingWheelExpireStrategy(ConcurrentLinkedHashMap<Long, TokenCacheNode> localCache, long tickMs,
+                                     int wheelSize) {
+        AssertUtil.isTrue(localCache != null, " local cache can't be null");
+        AssertUtil.isTrue(tickMs > 0, "tickMs must be positive");
+        AssertUtil.isTrue(wheelSize > 0, "wheelSize must be positive");
+        this.localCache = localCache;
+        this.tickMs = tickMs;
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.buckets = new WheelEntry[size];
+        this.startTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public synchronized void startClearTaskRegularly() {
+        if (tickFuture != null) {
+            return;
+        }
+        tickFuture = EXECUTOR.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    expireUntil(System.currentTimeMillis());
+                } catch (Throwable e) {
+                    RecordLog.warn("[TimingWheelExpireStrategy] undefined throwable during clear token: ", e);
+                }
+            }
+        }, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stopClearTask() {
+        if (tickFuture != null) {
+            tickFuture.cancel(false);
+            tickFuture = null;
+        }
+    }
+
+    @Override
+    public void onTokenCached(TokenCacheNode node) {
+        if (node == null || node.getTokenId() == null) {
+            return;
+        }
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(node.getFlowId());
+        long deadline = rule == null ? node.getResourceTimeout() : nextDeadline(node, rule, 0);
+        pendingEntries.offer(new WheelEntry(node, deadline));
+    }
+
+    /**
+     * Visit all the ticks that have elapsed before the given time, and clear the expired tokens.
+     *
+     * @param now current time in milliseconds
+     * @return count of the cleared tokens
+     */
+    public synchronized int expireUntil(long now) {
+        int expiredCount = 0;
+        while (startTime + (tick + 1) * tickMs <= now) {
+            transferPendingEntries();
+            expiredCount += expireBucket(now);
+            tick++;
+        }
+        if (expiredCount > 0) {
+            RecordLog.info("[TimingWheelExpireStrategy] Delete {} expired tokens", expiredCount);
+        }
+        return expiredCount;
+    }
+
+    private void transferPendingEntries() {
+        WheelEntry entry;
+        while ((entry = pendingEntries.poll()) != null) {
+            addEntry(entry);
+        }
+    }
+
+    private void addEntry(WheelEntry entry) {
+        // Tokens that should have been expired are visited in the current tick.
+        entry.ticks = Math.max(tick, (entry.deadline - startTime) / tickMs);
+        int index = (int) (entry.ticks & mask);
+        entry.next = buckets[index];
+        buckets[index] = entry;
+    }
+
+    private int expireBucket(long now) {
+        int index = (int) (tick & mask);
+        WheelEntry entry = buckets[index];
+        buckets[index] = null;
+        int expiredCount = 0;
+        while (entry != null) {
+            WheelEntry next = entry.next;
+            if (entry.ticks > tick) {
+                // Belongs to a later round of the wheel.
+                entry.next = buckets[index];
+                buckets[index] = entry;
+            } else if (expireOrReschedule(entry, now)) {
+                expiredCount++;
+            }
+            entry = next;
+        }
+        return expiredCount;
+    }
+
+    private boolean expireOrReschedule(WheelEntry entry, long now) {
+        TokenCacheNode node = entry.node;
+        if (localCache.getQuietly(node.getTokenId()) != node) {
+            // Already released.
+            return false;
+        }
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(node.getFlowId());
+        if (rule == null) {
+            return removeToken(node);
+        }
+        // If we find that token's save time is more than 2 times of the client's call resource timeout time,
+        // the token will be determined to timeout.
+        if (now - node.getResourceTimeout() > rule.getClusterConfig().getResourceTimeout()) {
+            return removeToken(node);
+        }
+        // remove the token whose client is offline and saved for more than clientTimeout
+        if (node.getClientTimeout() < now && !ConnectionManager.isClientOnline(node.getClientAddress())) {
+            return removeToken(node);
+        }
+        entry.deadline = nextDeadline(node, rule, now);
+        addEntry(entry);
+        return false;
+    }
+
+    private long nextDeadline(TokenCacheNode node, FlowRule rule, long now) {
+        long resourceDeadline = node.getResourceTimeout() + rule.getClusterConfig().getResourceTimeout();
+        long clientDeadline = node.getClientTimeout();
+        if (clientDeadline < now) {
+            // The client is still online, so check it again after another offline time.
+            clientDeadline = now + Math.max(tickMs, rule.getClusterConfig().getClientOfflineTime());
+        }
+        return Math.min(resourceDeadline, clientDeadline);
+    }
+
+    private boolean removeToken(TokenCacheNode node) {
+        if (!localCache.remove(node.getTokenId(), node)) {
+            return false;
+        }
+        AtomicInteger nowCalls = CurrentConcurrencyManager.get(node.getFlowId());
+        if (nowCalls != null) {
+            nowCalls.getAndAdd(node.getAcquireCount() * -1);
+        }
+        return true;
+    }
+
+    private static final class WheelEntry {
+        private final TokenCacheNode node;
+        private long deadline;
+        /**
+         * The absolute tick of the deadline.
+         */
+        private long ticks;
+        private WheelEntry next;
+
+        WheelEntry(TokenCacheNode node, long deadline) {
+            this.node = node;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.lease;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A batch of tokens leased to a client, which is identified by a lease ID issued by the token server.
+ * The unused tokens of the lease could be returned at most once in total.
+ */
+public class TokenLeaseNode {
+
+    private final long leaseId;
+    private final long flowId;
+    private final long grantedAt;
+    private final long expireAt;
+    /**
+     * Count of the leased tokens which have not been returned yet.
+     */
+    private final AtomicInteger outstandingCount;
+
+    TokenLeaseNode(long leaseId, long flowId, int count, long grantedAt, long expireAt) {
+        this.leaseId = leaseId;
+        this.flowId = flowId;
+        this.grantedAt = grantedAt;
+        this.expireAt = expireAt;
+        this.outstandingCount = new AtomicInteger(count);
+    }
+
+    /**
+     * Take back the returned tokens, no more than the tokens still outstanding.
+     *
+     * @param count count of the returned tokens
+     * @return the count taken back
+     */
+    public int takeBack(int count) {
+        while (true) {
+            int current = outstandingCount.get();
+            int takenCount = Math.min(current, Math.max(0, count));
+            if (takenCount == 0 || outstandingCount.compareAndSet(current, current - takenCount)) {
+                return takenCount;
+            }
+        }
+    }
+
+    public long getLeaseId() {
+        return leaseId;
+    }
+
+    public long getFlowId() {
+        return flowId;
+    }
+
+    /**
+     * @return the time when the tokens were granted (and counted) by the token server
+     */
+    public long getGrantedAt() {
+        return grantedAt;
+    }
+
+    /**
+     * @return the time after which the tokens have been released as the sliding window moved on
+     */
+    public long getExpireAt() {
+        return expireAt;
+    }
+
+    public int getOutstandingCount() {
+        return outstandingCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TokenLeaseNode{" +
+            "leaseId=" + leaseId +
+            ", flowId=" + flowId +
+            ", grantedAt=" + grantedAt +
+            ", expireAt=" + expireAt +
+            ", outstandingCount=" + outstandingCount.get() +
+            '}';
+    }
+}
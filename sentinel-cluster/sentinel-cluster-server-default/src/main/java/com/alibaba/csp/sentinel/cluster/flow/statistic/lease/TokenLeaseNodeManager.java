@@ -0,0 +1,97 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.lease;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * <p>Keeps the token leases granted by this token server, so that a lease return is accepted only for a lease
+ * that this server has granted for the same flow, and no more than the tokens still outstanding of the lease
+ * could be returned.</p>
+ *
+ * <p>Leases are dropped once their tokens have been released as the sliding window moved on. Expired leases
+ * are removed in the order of granting when new leases are granted, so a lease of a flow with a shorter
+ * window may be kept until the earlier leases of the flows with longer windows expire.</p>
+ */
+public final class TokenLeaseNodeManager {
+
+    private static final Map<Long, TokenLeaseNode> LEASE_MAP = new ConcurrentHashMap<>();
+    private static final Queue<TokenLeaseNode> LEASE_QUEUE = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Register a new lease with a unique lease ID.
+     *
+     * @param flowId    the flow ID
+     * @param count     count of the leased tokens
+     * @param grantedAt the time when the tokens were granted
+     * @param expireAt  the time after which the tokens have been released
+     * @return the new lease
+     */
+    public static TokenLeaseNode putLease(long flowId, int count, long grantedAt, long expireAt) {
+        removeExpiredLeases(grantedAt);
+        while (true) {
+            // The lease ID should be hard to guess, as it's the proof of the lease.
+            long leaseId = UUID.randomUUID().getMostSignificantBits();
+            if (leaseId == 0) {
+                continue;
+            }
+            TokenLeaseNode node = new TokenLeaseNode(leaseId, flowId, count, grantedAt, expireAt);
+            if (LEASE_MAP.putIfAbsent(leaseId, node) == null) {
+                LEASE_QUEUE.offer(node);
+                return node;
+            }
+        }
+    }
+
+    /**
+     * @param leaseId the lease ID
+     * @return the lease, or null if the lease doesn't exist or has been removed
+     */
+    public static TokenLeaseNode getLease(long leaseId) {
+        return LEASE_MAP.get(leaseId);
+    }
+
+    public static void removeLease(TokenLeaseNode node) {
+        LEASE_MAP.remove(node.getLeaseId(), node);
+    }
+
+    static void removeExpiredLeases(long now) {
+        TokenLeaseNode node;
+        while ((node = LEASE_QUEUE.peek()) != null && now >= node.getExpireAt()) {
+            if (LEASE_QUEUE.remove(node)) {
+                removeLease(node);
+            }
+        }
+    }
+
+    public static int getSize() {
+        return LEASE_MAP.size();
+    }
+
+    /**
+     * Remove all the leases. Only for internal test.
+     */
+    public static void clear() {
+        LEASE_QUEUE.clear();
+        LEASE_MAP.clear();
+    }
+
+    private TokenLeaseNodeManager() {}
+}
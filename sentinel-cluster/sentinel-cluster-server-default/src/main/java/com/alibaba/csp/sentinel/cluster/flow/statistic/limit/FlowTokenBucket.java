@@ -0,0 +1,147 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>A lock-free token bucket of a cluster flow, which holds tokens of one second at most and is refilled
+ * by time at the rate of the threshold. The bucket is kept as the theoretical arrival time of the next
+ * request (the GCRA form of token bucket), so that each acquiring is a single CAS on the time, without
+ * scanning the statistic buckets. The passed count in any period of {@code t} seconds is strictly bounded
+ * by {@code threshold * (t + 1)}.</p>
+ *
+ * <p>The threshold is provided on each acquiring, as it may change with the connected clients.</p>
+ */
+public class FlowTokenBucket {
+
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The time (in ns) when the bucket would be full again. A bucket with the time earlier than now is full.
+     */
+    private final AtomicLong fullTime = new AtomicLong(0);
+
+    /**
+     * Try to acquire tokens from the bucket. When the bucket has not enough tokens, the tokens may be
+     * acquired in advance if they would be refilled within {@code maxWaitMs}.
+     *
+     * @param count     token count to acquire
+     * @param threshold tokens per second
+     * @param maxWaitMs max time to wait for tokens refilled (in ms), 0 for not waiting
+     * @return 0 if acquired, positive time to wait (in ms) if acquired in advance, or -1 if not acquired
+     */
+    public long tryAcquire(int count, double threshold, long maxWaitMs) {
+        if (threshold <= 0) {
+            return -1;
+        }
+        long cost = costOf(count, threshold);
+        long now = currentNanos();
+        while (true) {
+            long current = fullTime.get();
+            long next = Math.max(current, now) + cost;
+            long waitNanos = next - now - BURST_NANOS;
+            if (waitNanos > maxWaitMs * NANOS_PER_MILLI) {
+                return -1;
+            }
+            if (fullTime.compareAndSet(current, next)) {
+                if (waitNanos <= 0) {
+                    return 0;
+                }
+                // Round up so that the tokens are refilled after waiting.
+                return (waitNanos + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI;
+            }
+        }
+    }
+
+    /**
+     * Acquire as many tokens as available, but no more than {@code maxCount}.
+     *
+     * @param maxCount  max token count to acquire
+     * @param threshold tokens per second
+     * @return acquired token count
+     */
+    public int tryAcquireUpTo(int maxCount, double threshold) {
+        if (threshold <= 0 || maxCount <= 0) {
+            return 0;
+        }
+        long now = currentNanos();
+        while (true) {
+            long current = fullTime.get();
+            long base = Math.max(current, now);
+            int count = (int) Math.min(maxCount, availableCount(base, now, threshold));
+            if (count <= 0) {
+                return 0;
+            }
+            if (fullTime.compareAndSet(current, base + costOf(count, threshold))) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Put the unused tokens back to the bucket, which will not be fuller than full.
+     *
+     * @param count     token count to put back
+     * @param threshold tokens per second
+     */
+    public void release(int count, double threshold) {
+        if (threshold <= 0 || count <= 0) {
+            return;
+        }
+        long cost = costOf(count, threshold);
+        long now = currentNanos();
+        while (true) {
+            long current = fullTime.get();
+            if (current <= now) {
+                return;
+            }
+            if (fullTime.compareAndSet(current, Math.max(current - cost, now))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the token count available in the bucket.
+     *
+     * @param threshold tokens per second
+     * @return available token count
+     */
+    public long getAvailableCount(double threshold) {
+        if (threshold <= 0) {
+            return 0;
+        }
+        long now = currentNanos();
+        return availableCount(Math.max(fullTime.get(), now), now, threshold);
+    }
+
+    private long availableCount(long base, long now, double threshold) {
+        return (long) ((now + BURST_NANOS - base) * threshold / BURST_NANOS);
+    }
+
+    private long costOf(int count, double threshold) {
+        return (long) Math.ceil(count * BURST_NANOS / threshold);
+    }
+
+    private long currentNanos() {
+        return TimeUtil.currentTimeMillis() * NANOS_PER_MILLI;
+    }
+}
@@ -22,6 +22,16 @@ import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager
 import com.alibaba.csp.sentinel.util.AssertUtil;
 
 /**
+ * <p>Limits the token requests per namespace. When the flow IDs are partitioned among multiple token
+ * servers, each server allows the proportion of flow IDs it owns, so that the namespace limit still
+ * holds for all the servers.</p>
+ *
+ * <p>The split is an approximation: it follows the share of the hash ring owned by each server rather
+ * than the traffic it actually receives, as the servers don't exchange their load. It's accurate when the
+ * requests spread evenly over the flows. With skewed traffic the namespace limit still holds as an upper
+ * bound, but a server owning the hot flows rejects requests once its own share is used up, even if the
+ * namespace as a whole is below the limit.</p>
+ *
  * @author Eric Zhao
  * @since 1.4.1
  */
@@ -32,7 +42,8 @@ public final class GlobalRequestLimiter {
     public static void initIfAbsent(String namespace) {
         AssertUtil.notEmpty(namespace, "namespace cannot be empty");
         if (!GLOBAL_QPS_LIMITER_MAP.containsKey(namespace)) {
-            GLOBAL_QPS_LIMITER_MAP.put(namespace, new RequestLimiter(ClusterServerConfigManager.getMaxAllowedQps(namespace)));
+            GLOBAL_QPS_LIMITER_MAP.put(namespace, new RequestLimiter(partitioned(
+                ClusterServerConfigManager.getMaxAllowedQps(namespace))));
         }
     }
 
@@ -74,10 +85,17 @@ public final class GlobalRequestLimiter {
         AssertUtil.isTrue(maxAllowedQps >= 0, "max allowed QPS should > 0");
         for (RequestLimiter limiter : GLOBAL_QPS_LIMITER_MAP.values()) {
             if (limiter != null) {
-                limiter.setQpsAllowed(maxAllowedQps);
+                limiter.setQpsAllowed(partitioned(maxAllowedQps));
             }
         }
     }
 
+    /**
+     * @return the part of the namespace limit allowed by current token server, by its share of flow IDs
+     */
+    private static double partitioned(double maxAllowedQps) {
+        return maxAllowedQps * ClusterServerConfigManager.getPartitionShare();
+    }
+
     private GlobalRequestLimiter() {}
 }
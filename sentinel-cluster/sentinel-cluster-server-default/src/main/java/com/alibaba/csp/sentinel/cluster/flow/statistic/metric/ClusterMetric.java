@@ -19,6 +19,7 @@ import java.util.List;
 
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterMetricBucket;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.limit.FlowTokenBucket;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 
 /**
@@ -28,6 +29,10 @@ import com.alibaba.csp.sentinel.util.AssertUtil;
 public class ClusterMetric {
 
     private final ClusterMetricLeapArray metric;
+    /**
+     * Token bucket of the flow, used by the rules of token bucket strategy only.
+     */
+    private final FlowTokenBucket tokenBucket = new FlowTokenBucket();
 
     public ClusterMetric(int sampleCount, int intervalInMs) {
         AssertUtil.isTrue(sampleCount > 0, "sampleCount should be positive");
@@ -40,6 +45,27 @@ public class ClusterMetric {
         metric.currentWindow().value().add(event, count);
     }
 
+    /**
+     * Take back the count added at provided time, from the bucket it was added to. Nothing is taken back if
+     * the bucket has slid out of the window, as the count has been released already.
+     *
+     * @param timeMillis the time when the count was added
+     * @param event      event to take back
+     * @param count      count to take back
+     * @return the count taken back, which is no more than the count of the bucket
+     */
+    public long takeBack(long timeMillis, ClusterFlowEvent event, long count) {
+        ClusterMetricBucket bucket = metric.getBucketInWindow(timeMillis);
+        if (bucket == null) {
+            return 0;
+        }
+        long takenCount = Math.min(count, bucket.get(event));
+        if (takenCount > 0) {
+            bucket.add(event, -takenCount);
+        }
+        return takenCount;
+    }
+
     public long getCurrentCount(ClusterFlowEvent event) {
         return metric.currentWindow().value().get(event);
     }
@@ -71,6 +97,10 @@ public class ClusterMetric {
         return getSum(event) / metric.getIntervalInSecond();
     }
 
+    public FlowTokenBucket getTokenBucket() {
+        return tokenBucket;
+    }
+
     /**
      * Try to pre-occupy upcoming buckets.
      *
@@ -80,6 +80,20 @@ public class ClusterMetricLeapArray extends LeapArray<ClusterMetricBucket> {
         return occupyCounter[event.ordinal()].sum();
     }
 
+    /**
+     * Get the bucket of provided time, if it's still in the sliding window.
+     *
+     * @param timeMillis a valid timestamp in milliseconds
+     * @return the bucket, or null if the bucket has slid out of the window
+     */
+    public ClusterMetricBucket getBucketInWindow(long timeMillis) {
+        long windowStart = timeMillis - timeMillis % windowLengthInMs;
+        if (clock.currentTimeMillis() - windowStart > intervalInMs) {
+            return null;
+        }
+        return getWindowValue(timeMillis);
+    }
+
     public long getFirstCountOfWindow(ClusterFlowEvent event) {
         if (event == null) {
             return 0;
@@ -0,0 +1,56 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
+
+import java.util.Map;
+
+/**
+ * Statistic of the parameter values of a cluster parameter flow rule on token server.
+ */
+public interface ClusterParamFlowMetric {
+
+    /**
+     * Get the count of the parameter value in the sliding window.
+     *
+     * @param value parameter value
+     * @return the count, or 0 if the value is null
+     */
+    long getSum(Object value);
+
+    /**
+     * Add the count of the parameter value in current bucket.
+     *
+     * @param value parameter value
+     * @param count count to add
+     */
+    void addValue(Object value, int count);
+
+    /**
+     * Get the average count per second of the parameter value in the sliding window.
+     *
+     * @param value parameter value
+     * @return the average count per second
+     */
+    double getAvg(Object value);
+
+    /**
+     * Get the heaviest parameter values with their average count per second in the sliding window.
+     *
+     * @param number max count of the values
+     * @return the heaviest values with their average count per second
+     */
+    Map<Object, Double> getTopValues(int number);
+}
@@ -32,7 +32,7 @@ import com.alibaba.csp.sentinel.util.AssertUtil;
  * @author Eric Zhao
  * @since 1.4.0
  */
-public class ClusterParamMetric {
+public class ClusterParamMetric implements ClusterParamFlowMetric {
 
     public static final int DEFAULT_CLUSTER_MAX_CAPACITY = 4000;
 
@@ -49,6 +49,7 @@ public class ClusterParamMetric {
         this.metric = new ClusterParameterLeapArray<>(sampleCount, intervalInMs, maxCapacity);
     }
 
+    @Override
     public long getSum(Object value) {
         if (value == null) {
             return 0;
@@ -69,6 +70,7 @@ public class ClusterParamMetric {
         return adder == null ? 0 : adder.sum();
     }
 
+    @Override
     public void addValue(Object value, int count) {
         if (value == null) {
             return;
@@ -83,10 +85,12 @@ public class ClusterParamMetric {
         }
     }
 
+    @Override
     public double getAvg(Object value) {
         return getSum(value) / metric.getIntervalInSecond();
     }
 
+    @Override
     public Map<Object, Double> getTopValues(int number) {
         AssertUtil.isTrue(number > 0, "number must be positive");
         metric.currentWindow();
@@ -0,0 +1,94 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.slots.statistic.sketch.WindowedFrequencySketch;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>Cluster parameter metric backed by a sliding window of Count-Min Sketch and heavy hitters, which takes
+ * fixed memory regardless of the count of parameter values, so it fits the high-cardinality parameters
+ * (e.g. user ID) better than the per-value counters in LRU maps, which undercount the hot values evicted.</p>
+ *
+ * <p>The estimated count is never less than the actual count, and the heavy values are counted exactly
+ * since they are tracked as heavy hitters, so the hot values are never under-limited.</p>
+ */
+public class ClusterParamSketchMetric implements ClusterParamFlowMetric {
+
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_WIDTH = 1024;
+    public static final int DEFAULT_HEAVY_HITTER_CAPACITY = 128;
+
+    private final WindowedFrequencySketch sketch;
+
+    public ClusterParamSketchMetric(int sampleCount, int intervalInMs) {
+        this(sampleCount, intervalInMs, DEFAULT_DEPTH, DEFAULT_WIDTH, DEFAULT_HEAVY_HITTER_CAPACITY);
+    }
+
+    public ClusterParamSketchMetric(int sampleCount, int intervalInMs, int depth, int width,
+                                    int heavyHitterCapacity) {
+        AssertUtil.isTrue(sampleCount > 0, "sampleCount should be positive");
+        AssertUtil.isTrue(intervalInMs > 0, "interval should be positive");
+        AssertUtil.isTrue(intervalInMs % sampleCount == 0, "time span needs to be evenly divided");
+        this.sketch = new WindowedFrequencySketch(sampleCount, intervalInMs, depth, width, heavyHitterCapacity);
+    }
+
+    public int getDepth() {
+        return sketch.getDepth();
+    }
+
+    public int getWidth() {
+        return sketch.getWidth();
+    }
+
+    public int getHeavyHitterCapacity() {
+        return sketch.getHeavyHitterCapacity();
+    }
+
+    @Override
+    public long getSum(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        return sketch.estimate(value);
+    }
+
+    @Override
+    public void addValue(Object value, int count) {
+        if (value == null) {
+            return;
+        }
+        sketch.add(value, count);
+    }
+
+    @Override
+    public double getAvg(Object value) {
+        return getSum(value) / sketch.getIntervalInSecond();
+    }
+
+    @Override
+    public Map<Object, Double> getTopValues(int number) {
+        AssertUtil.isTrue(number > 0, "number must be positive");
+        Map<Object, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<Object, Long> entry : sketch.topKeys(number).entrySet()) {
+            result.put(entry.getKey(), entry.getValue() / sketch.getIntervalInSecond());
+        }
+        return result;
+    }
+}
@@ -19,10 +19,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.alibaba.csp.sentinel.cluster.NativeTransportSupport;
+import com.alibaba.csp.sentinel.cluster.server.codec.netty.FlyweightFlowRequestHandler;
 import com.alibaba.csp.sentinel.cluster.server.codec.netty.NettyRequestDecoder;
 import com.alibaba.csp.sentinel.cluster.server.codec.netty.NettyResponseEncoder;
 import com.alibaba.csp.sentinel.cluster.server.connection.Connection;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionPool;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerStartUpConfig;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
 import com.alibaba.csp.sentinel.cluster.server.handler.TokenServerHandler;
 import com.alibaba.csp.sentinel.log.RecordLog;
 
@@ -32,9 +36,10 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.logging.LogLevel;
@@ -56,9 +61,10 @@ public class NettyTransportServer implements ClusterTokenServer {
     private static final int RETRY_SLEEP_MS = 2000;
 
     private final int port;
+    private final ServerTransportConfig transportConfig;
 
-    private NioEventLoopGroup bossGroup;
-    private NioEventLoopGroup workerGroup;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
 
     private final ConnectionPool connectionPool = new ConnectionPool();
 
@@ -66,7 +72,12 @@ public class NettyTransportServer implements ClusterTokenServer {
     private final AtomicInteger failedTimes = new AtomicInteger(0);
 
     public NettyTransportServer(int port) {
-        this.port = port;
+        this(new ServerTransportConfig().setPort(port));
+    }
+
+    public NettyTransportServer(ServerTransportConfig transportConfig) {
+        this.port = transportConfig.getPort();
+        this.transportConfig = transportConfig;
     }
 
     @Override
@@ -75,18 +86,26 @@ public class NettyTransportServer implements ClusterTokenServer {
             return;
         }
 
+        final boolean flyweightCodec = ClusterServerStartUpConfig.isFlyweightCodecEnabled();
+        final ServerTransportConfig config = transportConfig;
+        int workerThreads = config.getWorkerThreads() > 0 ? config.getWorkerThreads() : DEFAULT_EVENT_LOOP_THREADS;
         ServerBootstrap b = new ServerBootstrap();
-        this.bossGroup = new NioEventLoopGroup(1);
-        this.workerGroup = new NioEventLoopGroup(DEFAULT_EVENT_LOOP_THREADS);
+        this.bossGroup = NativeTransportSupport.newEventLoopGroup(config.getBossThreads(), config.isNativeTransport());
+        this.workerGroup = NativeTransportSupport.newEventLoopGroup(workerThreads, config.isNativeTransport());
+        Class<? extends ServerChannel> channelClass = NativeTransportSupport.serverChannelClass(bossGroup);
+        RecordLog.info("[NettyTransportServer] Token server transport channel: {}", channelClass.getSimpleName());
         b.group(bossGroup, workerGroup)
-            .channel(NioServerSocketChannel.class)
-            .option(ChannelOption.SO_BACKLOG, 128)
+            .channel(channelClass)
+            .option(ChannelOption.SO_BACKLOG, config.getSoBacklog())
             .handler(new LoggingHandler(LogLevel.INFO))
             .childHandler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 public void initChannel(SocketChannel ch) throws Exception {
                     ChannelPipeline p = ch.pipeline();
-                    p.addLast(new LengthFieldBasedFrameDecoder(1024, 0, 2, 0, 2));
+                    p.addLast(new LengthFieldBasedFrameDecoder(config.getMaxFrameLength(), 0, 2, 0, 2));
+                    if (flyweightCodec) {
+                        p.addLast(new FlyweightFlowRequestHandler(connectionPool));
+                    }
                     p.addLast(new NettyRequestDecoder());
                     p.addLast(new LengthFieldPrepender(2));
                     p.addLast(new NettyResponseEncoder());
@@ -97,7 +116,9 @@ public class NettyTransportServer implements ClusterTokenServer {
             .childOption(ChannelOption.SO_SNDBUF, 32 * 1024)
             .childOption(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10000)
             .childOption(ChannelOption.SO_TIMEOUT, 10)
-            .childOption(ChannelOption.TCP_NODELAY, true)
+            .childOption(ChannelOption.TCP_NODELAY, config.isTcpNoDelay())
+            .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                config.getWriteBufferLowWaterMark(), config.getWriteBufferHighWaterMark()))
             .childOption(ChannelOption.SO_RCVBUF, 32 * 1024);
         b.bind(port).addListener(new GenericFutureListener<ChannelFuture>() {
             @Override
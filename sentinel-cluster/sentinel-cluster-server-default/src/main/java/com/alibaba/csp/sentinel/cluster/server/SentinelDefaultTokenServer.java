@@ -39,7 +39,7 @@ public class SentinelDefaultTokenServer implements ClusterTokenServer {
     private final boolean embedded;
 
     private ClusterTokenServer server;
-    private int port;
+    private ServerTransportConfig transportConfig;
     private final AtomicBoolean shouldStart = new AtomicBoolean(false);
 
     static {
@@ -65,10 +65,10 @@ public class SentinelDefaultTokenServer implements ClusterTokenServer {
         if (server != null) {
             return;
         }
-        int port = ClusterServerConfigManager.getPort();
-        if (port > 0) {
-            this.server = new NettyTransportServer(port);
-            this.port = port;
+        ServerTransportConfig config = ClusterServerConfigManager.getTransportConfig();
+        if (ClusterServerConfigManager.getPort() > 0) {
+            this.server = new NettyTransportServer(config);
+            this.transportConfig = config;
         }
     }
 
@@ -76,16 +76,15 @@ public class SentinelDefaultTokenServer implements ClusterTokenServer {
         if (config == null || config.getPort() <= 0) {
             return;
         }
-        int newPort = config.getPort();
-        if (newPort == port) {
+        if (config.hasSameServerOptions(transportConfig)) {
             return;
         }
         try {
             if (server != null) {
                 stopServer();
             }
-            this.server = new NettyTransportServer(newPort);
-            this.port = newPort;
+            this.server = new NettyTransportServer(config);
+            this.transportConfig = config;
             startServerIfScheduled();
         } catch (Exception ex) {
             RecordLog.warn("[SentinelDefaultTokenServer] Failed to apply modification to token server", ex);
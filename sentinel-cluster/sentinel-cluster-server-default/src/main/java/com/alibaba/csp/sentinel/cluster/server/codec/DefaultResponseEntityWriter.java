@@ -42,7 +42,9 @@ public class DefaultResponseEntityWriter implements ResponseEntityWriter<Cluster
             return;
         }
         writeHead(response, out);
-        responseDataWriter.writeTo(response.getData(), out);
+        if (response.getData() != null) {
+            responseDataWriter.writeTo(response.getData(), out);
+        }
     }
 
     private void writeHead(Response response, ByteBuf out) {
@@ -0,0 +1,81 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.codec.EntityDecoder;
+import com.alibaba.csp.sentinel.cluster.codec.request.RequestEntityDecoder;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.Request;
+import com.alibaba.csp.sentinel.cluster.server.codec.ServerEntityCodecProvider;
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p>Decoder for a batch of requests, each of them is decoded by the global request entity decoder.
+ * A request that cannot be decoded is kept with no data, so that it's answered with a bad response
+ * (matched by its xid) rather than left for the client to time out.</p>
+ *
+ * <pre>
+ * +----------+-----------+--------------------+-----+
+ * | count(2) | length(2) | xid + type + data  | ... |
+ * +----------+-----------+--------------------+-----+
+ * </pre>
+ */
+public class BatchRequestDataDecoder implements EntityDecoder<ByteBuf, List<ClusterRequest>> {
+
+    @Override
+    public List<ClusterRequest> decode(ByteBuf source) {
+        RequestEntityDecoder<ByteBuf, Request> requestDecoder = ServerEntityCodecProvider.getRequestEntityDecoder();
+        if (requestDecoder == null || source.readableBytes() < 2) {
+            return null;
+        }
+        int count = source.readUnsignedShort();
+        List<ClusterRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = source.readableBytes() >= 2 ? source.readUnsignedShort() : -1;
+            if (length < 0 || source.readableBytes() < length) {
+                RecordLog.warn("[BatchRequestDataDecoder] Truncated batch, {} of {} requests dropped",
+                    count - i, count);
+                break;
+            }
+            ByteBuf entity = source.readSlice(length);
+            Request request = decodeEntity(requestDecoder, entity);
+            if (request instanceof ClusterRequest) {
+                requests.add((ClusterRequest) request);
+            } else if (entity.capacity() >= 5) {
+                int xid = entity.getInt(0);
+                int type = entity.getByte(4);
+                RecordLog.warn("[BatchRequestDataDecoder] Undecodable request in batch, xid: {}, type: {}", xid, type);
+                requests.add(new ClusterRequest<>(xid, type, null));
+            } else {
+                RecordLog.warn("[BatchRequestDataDecoder] Undecodable request without xid in batch dropped");
+            }
+        }
+        return requests;
+    }
+
+    private static Request decodeEntity(RequestEntityDecoder<ByteBuf, Request> requestDecoder, ByteBuf entity) {
+        try {
+            return requestDecoder.decode(entity);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+}
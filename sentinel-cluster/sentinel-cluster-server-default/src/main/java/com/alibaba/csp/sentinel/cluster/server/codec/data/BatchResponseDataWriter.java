@@ -0,0 +1,50 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.data;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.codec.EntityWriter;
+import com.alibaba.csp.sentinel.cluster.codec.response.ResponseEntityWriter;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.server.codec.ServerEntityCodecProvider;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p>Writer for a batch of responses, each of them is written by the global response entity writer.</p>
+ *
+ * <pre>
+ * +----------+-----------+------------------------------+-----+
+ * | count(2) | length(2) | xid + type + status + data   | ... |
+ * +----------+-----------+------------------------------+-----+
+ * </pre>
+ */
+public class BatchResponseDataWriter implements EntityWriter<List<ClusterResponse>, ByteBuf> {
+
+    @Override
+    public void writeTo(List<ClusterResponse> entity, ByteBuf target) {
+        ResponseEntityWriter<ClusterResponse, ByteBuf> responseWriter = ServerEntityCodecProvider
+            .getResponseEntityWriter();
+        target.writeShort(entity.size());
+        for (ClusterResponse response : entity) {
+            int lengthIndex = target.writerIndex();
+            target.writeShort(0);
+            responseWriter.writeTo(response, target);
+            target.setShort(lengthIndex, target.writerIndex() - lengthIndex - 2);
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.alibaba.csp.sentinel.cluster.server.codec.data;
 
 import com.alibaba.csp.sentinel.cluster.codec.EntityWriter;
 import com.alibaba.csp.sentinel.cluster.response.data.FlowTokenResponseData;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerStartUpConfig;
 
 import io.netty.buffer.ByteBuf;
 
@@ -30,5 +31,8 @@ public class FlowResponseDataWriter implements EntityWriter<FlowTokenResponseDat
     public void writeTo(FlowTokenResponseData entity, ByteBuf out) {
         out.writeInt(entity.getRemainingCount());
         out.writeInt(entity.getWaitInMs());
+        if (ClusterServerStartUpConfig.isExtendedFlowResponseEnabled()) {
+            out.writeInt(entity.getConnectedCount());
+        }
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.netty;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerStartUpConfig;
+import com.alibaba.csp.sentinel.cluster.server.connection.Connection;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionPool;
+import com.alibaba.csp.sentinel.cluster.server.processor.FlowRequestProcessor;
+import com.alibaba.csp.sentinel.cluster.server.processor.RequestProcessor;
+import com.alibaba.csp.sentinel.cluster.server.processor.RequestProcessorProvider;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * <p>Flyweight codec for the flow requests, which reads the request frame and writes the response
+ * directly against the pooled {@code ByteBuf}, so that no {@code ClusterRequest}, {@code FlowRequestData},
+ * {@code ClusterResponse} or {@code FlowTokenResponseData} is created for each message.
+ * It should be placed right after the frame decoder, and any other frame is passed to the default codec.</p>
+ *
+ * <p>Request frame (without length field):</p>
+ * <pre>
+ * | xid (4) | type (1) | flow ID (8) | count (4) | priority flag (1) |
+ * </pre>
+ * <p>Response frame:</p>
+ * <pre>
+ * | length (2) | xid (4) | type (1) | status (1) | remaining (4) | wait in ms (4) | [connected count (4)] |
+ * </pre>
+ * <p>The connected count is written only if the extended flow response is enabled.</p>
+ */
+public class FlyweightFlowRequestHandler extends ChannelInboundHandlerAdapter {
+
+    private static final int HEAD_LENGTH = 5;
+    private static final int FLOW_DATA_LENGTH = 12;
+    private static final int RESPONSE_LENGTH = 14;
+
+    private final ConnectionPool globalConnectionPool;
+    private final boolean extendedResponse = ClusterServerStartUpConfig.isExtendedFlowResponseEnabled();
+    /**
+     * Connection of the channel, resolved once to avoid building the connection key for each message.
+     */
+    private Connection connection;
+
+    public FlyweightFlowRequestHandler(ConnectionPool globalConnectionPool) {
+        this.globalConnectionPool = globalConnectionPool;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        ByteBuf frame = (ByteBuf)msg;
+        int readerIndex = frame.readerIndex();
+        if (frame.readableBytes() < HEAD_LENGTH + FLOW_DATA_LENGTH
+            || frame.getByte(readerIndex + 4) != ClusterConstants.MSG_TYPE_FLOW) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        RequestProcessor<?, ?> processor = RequestProcessorProvider.getProcessor(ClusterConstants.MSG_TYPE_FLOW);
+        if (!(processor instanceof FlowRequestProcessor)) {
+            // Customized processor, which takes the request entity.
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        int xid;
+        long flowId;
+        int count;
+        boolean prioritized;
+        try {
+            xid = frame.getInt(readerIndex);
+            flowId = frame.getLong(readerIndex + HEAD_LENGTH);
+            count = frame.getInt(readerIndex + HEAD_LENGTH + 8);
+            prioritized = frame.readableBytes() > HEAD_LENGTH + FLOW_DATA_LENGTH
+                && frame.getBoolean(readerIndex + HEAD_LENGTH + FLOW_DATA_LENGTH);
+        } finally {
+            frame.release();
+        }
+        refreshLastReadTime(ctx);
+
+        TokenResult result = ((FlowRequestProcessor)processor).requestToken(flowId, count, prioritized);
+        int length = extendedResponse ? RESPONSE_LENGTH + 4 : RESPONSE_LENGTH;
+        ByteBuf out = ctx.alloc().ioBuffer(2 + length);
+        out.writeShort(length);
+        out.writeInt(xid);
+        out.writeByte(ClusterConstants.MSG_TYPE_FLOW);
+        out.writeByte(result.getStatus());
+        out.writeInt(result.getRemaining());
+        out.writeInt(result.getWaitInMs());
+        if (extendedResponse) {
+            out.writeInt(result.getConnectedCount());
+        }
+        ctx.writeAndFlush(out);
+    }
+
+    private void refreshLastReadTime(ChannelHandlerContext ctx) {
+        if (connection == null) {
+            connection = globalConnectionPool.getConnection(ctx.channel());
+        }
+        if (connection != null) {
+            connection.refreshLastReadTime(System.currentTimeMillis());
+        }
+    }
+}
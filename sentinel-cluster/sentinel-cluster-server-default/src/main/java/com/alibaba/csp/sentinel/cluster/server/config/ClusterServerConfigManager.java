@@ -24,6 +24,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenServerPartition;
 import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
 import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterParamFlowRuleManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
@@ -51,6 +52,7 @@ public final class ClusterServerConfigManager {
      */
     private static volatile int port = ClusterConstants.DEFAULT_CLUSTER_SERVER_PORT;
     private static volatile int idleSeconds = ServerTransportConfig.DEFAULT_IDLE_SECONDS;
+    private static volatile ServerTransportConfig transportConfig = new ServerTransportConfig();
     private static volatile Set<String> namespaceSet = Collections.singleton(ServerConstants.DEFAULT_NAMESPACE);
 
     /**
@@ -62,6 +64,12 @@ public final class ClusterServerConfigManager {
     private static volatile int sampleCount = ServerFlowConfig.DEFAULT_SAMPLE_COUNT;
     private static volatile double maxAllowedQps = ServerFlowConfig.DEFAULT_MAX_ALLOWED_QPS;
 
+    /**
+     * Server partition config. The token server owns all flow IDs if the partition is absent.
+     */
+    private static volatile TokenServerPartition partition = null;
+    private static volatile int partitionIndex = -1;
+
     /**
      * Namespace-specific flow config for token server.
      * Format: (namespace, config).
@@ -82,6 +90,10 @@ public final class ClusterServerConfigManager {
      * Property for cluster server global flow control configuration.
      */
     private static SentinelProperty<ServerFlowConfig> globalFlowProperty = new DynamicSentinelProperty<>();
+    /**
+     * Property for cluster server partition configuration.
+     */
+    private static SentinelProperty<ServerPartitionConfig> partitionProperty = new DynamicSentinelProperty<>();
 
     private static final PropertyListener<ServerTransportConfig> TRANSPORT_PROPERTY_LISTENER
         = new ServerGlobalTransportPropertyListener();
@@ -89,11 +101,14 @@ public final class ClusterServerConfigManager {
         = new ServerGlobalFlowPropertyListener();
     private static final PropertyListener<Set<String>> NAMESPACE_SET_PROPERTY_LISTENER
         = new ServerNamespaceSetPropertyListener();
+    private static final PropertyListener<ServerPartitionConfig> PARTITION_PROPERTY_LISTENER
+        = new ServerPartitionPropertyListener();
 
     static {
         transportConfigProperty.addListener(TRANSPORT_PROPERTY_LISTENER);
         globalFlowProperty.addListener(GLOBAL_FLOW_PROPERTY_LISTENER);
         namespaceSetProperty.addListener(NAMESPACE_SET_PROPERTY_LISTENER);
+        partitionProperty.addListener(PARTITION_PROPERTY_LISTENER);
     }
 
     /**
@@ -147,6 +162,23 @@ public final class ClusterServerConfigManager {
         }
     }
 
+    /**
+     * Register cluster server partition configuration dynamic property.
+     *
+     * @param property server partition configuration dynamic property
+     */
+    public static void registerServerPartitionProperty(SentinelProperty<ServerPartitionConfig> property) {
+        AssertUtil.notNull(property, "cluster server partition config dynamic property cannot be null");
+        synchronized (PARTITION_PROPERTY_LISTENER) {
+            RecordLog.info(
+                "[ClusterServerConfigManager] Registering new server partition dynamic property "
+                    + "to Sentinel server config manager");
+            partitionProperty.removeListener(PARTITION_PROPERTY_LISTENER);
+            property.addListener(PARTITION_PROPERTY_LISTENER);
+            partitionProperty = property;
+        }
+    }
+
     /**
      * Load provided server namespace set to property in memory.
      *
@@ -174,6 +206,15 @@ public final class ClusterServerConfigManager {
         globalFlowProperty.updateValue(config);
     }
 
+    /**
+     * Load provided server partition configuration to property in memory.
+     *
+     * @param config valid cluster server partition configuration
+     */
+    public static void loadServerPartitionConfig(ServerPartitionConfig config) {
+        partitionProperty.updateValue(config);
+    }
+
     /**
      * Load server flow config for a specific namespace.
      *
@@ -290,7 +331,9 @@ public final class ClusterServerConfigManager {
     private static void updateTokenServer(ServerTransportConfig config) {
         int newPort = config.getPort();
         AssertUtil.isTrue(newPort > 0, "token server port should be valid (positive)");
-        if (newPort == port) {
+        ServerTransportConfig oldConfig = transportConfig;
+        transportConfig = config;
+        if (newPort == port && config.hasSameServerOptions(oldConfig)) {
             return;
         }
         ClusterServerConfigManager.port = newPort;
@@ -345,8 +388,65 @@ public final class ClusterServerConfigManager {
         }
     }
 
+    private static class ServerPartitionPropertyListener implements PropertyListener<ServerPartitionConfig> {
+
+        @Override
+        public void configUpdate(ServerPartitionConfig config) {
+            applyPartitionConfig(config);
+        }
+
+        @Override
+        public void configLoad(ServerPartitionConfig config) {
+            if (config == null) {
+                return;
+            }
+            applyPartitionConfig(config);
+        }
+
+        private synchronized void applyPartitionConfig(ServerPartitionConfig config) {
+            if (config == null || config.getServers() == null || config.getServers().isEmpty()) {
+                RecordLog.info("[ClusterServerConfigManager] Server partition removed, owning all flow IDs");
+                applyPartitionChange(null, -1);
+                return;
+            }
+            if (!isValidPartitionConfig(config)) {
+                RecordLog.warn(
+                    "[ClusterServerConfigManager] Invalid cluster server partition config, ignoring: {}", config);
+                return;
+            }
+            RecordLog.info("[ClusterServerConfigManager] Updating new server partition config: {}", config);
+            applyPartitionChange(new TokenServerPartition(config.getServers(), config.getVirtualNodeCount()),
+                config.getIndex());
+        }
+    }
+
+    private static void applyPartitionChange(TokenServerPartition newPartition, int newIndex) {
+        partitionIndex = newIndex;
+        partition = newPartition;
+        // Metrics are kept only for the owned flows.
+        ClusterFlowRuleManager.applyPartitionChange();
+        // The namespace limit is shared among the servers by the owned proportion.
+        GlobalRequestLimiter.applyMaxQpsChange(maxAllowedQps);
+    }
+
+    public static boolean isValidPartitionConfig(ServerPartitionConfig config) {
+        if (config == null || config.getServers() == null || config.getVirtualNodeCount() <= 0) {
+            return false;
+        }
+        for (String address : config.getServers()) {
+            if (!TokenServerPartition.isValidAddress(address)) {
+                return false;
+            }
+        }
+        return config.getIndex() >= 0 && config.getIndex() < config.getServers().size();
+    }
+
     public static boolean isValidTransportConfig(ServerTransportConfig config) {
-        return config != null && config.getPort() > 0 && config.getPort() <= 65535;
+        return config != null && config.getPort() > 0 && config.getPort() <= 65535
+            && config.getBossThreads() > 0 && config.getWorkerThreads() >= 0 && config.getSoBacklog() > 0
+            && config.getWriteBufferLowWaterMark() >= 0
+            && config.getWriteBufferHighWaterMark() >= config.getWriteBufferLowWaterMark()
+            && config.getMaxFrameLength() > 0 && config.getMaxFrameLength() <= ClusterConstants.MAX_FRAME_LENGTH;
     }
 
     public static boolean isValidFlowConfig(ServerFlowConfig config) {
@@ -410,6 +510,35 @@ public final class ClusterServerConfigManager {
         return maxAllowedQps;
     }
 
+    public static TokenServerPartition getPartition() {
+        return partition;
+    }
+
+    /**
+     * Check whether the flow is owned by current token server.
+     *
+     * @param flowId the unique flow ID
+     * @return true if the partition is absent or the flow ID belongs to current token server
+     */
+    public static boolean isOwnedFlowId(long flowId) {
+        TokenServerPartition p = partition;
+        return p == null || p.indexOf(flowId) == partitionIndex;
+    }
+
+    /**
+     * Get the proportion of flow IDs owned by current token server. Note that it's the share of the hash ring,
+     * which may differ from the share of the traffic if the requests are skewed to some flows.
+     *
+     * @return the owned proportion within (0, 1]
+     */
+    public static double getPartitionShare() {
+        TokenServerPartition p = partition;
+        if (p == null) {
+            return 1;
+        }
+        return p.getShare(partitionIndex);
+    }
+
     public static double getExceedCount() {
         return exceedCount;
     }
@@ -430,6 +559,10 @@ public final class ClusterServerConfigManager {
         return idleSeconds;
     }
 
+    public static ServerTransportConfig getTransportConfig() {
+        return transportConfig;
+    }
+
     public static int getIntervalMs() {
         return intervalMs;
     }
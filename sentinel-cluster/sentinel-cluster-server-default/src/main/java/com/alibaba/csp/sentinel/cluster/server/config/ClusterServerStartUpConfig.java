@@ -0,0 +1,52 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.config;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+
+/**
+ * <p>
+ * this class dedicated to reading startup configurations of cluster token server
+ * </p>
+ */
+public final class ClusterServerStartUpConfig {
+
+    public static final String FLYWEIGHT_CODEC_ENABLED = "csp.sentinel.cluster.server.codec.flyweight";
+    public static final String EXTENDED_FLOW_RESPONSE_ENABLED = "csp.sentinel.cluster.server.flow.response.extended";
+
+    /**
+     * Whether the flyweight codec is enabled, with which flow requests are decoded, processed
+     * and replied directly against the pooled buffers, instead of the request and response entities.
+     *
+     * @return true if enabled, false by default
+     */
+    public static boolean isFlyweightCodecEnabled() {
+        return Boolean.parseBoolean(SentinelConfig.getConfig(FLYWEIGHT_CODEC_ENABLED));
+    }
+
+    /**
+     * Whether the connected count is appended to the flow responses, with which the clients estimate
+     * their local quota when the server is not available. It should be enabled after all the clients
+     * are upgraded, as the clients of former versions take the flow responses of 8 bytes only.
+     *
+     * @return true if enabled, false by default
+     */
+    public static boolean isExtendedFlowResponseEnabled() {
+        return Boolean.parseBoolean(SentinelConfig.getConfig(EXTENDED_FLOW_RESPONSE_ENABLED));
+    }
+
+    private ClusterServerStartUpConfig() {}
+}
@@ -24,10 +24,29 @@ import com.alibaba.csp.sentinel.cluster.ClusterConstants;
 public class ServerTransportConfig {
 
     public static final int DEFAULT_IDLE_SECONDS = 600;
+    public static final int DEFAULT_BOSS_THREADS = 1;
+    public static final int DEFAULT_SO_BACKLOG = 128;
+    public static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
+    public static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
 
     private int port;
     private int idleSeconds;
 
+    /**
+     * Whether to use the native epoll transport if available, or else the NIO transport is used.
+     */
+    private boolean nativeTransport = true;
+    private int bossThreads = DEFAULT_BOSS_THREADS;
+    /**
+     * Count of worker threads, 0 for the default count (two times of the processors).
+     */
+    private int workerThreads = 0;
+    private int soBacklog = DEFAULT_SO_BACKLOG;
+    private boolean tcpNoDelay = true;
+    private int writeBufferLowWaterMark = DEFAULT_WRITE_BUFFER_LOW_WATER_MARK;
+    private int writeBufferHighWaterMark = DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK;
+    private int maxFrameLength = ClusterConstants.MAX_FRAME_LENGTH;
+
     public ServerTransportConfig() {
         this(ClusterConstants.DEFAULT_CLUSTER_SERVER_PORT, DEFAULT_IDLE_SECONDS);
     }
@@ -55,11 +74,108 @@ public class ServerTransportConfig {
         return this;
     }
 
+    public boolean isNativeTransport() {
+        return nativeTransport;
+    }
+
+    public ServerTransportConfig setNativeTransport(boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+        return this;
+    }
+
+    public int getBossThreads() {
+        return bossThreads;
+    }
+
+    public ServerTransportConfig setBossThreads(int bossThreads) {
+        this.bossThreads = bossThreads;
+        return this;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public ServerTransportConfig setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+        return this;
+    }
+
+    public int getSoBacklog() {
+        return soBacklog;
+    }
+
+    public ServerTransportConfig setSoBacklog(int soBacklog) {
+        this.soBacklog = soBacklog;
+        return this;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public ServerTransportConfig setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public ServerTransportConfig setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+        return this;
+    }
+
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    public ServerTransportConfig setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+        return this;
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    public ServerTransportConfig setMaxFrameLength(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+        return this;
+    }
+
+    /**
+     * @return whether the options of the Netty server (all except the idle seconds) are the same,
+     * with which the running server needn't be restarted
+     */
+    public boolean hasSameServerOptions(ServerTransportConfig other) {
+        return other != null
+            && port == other.port
+            && nativeTransport == other.nativeTransport
+            && bossThreads == other.bossThreads
+            && workerThreads == other.workerThreads
+            && soBacklog == other.soBacklog
+            && tcpNoDelay == other.tcpNoDelay
+            && writeBufferLowWaterMark == other.writeBufferLowWaterMark
+            && writeBufferHighWaterMark == other.writeBufferHighWaterMark
+            && maxFrameLength == other.maxFrameLength;
+    }
+
     @Override
     public String toString() {
         return "ServerTransportConfig{" +
             "port=" + port +
             ", idleSeconds=" + idleSeconds +
+            ", nativeTransport=" + nativeTransport +
+            ", bossThreads=" + bossThreads +
+            ", workerThreads=" + workerThreads +
+            ", soBacklog=" + soBacklog +
+            ", tcpNoDelay=" + tcpNoDelay +
+            ", writeBufferLowWaterMark=" + writeBufferLowWaterMark +
+            ", writeBufferHighWaterMark=" + writeBufferHighWaterMark +
+            ", maxFrameLength=" + maxFrameLength +
             '}';
     }
 }
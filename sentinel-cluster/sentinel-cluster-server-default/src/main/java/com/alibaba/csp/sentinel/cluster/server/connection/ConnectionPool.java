@@ -99,6 +99,13 @@ public class ConnectionPool {
         }
     }
 
+    public Connection getConnection(Channel channel) {
+        if (channel == null || !(channel.remoteAddress() instanceof InetSocketAddress)) {
+            return null;
+        }
+        return CONNECTION_MAP.get(getConnectionKey(channel));
+    }
+
     public Connection getConnection(String remoteIp, int remotePort) {
         String connKey = getConnectionKey(remoteIp, remotePort);
         return CONNECTION_MAP.get(connKey);
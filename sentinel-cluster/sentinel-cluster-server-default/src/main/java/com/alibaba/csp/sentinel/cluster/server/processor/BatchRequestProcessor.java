@@ -0,0 +1,58 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.annotation.RequestType;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+
+/**
+ * Processor for a batch of requests coalesced by the client, which replies the responses in a batch too.
+ */
+@RequestType(ClusterConstants.MSG_TYPE_BATCH)
+public class BatchRequestProcessor implements RequestProcessor<List<ClusterRequest>, List<ClusterResponse>> {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ClusterResponse<List<ClusterResponse>> processRequest(ClusterRequest<List<ClusterRequest>> request) {
+        List<ClusterRequest> requests = request.getData();
+        if (requests == null || requests.isEmpty()) {
+            return new ClusterResponse<>(request.getId(), request.getType(), ClusterConstants.RESPONSE_STATUS_BAD,
+                null);
+        }
+        List<ClusterResponse> responses = new ArrayList<>(requests.size());
+        for (ClusterRequest subRequest : requests) {
+            RequestProcessor processor = null;
+            // Ping and nested batches are not allowed in a batch.
+            if (subRequest.getType() != ClusterConstants.MSG_TYPE_PING
+                && subRequest.getType() != ClusterConstants.MSG_TYPE_BATCH) {
+                processor = RequestProcessorProvider.getProcessor(subRequest.getType());
+            }
+            if (processor == null || subRequest.getData() == null) {
+                responses.add(new ClusterResponse<>(subRequest.getId(), subRequest.getType(),
+                    ClusterConstants.RESPONSE_STATUS_BAD, null));
+            } else {
+                responses.add(processor.processRequest(subRequest));
+            }
+        }
+        return new ClusterResponse<>(request.getId(), request.getType(), ClusterConstants.RESPONSE_STATUS_OK,
+            responses);
+    }
+}
@@ -34,21 +34,28 @@ public class FlowRequestProcessor implements RequestProcessor<FlowRequestData, F
 
     @Override
     public ClusterResponse<FlowTokenResponseData> processRequest(ClusterRequest<FlowRequestData> request) {
-        TokenService tokenService = TokenServiceProvider.getService();
-
         long flowId = request.getData().getFlowId();
         int count = request.getData().getCount();
         boolean prioritized = request.getData().isPriority();
 
-        TokenResult result = tokenService.requestToken(flowId, count, prioritized);
+        TokenResult result = requestToken(flowId, count, prioritized);
         return toResponse(result, request);
     }
 
+    /**
+     * Process the flow request without the request entity, which is used by the flyweight codec.
+     */
+    public TokenResult requestToken(long flowId, int count, boolean prioritized) {
+        TokenService tokenService = TokenServiceProvider.getService();
+        return tokenService.requestToken(flowId, count, prioritized);
+    }
+
     private ClusterResponse<FlowTokenResponseData> toResponse(TokenResult result, ClusterRequest request) {
         return new ClusterResponse<>(request.getId(), request.getType(), result.getStatus(),
             new FlowTokenResponseData()
                 .setRemainingCount(result.getRemaining())
                 .setWaitInMs(result.getWaitInMs())
+                .setConnectedCount(result.getConnectedCount())
         );
     }
 }
@@ -15,12 +15,22 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow;
 
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.lease.TokenLeaseNodeManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
 import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -72,6 +82,107 @@ public class ClusterFlowCheckerTest {
         ClusterMetricStatistics.removeMetric(flowId);
     }
 
+    @Test
+    public void testLeaseAndReturnToken() {
+        String namespace = "lease-test";
+        long flowId = 98766L;
+        FlowRule clusterRule = new FlowRule("abc")
+            .setCount(10)
+            .setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig()
+                .setFlowId(flowId)
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL));
+        ClusterFlowRuleManager.registerPropertyIfAbsent(namespace);
+        ClusterFlowRuleManager.loadRules(namespace, Collections.singletonList(clusterRule));
+        ConnectionManager.addConnection(namespace, "127.0.0.1:20001");
+        ConnectionManager.addConnection(namespace, "127.0.0.1:20002");
+        try {
+            FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(flowId);
+            // Each grant is limited to the fair share of the client.
+            TokenResult result = ClusterFlowChecker.acquireLeaseToken(rule, 8);
+            assertResultPass(result);
+            assertEquals(5, result.getRemaining());
+            assertEquals(500, result.getWaitInMs());
+            long leaseId = result.getTokenId();
+            assertNotEquals(0, leaseId);
+            result = ClusterFlowChecker.acquireLeaseToken(rule, 8);
+            assertEquals(5, result.getRemaining());
+            long secondLeaseId = result.getTokenId();
+            assertNotEquals(leaseId, secondLeaseId);
+            assertResultBlock(ClusterFlowChecker.acquireLeaseToken(rule, 8));
+            assertResultBlock(ClusterFlowChecker.acquireClusterToken(rule, 1, false));
+
+            // The returns of unknown leases or the leases of other flows are ignored.
+            ClusterFlowChecker.returnLeaseToken(rule, leaseId + secondLeaseId, 3);
+            long otherLeaseId = TokenLeaseNodeManager.putLease(flowId + 1, 5, TimeUtil.currentTimeMillis(),
+                TimeUtil.currentTimeMillis() + 1000).getLeaseId();
+            ClusterFlowChecker.returnLeaseToken(rule, otherLeaseId, 3);
+            assertEquals(TokenResultStatus.BLOCKED, (int) ClusterFlowChecker.acquireLeaseToken(rule, 1).getStatus());
+
+            // The returned tokens could be granted again, no more than the outstanding ones of the lease.
+            ClusterFlowChecker.returnLeaseToken(rule, leaseId, 8);
+            ClusterFlowChecker.returnLeaseToken(rule, leaseId, 8);
+            assertNull(TokenLeaseNodeManager.getLease(leaseId));
+            result = ClusterFlowChecker.acquireLeaseToken(rule, 8);
+            assertResultPass(result);
+            assertEquals(5, result.getRemaining());
+            assertEquals(TokenResultStatus.BLOCKED, (int) ClusterFlowChecker.acquireLeaseToken(rule, 1).getStatus());
+
+            // The tokens of the leases older than the window have been released already.
+            long now = TimeUtil.currentTimeMillis();
+            long oldLeaseId = TokenLeaseNodeManager.putLease(flowId, 3, now - 2000, now + 1000).getLeaseId();
+            ClusterFlowChecker.returnLeaseToken(rule, oldLeaseId, 3);
+            assertEquals(TokenResultStatus.BLOCKED, (int) ClusterFlowChecker.acquireLeaseToken(rule, 1).getStatus());
+        } finally {
+            TokenLeaseNodeManager.clear();
+            ConnectionManager.removeConnection(namespace, "127.0.0.1:20001");
+            ConnectionManager.removeConnection(namespace, "127.0.0.1:20002");
+            ClusterFlowRuleManager.loadRules(namespace, Collections.<FlowRule>emptyList());
+        }
+    }
+
+    @Test
+    public void testTokenBucketStrategyNeverOverAdmits() throws Exception {
+        long flowId = 98767L;
+        final FlowRule clusterRule = new FlowRule("abc")
+            .setCount(100)
+            .setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig()
+                .setFlowId(flowId)
+                .setStrategy(ClusterRuleConstant.FLOW_CLUSTER_STRATEGY_TOKEN_BUCKET)
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL));
+        String namespace = "bucket-test";
+        ClusterFlowRuleManager.registerPropertyIfAbsent(namespace);
+        ClusterFlowRuleManager.loadRules(namespace, Collections.singletonList(clusterRule));
+        try {
+            int threadCount = 8;
+            final AtomicInteger passCount = new AtomicInteger();
+            final CountDownLatch latch = new CountDownLatch(threadCount);
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < threadCount; i++) {
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 500; j++) {
+                            if (tryAcquire(clusterRule, false).getStatus() == TokenResultStatus.OK) {
+                                passCount.incrementAndGet();
+                            }
+                        }
+                        latch.countDown();
+                    }
+                }).start();
+            }
+            latch.await();
+            long elapsed = System.currentTimeMillis() - start;
+            // The full bucket, plus the tokens refilled during the acquiring.
+            assertTrue(passCount.get() >= 100);
+            assertTrue(passCount.get() <= 100 + (elapsed + 1) / 10 + 1);
+            assertEquals(passCount.get(), ClusterMetricStatistics.getMetric(flowId).getSum(ClusterFlowEvent.PASS));
+        } finally {
+            ClusterFlowRuleManager.loadRules(namespace, Collections.<FlowRule>emptyList());
+        }
+    }
+
     private TokenResult tryAcquire(FlowRule clusterRule, boolean occupy) {
         return ClusterFlowChecker.acquireClusterToken(clusterRule, 1, occupy);
     }
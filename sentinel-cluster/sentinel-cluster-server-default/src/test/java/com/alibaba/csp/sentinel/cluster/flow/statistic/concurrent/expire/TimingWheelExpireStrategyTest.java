@@ -0,0 +1,141 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire;
+
+import java.util.Collections;
+
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.CurrentConcurrencyManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNode;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.googlecode.concurrentlinkedhashmap.Weighers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelExpireStrategyTest {
+
+    private static final String NAMESPACE = "wheel-test";
+    private static final long FLOW_ID = 3216L;
+    private static final String ONLINE_CLIENT = "112.12.88.66:8778";
+
+    private ConcurrentLinkedHashMap<Long, TokenCacheNode> cache;
+    private TimingWheelExpireStrategy strategy;
+
+    @Before
+    public void setUp() {
+        ClusterFlowConfig config = new ClusterFlowConfig();
+        config.setFlowId(FLOW_ID);
+        config.setResourceTimeout(500);
+        config.setClientOfflineTime(1000);
+        config.setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL);
+        FlowRule rule = new FlowRule("wheel-test-resource")
+            .setCount(100)
+            .setGrade(RuleConstant.FLOW_GRADE_THREAD)
+            .setClusterMode(true)
+            .setClusterConfig(config);
+        ClusterFlowRuleManager.registerPropertyIfAbsent(NAMESPACE);
+        ClusterFlowRuleManager.loadRules(NAMESPACE, Collections.singletonList(rule));
+        CurrentConcurrencyManager.put(FLOW_ID, 0);
+
+        cache = new ConcurrentLinkedHashMap.Builder<Long, TokenCacheNode>()
+            .maximumWeightedCapacity(Integer.MAX_VALUE)
+            .weigher(Weighers.singleton())
+            .build();
+        strategy = new TimingWheelExpireStrategy(cache, 100, 8);
+    }
+
+    @After
+    public void tearDown() {
+        ConnectionManager.removeConnection(NAMESPACE, ONLINE_CLIENT);
+        ClusterFlowRuleManager.removeProperty(NAMESPACE);
+        CurrentConcurrencyManager.remove(FLOW_ID);
+    }
+
+    @Test
+    public void testExpireTokenOfOfflineClient() {
+        long now = System.currentTimeMillis();
+        TokenCacheNode node = cacheToken(1L, "127.0.0.1:9999", 2);
+        TokenCacheNode released = cacheToken(2L, "127.0.0.1:9999", 3);
+        cache.remove(released.getTokenId());
+        CurrentConcurrencyManager.addConcurrency(FLOW_ID, -3);
+
+        assertEquals(0, strategy.expireUntil(now + 500));
+        assertTrue(cache.containsKey(node.getTokenId()));
+
+        // Expired in a tick after the client offline time.
+        assertEquals(1, strategy.expireUntil(now + 1200));
+        assertFalse(cache.containsKey(node.getTokenId()));
+        assertEquals(0, CurrentConcurrencyManager.get(FLOW_ID).get());
+    }
+
+    @Test
+    public void testExpireTokenOfOnlineClientByResourceTimeout() {
+        ConnectionManager.addConnection(NAMESPACE, ONLINE_CLIENT);
+        long now = System.currentTimeMillis();
+        cacheToken(1L, ONLINE_CLIENT, 1);
+
+        // The client is still online, so the token is kept until two times of the resource timeout.
+        assertEquals(0, strategy.expireUntil(now + 1050));
+        assertEquals(1, cache.size());
+        assertEquals(1, strategy.expireUntil(now + 1200));
+        assertEquals(0, cache.size());
+        assertEquals(0, CurrentConcurrencyManager.get(FLOW_ID).get());
+    }
+
+    @Test
+    public void testExpireAfterRoundsOfWheel() {
+        long now = System.currentTimeMillis();
+        TokenCacheNode node = new TokenCacheNode();
+        node.setTokenId(1L);
+        node.setFlowId(FLOW_ID);
+        // Far more than the span of the wheel (8 * 100ms).
+        node.setResourceTimeout(2500L);
+        node.setClientTimeout(3000L);
+        node.setClientAddress("127.0.0.1:9999");
+        node.setAcquireCount(1);
+        CurrentConcurrencyManager.addConcurrency(FLOW_ID, 1);
+        cache.put(node.getTokenId(), node);
+        strategy.onTokenCached(node);
+
+        assertEquals(0, strategy.expireUntil(now + 2900));
+        assertEquals(1, cache.size());
+        assertEquals(1, strategy.expireUntil(now + 3200));
+        assertEquals(0, cache.size());
+    }
+
+    private TokenCacheNode cacheToken(long tokenId, String clientAddress, int acquireCount) {
+        TokenCacheNode node = new TokenCacheNode();
+        node.setTokenId(tokenId);
+        node.setFlowId(FLOW_ID);
+        node.setResourceTimeout(500L);
+        node.setClientTimeout(1000L);
+        node.setClientAddress(clientAddress);
+        node.setAcquireCount(acquireCount);
+        CurrentConcurrencyManager.addConcurrency(FLOW_ID, acquireCount);
+        cache.put(tokenId, node);
+        strategy.onTokenCached(node);
+        return node;
+    }
+}
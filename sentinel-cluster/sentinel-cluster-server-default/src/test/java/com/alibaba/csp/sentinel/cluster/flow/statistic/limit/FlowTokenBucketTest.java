@@ -0,0 +1,82 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.limit;
+
+import com.alibaba.csp.sentinel.cluster.test.AbstractTimeBasedTest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FlowTokenBucketTest extends AbstractTimeBasedTest {
+
+    @Test
+    public void testAcquireAndRefill() {
+        setCurrentMillis(1_000_000);
+        FlowTokenBucket bucket = new FlowTokenBucket();
+        assertEquals(10, bucket.getAvailableCount(10));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, bucket.tryAcquire(1, 10, 0));
+        }
+        assertEquals(-1, bucket.tryAcquire(1, 10, 0));
+        assertEquals(0, bucket.getAvailableCount(10));
+
+        // One token is refilled every 100 ms.
+        sleep(100);
+        assertEquals(0, bucket.tryAcquire(1, 10, 0));
+        assertEquals(-1, bucket.tryAcquire(1, 10, 0));
+        sleep(250);
+        assertEquals(0, bucket.tryAcquire(2, 10, 0));
+        assertEquals(-1, bucket.tryAcquire(1, 10, 0));
+
+        // Never fuller than the threshold.
+        sleepSecond(10);
+        assertEquals(10, bucket.getAvailableCount(10));
+        assertEquals(-1, bucket.tryAcquire(11, 10, 0));
+        assertEquals(0, bucket.tryAcquire(10, 10, 0));
+    }
+
+    @Test
+    public void testAcquireInAdvance() {
+        setCurrentMillis(1_000_000);
+        FlowTokenBucket bucket = new FlowTokenBucket();
+        assertEquals(0, bucket.tryAcquire(10, 10, 0));
+        assertEquals(100, bucket.tryAcquire(1, 10, 500));
+        assertEquals(200, bucket.tryAcquire(1, 10, 500));
+        assertEquals(-1, bucket.tryAcquire(4, 10, 500));
+        assertEquals(-1, bucket.tryAcquire(1, 10, 0));
+        sleep(200);
+        assertEquals(-1, bucket.tryAcquire(1, 10, 0));
+        sleep(100);
+        assertEquals(0, bucket.tryAcquire(1, 10, 0));
+    }
+
+    @Test
+    public void testAcquireUpToAndRelease() {
+        setCurrentMillis(1_000_000);
+        FlowTokenBucket bucket = new FlowTokenBucket();
+        assertEquals(6, bucket.tryAcquireUpTo(6, 10));
+        assertEquals(4, bucket.tryAcquireUpTo(6, 10));
+        assertEquals(0, bucket.tryAcquireUpTo(6, 10));
+
+        bucket.release(3, 10);
+        assertEquals(3, bucket.getAvailableCount(10));
+        // Released tokens do not overflow the bucket.
+        bucket.release(100, 10);
+        assertEquals(10, bucket.getAvailableCount(10));
+        assertEquals(0, bucket.tryAcquireUpTo(1, 0));
+    }
+}
@@ -15,8 +15,12 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow.statistic.limit;
 
+import java.util.Arrays;
+
 import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerPartitionConfig;
 import com.alibaba.csp.sentinel.cluster.test.AbstractTimeBasedTest;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -53,4 +57,33 @@ public class GlobalRequestLimiterTest extends AbstractTimeBasedTest {
         GlobalRequestLimiter.applyMaxQpsChange(10);
         Assert.assertEquals(10, GlobalRequestLimiter.getMaxAllowedQps("foo"), 0.01);
     }
+
+    @Test
+    public void testPartitionedLimitWithSkewedTraffic() {
+        setCurrentMillis(System.currentTimeMillis());
+        ClusterServerConfigManager.setMaxAllowedQps(30);
+        ClusterServerConfigManager.loadServerPartitionConfig(new ServerPartitionConfig()
+            .setServers(Arrays.asList("a:1", "b:2", "c:3")).setIndex(0));
+        double share = ClusterServerConfigManager.getPartitionShare();
+        GlobalRequestLimiter.initIfAbsent("skewed");
+        GlobalRequestLimiter.applyMaxQpsChange(30);
+
+        // All the requests of the namespace go to the flows owned by this server.
+        int passCount = 0;
+        for (int i = 0; i < 30; i++) {
+            if (GlobalRequestLimiter.tryPass("skewed")) {
+                passCount++;
+            }
+        }
+        // Limited by the share of the hash ring rather than the traffic, so below the namespace limit.
+        Assert.assertEquals((int) Math.floor(30 * share), passCount);
+        Assert.assertTrue(passCount < 30);
+    }
+
+    @After
+    public void tearDown() {
+        ClusterServerConfigManager.loadServerPartitionConfig(null);
+        ClusterServerConfigManager.setMaxAllowedQps(3);
+        GlobalRequestLimiter.applyMaxQpsChange(3);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterParamFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterParamMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.test.AbstractTimeBasedTest;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowClusterConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
+import com.alibaba.csp.sentinel.slots.statistic.sketch.FrequencySketch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClusterParamSketchMetricTest extends AbstractTimeBasedTest {
+
+    @Test
+    public void testHotValuesOfHighCardinality() {
+        setCurrentMillis(System.currentTimeMillis() / 1000 * 1000);
+        ClusterParamSketchMetric metric = new ClusterParamSketchMetric(2, 1000);
+        for (int i = 0; i < 100000; i++) {
+            metric.addValue("user-" + i, 1);
+            if (i % 100 == 0) {
+                metric.addValue("hot-user", 1);
+            }
+            if (i % 50 == 0) {
+                metric.addValue(42L, 2);
+            }
+        }
+        // The hot values are counted exactly after tracked as heavy hitters.
+        Assert.assertTrue(metric.getSum("hot-user") >= 1000);
+        Assert.assertTrue(metric.getSum("hot-user") < 1100);
+        Assert.assertTrue(metric.getSum(42L) >= 4000);
+        Assert.assertTrue(metric.getSum(42L) < 4100);
+        Assert.assertTrue(metric.getSum("user-1") >= 1);
+        Assert.assertEquals(0, metric.getSum(null));
+
+        Map<Object, Double> top = metric.getTopValues(2);
+        Assert.assertEquals(2, top.size());
+        Assert.assertArrayEquals(new Object[] {42L, "hot-user"}, top.keySet().toArray());
+        Assert.assertEquals(metric.getAvg(42L), top.get(42L), 0.01);
+    }
+
+    @Test
+    public void testSlidingWindow() {
+        setCurrentMillis(System.currentTimeMillis() / 1000 * 1000);
+        ClusterParamSketchMetric metric = new ClusterParamSketchMetric(2, 1000);
+        metric.addValue("e1", 3);
+        sleep(500);
+        metric.addValue("e1", 2);
+        Assert.assertEquals(5, metric.getSum("e1"));
+        Assert.assertEquals(5, metric.getAvg("e1"), 0.01);
+
+        sleep(500);
+        Assert.assertEquals(2, metric.getSum("e1"));
+        sleep(500);
+        Assert.assertEquals(0, metric.getSum("e1"));
+        Assert.assertTrue(metric.getTopValues(5).isEmpty());
+    }
+
+    @Test
+    public void testMetricOfRuleConfig() {
+        String namespace = "param-sketch-test";
+        long flowId = 98767L;
+        ClusterParamFlowRuleManager.registerPropertyIfAbsent(namespace);
+        try {
+            ClusterParamFlowRuleManager.loadRules(namespace, Collections.singletonList(newClusterRule(
+                new ParamFlowClusterConfig().setFlowId(flowId)
+                    .setStatisticType(ClusterRuleConstant.PARAM_STATISTIC_TYPE_SKETCH))));
+            ClusterParamSketchMetric metric = (ClusterParamSketchMetric) ClusterParamMetricStatistics.getMetric(flowId);
+            Assert.assertEquals(4, metric.getDepth());
+            Assert.assertEquals(FrequencySketch.widthOf(0.003), metric.getWidth());
+
+            // Recreated by the new error bounds.
+            ClusterParamFlowRuleManager.loadRules(namespace, Collections.singletonList(newClusterRule(
+                new ParamFlowClusterConfig().setFlowId(flowId)
+                    .setStatisticType(ClusterRuleConstant.PARAM_STATISTIC_TYPE_SKETCH)
+                    .setSketchEpsilon(0.01).setSketchDelta(0.1))));
+            metric = (ClusterParamSketchMetric) ClusterParamMetricStatistics.getMetric(flowId);
+            Assert.assertEquals(3, metric.getDepth());
+            Assert.assertEquals(272, metric.getWidth());
+
+            ClusterParamFlowRuleManager.loadRules(namespace, Collections.singletonList(newClusterRule(
+                new ParamFlowClusterConfig().setFlowId(flowId))));
+            Assert.assertTrue(ClusterParamMetricStatistics.getMetric(flowId) instanceof ClusterParamMetric);
+        } finally {
+            ClusterParamFlowRuleManager.loadRules(namespace, Collections.<ParamFlowRule>emptyList());
+        }
+    }
+
+    private ParamFlowRule newClusterRule(ParamFlowClusterConfig clusterConfig) {
+        return new ParamFlowRule("abc").setParamIdx(0).setCount(10)
+            .setClusterMode(true).setClusterConfig(clusterConfig);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalArgument() {
+        new ClusterParamSketchMetric(5, 25).getTopValues(-1);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.data;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.server.codec.registry.RequestDataDecodeRegistry;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BatchRequestDataDecoderTest {
+
+    @Test
+    public void testDecode() {
+        RequestDataDecodeRegistry.addDecoder(ClusterConstants.MSG_TYPE_FLOW, new FlowRequestDataDecoder());
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeShort(3);
+        for (int i = 1; i <= 3; i++) {
+            buf.writeShort(18);
+            buf.writeInt(i);
+            buf.writeByte(ClusterConstants.MSG_TYPE_FLOW);
+            buf.writeLong(100L + i);
+            buf.writeInt(i);
+            buf.writeBoolean(i == 2);
+        }
+
+        List<ClusterRequest> requests = new BatchRequestDataDecoder().decode(buf);
+        assertEquals(3, requests.size());
+        for (int i = 1; i <= 3; i++) {
+            ClusterRequest request = requests.get(i - 1);
+            FlowRequestData data = (FlowRequestData) request.getData();
+            assertEquals(i, request.getId());
+            assertEquals(ClusterConstants.MSG_TYPE_FLOW, request.getType());
+            assertEquals(100L + i, data.getFlowId());
+            assertEquals(i, data.getCount());
+            assertEquals(i == 2, data.isPriority());
+        }
+        assertEquals(0, buf.readableBytes());
+        buf.release();
+    }
+
+    @Test
+    public void testDecodeKeepsUndecodableRequest() {
+        RequestDataDecodeRegistry.addDecoder(ClusterConstants.MSG_TYPE_FLOW, new FlowRequestDataDecoder());
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeShort(3);
+        // Request of unknown type.
+        buf.writeShort(6);
+        buf.writeInt(1);
+        buf.writeByte(99);
+        buf.writeByte(0);
+        // Request without xid.
+        buf.writeShort(2);
+        buf.writeShort(0);
+        buf.writeShort(18);
+        buf.writeInt(3);
+        buf.writeByte(ClusterConstants.MSG_TYPE_FLOW);
+        buf.writeLong(103L);
+        buf.writeInt(3);
+        buf.writeBoolean(false);
+
+        List<ClusterRequest> requests = new BatchRequestDataDecoder().decode(buf);
+        assertEquals(2, requests.size());
+        assertEquals(1, requests.get(0).getId());
+        assertEquals(99, requests.get(0).getType());
+        assertNull(requests.get(0).getData());
+        assertEquals(3, requests.get(1).getId());
+        assertEquals(103L, ((FlowRequestData) requests.get(1).getData()).getFlowId());
+        buf.release();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.netty;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionPool;
+import com.alibaba.csp.sentinel.cluster.server.init.DefaultClusterServerInitFunc;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FlyweightFlowRequestHandlerTest {
+
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        new DefaultClusterServerInitFunc().init();
+        channel = new EmbeddedChannel(new FlyweightFlowRequestHandler(new ConnectionPool()),
+            new NettyRequestDecoder());
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+    }
+
+    @Test
+    public void testFlowRequestRepliedWithoutEntities() {
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeInt(12);
+        frame.writeByte(ClusterConstants.MSG_TYPE_FLOW);
+        frame.writeLong(Long.MAX_VALUE - 7);
+        frame.writeInt(1);
+        frame.writeBoolean(false);
+
+        assertFalse(channel.writeInbound(frame));
+        assertEquals(0, frame.refCnt());
+
+        ByteBuf out = channel.readOutbound();
+        assertEquals(14, out.readShort());
+        assertEquals(12, out.readInt());
+        assertEquals(ClusterConstants.MSG_TYPE_FLOW, out.readByte());
+        // No rule for the flow ID.
+        assertEquals(TokenResultStatus.NO_RULE_EXISTS, out.readByte());
+        assertEquals(0, out.readInt());
+        assertEquals(0, out.readInt());
+        assertEquals(0, out.readableBytes());
+        out.release();
+    }
+
+    @Test
+    public void testOtherRequestPassedToDefaultCodec() {
+        byte[] namespace = "default".getBytes();
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeInt(14);
+        frame.writeByte(ClusterConstants.MSG_TYPE_PING);
+        frame.writeInt(namespace.length);
+        frame.writeBytes(namespace);
+
+        assertTrue(channel.writeInbound(frame));
+        ClusterRequest<?> request = channel.readInbound();
+        assertEquals(14, request.getId());
+        assertEquals(ClusterConstants.MSG_TYPE_PING, request.getType());
+        assertEquals("default", request.getData());
+        assertNull(channel.readOutbound());
+    }
+}
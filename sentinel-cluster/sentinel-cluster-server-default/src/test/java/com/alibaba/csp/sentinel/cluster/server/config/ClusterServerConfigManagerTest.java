@@ -1,5 +1,10 @@
 package com.alibaba.csp.sentinel.cluster.server.config;
 
+import java.util.Arrays;
+
+import com.alibaba.csp.sentinel.cluster.flow.statistic.limit.GlobalRequestLimiter;
+
+import org.junit.After;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -17,6 +22,14 @@ public class ClusterServerConfigManagerTest {
         assertFalse(ClusterServerConfigManager.isValidTransportConfig(badConfig1));
         assertFalse(ClusterServerConfigManager.isValidTransportConfig(badConfig2));
         assertTrue(ClusterServerConfigManager.isValidTransportConfig(goodConfig1));
+
+        assertFalse(ClusterServerConfigManager.isValidTransportConfig(new ServerTransportConfig()
+            .setWriteBufferLowWaterMark(1024).setWriteBufferHighWaterMark(512)));
+        assertFalse(ClusterServerConfigManager.isValidTransportConfig(new ServerTransportConfig()
+            .setMaxFrameLength(65536)));
+        assertFalse(ClusterServerConfigManager.isValidTransportConfig(new ServerTransportConfig().setBossThreads(0)));
+        assertTrue(ClusterServerConfigManager.isValidTransportConfig(new ServerTransportConfig()
+            .setWorkerThreads(4).setSoBacklog(1024).setTcpNoDelay(false).setNativeTransport(false)));
     }
 
     @Test
@@ -28,4 +41,39 @@ public class ClusterServerConfigManagerTest {
         assertFalse(ClusterServerConfigManager.isValidFlowConfig(badConfig2));
         assertFalse(ClusterServerConfigManager.isValidFlowConfig(badConfig3));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPartitionOwnership() {
+        ClusterServerConfigManager.setMaxAllowedQps(3000);
+        GlobalRequestLimiter.initIfAbsent("partition-ns");
+        assertTrue(ClusterServerConfigManager.isOwnedFlowId(1L));
+        assertFalse(ClusterServerConfigManager.isValidPartitionConfig(new ServerPartitionConfig()
+            .setServers(Arrays.asList("a:1", "b:2")).setIndex(2)));
+        assertFalse(ClusterServerConfigManager.isValidPartitionConfig(new ServerPartitionConfig()
+            .setServers(Arrays.asList("a:1", "b")).setIndex(0)));
+
+        double totalShare = 0;
+        int ownedCount = 0;
+        for (int index = 0; index < 3; index++) {
+            ClusterServerConfigManager.loadServerPartitionConfig(new ServerPartitionConfig()
+                .setServers(Arrays.asList("a:1", "b:2", "c:3")).setIndex(index));
+            double share = ClusterServerConfigManager.getPartitionShare();
+            totalShare += share;
+            // The namespace limit is shared among the servers.
+            assertEquals(3000 * share, GlobalRequestLimiter.getMaxAllowedQps("partition-ns"), 0.01);
+            for (long flowId = 1; flowId <= 300; flowId++) {
+                if (ClusterServerConfigManager.isOwnedFlowId(flowId)) {
+                    ownedCount++;
+                }
+            }
+        }
+        assertEquals(1, totalShare, 0.0001);
+        // Each flow is owned by exactly one server.
+        assertEquals(300, ownedCount);
+    }
+
+    @After
+    public void tearDown() {
+        ClusterServerConfigManager.loadServerPartitionConfig(null);
+    }
+}
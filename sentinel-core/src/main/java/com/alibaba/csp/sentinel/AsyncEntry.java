@@ -53,7 +53,7 @@ public class AsyncEntry extends CtEntry {
                 }
             } else {
                 String curEntryName = curEntry == null ? "none"
-                    : curEntry.resourceWrapper.getName() + "@" + curEntry.hashCode();
+                    : curEntry.getResourceWrapper().getName() + "@" + curEntry.hashCode();
                 String msg = String.format("Bad async context state, expected entry: %s, but actual: %s",
                     getResourceWrapper().getName() + "@" + hashCode(), curEntryName);
                 throw new IllegalStateException(msg);
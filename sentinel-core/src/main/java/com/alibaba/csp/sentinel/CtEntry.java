@@ -23,7 +23,11 @@ import com.alibaba.csp.sentinel.context.NullContext;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.node.Node;
 import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlotChain;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.ResourceRulePlan;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 import com.alibaba.csp.sentinel.util.function.BiConsumer;
 
 /**
@@ -49,14 +53,86 @@ class CtEntry extends Entry {
 
     protected LinkedList<BiConsumer<Context, Entry>> exitHandlers;
 
+    /** 持有当前 entry 的线程本地对象池，非池化的 entry 为 null */
+    private final EntryPool.LocalPool pool;
+
+    /** 池化的 entry 是否已经退出并被回收 */
+    private boolean released;
+
+    /** 池化的 entry 当前调用的资源，非池化的 entry 使用 {@link Entry#resourceWrapper} */
+    private ResourceWrapper pooledResourceWrapper;
+
+    /** 池化的 entry 当前调用的创建时间 */
+    private long pooledCreateTimestamp;
+
     CtEntry(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
         super(resourceWrapper);
         this.chain = chain;
         this.context = context;
+        this.pool = null;
+
+        setUpEntryFor(context);
+    }
+
+    /**
+     * Create a blank entry owned by the thread-local pool.
+     */
+    CtEntry(EntryPool.LocalPool pool) {
+        super(null);
+        this.pool = pool;
+        this.released = true;
+    }
+
+    /**
+     * Re-initialize the recycled entry for a new invocation.
+     */
+    void reuse(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
+        resetStates();
+        this.pooledResourceWrapper = resourceWrapper;
+        this.pooledCreateTimestamp = TimeUtil.currentTimeMillis();
+        this.released = false;
+        this.chain = chain;
+        this.context = context;
 
         setUpEntryFor(context);
     }
 
+    /**
+     * Clear all references of the exited entry and give it back to the pool.
+     */
+    private void release() {
+        resetStates();
+        this.pooledResourceWrapper = null;
+        this.pooledCreateTimestamp = 0;
+        this.parent = null;
+        this.child = null;
+        this.chain = null;
+        this.context = null;
+        this.exitHandlers = null;
+        this.released = true;
+        pool.release(this);
+    }
+
+    @Override
+    public ResourceWrapper getResourceWrapper() {
+        return pool == null ? resourceWrapper : pooledResourceWrapper;
+    }
+
+    @Override
+    public long getCreateTimestamp() {
+        return pool == null ? super.getCreateTimestamp() : pooledCreateTimestamp;
+    }
+
+    boolean isReleased() {
+        return released;
+    }
+
+    private void checkNotReleased() {
+        if (EntryPool.DEBUG && released) {
+            throw new IllegalStateException("Pooled entry has already exited and been recycled: " + this);
+        }
+    }
+
     private void setUpEntryFor(Context context) {
         // The entry should not be associated to NullContext.
         if (context instanceof NullContext) {
@@ -71,9 +147,30 @@ class CtEntry extends Entry {
 
     @Override
     public void exit(int count, Object... args) throws ErrorEntryFreeException {
+        checkNotReleased();
+        if (isStaleExit()) {
+            return;
+        }
         trueExit(count, args);
     }
 
+    /**
+     * A pooled entry that has been recycled, or exited by a thread other than the owner of its pool, is
+     * considered as a stale reference: it may have been reused by another invocation of the owner thread,
+     * so exiting it will do nothing rather than exit the invocation of others.
+     */
+    private boolean isStaleExit() {
+        if (pool == null) {
+            return false;
+        }
+        if (released || !pool.isOwnerThread()) {
+            RecordLog.warn("[CtEntry] Ignoring exit of a stale pooled entry, which should be exited only once"
+                + " and in the thread that created it");
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Note: the exit handlers will be called AFTER onExit of slot chain.
      */
@@ -84,7 +181,7 @@ class CtEntry extends Entry {
                     handler.accept(ctx, this);
                 } catch (Exception e) {
                     RecordLog.warn("Error occurred when invoking entry exit handler, current entry: "
-                        + resourceWrapper.getName(), e);
+                        + getResourceWrapper().getName(), e);
                 }
             }
             exitHandlers = null;
@@ -101,20 +198,23 @@ class CtEntry extends Entry {
             if (context.getCurEntry() != this) {
                 String curEntryNameInContext = context.getCurEntry() == null ? null
                     : context.getCurEntry().getResourceWrapper().getName();
+                String expectedEntryName = getResourceWrapper().getName();
                 // Clean previous call stack.
                 CtEntry e = (CtEntry) context.getCurEntry();
                 while (e != null) {
+                    // The parent should be kept before exiting, as a pooled entry is cleared when released.
+                    CtEntry parent = (CtEntry) e.parent;
                     e.exit(count, args);
-                    e = (CtEntry) e.parent;
+                    e = parent;
                 }
                 String errorMessage = String.format("The order of entry exit can't be paired with the order of entry"
                         + ", current entry in context: <%s>, but expected: <%s>", curEntryNameInContext,
-                    resourceWrapper.getName());
+                    expectedEntryName);
                 throw new ErrorEntryFreeException(errorMessage);
             } else {
                 // Go through the onExit hook of all slots.
                 if (chain != null) {
-                    chain.exit(context, resourceWrapper, count, args);
+                    chain.exit(context, getResourceWrapper(), count, args);
                 }
                 // Go through the existing terminate handlers (associated to this invocation).
                 callExitHandlersAndCleanUp(context);
@@ -128,10 +228,17 @@ class CtEntry extends Entry {
                     // Default context (auto entered) will be exited automatically.
                     if (ContextUtil.isDefaultContext(context)) {
                         ContextUtil.exit();
+                        if (pool != null) {
+                            // The exited default context could be reused by the next pooled entry.
+                            pool.setSpareContext(context);
+                        }
                     }
                 }
                 // Clean the reference of context in current entry to avoid duplicate exit.
                 clearEntryContext();
+                if (pool != null) {
+                    release();
+                }
             }
         }
     }
@@ -142,6 +249,7 @@ class CtEntry extends Entry {
 
     @Override
     public void whenTerminate(BiConsumer<Context, Entry> handler) {
+        checkNotReleased();
         if (this.exitHandlers == null) {
             this.exitHandlers = new LinkedList<>();
         }
@@ -157,6 +265,55 @@ class CtEntry extends Entry {
 
     @Override
     public Node getLastNode() {
+        checkNotReleased();
         return parent == null ? null : parent.getCurNode();
     }
+
+    @Override
+    public Node getCurNode() {
+        checkNotReleased();
+        return super.getCurNode();
+    }
+
+    @Override
+    public ResourceRulePlan getRulePlan() {
+        // The plan is cached on the slot chain, which is unique for the resource.
+        if (chain instanceof ProcessorSlotChain) {
+            return ((ProcessorSlotChain)chain).getRulePlan(getResourceWrapper());
+        }
+        return super.getRulePlan();
+    }
+
+    @Override
+    public void setCurNode(Node node) {
+        checkNotReleased();
+        super.setCurNode(node);
+    }
+
+    @Override
+    public void setOriginNode(Node originNode) {
+        checkNotReleased();
+        super.setOriginNode(originNode);
+    }
+
+    @Override
+    public void setError(Throwable error) {
+        checkNotReleased();
+        super.setError(error);
+    }
+
+    @Override
+    public Entry setBlockError(BlockException blockError) {
+        checkNotReleased();
+        return super.setBlockError(blockError);
+    }
+
+    @Override
+    public String toString() {
+        return "CtEntry{" +
+            "resource=" + (getResourceWrapper() == null ? null : getResourceWrapper().getName()) +
+            ", pooled=" + (pool != null) +
+            ", released=" + released +
+            '}';
+    }
 }
\ No newline at end of file
@@ -16,7 +16,6 @@
 package com.alibaba.csp.sentinel;
 
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Map;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
@@ -31,6 +30,8 @@ import com.alibaba.csp.sentinel.slotchain.SlotChainProvider;
 import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.Rule;
+import com.alibaba.csp.sentinel.util.ConcurrentRegistry;
+import com.alibaba.csp.sentinel.util.function.Function;
 
 /**
  * {@inheritDoc}
@@ -45,9 +46,26 @@ public class CtSph implements Sph {
     private static final Object[] OBJECTS0 = new Object[0];
 
     /** 资源对象 和 {@link ProcessorSlotChain} 的映射关系，一个资源在全局共享一个 {@link ProcessorSlotChain}。*/
-    private static volatile Map<ResourceWrapper, ProcessorSlotChain> chainMap = new HashMap<ResourceWrapper, ProcessorSlotChain>();
+    private static final ConcurrentRegistry<ResourceWrapper, ProcessorSlotChain> chainMap
+        = new ConcurrentRegistry<>(Constants.MAX_SLOT_CHAIN_SIZE);
+
+    private static final Function<ResourceWrapper, ProcessorSlotChain> CHAIN_FACTORY
+        = new Function<ResourceWrapper, ProcessorSlotChain>() {
+        @Override
+        public ProcessorSlotChain apply(ResourceWrapper resourceWrapper) {
+            return SlotChainProvider.newSlotChain();
+        }
+    };
+
+    private final boolean entryPoolEnabled;
+
+    public CtSph() {
+        this(EntryPool.ENABLED);
+    }
 
-    private static final Object LOCK = new Object();
+    CtSph(boolean entryPoolEnabled) {
+        this.entryPoolEnabled = entryPoolEnabled;
+    }
 
     private AsyncEntry asyncEntryWithNoChain(ResourceWrapper resourceWrapper, Context context) {
         AsyncEntry entry = new AsyncEntry(resourceWrapper, null, context);
@@ -112,6 +130,9 @@ public class CtSph implements Sph {
 
     /** 核心处理逻辑 */
     private Entry entryWithPriority(ResourceWrapper resourceWrapper, int count, boolean prioritized, Object... args) throws BlockException {
+        if (entryPoolEnabled) {
+            return pooledEntryWithPriority(resourceWrapper, count, prioritized, args);
+        }
 
         /**
          * 1、获取一个 context。
@@ -165,6 +186,38 @@ public class CtSph implements Sph {
         return e;
     }
 
+    /**
+     * Same as {@link #entryWithPriority(ResourceWrapper, int, boolean, Object...)}, but the entry is recycled
+     * via {@link EntryPool}, and a {@link NoOpEntry} of the resource is returned if no rule checking will be done.
+     */
+    private Entry pooledEntryWithPriority(ResourceWrapper resourceWrapper, int count, boolean prioritized,
+                                          Object... args) throws BlockException {
+        Context context = ContextUtil.getContext();
+        if (context instanceof NullContext || !Constants.ON) {
+            return NoOpEntry.of(resourceWrapper);
+        }
+        ProcessorSlot<Object> chain = lookProcessChain(resourceWrapper);
+        if (chain == null) {
+            return NoOpEntry.of(resourceWrapper);
+        }
+
+        EntryPool.LocalPool pool = EntryPool.local();
+        if (context == null) {
+            context = InternalContextUtil.internalReenterDefault(pool.takeSpareContext());
+        }
+        CtEntry e = pool.acquire(resourceWrapper, chain, context);
+        try {
+            chain.entry(context, resourceWrapper, null, count, prioritized, args);
+        } catch (BlockException e1) {
+            e.exit(count, args);
+            throw e1;
+        } catch (Throwable e1) {
+            // This should not happen, unless there are errors existing in Sentinel internal.
+            RecordLog.info("Sentinel unexpected exception", e1);
+        }
+        return e;
+    }
+
     /**
      * Do all {@link Rule}s checking about the resource.
      *
@@ -201,26 +254,18 @@ public class CtSph implements Sph {
      * @return {@link ProcessorSlotChain} of the resource
      */
     ProcessorSlot<Object> lookProcessChain(ResourceWrapper resourceWrapper) {
-        ProcessorSlotChain chain = chainMap.get(resourceWrapper);
-        if (chain == null) {
-            synchronized (LOCK) {
-                chain = chainMap.get(resourceWrapper);
-                if (chain == null) {
-                    // Entry size limit.
-                    if (chainMap.size() >= Constants.MAX_SLOT_CHAIN_SIZE) {
-                        return null;
-                    }
-
-                    chain = SlotChainProvider.newSlotChain();
-                    Map<ResourceWrapper, ProcessorSlotChain> newMap = new HashMap<ResourceWrapper, ProcessorSlotChain>(
-                        chainMap.size() + 1);
-                    newMap.putAll(chainMap);
-                    newMap.put(resourceWrapper, chain);
-                    chainMap = newMap;
-                }
+        if (resourceWrapper instanceof ResourceHandle) {
+            // The pre-resolved resource caches its slot chain.
+            ResourceHandle handle = (ResourceHandle)resourceWrapper;
+            ProcessorSlotChain chain = handle.getChain();
+            if (chain == null) {
+                chain = chainMap.getOrCreate(resourceWrapper, CHAIN_FACTORY);
+                handle.setChain(chain);
             }
+            return chain;
         }
-        return chain;
+        // Entry size limit is checked by the registry, null will be returned if exceeded.
+        return chainMap.getOrCreate(resourceWrapper, CHAIN_FACTORY);
     }
 
     /**
@@ -240,6 +285,7 @@ public class CtSph implements Sph {
      */
     static void resetChainMap() {
         chainMap.clear();
+        ResourceHandle.resetCachedChains();
     }
 
     /**
@@ -248,7 +294,17 @@ public class CtSph implements Sph {
      * @since 0.2.0
      */
     static Map<ResourceWrapper, ProcessorSlotChain> getChainMap() {
-        return chainMap;
+        return chainMap.asMap();
+    }
+
+    /**
+     * Register the slot chain of provided resource. Only for internal test.
+     *
+     * @param resourceWrapper the resource
+     * @param chain           the slot chain
+     */
+    static void putChain(ResourceWrapper resourceWrapper, ProcessorSlotChain chain) {
+        chainMap.put(resourceWrapper, chain);
     }
 
     /**
@@ -262,6 +318,10 @@ public class CtSph implements Sph {
         static Context internalEnter(String name, String origin) {
             return trueEnter(name, origin);
         }
+
+        static Context internalReenterDefault(Context spare) {
+            return reenterDefault(spare);
+        }
     }
 
     @Override
@@ -324,6 +384,16 @@ public class CtSph implements Sph {
         return entry(resource, count, args);
     }
 
+    @Override
+    public Entry entry(ResourceHandle resource, int count, Object... args) throws BlockException {
+        return entry((ResourceWrapper)resource, count, args);
+    }
+
+    @Override
+    public AsyncEntry asyncEntry(ResourceHandle resource, int count, Object... args) throws BlockException {
+        return asyncEntryInternal(resource, count, args);
+    }
+
     @Override
     public AsyncEntry asyncEntry(String name, EntryType type, int count, Object... args) throws BlockException {
         StringResourceWrapper resource = new StringResourceWrapper(name, type);
@@ -16,6 +16,7 @@
 package com.alibaba.csp.sentinel;
 
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.ResourceRulePlan;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 import com.alibaba.csp.sentinel.util.function.BiConsumer;
 import com.alibaba.csp.sentinel.context.ContextUtil;
@@ -64,6 +65,17 @@ public abstract class Entry implements AutoCloseable {
         this.createTimestamp = TimeUtil.currentTimeMillis();
     }
 
+    /**
+     * Clear the invocation states of this entry, only for recycled entries (see {@link EntryPool}).
+     */
+    void resetStates() {
+        this.completeTimestamp = 0;
+        this.curNode = null;
+        this.originNode = null;
+        this.error = null;
+        this.blockError = null;
+    }
+
     public ResourceWrapper getResourceWrapper() {
         return resourceWrapper;
     }
@@ -165,6 +177,15 @@ public abstract class Entry implements AutoCloseable {
         this.originNode = originNode;
     }
 
+    /**
+     * Get the compiled rules of the resource of this {@link Entry}.
+     *
+     * @return the rule plan of the resource
+     */
+    public ResourceRulePlan getRulePlan() {
+        return ResourceRulePlan.compile(getResourceWrapper().getName());
+    }
+
     /**
      * Like {@code CompletableFuture} since JDK 8, it guarantees specified handler
      * is invoked when this entry terminated (exited), no matter it's blocked or permitted.
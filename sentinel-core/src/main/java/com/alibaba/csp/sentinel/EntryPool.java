@@ -0,0 +1,123 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+
+/**
+ * <p>Thread-local free lists of {@link CtEntry} for the synchronous entry path, which is enabled by
+ * {@code csp.sentinel.entry.pool.enabled=true}. Asynchronous entries are never pooled.</p>
+ *
+ * <p>A pooled entry is given back to the pool of its creating thread as soon as it exits, so it
+ * <strong>MUST NOT</strong> be used any more after {@link Entry#exit()}. The debug mode
+ * ({@code csp.sentinel.entry.pool.debug=true}) could help to find such misuse: exited entries will not be
+ * reused, and any further access of them will throw {@link IllegalStateException}. Out of the debug mode,
+ * exiting a pooled entry again, or in a thread other than the entering one, is ignored.</p>
+ *
+ * <p>The exited default context is also kept per thread and reused by the next entry, so that there will be
+ * no allocation on the entry path in steady state.</p>
+ */
+final class EntryPool {
+
+    static final boolean ENABLED = SentinelConfig.entryPoolEnabled();
+    static final boolean DEBUG = SentinelConfig.entryPoolDebug();
+
+    /**
+     * Max count of free entries kept by each thread, which is also the max nested depth that could be reused.
+     */
+    static final int MAX_POOLED_PER_THREAD = 16;
+
+    private static final ThreadLocal<LocalPool> LOCAL_POOL = new ThreadLocal<LocalPool>() {
+        @Override
+        protected LocalPool initialValue() {
+            return new LocalPool(Thread.currentThread());
+        }
+    };
+
+    static {
+        if (ENABLED) {
+            RecordLog.info("[EntryPool] Entry pooling enabled, debug mode: {}", DEBUG);
+        }
+    }
+
+    static LocalPool local() {
+        return LOCAL_POOL.get();
+    }
+
+    static final class LocalPool {
+
+        private final Thread owner;
+        private final CtEntry[] free = new CtEntry[MAX_POOLED_PER_THREAD];
+        private int size;
+
+        private Context spareContext;
+
+        private LocalPool(Thread owner) {
+            this.owner = owner;
+        }
+
+        CtEntry acquire(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
+            CtEntry entry;
+            if (size > 0) {
+                entry = free[--size];
+                free[size] = null;
+            } else {
+                entry = new CtEntry(this);
+            }
+            entry.reuse(resourceWrapper, chain, context);
+            return entry;
+        }
+
+        void release(CtEntry entry) {
+            // Entries exited in other threads (which is a misuse) or in debug mode won't be reused.
+            if (DEBUG || Thread.currentThread() != owner || size >= free.length) {
+                return;
+            }
+            free[size++] = entry;
+        }
+
+        /**
+         * Take the exited default context kept by current thread.
+         *
+         * @return the spare default context, or null if absent
+         */
+        Context takeSpareContext() {
+            Context context = spareContext;
+            spareContext = null;
+            return context;
+        }
+
+        void setSpareContext(Context context) {
+            if (!DEBUG && Thread.currentThread() == owner) {
+                this.spareContext = context;
+            }
+        }
+
+        boolean isOwnerThread() {
+            return Thread.currentThread() == owner;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    private EntryPool() {}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.util.function.BiConsumer;
+
+/**
+ * <p>The immutable entry for pass-through invocations when entry pooling is enabled, i.e. no rule
+ * checking will be done as the global switch is off, or the amount of contexts or slot chains exceeds the
+ * threshold.</p>
+ *
+ * <p>It's not bound to any context, so it records nothing and exiting it does nothing. One entry is kept by
+ * each interned {@link ResourceHandle} and shared by all its pass-through invocations, in which case
+ * {@link #getCreateTimestamp()} is the time that the entry was first needed rather than that of the
+ * invocation.</p>
+ */
+final class NoOpEntry extends Entry {
+
+    NoOpEntry(ResourceWrapper resourceWrapper) {
+        super(resourceWrapper);
+    }
+
+    /**
+     * Get the pass-through entry of provided resource.
+     *
+     * @param resourceWrapper the resource
+     * @return the entry kept by the resource handle, or a new entry if the resource is not an interned handle
+     */
+    static NoOpEntry of(ResourceWrapper resourceWrapper) {
+        if (resourceWrapper instanceof ResourceHandle) {
+            return ((ResourceHandle)resourceWrapper).getNoOpEntry();
+        }
+        return new NoOpEntry(resourceWrapper);
+    }
+
+    @Override
+    public void exit(int count, Object... args) throws ErrorEntryFreeException {
+        // Nothing to do.
+    }
+
+    @Override
+    protected Entry trueExit(int count, Object... args) throws ErrorEntryFreeException {
+        return null;
+    }
+
+    @Override
+    public Node getLastNode() {
+        return null;
+    }
+
+    @Override
+    public void whenTerminate(BiConsumer<Context, Entry> handler) {
+        // No rule checking is done, so no stateful operations need to be handled.
+    }
+
+    @Override
+    public Entry setCompleteTimestamp(long completeTimestamp) {
+        return this;
+    }
+
+    @Override
+    public void setCurNode(Node node) {}
+
+    @Override
+    public void setOriginNode(Node originNode) {}
+
+    @Override
+    public Entry setBlockError(BlockException blockError) {
+        return this;
+    }
+
+    @Override
+    public void setError(Throwable error) {}
+}
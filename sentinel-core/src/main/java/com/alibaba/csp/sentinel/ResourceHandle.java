@@ -0,0 +1,198 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlotChain;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.ConcurrentRegistry;
+
+/**
+ * <p>A pre-resolved resource, which is interned by resource name and caches its {@link ProcessorSlotChain}
+ * and a dense integer id. Entering a resource via its handle (e.g.
+ * {@link SphU#entry(ResourceHandle)}) won't allocate a resource wrapper or look up the slot chain map.</p>
+ *
+ * <p>The handle should be obtained once (via {@link SphU#resource(String)}) and kept by the caller:</p>
+ *
+ * <pre>
+ *  private static final ResourceHandle RESOURCE = SphU.resource("abc");
+ *
+ *  public void foo() {
+ *     Entry entry = null;
+ *     try {
+ *        entry = SphU.entry(RESOURCE);
+ *        // resource that need protection
+ *     } catch (BlockException blockException) {
+ *         // when goes there, it is blocked
+ *     } finally {
+ *         if (entry != null){
+ *             entry.exit();
+ *         }
+ *     }
+ *  }
+ * </pre>
+ *
+ * <p>At most {@link Constants#MAX_SLOT_CHAIN_SIZE} handles will be interned. Handles created after that
+ * are not interned, have {@link #NOT_INTERNED} as their id and won't cache anything, so they behave the same
+ * as plain resource names.</p>
+ */
+public final class ResourceHandle extends StringResourceWrapper {
+
+    /**
+     * Id of the handles which are not interned.
+     */
+    public static final int NOT_INTERNED = -1;
+
+    private static final AtomicInteger ID_GENERATOR = new AtomicInteger();
+
+    private static final ConcurrentRegistry<HandleKey, ResourceHandle> HANDLES
+        = new ConcurrentRegistry<>(Constants.MAX_SLOT_CHAIN_SIZE);
+
+    private final int id;
+
+    private volatile ProcessorSlotChain chain;
+    private volatile NoOpEntry noOpEntry;
+
+    private ResourceHandle(String name, EntryType entryType, int resourceType, int id) {
+        super(name, entryType, resourceType);
+        this.id = id;
+    }
+
+    /**
+     * Get the interned handle of provided resource, or create a new one if absent.
+     *
+     * @param name         resource name
+     * @param entryType    the traffic type (inbound, outbound)
+     * @param resourceType classification of the resource (e.g. Web or RPC)
+     * @return the resource handle
+     */
+    static ResourceHandle of(String name, EntryType entryType, int resourceType) {
+        AssertUtil.notEmpty(name, "resource name cannot be empty");
+        AssertUtil.notNull(entryType, "entryType cannot be null");
+        HandleKey key = new HandleKey(name, entryType, resourceType);
+        ResourceHandle handle = HANDLES.get(key);
+        if (handle != null) {
+            return handle;
+        }
+        // Handles are interned under the lock so that ids stay dense, which happens once per resource.
+        synchronized (HANDLES) {
+            handle = HANDLES.get(key);
+            if (handle == null) {
+                if (HANDLES.size() >= HANDLES.getMaxSize()) {
+                    return new ResourceHandle(name, entryType, resourceType, NOT_INTERNED);
+                }
+                handle = new ResourceHandle(name, entryType, resourceType, ID_GENERATOR.getAndIncrement());
+                HANDLES.put(key, handle);
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Get the dense id of this handle, which starts from {@code 0} and could be used as an array index.
+     *
+     * @return the id of this handle, or {@link #NOT_INTERNED} if this handle is not interned
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the {@link ClusterNode} of this resource. The node is cached by the slot chain of the resource
+     * already, so it's simply looked up here.
+     *
+     * @return the {@link ClusterNode}, or null if the resource has never been entered
+     */
+    public ClusterNode getClusterNode() {
+        return ClusterBuilderSlot.getClusterNode(this);
+    }
+
+    NoOpEntry getNoOpEntry() {
+        NoOpEntry entry = noOpEntry;
+        if (entry == null) {
+            entry = new NoOpEntry(this);
+            if (id != NOT_INTERNED) {
+                noOpEntry = entry;
+            }
+        }
+        return entry;
+    }
+
+    ProcessorSlotChain getChain() {
+        return chain;
+    }
+
+    void setChain(ProcessorSlotChain chain) {
+        if (id != NOT_INTERNED) {
+            this.chain = chain;
+        }
+    }
+
+    /**
+     * Clear the cached slot chains. Only for internal test.
+     */
+    static void resetCachedChains() {
+        for (ResourceHandle handle : HANDLES.asMap().values()) {
+            handle.chain = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceHandle{" +
+            "name='" + name + '\'' +
+            ", entryType=" + entryType +
+            ", resourceType=" + resourceType +
+            ", id=" + id +
+            '}';
+    }
+
+    private static final class HandleKey {
+        private final String name;
+        private final EntryType entryType;
+        private final int resourceType;
+
+        HandleKey(String name, EntryType entryType, int resourceType) {
+            this.name = name;
+            this.entryType = entryType;
+            this.resourceType = resourceType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof HandleKey)) {
+                return false;
+            }
+            HandleKey that = (HandleKey)o;
+            return resourceType == that.resourceType && entryType == that.entryType && name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = name.hashCode();
+            result = 31 * result + entryType.hashCode();
+            result = 31 * result + resourceType;
+            return result;
+        }
+    }
+}
@@ -65,6 +65,34 @@ public interface Sph extends SphResourceTypeSupport {
 
     AsyncEntry asyncEntry(String name, EntryType trafficType, int batchCount, Object... args) throws BlockException;
 
+    /**
+     * Record statistics and perform rule checking for the pre-resolved resource.
+     *
+     * @param resource   the pre-resolved resource
+     * @param batchCount the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param args       args for parameter flow control or customized slots
+     * @return the {@link Entry} of this invocation (used for mark the invocation complete and get context data)
+     * @throws BlockException if the block criteria is met
+     */
+    default Entry entry(ResourceHandle resource, int batchCount, Object... args) throws BlockException {
+        return entryWithType(resource.getName(), resource.getResourceType(), resource.getEntryType(), batchCount,
+            args);
+    }
+
+    /**
+     * Create a protected asynchronous resource for the pre-resolved resource.
+     *
+     * @param resource   the pre-resolved resource
+     * @param batchCount the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param args       args for parameter flow control or customized slots
+     * @return created asynchronous entry
+     * @throws BlockException if the block criteria is met
+     */
+    default AsyncEntry asyncEntry(ResourceHandle resource, int batchCount, Object... args) throws BlockException {
+        return asyncEntryWithType(resource.getName(), resource.getResourceType(), resource.getEntryType(),
+            batchCount, false, args);
+    }
+
     Entry entryWithPriority(String name, EntryType trafficType, int batchCount, boolean prioritized) throws BlockException;
 
     Entry entryWithPriority(String name, EntryType trafficType, int batchCount, boolean prioritized, Object... args) throws BlockException;
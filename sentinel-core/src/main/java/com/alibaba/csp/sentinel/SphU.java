@@ -16,10 +16,13 @@
 package com.alibaba.csp.sentinel;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.Rule;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterTokenPrefetcher;
 import com.alibaba.csp.sentinel.slots.system.SystemRule;
 
 /**
@@ -92,6 +95,41 @@ public class SphU {
 
 
 
+    /**
+     * Get the pre-resolved handle of an outbound resource. The handle is interned by resource name,
+     * so it's recommended to obtain it once and keep it.
+     *
+     * @param name the unique name of the protected resource
+     * @return the resource handle
+     */
+    public static ResourceHandle resource(String name) {
+        return ResourceHandle.of(name, EntryType.OUT, ResourceTypeConstants.COMMON);
+    }
+
+    public static ResourceHandle resource(String name, EntryType trafficType) {
+        return ResourceHandle.of(name, trafficType, ResourceTypeConstants.COMMON);
+    }
+
+    public static ResourceHandle resource(String name, int resourceType, EntryType trafficType) {
+        return ResourceHandle.of(name, trafficType, resourceType);
+    }
+
+    public static Entry entry(ResourceHandle resource) throws BlockException {
+        return Env.sph.entry(resource, 1, OBJECTS0);
+    }
+
+    public static Entry entry(ResourceHandle resource, int batchCount) throws BlockException {
+        return Env.sph.entry(resource, batchCount, OBJECTS0);
+    }
+
+    public static Entry entry(ResourceHandle resource, int batchCount, Object... args) throws BlockException {
+        return Env.sph.entry(resource, batchCount, args);
+    }
+
+    public static AsyncEntry asyncEntry(ResourceHandle resource) throws BlockException {
+        return Env.sph.asyncEntry(resource, 1, OBJECTS0);
+    }
+
     public static Entry entry(Method method) throws BlockException {
         return Env.sph.entry(method, EntryType.OUT, 1, OBJECTS0);
     }
@@ -179,4 +217,35 @@ public class SphU {
                                         Object[] args) throws BlockException {
         return Env.sph.asyncEntryWithType(name, resourceType, trafficType, batchCount, false, args);
     }
+
+    /**
+     * Enter the resource asynchronously, of which the cluster tokens are requested without blocking current
+     * thread. The returned stage is completed with the entry on a shared executor once the token requests
+     * are completed (or on current thread if no token request is pending), or exceptionally with the
+     * {@link BlockException}.
+     *
+     * @param name         the unique name for the protected resource
+     * @param resourceType classification of the resource (e.g. Web or RPC)
+     * @param trafficType  the traffic type (inbound, outbound or internal)
+     * @param batchCount   the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param args         args for parameter flow control or customized slots
+     * @return the stage completed with the async entry
+     */
+    public static CompletionStage<AsyncEntry> asyncEntryStage(String name, int resourceType, EntryType trafficType,
+                                                             int batchCount, Object[] args) {
+        return ClusterTokenPrefetcher.asyncEntry(name, resourceType, trafficType, batchCount, args);
+    }
+
+    /**
+     * Same as {@link #asyncEntryStage(String, int, EntryType, int, Object[])}, but the resource is entered
+     * (and the returned stage is completed) on the provided executor once the token requests are completed.
+     *
+     * @param executor executor to enter the resource, which should allow blocking for the token requests
+     *                 of the slot chain
+     * @return the stage completed with the async entry
+     */
+    public static CompletionStage<AsyncEntry> asyncEntryStage(String name, int resourceType, EntryType trafficType,
+                                                             int batchCount, Object[] args, Executor executor) {
+        return ClusterTokenPrefetcher.asyncEntry(name, resourceType, trafficType, batchCount, args, executor);
+    }
 }
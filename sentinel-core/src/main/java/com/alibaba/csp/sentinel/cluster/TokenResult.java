@@ -32,6 +32,11 @@ public class TokenResult {
 
     private long tokenId;
 
+    /**
+     * Count of the clients connected to the token server for the flow, or 0 if unknown.
+     */
+    private int connectedCount;
+
     private Map<String, String> attachments;
 
     public TokenResult() {
@@ -76,6 +81,15 @@ public class TokenResult {
         return this;
     }
 
+    public int getConnectedCount() {
+        return connectedCount;
+    }
+
+    public TokenResult setConnectedCount(int connectedCount) {
+        this.connectedCount = connectedCount;
+        return this;
+    }
+
     public Map<String, String> getAttachments() {
         return attachments;
     }
@@ -93,6 +107,7 @@ public class TokenResult {
                 ", waitInMs=" + waitInMs +
                 ", attachments=" + attachments +
                 ", tokenId=" + tokenId +
+                ", connectedCount=" + connectedCount +
                 '}';
     }
 }
@@ -16,6 +16,8 @@
 package com.alibaba.csp.sentinel.cluster;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Service interface of flow control.
@@ -45,6 +47,34 @@ public interface TokenService {
      */
     TokenResult requestParamToken(Long ruleId, int acquireCount, Collection<Object> params);
 
+    /**
+     * Request tokens from remote token server asynchronously. The returned stage is completed by the transport
+     * (e.g. on the I/O thread of the token client), so dependent actions should not block.
+     * By default, the tokens are requested synchronously.
+     *
+     * @param ruleId the unique rule ID
+     * @param acquireCount token count to acquire
+     * @param prioritized whether the request is prioritized
+     * @return the stage completed with the result of the token request
+     */
+    default CompletionStage<TokenResult> requestTokenAsync(Long ruleId, int acquireCount, boolean prioritized) {
+        return CompletableFuture.completedFuture(requestToken(ruleId, acquireCount, prioritized));
+    }
+
+    /**
+     * Request tokens for a specific parameter from remote token server asynchronously.
+     * By default, the tokens are requested synchronously.
+     *
+     * @param ruleId the unique rule ID
+     * @param acquireCount token count to acquire
+     * @param params parameter list
+     * @return the stage completed with the result of the token request
+     */
+    default CompletionStage<TokenResult> requestParamTokenAsync(Long ruleId, int acquireCount,
+                                                               Collection<Object> params) {
+        return CompletableFuture.completedFuture(requestParamToken(ruleId, acquireCount, params));
+    }
+
     /**
      * Request acquire concurrent tokens from remote token server.
      *
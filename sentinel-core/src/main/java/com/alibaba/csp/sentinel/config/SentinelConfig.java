@@ -58,6 +58,15 @@ public final class SentinelConfig {
     public static final String STATISTIC_MAX_RT = "csp.sentinel.statistic.max.rt";
     public static final String SPI_CLASSLOADER = "csp.sentinel.spi.classloader";
     public static final String METRIC_FLUSH_INTERVAL = "csp.sentinel.metric.flush.interval";
+    public static final String STATISTIC_BUCKET_STRIPED = "csp.sentinel.statistic.bucket.striped";
+    public static final String ENTRY_POOL_ENABLED = "csp.sentinel.entry.pool.enabled";
+    public static final String ENTRY_POOL_DEBUG = "csp.sentinel.entry.pool.debug";
+    public static final String CLOCK_TYPE = "csp.sentinel.clock.type";
+    public static final String METRIC_LOG_FORMAT = "csp.sentinel.metric.log.format";
+    public static final String METRIC_PUSH_SERVER = "csp.sentinel.metric.push.server";
+    public static final String METRIC_PUSH_QUEUE_SIZE = "csp.sentinel.metric.push.queue.size";
+    public static final String METRIC_PUSH_SPOOL_SIZE = "csp.sentinel.metric.push.spool.size";
+    public static final String METRIC_PUSH_TOKEN = "csp.sentinel.metric.push.token";
 
     public static final String DEFAULT_CHARSET = "UTF-8";
     public static final long DEFAULT_SINGLE_METRIC_FILE_SIZE = 1024 * 1024 * 50;
@@ -65,6 +74,10 @@ public final class SentinelConfig {
     public static final int DEFAULT_COLD_FACTOR = 3;
     public static final int DEFAULT_STATISTIC_MAX_RT = 5000;
     public static final long DEFAULT_METRIC_FLUSH_INTERVAL = 1L;
+    public static final String METRIC_LOG_FORMAT_TEXT = "text";
+    public static final String METRIC_LOG_FORMAT_BINARY = "binary";
+    public static final int DEFAULT_METRIC_PUSH_QUEUE_SIZE = 64;
+    public static final long DEFAULT_METRIC_PUSH_SPOOL_SIZE = 1024 * 1024 * 64;
 
     static {
         try {
@@ -210,6 +223,63 @@ public final class SentinelConfig {
         }
     }
 
+    /**
+     * Whether the metric log should be written in the binary format rather than text.
+     *
+     * @return true if {@code csp.sentinel.metric.log.format} is {@code binary}, false by default
+     */
+    public static boolean isBinaryMetricLogFormat() {
+        return METRIC_LOG_FORMAT_BINARY.equalsIgnoreCase(props.get(METRIC_LOG_FORMAT));
+    }
+
+    /**
+     * Get the address ({@code host:port}) of the collector which the metrics are pushed to.
+     *
+     * @return the collector address, or null if metric pushing is disabled
+     * @see com.alibaba.csp.sentinel.node.metric.MetricPushClient
+     */
+    public static String metricPushServer() {
+        return props.get(METRIC_PUSH_SERVER);
+    }
+
+    /**
+     * Get the token which authenticates the machine to the metric collector, which should be the same as
+     * {@code sentinel.dashboard.metric.collector.token} of the dashboard.
+     *
+     * @return the token, or null if not configured
+     */
+    public static String metricPushToken() {
+        return props.get(METRIC_PUSH_TOKEN);
+    }
+
+    public static int metricPushQueueSize() {
+        String v = props.get(METRIC_PUSH_QUEUE_SIZE);
+        if (v == null) {
+            return DEFAULT_METRIC_PUSH_QUEUE_SIZE;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(v));
+        } catch (Throwable throwable) {
+            RecordLog.warn("[SentinelConfig] Parse metricPushQueueSize fail, use default value: "
+                    + DEFAULT_METRIC_PUSH_QUEUE_SIZE, throwable);
+            return DEFAULT_METRIC_PUSH_QUEUE_SIZE;
+        }
+    }
+
+    public static long metricPushSpoolSize() {
+        String v = props.get(METRIC_PUSH_SPOOL_SIZE);
+        if (v == null) {
+            return DEFAULT_METRIC_PUSH_SPOOL_SIZE;
+        }
+        try {
+            return Long.parseLong(v);
+        } catch (Throwable throwable) {
+            RecordLog.warn("[SentinelConfig] Parse metricPushSpoolSize fail, use default value: "
+                    + DEFAULT_METRIC_PUSH_SPOOL_SIZE, throwable);
+            return DEFAULT_METRIC_PUSH_SPOOL_SIZE;
+        }
+    }
+
     public static long singleMetricFileSize() {
         try {
             return Long.parseLong(props.get(SINGLE_METRIC_FILE_SIZE));
@@ -268,6 +338,44 @@ public final class SentinelConfig {
         }
     }
 
+    /**
+     * Whether the sliding windows of statistic nodes should use
+     * {@link com.alibaba.csp.sentinel.slots.statistic.data.StripedMetricBucket} as bucket.
+     *
+     * @return true if striped metric bucket is enabled, false by default
+     */
+    public static boolean statisticStripedBucketEnabled() {
+        return Boolean.parseBoolean(props.get(STATISTIC_BUCKET_STRIPED));
+    }
+
+    /**
+     * Whether the entries of the synchronous entry path should be recycled via thread-local pools.
+     *
+     * @return true if entry pooling is enabled, false by default
+     */
+    public static boolean entryPoolEnabled() {
+        return Boolean.parseBoolean(props.get(ENTRY_POOL_ENABLED));
+    }
+
+    /**
+     * Whether to detect the use of pooled entries after exit, which should only be enabled for debugging.
+     *
+     * @return true if debug mode of entry pooling is enabled, false by default
+     */
+    public static boolean entryPoolDebug() {
+        return Boolean.parseBoolean(props.get(ENTRY_POOL_DEBUG));
+    }
+
+    /**
+     * Get the type of the built-in global clock.
+     *
+     * @return the clock type, or null if absent (then the ticker clock will be used)
+     * @see com.alibaba.csp.sentinel.util.clock.ClockProvider
+     */
+    public static String clockType() {
+        return props.get(CLOCK_TYPE);
+    }
+
     /**
      * Function for resolving project name. The order is elaborated below:
      *
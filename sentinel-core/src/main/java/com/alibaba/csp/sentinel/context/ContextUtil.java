@@ -15,10 +15,6 @@
  */
 package com.alibaba.csp.sentinel.context;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
-
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.SphO;
@@ -29,6 +25,7 @@ import com.alibaba.csp.sentinel.node.EntranceNode;
 import com.alibaba.csp.sentinel.node.Node;
 import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
 import com.alibaba.csp.sentinel.slots.nodeselector.NodeSelectorSlot;
+import com.alibaba.csp.sentinel.util.ConcurrentRegistry;
 
 /**
  * 在当前线程 获取 或者 创建 {@link Context}
@@ -42,10 +39,13 @@ public class ContextUtil {
     // context 被存储在 ThreadLocal，意味着每个线程都有一个唯一的 context，请求和context是一对一的关系，其中都涉及到一个或多个资源。
     private static ThreadLocal<Context> contextHolder = new ThreadLocal<>();
 
-    /** 存储了 context 名称 和 {@link EntranceNode} 的映射关系 */
-    private static volatile Map<String, DefaultNode> contextNameNodeMap = new HashMap<>();
+    /**
+     * 存储了 context 名称 和 {@link EntranceNode} 的映射关系
+     * 除默认 context 外最多允许 {@link Constants#MAX_CONTEXT_NAME_SIZE} 个 context
+     */
+    private static final ConcurrentRegistry<String, DefaultNode> contextNameNodeMap
+        = new ConcurrentRegistry<>(Constants.MAX_CONTEXT_NAME_SIZE + 1);
 
-    private static final ReentrantLock LOCK = new ReentrantLock();
     private static final Context NULL_CONTEXT = new NullContext();
 
 
@@ -68,11 +68,9 @@ public class ContextUtil {
      * Not thread-safe, only for test.
      */
     static void resetContextMap() {
-        if (contextNameNodeMap != null) {
-            RecordLog.warn("Context map cleared and reset to initial state");
-            contextNameNodeMap.clear();
-            initDefaultContext();
-        }
+        RecordLog.warn("Context map cleared and reset to initial state");
+        contextNameNodeMap.clear();
+        initDefaultContext();
     }
 
     /**
@@ -116,38 +114,20 @@ public class ContextUtil {
         Context context = contextHolder.get();
         if (context == null) {
             // threadLocal 中不存在 context，则需要考虑创建 context。而创建 context 前首先需要创建 入口节点 EntranceNode。
-            Map<String, DefaultNode> localCacheNameMap = contextNameNodeMap;
-            DefaultNode node = localCacheNameMap.get(name);
-            // 缓存中不存在 入口节点 EntranceNode
+            DefaultNode node = contextNameNodeMap.get(name);
+            // 缓存中不存在 入口节点 EntranceNode，则创建 入口节点 EntranceNode
             if (node == null) {
+                EntranceNode newNode = new EntranceNode(new StringResourceWrapper(name, EntryType.IN), null);
+                node = contextNameNodeMap.register(name, newNode);
                 // 达到了 context 的数量阈值，创建 NullContext
-                if (localCacheNameMap.size() > Constants.MAX_CONTEXT_NAME_SIZE) {
+                if (node == null) {
                     setNullContext();
                     return NULL_CONTEXT;
-                } else {
-                    // 创建 入口节点 EntranceNode
-                    LOCK.lock();
-                    try {
-                        node = contextNameNodeMap.get(name);
-                        if (node == null) {
-                            if (contextNameNodeMap.size() > Constants.MAX_CONTEXT_NAME_SIZE) {
-                                setNullContext();
-                                return NULL_CONTEXT;
-                            } else {
-                                node = new EntranceNode(new StringResourceWrapper(name, EntryType.IN), null);
-                                // Add entrance node.
-                                // 将入口节点 EntranceNode 添加到 调用树 的 root 节点的子节点集合中
-                                Constants.ROOT.addChild(node);
-
-                                Map<String, DefaultNode> newMap = new HashMap<>(contextNameNodeMap.size() + 1);
-                                newMap.putAll(contextNameNodeMap);
-                                newMap.put(name, node);
-                                contextNameNodeMap = newMap;
-                            }
-                        }
-                    } finally {
-                        LOCK.unlock();
-                    }
+                }
+                if (node == newNode) {
+                    // Add entrance node.
+                    // 将入口节点 EntranceNode 添加到 调用树 的 root 节点的子节点集合中，只有注册成功的节点会被添加
+                    Constants.ROOT.addChild(node);
                 }
             }
             // 创建 context，context 名称 和 入口节点 EntranceNode 的资源名称一致。
@@ -159,6 +139,23 @@ public class ContextUtil {
         return context;
     }
 
+    /**
+     * Bind the exited default context to current thread again instead of creating a new one,
+     * which is used by pooled entries.
+     *
+     * @param spare the exited default context, may be null
+     * @return the default context of current thread
+     */
+    protected static Context reenterDefault(Context spare) {
+        if (spare != null && spare.getCurEntry() == null
+            && spare.getEntranceNode() == contextNameNodeMap.get(Constants.CONTEXT_DEFAULT_NAME)) {
+            spare.setOrigin("");
+            contextHolder.set(spare);
+            return spare;
+        }
+        return trueEnter(Constants.CONTEXT_DEFAULT_NAME, "");
+    }
+
     private static boolean shouldWarn = true;
 
     private static void setNullContext() {
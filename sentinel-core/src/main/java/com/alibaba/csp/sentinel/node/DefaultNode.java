@@ -15,8 +15,8 @@
  */
 package com.alibaba.csp.sentinel.node;
 
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.SphO;
@@ -40,7 +40,7 @@ public class DefaultNode extends StatisticNode {
     private ResourceWrapper id;
 
     // 存放子节点 和 构造调用树
-    private volatile Set<Node> childList = new HashSet<>();
+    private volatile Set<Node> childList = ConcurrentHashMap.newKeySet();
 
     // 引用当前资源的全局唯一 ClusterNode 实例 
     // 委托模式：ClusterNode 被 ClusterBuilderSlot 委托给 DefaultNode 统计指标数据
@@ -59,15 +59,7 @@ public class DefaultNode extends StatisticNode {
             RecordLog.warn("Trying to add null child to node <{}>, ignored", id.getName());
             return;
         }
-        if (!childList.contains(node)) {
-            synchronized (this) {
-                if (!childList.contains(node)) {
-                    Set<Node> newSet = new HashSet<>(childList.size() + 1);
-                    newSet.addAll(childList);
-                    newSet.add(node);
-                    childList = newSet;
-                }
-            }
+        if (!childList.contains(node) && childList.add(node)) {
             RecordLog.info("Add child <{}> to node <{}>", ((DefaultNode)node).id.getName(), id.getName());
         }
     }
@@ -76,7 +68,7 @@ public class DefaultNode extends StatisticNode {
      * Reset the child node list.
      */
     public void removeChildList() {
-        this.childList = new HashSet<>();
+        this.childList = ConcurrentHashMap.newKeySet();
     }
 
 
@@ -0,0 +1,454 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import sun.misc.Unsafe;
+
+/**
+ * <p>A memory-mapped metric file of fixed size, which consists of four sections:</p>
+ *
+ * <pre>
+ * +--------+------------------------+---------------------+------------------------------+
+ * | header | time index (16B/entry) | resource dictionary | metric records (64B/record)  |
+ * +--------+------------------------+---------------------+------------------------------+
+ * </pre>
+ *
+ * <ul>
+ * <li>time index entry: {@code second(8) | firstRecord(4) | recordCount(4)}, one entry per second in
+ * ascending order, so the records of a second can be located directly by the record offset;</li>
+ * <li>dictionary entry: {@code length(4) | UTF-8 bytes of resource name}, the id of a resource is
+ * the order of its entry;</li>
+ * <li>record: {@code resourceId(4) | classification(4) | passQps(8) | blockQps(8) | successQps(8) |
+ * exceptionQps(8) | rt(8) | occupiedPassQps(8) | concurrency(4) | reserved(4)}.</li>
+ * </ul>
+ *
+ * <p>The counts in the header (and the record count of the last index entry) are updated only after the data
+ * they cover has been written, with a store fence in between, and the readers read the counts with a load fence
+ * before reading the data, so the readers only need to trust the published counts. There should be only one
+ * writer of a file.</p>
+ */
+final class BinaryMetricFile {
+
+    static final int MAGIC = 0x53454E4D;
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 64;
+    static final int INDEX_ENTRY_SIZE = 16;
+    static final int RECORD_SIZE = 64;
+
+    /**
+     * Files are rolled every day, so one entry per second of a day is enough.
+     */
+    static final int MAX_INDEX_CAPACITY = 86400;
+    static final int MIN_FILE_SIZE = 64 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The mapped buffer has no ordered access on Java 8, so the fences of {@link Unsafe} are used to order
+     * the data and the counts, falling back to a volatile write and read if it's unavailable.
+     */
+    private static final Unsafe UNSAFE = loadUnsafe();
+    private static volatile int fence;
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_INDEX_CAPACITY = 8;
+    private static final int OFFSET_DICT_CAPACITY = 12;
+    private static final int OFFSET_RECORD_CAPACITY = 16;
+    private static final int OFFSET_INDEX_COUNT = 20;
+    private static final int OFFSET_DICT_COUNT = 24;
+    private static final int OFFSET_DICT_BYTES = 28;
+    private static final int OFFSET_RECORD_COUNT = 32;
+
+    private final String fileName;
+    private final MappedByteBuffer buffer;
+
+    private final int indexCapacity;
+    private final int dictCapacity;
+    private final int recordCapacity;
+    private final int dictOffset;
+    private final int recordOffset;
+
+    /**
+     * Snapshot of the resource names decoded from the dictionary, for readers.
+     */
+    private volatile Dictionary dictionary = new Dictionary(new String[0], new HashMap<String, Integer>(), 0);
+    /**
+     * Resource ids of the writer.
+     */
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    private BinaryMetricFile(String fileName, MappedByteBuffer buffer) {
+        this.fileName = fileName;
+        this.buffer = buffer;
+        this.indexCapacity = buffer.getInt(OFFSET_INDEX_CAPACITY);
+        this.dictCapacity = buffer.getInt(OFFSET_DICT_CAPACITY);
+        this.recordCapacity = buffer.getInt(OFFSET_RECORD_CAPACITY);
+        this.dictOffset = HEADER_SIZE + indexCapacity * INDEX_ENTRY_SIZE;
+        this.recordOffset = dictOffset + dictCapacity;
+    }
+
+    /**
+     * Create a new metric file and map it into memory. The existing file will be overwritten.
+     *
+     * @param fileName name of the file
+     * @param fileSize expected size of the file
+     * @return the mapped metric file
+     * @throws IOException if failed to create the file
+     */
+    static BinaryMetricFile create(String fileName, long fileSize) throws IOException {
+        int size = (int)Math.max(MIN_FILE_SIZE, Math.min(fileSize, Integer.MAX_VALUE));
+        int indexCapacity = Math.min(MAX_INDEX_CAPACITY, size / 16 / INDEX_ENTRY_SIZE);
+        int dictCapacity = size / 32;
+        int recordCapacity = (size - HEADER_SIZE - indexCapacity * INDEX_ENTRY_SIZE - dictCapacity) / RECORD_SIZE;
+
+        RandomAccessFile raf = new RandomAccessFile(fileName, "rw");
+        try {
+            raf.setLength(0);
+            raf.setLength(size);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(OFFSET_VERSION, VERSION);
+            buffer.putInt(OFFSET_INDEX_CAPACITY, indexCapacity);
+            buffer.putInt(OFFSET_DICT_CAPACITY, dictCapacity);
+            buffer.putInt(OFFSET_RECORD_CAPACITY, recordCapacity);
+            // The magic is written at last, so a partially initialized file won't be recognized.
+            buffer.putInt(OFFSET_MAGIC, MAGIC);
+            return new BinaryMetricFile(fileName, buffer);
+        } finally {
+            // The mapping stays valid after the channel is closed.
+            raf.close();
+        }
+    }
+
+    /**
+     * Map an existing metric file into memory for reading.
+     *
+     * @param fileName name of the file
+     * @return the mapped metric file, or null if the file is not a valid metric file
+     * @throws IOException if failed to map the file
+     */
+    static BinaryMetricFile openForRead(String fileName) throws IOException {
+        File file = new File(fileName);
+        if (!file.isFile() || file.length() < MIN_FILE_SIZE) {
+            return null;
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (buffer.getInt(OFFSET_MAGIC) != MAGIC || buffer.getInt(OFFSET_VERSION) != VERSION) {
+                return null;
+            }
+            return new BinaryMetricFile(fileName, buffer);
+        } finally {
+            raf.close();
+        }
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    int indexCount() {
+        int count = buffer.getInt(OFFSET_INDEX_COUNT);
+        loadFence();
+        return count;
+    }
+
+    int recordCount() {
+        int count = buffer.getInt(OFFSET_RECORD_COUNT);
+        loadFence();
+        return count;
+    }
+
+    long secondAt(int index) {
+        return buffer.getLong(indexEntryOffset(index));
+    }
+
+    int firstRecordAt(int index) {
+        return buffer.getInt(indexEntryOffset(index) + 8);
+    }
+
+    int recordCountAt(int index) {
+        int count = buffer.getInt(indexEntryOffset(index) + 12);
+        loadFence();
+        return count;
+    }
+
+    /**
+     * Find the first index entry whose second is not less than provided second.
+     *
+     * @param second the second to search
+     * @return position of the entry, or {@link #indexCount()} if absent
+     */
+    int findIndex(long second) {
+        int low = 0;
+        int high = indexCount() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (secondAt(mid) < second) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    int resourceIdAt(int record) {
+        return buffer.getInt(recordEntryOffset(record));
+    }
+
+    /**
+     * Read the record as a {@link MetricNode}.
+     *
+     * @param record    position of the record
+     * @param timestamp timestamp of the record, which is kept by the index entry
+     * @return the metric node
+     */
+    MetricNode readRecord(int record, long timestamp) {
+        int offset = recordEntryOffset(record);
+        MetricNode node = new MetricNode();
+        node.setTimestamp(timestamp);
+        node.setResource(resourceName(buffer.getInt(offset)));
+        node.setClassification(buffer.getInt(offset + 4));
+        node.setPassQps(buffer.getLong(offset + 8));
+        node.setBlockQps(buffer.getLong(offset + 16));
+        node.setSuccessQps(buffer.getLong(offset + 24));
+        node.setExceptionQps(buffer.getLong(offset + 32));
+        node.setRt(buffer.getLong(offset + 40));
+        node.setOccupiedPassQps(buffer.getLong(offset + 48));
+        node.setConcurrency(buffer.getInt(offset + 56));
+        return node;
+    }
+
+    /**
+     * Resolve the id of a resource from the dictionary of this file.
+     *
+     * @param resource name of the resource
+     * @return id of the resource, or -1 if absent
+     */
+    int resolveResourceId(String resource) {
+        Integer id = syncDictionary().ids.get(resource);
+        return id == null ? -1 : id;
+    }
+
+    private String resourceName(int id) {
+        String[] names = dictionary.names;
+        if (id >= names.length) {
+            names = syncDictionary().names;
+        }
+        return id < names.length ? names[id] : null;
+    }
+
+    /**
+     * Decode the dictionary entries published after last sync. Concurrent readers may decode the same entries,
+     * which is harmless as the snapshots are immutable.
+     */
+    private Dictionary syncDictionary() {
+        Dictionary current = dictionary;
+        int count = buffer.getInt(OFFSET_DICT_COUNT);
+        loadFence();
+        if (current.names.length >= count) {
+            return current;
+        }
+        String[] names = Arrays.copyOf(current.names, count);
+        Map<String, Integer> ids = new HashMap<String, Integer>(current.ids);
+        ByteBuffer dict = buffer.duplicate();
+        int offset = dictOffset + current.bytes;
+        for (int i = current.names.length; i < count; i++) {
+            int length = dict.getInt(offset);
+            byte[] bytes = new byte[length];
+            dict.position(offset + 4);
+            dict.get(bytes);
+            names[i] = new String(bytes, UTF_8);
+            ids.put(names[i], i);
+            offset += 4 + length;
+        }
+        Dictionary newDictionary = new Dictionary(names, ids, offset - dictOffset);
+        dictionary = newDictionary;
+        return newDictionary;
+    }
+
+    private static final class Dictionary {
+        private final String[] names;
+        private final Map<String, Integer> ids;
+        /**
+         * Size of the decoded entries in bytes.
+         */
+        private final int bytes;
+
+        private Dictionary(String[] names, Map<String, Integer> ids, int bytes) {
+            this.names = names;
+            this.ids = ids;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Count the metrics at the head of the list that could be appended to the file, which is limited by
+     * the room of the index, the records and the dictionary.
+     *
+     * @param second the second of the metrics
+     * @param nodes  metrics to write
+     * @return count of the metrics that fit in the file, from the first one
+     */
+    int roomFor(long second, List<MetricNode> nodes) {
+        int indexCount = indexCount();
+        boolean newSecond = indexCount == 0 || secondAt(indexCount - 1) != second;
+        if (newSecond && indexCount >= indexCapacity) {
+            return 0;
+        }
+        int count = Math.min(nodes.size(), recordCapacity - recordCount());
+        long dictBytes = buffer.getInt(OFFSET_DICT_BYTES);
+        for (int i = 0; i < count; i++) {
+            String resource = nodes.get(i).getResource();
+            if (!ids.containsKey(resource)) {
+                // A UTF-16 char takes 3 bytes at most in UTF-8 (a surrogate pair takes 4 bytes).
+                dictBytes += 4 + resource.length() * 3L;
+                if (dictBytes > dictCapacity) {
+                    return i;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Append the metrics of provided second. The caller should make sure that there is enough room
+     * via {@link #roomFor(long, List)}.
+     *
+     * @param second    the second of the metrics, not less than the last appended one
+     * @param nodes     metrics to write
+     * @throws IllegalStateException if there is not enough room for the metrics
+     */
+    void append(long second, List<MetricNode> nodes) {
+        if (roomFor(second, nodes) < nodes.size()) {
+            throw new IllegalStateException("Not enough room in metric file " + fileName + " for "
+                + nodes.size() + " metrics");
+        }
+        int indexCount = indexCount();
+        boolean newSecond = indexCount == 0 || secondAt(indexCount - 1) != second;
+        int recordCount = recordCount();
+        int record = recordCount;
+        for (MetricNode node : nodes) {
+            writeRecord(record++, resourceId(node.getResource()), node);
+        }
+        if (newSecond) {
+            int offset = indexEntryOffset(indexCount);
+            buffer.putLong(offset, second);
+            buffer.putInt(offset + 8, recordCount);
+            buffer.putInt(offset + 12, nodes.size());
+            storeFence();
+            buffer.putInt(OFFSET_RECORD_COUNT, record);
+            buffer.putInt(OFFSET_INDEX_COUNT, indexCount + 1);
+        } else {
+            int offset = indexEntryOffset(indexCount - 1);
+            storeFence();
+            buffer.putInt(offset + 12, buffer.getInt(offset + 12) + nodes.size());
+            buffer.putInt(OFFSET_RECORD_COUNT, record);
+        }
+    }
+
+    private void writeRecord(int record, int resourceId, MetricNode node) {
+        int offset = recordEntryOffset(record);
+        buffer.putInt(offset, resourceId);
+        buffer.putInt(offset + 4, node.getClassification());
+        buffer.putLong(offset + 8, node.getPassQps());
+        buffer.putLong(offset + 16, node.getBlockQps());
+        buffer.putLong(offset + 24, node.getSuccessQps());
+        buffer.putLong(offset + 32, node.getExceptionQps());
+        buffer.putLong(offset + 40, node.getRt());
+        buffer.putLong(offset + 48, node.getOccupiedPassQps());
+        buffer.putInt(offset + 56, node.getConcurrency());
+    }
+
+    private int resourceId(String resource) {
+        Integer id = ids.get(resource);
+        if (id != null) {
+            return id;
+        }
+        byte[] bytes = resource.getBytes(UTF_8);
+        int dictBytes = buffer.getInt(OFFSET_DICT_BYTES);
+        int offset = dictOffset + dictBytes;
+        buffer.putInt(offset, bytes.length);
+        ByteBuffer dict = buffer.duplicate();
+        dict.position(offset + 4);
+        dict.put(bytes);
+
+        int newId = ids.size();
+        ids.put(resource, newId);
+        storeFence();
+        buffer.putInt(OFFSET_DICT_BYTES, dictBytes + 4 + bytes.length);
+        buffer.putInt(OFFSET_DICT_COUNT, newId + 1);
+        return newId;
+    }
+
+    /**
+     * Flush the modified content to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    private static void storeFence() {
+        if (UNSAFE != null) {
+            UNSAFE.storeFence();
+        } else {
+            fence = 0;
+        }
+    }
+
+    private static void loadFence() {
+        if (UNSAFE != null) {
+            UNSAFE.loadFence();
+        } else {
+            // The volatile read acts as the fence.
+            int ignored = fence;
+        }
+    }
+
+    private static Unsafe loadUnsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe)field.get(null);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private int indexEntryOffset(int index) {
+        return HEADER_SIZE + index * INDEX_ENTRY_SIZE;
+    }
+
+    private int recordEntryOffset(int record) {
+        return recordOffset + record * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+
+/**
+ * <p>Searches the metrics written by {@link BinaryMetricWriter}. The metric files are mapped into memory and
+ * kept until being removed, the records of a given second are located by binary search on the time index,
+ * and the resource is matched by its dictionary id, so no string parsing is needed.</p>
+ *
+ * <p>Like {@link MetricSearcher}, queries share the mapped files read-only and never block each other
+ * or the writer.</p>
+ */
+public class BinaryMetricSearcher extends MetricSearcher {
+
+    /**
+     * Avoid OOM in any cases.
+     */
+    private static final int MAX_LINES_RETURN = 100000;
+
+    private final String baseDir;
+    private final String baseFileName;
+
+    /**
+     * Mapped metric files, keyed by file name, shared read-only by all the queries.
+     */
+    private final ConcurrentMap<String, BinaryMetricFile> mappedFiles
+        = new ConcurrentHashMap<String, BinaryMetricFile>();
+
+    /**
+     * @param baseDir      metric文件所在目录
+     * @param baseFileName metric文件名的关键字，比如 alihot-metrics.bin
+     */
+    public BinaryMetricSearcher(String baseDir, String baseFileName) {
+        super(baseDir, baseFileName);
+        this.baseDir = baseDir.endsWith(File.separator) ? baseDir : baseDir + File.separator;
+        this.baseFileName = baseFileName;
+    }
+
+    @Override
+    public List<MetricNode> find(long beginTimeMs, int recommendLines) throws Exception {
+        List<BinaryMetricFile> files = listMappedFiles();
+        long beginSecond = beginTimeMs / 1000;
+        List<MetricNode> list = null;
+        long lastSecond = -1;
+        for (BinaryMetricFile file : files) {
+            int indexCount = file.indexCount();
+            int index = file.findIndex(beginSecond);
+            if (index >= indexCount) {
+                continue;
+            }
+            if (list == null) {
+                list = new ArrayList<MetricNode>(recommendLines);
+            }
+            for (; index < indexCount; index++) {
+                long second = file.secondAt(index);
+                // Metrics of the same second are never split.
+                if (list.size() >= recommendLines && second != lastSecond) {
+                    return list;
+                }
+                readSecond(file, index, -1, list);
+                lastSecond = second;
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public List<MetricNode> findByTimeAndResource(long beginTimeMs, long endTimeMs, String identity)
+        throws Exception {
+        List<BinaryMetricFile> files = listMappedFiles();
+        long beginSecond = beginTimeMs / 1000;
+        long endSecond = endTimeMs / 1000;
+        List<MetricNode> list = null;
+        for (BinaryMetricFile file : files) {
+            int indexCount = file.indexCount();
+            int index = file.findIndex(beginSecond);
+            if (index >= indexCount) {
+                continue;
+            }
+            if (list == null) {
+                list = new ArrayList<MetricNode>(1024);
+            }
+            int resourceId = -1;
+            if (identity != null) {
+                resourceId = file.resolveResourceId(identity);
+                if (resourceId < 0) {
+                    // The resource has no metrics in this file.
+                    if (file.secondAt(indexCount - 1) > endSecond) {
+                        return list;
+                    }
+                    continue;
+                }
+            }
+            for (; index < indexCount; index++) {
+                if (file.secondAt(index) > endSecond || list.size() >= MAX_LINES_RETURN) {
+                    return list;
+                }
+                readSecond(file, index, resourceId, list);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Read the records of one second.
+     *
+     * @param resourceId the id of the resource to read, or -1 to read all
+     */
+    private void readSecond(BinaryMetricFile file, int index, int resourceId, List<MetricNode> list) {
+        long timestamp = file.secondAt(index) * 1000;
+        int first = file.firstRecordAt(index);
+        int end = first + file.recordCountAt(index);
+        for (int record = first; record < end; record++) {
+            if (resourceId < 0 || file.resourceIdAt(record) == resourceId) {
+                list.add(file.readRecord(record, timestamp));
+            }
+        }
+    }
+
+    /**
+     * List the mapped metric files in order. New files will be mapped, and files that have been removed are
+     * dropped from the cache, but their mappings are held until the buffers are garbage collected, as Java 8
+     * has no supported way to unmap a buffer (and queries in progress may still read them).
+     */
+    private List<BinaryMetricFile> listMappedFiles() throws Exception {
+        List<String> fileNames = MetricWriter.listMetricFiles(baseDir, baseFileName);
+        List<BinaryMetricFile> files = new ArrayList<BinaryMetricFile>(fileNames.size());
+        for (String fileName : fileNames) {
+            BinaryMetricFile file = mappedFiles.get(fileName);
+            if (file == null) {
+                file = BinaryMetricFile.openForRead(fileName);
+                if (file == null) {
+                    continue;
+                }
+                BinaryMetricFile existing = mappedFiles.putIfAbsent(fileName, file);
+                if (existing != null) {
+                    file = existing;
+                }
+            }
+            files.add(file);
+        }
+        if (mappedFiles.size() > files.size()) {
+            mappedFiles.keySet().retainAll(new HashSet<String>(fileNames));
+        }
+        return files;
+    }
+
+    /**
+     * Export a binary metric file in the text format of {@link MetricWriter}.
+     *
+     * @param binaryFileName name of the binary metric file
+     * @param out            the output stream, which won't be closed
+     * @throws Exception if failed to read the file or write the output
+     */
+    public static void exportAsText(String binaryFileName, OutputStream out) throws Exception {
+        BinaryMetricFile file = BinaryMetricFile.openForRead(binaryFileName);
+        if (file == null) {
+            throw new IllegalArgumentException("Not a valid binary metric file: " + binaryFileName);
+        }
+        Charset charset = Charset.forName(SentinelConfig.charset());
+        BufferedOutputStream bufferedOut = new BufferedOutputStream(out);
+        int indexCount = file.indexCount();
+        for (int index = 0; index < indexCount; index++) {
+            long timestamp = file.secondAt(index) * 1000;
+            int first = file.firstRecordAt(index);
+            int end = first + file.recordCountAt(index);
+            for (int record = first; record < end; record++) {
+                bufferedOut.write(file.readRecord(record, timestamp).toFatString().getBytes(charset));
+            }
+        }
+        bufferedOut.flush();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.LogBase;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.PidUtil;
+
+/**
+ * <p>Writes {@link MetricNode} to disk in the binary format of {@link BinaryMetricFile}, which is enabled by
+ * {@code csp.sentinel.metric.log.format=binary}. Compared to the text format, no string formatting is needed
+ * when writing, and no string parsing is needed when searching (see {@link BinaryMetricSearcher}).</p>
+ *
+ * <p>The naming, rolling and retention of files are the same as {@link MetricWriter}, but the file name is like
+ * {@code ${appName}-metrics.bin.pid${pid}.yyyy-MM-dd.[number]} and no separate index file is needed.
+ * The binary files could be exported as text via {@link BinaryMetricSearcher#exportAsText}.</p>
+ *
+ * <p>The removal of the current file (e.g. by a log cleaner) is checked every
+ * {@link #FILE_CHECK_INTERVAL_SEC} seconds rather than on every write, after which a new file is created.</p>
+ */
+public class BinaryMetricWriter implements MetricLogWriter {
+
+    public static final String BINARY_METRIC_FILE = "metrics.bin";
+
+    static final long FILE_CHECK_INTERVAL_SEC = 10;
+
+    private final String baseDir;
+    private final long singleFileSize;
+    private final int totalFileCount;
+    private final int pid = PidUtil.getPid();
+
+    private String baseFileName;
+    private BinaryMetricFile curFile;
+    private long curDay = -1;
+    private long lastFileCheckSecond = -1;
+
+    private long lastSecond = -1;
+
+    public BinaryMetricWriter(long singleFileSize, int totalFileCount) {
+        this(MetricWriter.METRIC_BASE_DIR, singleFileSize, totalFileCount);
+    }
+
+    BinaryMetricWriter(String baseDir, long singleFileSize, int totalFileCount) {
+        if (singleFileSize <= 0 || totalFileCount <= 0) {
+            throw new IllegalArgumentException();
+        }
+        RecordLog.info("[BinaryMetricWriter] Creating new BinaryMetricWriter, singleFileSize={}, totalFileCount={}",
+            singleFileSize, totalFileCount);
+        this.baseDir = baseDir.endsWith(File.separator) ? baseDir : baseDir + File.separator;
+        File dir = new File(this.baseDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        this.singleFileSize = singleFileSize;
+        this.totalFileCount = totalFileCount;
+    }
+
+    @Override
+    public synchronized void write(long time, List<MetricNode> nodes) throws Exception {
+        if (nodes == null || nodes.isEmpty()) {
+            return;
+        }
+        long second = time / 1000;
+        if (second < lastSecond) {
+            // Ignore the metrics of earlier time, which should not happen.
+            return;
+        }
+        for (MetricNode node : nodes) {
+            node.setTimestamp(time);
+        }
+        if (baseFileName == null) {
+            String appName = SentinelConfig.getAppName();
+            baseFileName = formBinaryMetricFileName(appName, pid);
+        }
+        long day = dayOf(time);
+        if (curFile == null || day != curDay || isCurFileRemoved(second)) {
+            closeAndNewFile(time);
+            curDay = day;
+            lastFileCheckSecond = second;
+        }
+        // A batch larger than the room of the current file is split into the following files.
+        int from = 0;
+        while (from < nodes.size()) {
+            List<MetricNode> rest = nodes.subList(from, nodes.size());
+            int count = curFile.roomFor(second, rest);
+            if (count > 0) {
+                curFile.append(second, rest.subList(0, count));
+                from += count;
+            } else if (curFile.recordCount() == 0) {
+                // Even an empty file cannot hold it, e.g. the resource name is too long for the dictionary.
+                RecordLog.warn("[BinaryMetricWriter] Ignoring the metric too large for a metric file: {}",
+                    rest.get(0).getResource());
+                from++;
+            } else {
+                closeAndNewFile(time);
+            }
+        }
+        lastSecond = second;
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (curFile != null) {
+            curFile.force();
+            curFile = null;
+        }
+    }
+
+    private boolean isCurFileRemoved(long second) {
+        if (second - lastFileCheckSecond < FILE_CHECK_INTERVAL_SEC) {
+            return false;
+        }
+        lastFileCheckSecond = second;
+        return !new File(curFile.getFileName()).exists();
+    }
+
+    private void closeAndNewFile(long time) throws Exception {
+        removeMoreFiles();
+        if (curFile != null) {
+            curFile.force();
+        }
+        String fileName = nextFileNameOfDay(time);
+        curFile = BinaryMetricFile.create(fileName, singleFileSize);
+        RecordLog.info("[BinaryMetricWriter] New metric file created: {}", fileName);
+    }
+
+    private String nextFileNameOfDay(long time) throws Exception {
+        String dateStr = new SimpleDateFormat("yyyy-MM-dd").format(new Date(time));
+        String fileNameModel = baseFileName + "." + dateStr;
+        int n = -1;
+        for (String fileName : MetricWriter.listMetricFiles(baseDir, baseFileName)) {
+            String name = new File(fileName).getName();
+            if (!name.startsWith(fileNameModel)) {
+                continue;
+            }
+            String suffix = name.substring(fileNameModel.length());
+            n = Math.max(n, suffix.isEmpty() ? 0 : Integer.parseInt(suffix.substring(1)));
+        }
+        return n < 0 ? baseDir + fileNameModel : baseDir + fileNameModel + "." + (n + 1);
+    }
+
+    private void removeMoreFiles() throws Exception {
+        List<String> list = MetricWriter.listMetricFiles(baseDir, baseFileName);
+        for (int i = 0; i < list.size() - totalFileCount + 1; i++) {
+            String fileName = list.get(i);
+            new File(fileName).delete();
+            RecordLog.info("[BinaryMetricWriter] Removing metric file: {}", fileName);
+        }
+    }
+
+    private static long dayOf(long time) {
+        return (time + TimeZone.getDefault().getOffset(time)) / 86400000L;
+    }
+
+    /**
+     * Form binary metric file name use the specific appName and pid. Note that only
+     * form the file name, not include path.
+     *
+     * @param appName
+     * @param pid
+     * @return binary metric file name.
+     */
+    public static String formBinaryMetricFileName(String appName, int pid) {
+        if (appName == null) {
+            appName = "";
+        }
+        // dot is special char that should be replaced.
+        final String dot = ".";
+        final String separator = "-";
+        if (appName.contains(dot)) {
+            appName = appName.replace(dot, separator);
+        }
+        String name = appName + separator + BINARY_METRIC_FILE;
+        if (LogBase.isLogNameUsePid()) {
+            name += ".pid" + pid;
+        }
+        return name;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Codec of the frames pushed by {@link MetricPushClient}. Every frame is prefixed by the length of its payload
+ * (a 4-byte int), and the first byte of the payload is the frame type:</p>
+ *
+ * <ul>
+ * <li>{@link #TYPE_HELLO}: the first frame of a connection, which identifies the machine:
+ * {@code version(2) app(UTF) appType(4) ip(UTF) port(4) token(UTF)};</li>
+ * <li>{@link #TYPE_METRICS}: a batch of seconds: {@code secondCount(4)}, then for each second
+ * {@code timestamp(8) nodeCount(4)} followed by the nodes: {@code resource(UTF) classification(4) pass(8)
+ * block(8) success(8) exception(8) rt(8) occupiedPass(8) concurrency(4)}. A frame without seconds is sent as
+ * the heartbeat of an idle connection.</li>
+ * </ul>
+ */
+public final class MetricFrameCodec {
+
+    public static final byte TYPE_HELLO = 1;
+    public static final byte TYPE_METRICS = 2;
+
+    public static final short VERSION = 1;
+
+    /**
+     * Frames larger than this are considered as corrupted.
+     */
+    public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Encode the hello frame (including the length prefix).
+     */
+    public static byte[] encodeHello(String app, int appType, String ip, int port, String token) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeByte(TYPE_HELLO);
+            out.writeShort(VERSION);
+            out.writeUTF(app == null ? "" : app);
+            out.writeInt(appType);
+            out.writeUTF(ip == null ? "" : ip);
+            out.writeInt(port);
+            out.writeUTF(token == null ? "" : token);
+            return withLength(bytes.toByteArray());
+        } catch (IOException e) {
+            // Should not happen for byte arrays.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encode the metrics of one second as a segment of {@link #TYPE_METRICS} frames.
+     */
+    public static byte[] encodeSecond(long time, List<MetricNode> nodes) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + nodes.size() * 96);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(time);
+            out.writeInt(nodes.size());
+            for (MetricNode node : nodes) {
+                out.writeUTF(node.getResource());
+                out.writeInt(node.getClassification());
+                out.writeLong(node.getPassQps());
+                out.writeLong(node.getBlockQps());
+                out.writeLong(node.getSuccessQps());
+                out.writeLong(node.getExceptionQps());
+                out.writeLong(node.getRt());
+                out.writeLong(node.getOccupiedPassQps());
+                out.writeInt(node.getConcurrency());
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Write a {@link #TYPE_METRICS} frame (including the length prefix) made of the encoded seconds.
+     *
+     * @param out     the output stream
+     * @param seconds segments encoded by {@link #encodeSecond(long, List)}
+     * @throws IOException if failed to write the output
+     */
+    public static void writeMetricsFrame(DataOutputStream out, List<byte[]> seconds) throws IOException {
+        int length = 1 + 4;
+        for (byte[] second : seconds) {
+            length += second.length;
+        }
+        out.writeInt(length);
+        out.writeByte(TYPE_METRICS);
+        out.writeInt(seconds.size());
+        for (byte[] second : seconds) {
+            out.write(second);
+        }
+    }
+
+    /**
+     * Read the payload of next frame.
+     *
+     * @param in the input stream
+     * @return the payload, or null if the stream has ended
+     * @throws IOException if failed to read, or the frame is corrupted
+     */
+    public static byte[] readFrame(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length <= 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid metric frame length: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    public static Hello decodeHello(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (in.readByte() != TYPE_HELLO) {
+            throw new IOException("Not a hello frame");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported metric frame version: " + version);
+        }
+        return new Hello(in.readUTF(), in.readInt(), in.readUTF(), in.readInt(), in.readUTF());
+    }
+
+    /**
+     * Decode the metric nodes of a {@link #TYPE_METRICS} frame, with the timestamps set.
+     */
+    public static List<MetricNode> decodeMetrics(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (in.readByte() != TYPE_METRICS) {
+            throw new IOException("Not a metrics frame");
+        }
+        int secondCount = in.readInt();
+        List<MetricNode> nodes = new ArrayList<MetricNode>();
+        for (int i = 0; i < secondCount; i++) {
+            long time = in.readLong();
+            int nodeCount = in.readInt();
+            for (int j = 0; j < nodeCount; j++) {
+                MetricNode node = new MetricNode();
+                node.setTimestamp(time);
+                node.setResource(in.readUTF());
+                node.setClassification(in.readInt());
+                node.setPassQps(in.readLong());
+                node.setBlockQps(in.readLong());
+                node.setSuccessQps(in.readLong());
+                node.setExceptionQps(in.readLong());
+                node.setRt(in.readLong());
+                node.setOccupiedPassQps(in.readLong());
+                node.setConcurrency(in.readInt());
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    public static byte frameType(byte[] payload) {
+        return payload[0];
+    }
+
+    private static byte[] withLength(byte[] frame) {
+        int length = frame.length - 4;
+        frame[0] = (byte)(length >>> 24);
+        frame[1] = (byte)(length >>> 16);
+        frame[2] = (byte)(length >>> 8);
+        frame[3] = (byte)length;
+        return frame;
+    }
+
+    /**
+     * Identity of the pushing machine.
+     */
+    public static final class Hello {
+        private final String app;
+        private final int appType;
+        private final String ip;
+        private final int port;
+        private final String token;
+
+        public Hello(String app, int appType, String ip, int port, String token) {
+            this.app = app;
+            this.appType = appType;
+            this.ip = ip;
+            this.port = port;
+            this.token = token;
+        }
+
+        public String getApp() {
+            return app;
+        }
+
+        public int getAppType() {
+            return appType;
+        }
+
+        public String getIp() {
+            return ip;
+        }
+
+        /**
+         * @return the port of command center, or -1 if unknown
+         */
+        public int getPort() {
+            return port;
+        }
+
+        /**
+         * @return the token authenticating the machine, or empty if not configured
+         */
+        public String getToken() {
+            return token;
+        }
+
+        @Override
+        public String toString() {
+            return "Hello{" +
+                "app='" + app + '\'' +
+                ", appType=" + appType +
+                ", ip='" + ip + '\'' +
+                ", port=" + port +
+                '}';
+        }
+    }
+
+    private MetricFrameCodec() {}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>The in-memory copy of a metric index file ({@code second -> offset}, see {@link MetricWriter}), which is
+ * shared by all the queries of {@link MetricSearcher}.</p>
+ *
+ * <p>Queries only read immutable {@link Snapshot}s. As the index file is append-only, a refresh only reads
+ * the new entries and appends them after the entries visible to existing snapshots, so queries are never blocked
+ * while the index file is unchanged. If the index file has grown while another refresh is in progress, the query
+ * waits for that refresh and reuses its result when it covers the current length of the index file, so the
+ * snapshot returned never misses the entries written before the query starts.</p>
+ */
+final class MetricIndex {
+
+    private static final int ENTRY_SIZE = 16;
+
+    private final String indexFileName;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot = new Snapshot(new long[16], new long[16], 0, 0);
+
+    MetricIndex(String indexFileName) {
+        this.indexFileName = indexFileName;
+    }
+
+    /**
+     * Get the latest snapshot of the index, loading the new entries from the index file if necessary.
+     *
+     * @return the snapshot containing all the entries written to the index file before this call
+     * @throws IOException if failed to read the index file
+     */
+    Snapshot snapshot() throws IOException {
+        Snapshot current = snapshot;
+        if (indexLength() == current.indexBytes) {
+            return current;
+        }
+        refreshLock.lock();
+        try {
+            current = snapshot;
+            // The refresh that we have waited for may have loaded the new entries.
+            long length = indexLength();
+            if (length == current.indexBytes) {
+                return current;
+            }
+            if (length < current.indexBytes) {
+                // The index file has been recreated.
+                current = new Snapshot(new long[16], new long[16], 0, 0);
+            }
+            if (length > current.indexBytes) {
+                current = load(current, length);
+            }
+            snapshot = current;
+            return current;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private long indexLength() {
+        long length = new File(indexFileName).length();
+        return length - length % ENTRY_SIZE;
+    }
+
+    private Snapshot load(Snapshot current, long length) throws IOException {
+        int newCount = current.count + (int)((length - current.indexBytes) / ENTRY_SIZE);
+        long[] seconds = current.seconds;
+        long[] offsets = current.offsets;
+        if (newCount > seconds.length) {
+            int capacity = Math.max(newCount, seconds.length * 2);
+            long[] newSeconds = new long[capacity];
+            long[] newOffsets = new long[capacity];
+            System.arraycopy(seconds, 0, newSeconds, 0, current.count);
+            System.arraycopy(offsets, 0, newOffsets, 0, current.count);
+            seconds = newSeconds;
+            offsets = newOffsets;
+        }
+        FileInputStream in = new FileInputStream(indexFileName);
+        try {
+            in.getChannel().position(current.indexBytes);
+            DataInputStream indexIn = new DataInputStream(new BufferedInputStream(in));
+            // Entries visible to existing snapshots are never modified.
+            for (int i = current.count; i < newCount; i++) {
+                seconds[i] = indexIn.readLong();
+                offsets[i] = indexIn.readLong();
+            }
+        } finally {
+            in.close();
+        }
+        return new Snapshot(seconds, offsets, newCount, length);
+    }
+
+    static final class Snapshot {
+        private final long[] seconds;
+        private final long[] offsets;
+        private final int count;
+        private final long indexBytes;
+
+        private Snapshot(long[] seconds, long[] offsets, int count, long indexBytes) {
+            this.seconds = seconds;
+            this.offsets = offsets;
+            this.count = count;
+            this.indexBytes = indexBytes;
+        }
+
+        /**
+         * Find the offset in metric file of the first second which is not less than provided second.
+         *
+         * @param second the second to search
+         * @return the offset, or -1 if absent
+         */
+        long findOffset(long second) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (seconds[mid] < second) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low < count ? offsets[low] : -1;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.List;
+
+/**
+ * Writes {@link MetricNode} to the metric log files, e.g. in the text format ({@link MetricWriter})
+ * or the binary format ({@link BinaryMetricWriter}).
+ */
+public interface MetricLogWriter {
+
+    /**
+     * Write the metrics of provided time, and the timestamps of all the nodes are set to the time.
+     *
+     * @param time  the time of the metrics
+     * @param nodes metrics to write
+     * @throws Exception if failed to write
+     */
+    void write(long time, List<MetricNode> nodes) throws Exception;
+
+    /**
+     * Close the current file.
+     *
+     * @throws Exception if failed to close
+     */
+    void close() throws Exception;
+}
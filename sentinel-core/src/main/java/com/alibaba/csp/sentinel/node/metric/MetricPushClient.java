@@ -0,0 +1,402 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.LogBase;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.HostNameUtil;
+import com.alibaba.csp.sentinel.util.PidUtil;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>Pushes the aggregated metrics of every second to a collector (e.g. the dashboard) over a persistent
+ * connection, so the collector doesn't need to pull the metric logs over HTTP. It's enabled by
+ * {@code csp.sentinel.metric.push.server=host:port}, and the metric logs are still written as before.</p>
+ *
+ * <p>{@link #push(long, List)} never blocks the caller: the encoded second is put into a bounded queue, which is
+ * drained by the sender thread in batches (see {@link MetricFrameCodec} for the frames). Writes to the socket are
+ * blocking, so a slow collector holds back the sender, and the seconds that don't fit in the queue are kept in a
+ * bounded {@link MetricSpool} on disk, which is also used when the collector is unreachable. The spooled seconds
+ * are pushed first after (re)connecting, so the seconds may arrive out of order. Seconds are dropped only when
+ * the spool is full.</p>
+ *
+ * <p>A write that doesn't complete in {@code 10s} closes the connection (the collector is then treated as
+ * unreachable), and an empty frame is sent as the heartbeat when there is nothing to push for a while, so the
+ * collector can time out the dead connections. The machine is authenticated by
+ * {@code csp.sentinel.metric.push.token}.</p>
+ */
+public class MetricPushClient {
+
+    public static final String METRIC_SPOOL_FILE = "metrics.spool";
+
+    private static final int MAX_BATCH_BYTES = 256 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+    private static final long WRITE_TIMEOUT_MS = 10000;
+    private static final long HEARTBEAT_INTERVAL_MS = 10000;
+    private static final long MIN_RETRY_INTERVAL_MS = 1000;
+    private static final long MAX_RETRY_INTERVAL_MS = 30000;
+
+    private final String host;
+    private final int port;
+    private final BlockingQueue<byte[]> queue;
+    private final MetricSpool spool;
+    private final String token;
+
+    private final AtomicLong droppedSeconds = new AtomicLong();
+
+    /**
+     * The port that the command center actually listens on, set by the transport module once started.
+     */
+    private static volatile int runtimeCommandPort = -1;
+
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    private final ExecutorService senderService = Executors.newSingleThreadExecutor(
+        new NamedThreadFactory("sentinel-metric-push-task", true));
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    private final ScheduledExecutorService writeWatchdogService = Executors.newSingleThreadScheduledExecutor(
+        new NamedThreadFactory("sentinel-metric-push-watchdog", true));
+
+    private volatile boolean stopped = false;
+
+    private volatile Socket socket;
+    private DataOutputStream out;
+    private long retryIntervalMs = MIN_RETRY_INTERVAL_MS;
+    private long lastWriteTime;
+    /**
+     * Start time of the write in progress, or 0 if not writing.
+     */
+    private volatile long writeStartTime;
+
+    public MetricPushClient(String host, int port, int queueSize, String spoolFileName, long spoolSize)
+        throws IOException {
+        this(host, port, queueSize, spoolFileName, spoolSize, SentinelConfig.metricPushToken());
+    }
+
+    public MetricPushClient(String host, int port, int queueSize, String spoolFileName, long spoolSize,
+                            String token) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.queue = new ArrayBlockingQueue<byte[]>(queueSize);
+        this.spool = new MetricSpool(spoolFileName, spoolSize);
+        this.token = token;
+    }
+
+    /**
+     * Set the port that the command center actually listens on, which is reported to the metric collector
+     * instead of the configured {@code csp.sentinel.api.port}.
+     *
+     * @param port the runtime port of the command center
+     */
+    public static void setRuntimeCommandPort(int port) {
+        runtimeCommandPort = port;
+    }
+
+    /**
+     * Create the client from {@link SentinelConfig}, and start it.
+     *
+     * @return the started client, or null if metric pushing is not enabled or failed to start
+     */
+    public static MetricPushClient startFromConfig() {
+        String server = SentinelConfig.metricPushServer();
+        if (StringUtil.isBlank(server)) {
+            return null;
+        }
+        server = server.trim();
+        int index = server.lastIndexOf(':');
+        try {
+            String host = server.substring(0, index);
+            int port = Integer.parseInt(server.substring(index + 1));
+            String spoolFileName = MetricWriter.METRIC_BASE_DIR
+                + formSpoolFileName(SentinelConfig.getAppName(), PidUtil.getPid());
+            MetricPushClient client = new MetricPushClient(host, port, SentinelConfig.metricPushQueueSize(),
+                spoolFileName, SentinelConfig.metricPushSpoolSize());
+            client.start();
+            RecordLog.info("[MetricPushClient] Pushing metrics to <{}>, spool file: {}", server, spoolFileName);
+            return client;
+        } catch (Exception ex) {
+            RecordLog.warn("[MetricPushClient] Failed to start metric pushing to <" + server + ">", ex);
+            return null;
+        }
+    }
+
+    public void start() {
+        writeWatchdogService.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                closeStuckConnection();
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+        senderService.submit(new Runnable() {
+            @Override
+            public void run() {
+                while (!stopped) {
+                    try {
+                        sendOnce();
+                    } catch (InterruptedException e) {
+                        break;
+                    } catch (Throwable e) {
+                        RecordLog.warn("[MetricPushClient] Unexpected error when pushing metrics", e);
+                    }
+                }
+            }
+        });
+    }
+
+    public void stop() {
+        stopped = true;
+        writeWatchdogService.shutdownNow();
+        senderService.shutdownNow();
+        try {
+            senderService.awaitTermination(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeConnection();
+        spillQueue();
+        spool.close();
+    }
+
+    /**
+     * Push the metrics of one second, without blocking.
+     *
+     * @param time  timestamp of the second
+     * @param nodes metrics of the second
+     */
+    public void push(long time, List<MetricNode> nodes) {
+        if (nodes == null || nodes.isEmpty() || stopped) {
+            return;
+        }
+        byte[] segment = MetricFrameCodec.encodeSecond(time, nodes);
+        if (!queue.offer(segment)) {
+            spill(segment);
+        }
+    }
+
+    /**
+     * @return count of the seconds dropped because the spool was full
+     */
+    public long droppedSeconds() {
+        return droppedSeconds.get();
+    }
+
+    long spoolSize() {
+        return spool.size();
+    }
+
+    private void sendOnce() throws InterruptedException {
+        if (out == null && !connect()) {
+            // Keep the memory bounded and the seconds safe while the collector is unreachable.
+            spillQueue();
+            Thread.sleep(retryIntervalMs);
+            retryIntervalMs = Math.min(retryIntervalMs * 2, MAX_RETRY_INTERVAL_MS);
+            return;
+        }
+        List<byte[]> batch = nextBatch();
+        if (batch.isEmpty() && System.currentTimeMillis() - lastWriteTime < HEARTBEAT_INTERVAL_MS) {
+            return;
+        }
+        try {
+            write(batch);
+        } catch (IOException e) {
+            RecordLog.warn("[MetricPushClient] Failed to push metrics to <{}:{}>: {}", host, port, e.toString());
+            closeConnection();
+            for (byte[] segment : batch) {
+                spill(segment);
+            }
+        }
+    }
+
+    private void write(List<byte[]> batch) throws IOException {
+        writeStartTime = System.currentTimeMillis();
+        try {
+            MetricFrameCodec.writeMetricsFrame(out, batch);
+            out.flush();
+        } finally {
+            writeStartTime = 0;
+        }
+        lastWriteTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Blocking writes of socket can't time out, so the connection is closed to fail the stuck write.
+     */
+    private void closeStuckConnection() {
+        long startTime = writeStartTime;
+        Socket current = socket;
+        if (startTime > 0 && current != null && System.currentTimeMillis() - startTime > WRITE_TIMEOUT_MS) {
+            RecordLog.warn("[MetricPushClient] Writing to metric collector <{}:{}> timed out, closing connection",
+                host, port);
+            try {
+                current.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * Take the seconds of next frame, the spooled ones first.
+     */
+    private List<byte[]> nextBatch() throws InterruptedException {
+        List<byte[]> batch = new ArrayList<byte[]>();
+        int bytes = 0;
+        try {
+            byte[] segment;
+            while (bytes < MAX_BATCH_BYTES && (segment = spool.poll()) != null) {
+                batch.add(segment);
+                bytes += segment.length;
+            }
+        } catch (IOException e) {
+            RecordLog.warn("[MetricPushClient] Failed to read spool file: " + spool.getFileName(), e);
+        }
+        if (batch.isEmpty()) {
+            byte[] segment = queue.poll(1, TimeUnit.SECONDS);
+            if (segment == null) {
+                return batch;
+            }
+            batch.add(segment);
+            bytes += segment.length;
+        }
+        byte[] segment;
+        while (bytes < MAX_BATCH_BYTES && (segment = queue.poll()) != null) {
+            batch.add(segment);
+            bytes += segment.length;
+        }
+        return batch;
+    }
+
+    private boolean connect() {
+        Socket newSocket = new Socket();
+        try {
+            newSocket.setKeepAlive(true);
+            newSocket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+            DataOutputStream newOut = new DataOutputStream(new BufferedOutputStream(newSocket.getOutputStream(),
+                64 * 1024));
+            socket = newSocket;
+            out = newOut;
+            writeStartTime = System.currentTimeMillis();
+            // Encoded on each connection, as the command center may start (and get its port) later.
+            byte[] hello = MetricFrameCodec.encodeHello(SentinelConfig.getAppName(), SentinelConfig.getAppType(),
+                resolveIp(), resolveCommandPort(), token);
+            try {
+                newOut.write(hello);
+                newOut.flush();
+            } finally {
+                writeStartTime = 0;
+            }
+            lastWriteTime = System.currentTimeMillis();
+            retryIntervalMs = MIN_RETRY_INTERVAL_MS;
+            RecordLog.info("[MetricPushClient] Connected to metric collector <{}:{}>", host, port);
+            return true;
+        } catch (IOException e) {
+            RecordLog.warn("[MetricPushClient] Failed to connect to metric collector <{}:{}>: {}", host, port,
+                e.toString());
+            out = null;
+            socket = null;
+            try {
+                newSocket.close();
+            } catch (IOException ignore) {
+            }
+            return false;
+        }
+    }
+
+    private void closeConnection() {
+        out = null;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+            socket = null;
+        }
+    }
+
+    private void spillQueue() {
+        byte[] segment;
+        while ((segment = queue.poll()) != null) {
+            spill(segment);
+        }
+    }
+
+    private void spill(byte[] segment) {
+        boolean spooled = false;
+        try {
+            spooled = spool.append(segment);
+        } catch (IOException e) {
+            RecordLog.warn("[MetricPushClient] Failed to write spool file: " + spool.getFileName(), e);
+        }
+        if (!spooled && droppedSeconds.getAndIncrement() % 60 == 0) {
+            RecordLog.warn("[MetricPushClient] Metric spool is full, {} seconds of metrics dropped in total",
+                droppedSeconds.get());
+        }
+    }
+
+    private static String resolveIp() {
+        String ip = SentinelConfig.getConfig("csp.sentinel.heartbeat.client.ip", true);
+        return StringUtil.isBlank(ip) ? HostNameUtil.getIp() : ip;
+    }
+
+    private static int resolveCommandPort() {
+        // Same as TransportConfig.getPort(): the runtime port first, as the configured one may be taken.
+        int runtimePort = runtimeCommandPort;
+        if (runtimePort > 0) {
+            return runtimePort;
+        }
+        String port = SentinelConfig.getConfig("csp.sentinel.api.port", true);
+        try {
+            return StringUtil.isBlank(port) ? -1 : Integer.parseInt(port.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Form spool file name use the specific appName and pid. Note that only
+     * form the file name, not include path.
+     *
+     * @param appName
+     * @param pid
+     * @return spool file name.
+     */
+    public static String formSpoolFileName(String appName, int pid) {
+        if (appName == null) {
+            appName = "";
+        }
+        // dot is special char that should be replaced.
+        String name = appName.replace(".", "-") + "-" + METRIC_SPOOL_FILE;
+        if (LogBase.isLogNameUsePid()) {
+            name += ".pid" + pid;
+        }
+        return name;
+    }
+}
@@ -15,19 +15,20 @@
  */
 package com.alibaba.csp.sentinel.node.metric;
 
-import java.io.DataInputStream;
-import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.nio.charset.Charset;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 
 /**
  * 从指定目录下找出所有的metric文件，并按照指定时间戳进行检索，参考{@link MetricSearcher#find(long, int)}。
- * 会借助索引以提高检索效率，参考{@link MetricWriter}；还会在内部缓存上一次检索的文件指针，以便下一次顺序检索时
- * 减少读盘次数。
+ * 会借助索引以提高检索效率，参考{@link MetricWriter}；索引文件会被缓存在内存中（参考{@link MetricIndex}），
+ * 并由所有检索只读共享。每次检索使用自己的游标，所以不同时间范围或资源的检索可以并行进行，也不会阻塞写入。
  *
  * @author leyou
  */
@@ -39,7 +40,10 @@ public class MetricSearcher {
     private String baseDir;
     private String baseFileName;
 
-    private Position lastPosition = new Position();
+    /**
+     * In-memory indexes of the metric files, keyed by index file name.
+     */
+    private final ConcurrentMap<String, MetricIndex> indexes = new ConcurrentHashMap<>();
 
     /**
      * @param baseDir      metric文件所在目录
@@ -81,28 +85,13 @@ public class MetricSearcher {
      * @return
      * @throws Exception
      */
-    public synchronized List<MetricNode> find(long beginTimeMs, int recommendLines) throws Exception {
+    public List<MetricNode> find(long beginTimeMs, int recommendLines) throws Exception {
         List<String> fileNames = MetricWriter.listMetricFiles(baseDir, baseFileName);
-        int i = 0;
-        long offsetInIndex = 0;
-        if (validPosition(beginTimeMs)) {
-            i = fileNames.indexOf(lastPosition.metricFileName);
-            if (i == -1) {
-                i = 0;
-            } else {
-                offsetInIndex = lastPosition.offsetInIndex;
-            }
+        Cursor cursor = locate(fileNames, beginTimeMs);
+        if (cursor == null) {
+            return null;
         }
-        for (; i < fileNames.size(); i++) {
-            String fileName = fileNames.get(i);
-            long offset = findOffset(beginTimeMs, fileName,
-                MetricWriter.formIndexFileName(fileName), offsetInIndex);
-            offsetInIndex = 0;
-            if (offset != -1) {
-                return metricsReader.readMetrics(fileNames, i, offset, recommendLines);
-            }
-        }
-        return null;
+        return metricsReader.readMetrics(fileNames, cursor.fileIndex, cursor.offset, recommendLines);
     }
 
     /**
@@ -110,114 +99,63 @@ public class MetricSearcher {
      * When identity is null, all metric between the time intervalMs will be read, otherwise, only the specific
      * identity will be read.
      */
-    public synchronized List<MetricNode> findByTimeAndResource(long beginTimeMs, long endTimeMs, String identity)
+    public List<MetricNode> findByTimeAndResource(long beginTimeMs, long endTimeMs, String identity)
         throws Exception {
         List<String> fileNames = MetricWriter.listMetricFiles(baseDir, baseFileName);
-        //RecordLog.info("pid=" + pid + ", findByTimeAndResource([" + beginTimeMs + ", " + endTimeMs
-        //    + "], " + identity + ")");
-        int i = 0;
-        long offsetInIndex = 0;
-        if (validPosition(beginTimeMs)) {
-            i = fileNames.indexOf(lastPosition.metricFileName);
-            if (i == -1) {
-                i = 0;
-            } else {
-                offsetInIndex = lastPosition.offsetInIndex;
-            }
-        } else {
-            //RecordLog.info("lastPosition is invalidate, will re iterate all files, pid = " + pid);
-        }
-
-        for (; i < fileNames.size(); i++) {
-            String fileName = fileNames.get(i);
-            long offset = findOffset(beginTimeMs, fileName,
-                    MetricWriter.formIndexFileName(fileName), offsetInIndex);
-            offsetInIndex = 0;
-            if (offset != -1) {
-                return metricsReader.readMetricsByEndTime(fileNames, i, offset, beginTimeMs, endTimeMs, identity);
-            }
+        Cursor cursor = locate(fileNames, beginTimeMs);
+        if (cursor == null) {
+            return null;
         }
-        return null;
+        return metricsReader.readMetricsByEndTime(fileNames, cursor.fileIndex, cursor.offset, beginTimeMs,
+            endTimeMs, identity);
     }
 
     /**
-     * 记录上一次读取的index文件位置和数值
+     * 检索的游标，即第一个不早于检索时间的秒在metric文件中的位置。
      */
-    private static final class Position {
-        String metricFileName;
-        String indexFileName;
-        /**
-         * 索引文件内的偏移
-         */
-        long offsetInIndex;
-        /**
-         * 索引文件中offsetInIndex位置上的数字，秒数。
-         */
-        long second;
-    }
+    private static final class Cursor {
+        final int fileIndex;
+        final long offset;
 
-    /**
-     * The position we cached is useful only when {@code beginTimeMs} is >= {@code lastPosition.second}
-     * and the index file exists and the second we cached is same as in the index file.
-     */
-    private boolean validPosition(long beginTimeMs) {
-        if (beginTimeMs / 1000 < lastPosition.second) {
-            return false;
+        Cursor(int fileIndex, long offset) {
+            this.fileIndex = fileIndex;
+            this.offset = offset;
         }
-        if (lastPosition.indexFileName == null) {
-            return false;
-        }
-        // index file dose not exits
-        if (!new File(lastPosition.indexFileName).exists()) {
-            return false;
+    }
+
+    private Cursor locate(List<String> fileNames, long beginTimeMs) throws Exception {
+        evictRemovedIndexes(fileNames);
+        long beginSecond = beginTimeMs / 1000;
+        for (int i = 0; i < fileNames.size(); i++) {
+            long offset = indexOf(fileNames.get(i)).snapshot().findOffset(beginSecond);
+            if (offset != -1) {
+                return new Cursor(i, offset);
+            }
         }
-        FileInputStream in = null;
-        try {
-            in = new FileInputStream(lastPosition.indexFileName);
-            in.getChannel().position(lastPosition.offsetInIndex);
-            DataInputStream indexIn = new DataInputStream(in);
-            // timestamp(second) in the specific position == that we cached
-            return indexIn.readLong() == lastPosition.second;
-        } catch (Exception e) {
-            return false;
-        } finally {
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (Exception ignore) {
-                }
+        return null;
+    }
+
+    private MetricIndex indexOf(String metricFileName) {
+        String indexFileName = MetricWriter.formIndexFileName(metricFileName);
+        MetricIndex index = indexes.get(indexFileName);
+        if (index == null) {
+            MetricIndex newIndex = new MetricIndex(indexFileName);
+            index = indexes.putIfAbsent(indexFileName, newIndex);
+            if (index == null) {
+                index = newIndex;
             }
         }
+        return index;
     }
 
-    private long findOffset(long beginTime, String metricFileName,
-                            String idxFileName, long offsetInIndex) throws Exception {
-        lastPosition.metricFileName = null;
-        lastPosition.indexFileName = null;
-        if (!new File(idxFileName).exists()) {
-            return -1;
+    private void evictRemovedIndexes(List<String> fileNames) {
+        if (indexes.size() <= fileNames.size()) {
+            return;
         }
-        long beginSecond = beginTime / 1000;
-        FileInputStream in = new FileInputStream(idxFileName);
-        in.getChannel().position(offsetInIndex);
-        DataInputStream indexIn = new DataInputStream(in);
-        long offset;
-        try {
-            long second;
-            lastPosition.offsetInIndex = in.getChannel().position();
-            while ((second = indexIn.readLong()) < beginSecond) {
-                offset = indexIn.readLong();
-                lastPosition.offsetInIndex = in.getChannel().position();
-            }
-            offset = indexIn.readLong();
-            lastPosition.metricFileName = metricFileName;
-            lastPosition.indexFileName = idxFileName;
-            lastPosition.second = second;
-            return offset;
-        } catch (EOFException ignore) {
-            return -1;
-        } finally {
-            indexIn.close();
+        Set<String> indexFileNames = new HashSet<>();
+        for (String fileName : fileNames) {
+            indexFileNames.add(MetricWriter.formIndexFileName(fileName));
         }
+        indexes.keySet().retainAll(indexFileNames);
     }
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * <p>A bounded FIFO of encoded seconds on disk, which keeps the metrics that {@link MetricPushClient} could not
+ * push in time (collector unreachable, or the in-memory queue is full).</p>
+ *
+ * <p>The file starts with the read position (8 bytes), followed by the length-prefixed segments. The read
+ * position is persisted on every poll so that the remaining segments could be pushed after restart.
+ * When the spool is drained, the file is truncated. When the spool is full, the consumed head is compacted,
+ * and new segments are rejected if there is still no room.</p>
+ */
+final class MetricSpool {
+
+    private static final int HEADER_SIZE = 8;
+
+    private final String fileName;
+    private final long maxSize;
+
+    private RandomAccessFile file;
+    private long readPos;
+    private long writePos;
+
+    MetricSpool(String fileName, long maxSize) throws IOException {
+        this.fileName = fileName;
+        this.maxSize = Math.max(maxSize, HEADER_SIZE);
+        File parent = new File(fileName).getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        this.file = new RandomAccessFile(fileName, "rw");
+        if (file.length() >= HEADER_SIZE) {
+            readPos = file.readLong();
+            writePos = file.length();
+            if (readPos < HEADER_SIZE || readPos > writePos) {
+                RecordLog.warn("[MetricSpool] Corrupted spool file, reset: {}", fileName);
+                reset();
+            }
+        } else {
+            reset();
+        }
+    }
+
+    /**
+     * Append an encoded second.
+     *
+     * @return false if the spool is full
+     */
+    synchronized boolean append(byte[] segment) throws IOException {
+        if (file == null) {
+            return false;
+        }
+        long required = 4L + segment.length;
+        if (writePos + required > maxSize) {
+            compact();
+            if (writePos + required > maxSize) {
+                return false;
+            }
+        }
+        file.seek(writePos);
+        file.writeInt(segment.length);
+        file.write(segment);
+        writePos += required;
+        return true;
+    }
+
+    /**
+     * Remove and return the oldest encoded second.
+     *
+     * @return the encoded second, or null if the spool is empty
+     */
+    synchronized byte[] poll() throws IOException {
+        if (file == null || readPos >= writePos) {
+            return null;
+        }
+        file.seek(readPos);
+        int length = file.readInt();
+        if (length <= 0 || readPos + 4 + length > writePos) {
+            // Partially written before crash.
+            RecordLog.warn("[MetricSpool] Invalid segment at {} of {}, reset", readPos, fileName);
+            reset();
+            return null;
+        }
+        byte[] segment = new byte[length];
+        file.readFully(segment);
+        readPos += 4 + length;
+        if (readPos == writePos) {
+            reset();
+        } else {
+            file.seek(0);
+            file.writeLong(readPos);
+        }
+        return segment;
+    }
+
+    synchronized boolean isEmpty() {
+        return readPos >= writePos;
+    }
+
+    /**
+     * @return bytes of the segments in the spool
+     */
+    synchronized long size() {
+        return writePos - readPos;
+    }
+
+    synchronized void close() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            RecordLog.warn("[MetricSpool] Failed to close spool file: " + fileName, e);
+        }
+        file = null;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    private void compact() throws IOException {
+        if (readPos == HEADER_SIZE) {
+            return;
+        }
+        long remaining = writePos - readPos;
+        byte[] buffer = new byte[64 * 1024];
+        long from = readPos;
+        long to = HEADER_SIZE;
+        while (from < writePos) {
+            int n = (int)Math.min(buffer.length, writePos - from);
+            file.seek(from);
+            file.readFully(buffer, 0, n);
+            file.seek(to);
+            file.write(buffer, 0, n);
+            from += n;
+            to += n;
+        }
+        readPos = HEADER_SIZE;
+        writePos = HEADER_SIZE + remaining;
+        file.setLength(writePos);
+        file.seek(0);
+        file.writeLong(readPos);
+    }
+
+    private void reset() throws IOException {
+        readPos = HEADER_SIZE;
+        writePos = HEADER_SIZE;
+        file.setLength(HEADER_SIZE);
+        file.seek(0);
+        file.writeLong(readPos);
+    }
+}
@@ -33,8 +33,11 @@ import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
  */
 public class MetricTimerListener implements Runnable {
 
-    private static final MetricWriter metricWriter = new MetricWriter(SentinelConfig.singleMetricFileSize(),
-        SentinelConfig.totalMetricFileCount());
+    private static final MetricLogWriter metricWriter = SentinelConfig.isBinaryMetricLogFormat()
+        ? new BinaryMetricWriter(SentinelConfig.singleMetricFileSize(), SentinelConfig.totalMetricFileCount())
+        : new MetricWriter(SentinelConfig.singleMetricFileSize(), SentinelConfig.totalMetricFileCount());
+
+    private static final MetricPushClient metricPushClient = MetricPushClient.startFromConfig();
 
     @Override
     public void run() {
@@ -52,6 +55,9 @@ public class MetricTimerListener implements Runnable {
                 } catch (Exception e) {
                     RecordLog.warn("[MetricTimerListener] Write metric error", e);
                 }
+                if (metricPushClient != null) {
+                    metricPushClient.push(entry.getKey(), entry.getValue());
+                }
             }
         }
     }
@@ -41,10 +41,11 @@ import com.alibaba.csp.sentinel.log.RecordLog;
  * <li>metric of different day should in different file;</li>
  * <li>every metric file is accompanied with an index file, which file name is {@code ${metricFileName}.idx}</li>
  * </ol>
+ * See {@link BinaryMetricWriter} for the binary format.
  *
  * @author Carpenter Lee
  */
-public class MetricWriter {
+public class MetricWriter implements MetricLogWriter {
 
     private static final String CHARSET = SentinelConfig.charset();
     public static final String METRIC_BASE_DIR = LogBase.getLogBaseDir();
@@ -117,6 +118,7 @@ public class MetricWriter {
      * @param time
      * @param nodes
      */
+    @Override
     public synchronized void write(long time, List<MetricNode> nodes) throws Exception {
         if (nodes == null) {
             return;
@@ -173,6 +175,7 @@ public class MetricWriter {
         }
     }
 
+    @Override
     public synchronized void close() throws Exception {
         if (outMetricBuf != null) {
             outMetricBuf.close();
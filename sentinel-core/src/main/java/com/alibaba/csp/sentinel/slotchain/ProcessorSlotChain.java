@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.slotchain;
 
+import com.alibaba.csp.sentinel.slots.block.ResourceRulePlan;
+
 /**
  * <p>1、Sentinel 会为每个资源创建且仅创建一个 ProcessorSlotChain 实例。</p>
  * <p>2、Sentinel 按顺序将注册的处理器插槽构造成有序的处理器插槽链表 ProcessorSlotChain</p>
@@ -25,6 +27,8 @@ package com.alibaba.csp.sentinel.slotchain;
  */
 public abstract class ProcessorSlotChain extends AbstractLinkedProcessorSlot<Object> {
 
+    private volatile ResourceRulePlan rulePlan;
+
     /**
      * Add a processor to the head of this slot chain.
      *
@@ -38,4 +42,20 @@ public abstract class ProcessorSlotChain extends AbstractLinkedProcessorSlot<Obj
      * @param protocolProcessor processor to be added.
      */
     public abstract void addLast(AbstractLinkedProcessorSlot<?> protocolProcessor);
+
+    /**
+     * Get the compiled rules of the resource of this slot chain. The plan is compiled again only after
+     * the rules have been updated.
+     *
+     * @param resourceWrapper the resource of this slot chain
+     * @return the rule plan of the resource
+     */
+    public ResourceRulePlan getRulePlan(ResourceWrapper resourceWrapper) {
+        ResourceRulePlan plan = rulePlan;
+        if (plan == null || !plan.isUpToDate()) {
+            plan = ResourceRulePlan.compile(resourceWrapper.getName());
+            rulePlan = plan;
+        }
+        return plan;
+    }
 }
@@ -23,11 +23,35 @@ public final class ClusterRuleConstant {
 
     public static final int FLOW_CLUSTER_STRATEGY_NORMAL = 0;
     public static final int FLOW_CLUSTER_STRATEGY_BORROW_REF = 1;
+    /**
+     * Check the tokens with a per-flow token bucket on token server, instead of the sliding window.
+     */
+    public static final int FLOW_CLUSTER_STRATEGY_TOKEN_BUCKET = 2;
 
     public static final int FLOW_THRESHOLD_AVG_LOCAL = 0;
     public static final int FLOW_THRESHOLD_GLOBAL = 1;
 
     public static final int DEFAULT_CLUSTER_SAMPLE_COUNT = 10;
 
+    /**
+     * Fall back to the local flow rule when the token server is not available.
+     */
+    public static final int FLOW_FALLBACK_STRATEGY_LOCAL_RULE = 0;
+    /**
+     * Fall back to the share of the global threshold estimated from the recent token results,
+     * and send no more requests to the token server until it recovers.
+     */
+    public static final int FLOW_FALLBACK_STRATEGY_APPROXIMATE_QUOTA = 1;
+
+    /**
+     * Count the parameter values of cluster parameter flow rules with the per-value counters in LRU maps.
+     */
+    public static final int PARAM_STATISTIC_TYPE_DEFAULT = 0;
+    /**
+     * Count the parameter values of cluster parameter flow rules with the Count-Min Sketch and heavy hitters,
+     * of which the memory is fixed regardless of the count of values.
+     */
+    public static final int PARAM_STATISTIC_TYPE_SKETCH = 1;
+
     private ClusterRuleConstant() {}
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlotChain;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.authority.AuthorityRule;
+import com.alibaba.csp.sentinel.slots.block.authority.AuthorityRuleManager;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.CircuitBreaker;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+
+/**
+ * <p>The rules of a resource compiled at once, which is cached on the {@link ProcessorSlotChain} of the resource,
+ * so that the rule slots get the rules of the resource without looking up the rule maps, and skip the checking
+ * directly if the resource has no rules.</p>
+ *
+ * <p>All plans are invalidated by {@link #invalidateAll()} when the rules are updated, and will be compiled
+ * again when they are used.</p>
+ */
+public final class ResourceRulePlan {
+
+    private static final AtomicLong VERSION = new AtomicLong();
+
+    private final long version;
+    private final List<FlowRule> flowRules;
+    private final List<CircuitBreaker> circuitBreakers;
+    private final Set<AuthorityRule> authorityRules;
+
+    private ResourceRulePlan(long version, List<FlowRule> flowRules, List<CircuitBreaker> circuitBreakers,
+                             Set<AuthorityRule> authorityRules) {
+        this.version = version;
+        this.flowRules = flowRules == null ? Collections.<FlowRule>emptyList() : flowRules;
+        this.circuitBreakers = circuitBreakers == null ? Collections.<CircuitBreaker>emptyList() : circuitBreakers;
+        this.authorityRules = authorityRules == null ? Collections.<AuthorityRule>emptySet() : authorityRules;
+    }
+
+    /**
+     * Compile the rules of given resource from the rule managers.
+     *
+     * @param resourceName name of the resource
+     * @return the rule plan of the resource
+     */
+    public static ResourceRulePlan compile(String resourceName) {
+        // The version should be read before the rules, so that a plan compiled during updating is out of date.
+        long version = VERSION.get();
+        return new ResourceRulePlan(version, FlowRuleManager.getRulesOfResource(resourceName),
+            DegradeRuleManager.getCircuitBreakers(resourceName),
+            AuthorityRuleManager.getRulesOfResource(resourceName));
+    }
+
+    /**
+     * Get the rule plan of the resource in the current invocation. The plan cached on the slot chain of the current
+     * entry is used if present, or else a new plan will be compiled.
+     *
+     * @param context  context of current invocation
+     * @param resource the resource
+     * @return the rule plan of the resource
+     */
+    public static ResourceRulePlan of(Context context, ResourceWrapper resource) {
+        Entry entry = context == null ? null : context.getCurEntry();
+        if (entry != null && (entry.getResourceWrapper() == resource || resource.equals(entry.getResourceWrapper()))) {
+            return entry.getRulePlan();
+        }
+        return compile(resource.getName());
+    }
+
+    /**
+     * Invalidate all compiled plans. This should be called after the rules have been updated.
+     */
+    public static void invalidateAll() {
+        VERSION.incrementAndGet();
+    }
+
+    /**
+     * @return whether the plan is compiled from the latest rules
+     */
+    public boolean isUpToDate() {
+        return version == VERSION.get();
+    }
+
+    public List<FlowRule> getFlowRules() {
+        return flowRules;
+    }
+
+    public List<CircuitBreaker> getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    public Set<AuthorityRule> getAuthorityRules() {
+        return authorityRules;
+    }
+
+    public boolean hasFlowRules() {
+        return !flowRules.isEmpty();
+    }
+
+    public boolean hasCircuitBreakers() {
+        return !circuitBreakers.isEmpty();
+    }
+
+    public boolean hasAuthorityRules() {
+        return !authorityRules.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceRulePlan{" +
+            "version=" + version +
+            ", flowRules=" + flowRules +
+            ", circuitBreakers=" + circuitBreakers.size() +
+            ", authorityRules=" + authorityRules +
+            '}';
+    }
+}
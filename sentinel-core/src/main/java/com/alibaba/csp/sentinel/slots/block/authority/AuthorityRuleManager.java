@@ -16,6 +16,7 @@
 package com.alibaba.csp.sentinel.slots.block.authority;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +24,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.slots.block.ResourceRulePlan;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.StringUtil;
@@ -94,6 +96,7 @@ public final class AuthorityRuleManager {
         @Override
         public synchronized void configLoad(List<AuthorityRule> value) {
             authorityRules = loadAuthorityConf(value);
+            ResourceRulePlan.invalidateAll();
 
             RecordLog.info("[AuthorityRuleManager] Authority rules loaded: {}", authorityRules);
         }
@@ -101,6 +104,7 @@ public final class AuthorityRuleManager {
         @Override
         public synchronized void configUpdate(List<AuthorityRule> conf) {
             authorityRules = loadAuthorityConf(conf);
+            ResourceRulePlan.invalidateAll();
             
             RecordLog.info("[AuthorityRuleManager] Authority rules received: {}", authorityRules);
         }
@@ -144,6 +148,17 @@ public final class AuthorityRuleManager {
         return authorityRules;
     }
 
+    /**
+     * Get the authority rules of given resource.
+     *
+     * @param resource name of the resource
+     * @return unmodifiable set of the rules, or null if the resource has no rules
+     */
+    public static Set<AuthorityRule> getRulesOfResource(String resource) {
+        Set<AuthorityRule> rules = authorityRules.get(resource);
+        return rules == null ? null : Collections.unmodifiableSet(rules);
+    }
+
     public static boolean isValidRule(AuthorityRule rule) {
         return rule != null && !StringUtil.isBlank(rule.getResource())
             && rule.getStrategy() >= 0 && StringUtil.isNotBlank(rule.getLimitApp());
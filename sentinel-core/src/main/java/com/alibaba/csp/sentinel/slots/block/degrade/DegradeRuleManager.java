@@ -26,6 +26,7 @@ import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
+import com.alibaba.csp.sentinel.slots.block.ResourceRulePlan;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.CircuitBreaker;
 import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.ExceptionCircuitBreaker;
@@ -69,7 +70,13 @@ public final class DegradeRuleManager {
         }
     }
 
-    static List<CircuitBreaker> getCircuitBreakers(String resourceName) {
+    /**
+     * Get the circuit breakers of given resource.
+     *
+     * @param resourceName name of the resource
+     * @return the circuit breakers, which should not be modified, or null if the resource has no rules
+     */
+    public static List<CircuitBreaker> getCircuitBreakers(String resourceName) {
         return circuitBreakers.get(resourceName);
     }
 
@@ -215,6 +222,7 @@ public final class DegradeRuleManager {
 
             DegradeRuleManager.circuitBreakers = cbs;
             DegradeRuleManager.ruleMap = rm;
+            ResourceRulePlan.invalidateAll();
         }
 
         @Override
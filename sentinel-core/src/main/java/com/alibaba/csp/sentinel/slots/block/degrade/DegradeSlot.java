@@ -25,6 +25,7 @@ import com.alibaba.csp.sentinel.slotchain.AbstractLinkedProcessorSlot;
 import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.ResourceRulePlan;
 import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.CircuitBreaker;
 import com.alibaba.csp.sentinel.spi.Spi;
 
@@ -46,8 +47,8 @@ public class DegradeSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
     }
 
     void performChecking(Context context, ResourceWrapper r) throws BlockException {
-        List<CircuitBreaker> circuitBreakers = DegradeRuleManager.getCircuitBreakers(r.getName());
-        if (circuitBreakers == null || circuitBreakers.isEmpty()) {
+        List<CircuitBreaker> circuitBreakers = ResourceRulePlan.of(context, r).getCircuitBreakers();
+        if (circuitBreakers.isEmpty()) {
             return;
         }
         for (CircuitBreaker cb : circuitBreakers) {
@@ -64,8 +65,8 @@ public class DegradeSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
             fireExit(context, r, count, args);
             return;
         }
-        List<CircuitBreaker> circuitBreakers = DegradeRuleManager.getCircuitBreakers(r.getName());
-        if (circuitBreakers == null || circuitBreakers.isEmpty()) {
+        List<CircuitBreaker> circuitBreakers = ResourceRulePlan.of(context, r).getCircuitBreakers();
+        if (circuitBreakers.isEmpty()) {
             fireExit(context, r, count, args);
             return;
         }
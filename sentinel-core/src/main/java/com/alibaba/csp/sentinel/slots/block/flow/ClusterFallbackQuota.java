@@ -0,0 +1,199 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.statistic.metric.ArrayMetric;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>Approximate local quota of the cluster flow rules falling back with
+ * {@link ClusterRuleConstant#FLOW_FALLBACK_STRATEGY_APPROXIMATE_QUOTA}.</p>
+ *
+ * <p>The share of the global threshold for current client is estimated from the recent token results:
+ * the tokens granted to current client in the last second are scaled up by the headroom ({@code remaining})
+ * the token server reported, which is no less than the fair share (global threshold / connected count).
+ * While the token server is failing, the flow is checked against the share locally, and only one request
+ * per {@link #PROBE_INTERVAL_MS} is sent to the token server to detect its recovery, so that requests
+ * do not wait for the unavailable server.</p>
+ */
+public final class ClusterFallbackQuota {
+
+    static final int PROBE_INTERVAL_MS = 1000;
+
+    private static final int SAMPLE_COUNT = 2;
+    private static final int INTERVAL_IN_MS = 1000;
+
+    private static final Map<Long, FlowQuota> QUOTAS = new ConcurrentHashMap<>();
+
+    static boolean isEnabled(/*@Valid*/ FlowRule rule) {
+        ClusterFlowConfig config = rule.getClusterConfig();
+        return config.isFallbackToLocalWhenFail()
+            && config.getFallbackStrategy() == ClusterRuleConstant.FLOW_FALLBACK_STRATEGY_APPROXIMATE_QUOTA;
+    }
+
+    /**
+     * Whether the flow should be checked locally without requesting the token server, which is true
+     * when the token server is failing, except for one probing request per probe interval.
+     */
+    static boolean shouldSkipServer(Long flowId) {
+        FlowQuota quota = QUOTAS.get(flowId);
+        if (quota == null) {
+            return false;
+        }
+        long degradedUntil = quota.degradedUntil.get();
+        if (degradedUntil == 0) {
+            return false;
+        }
+        long now = TimeUtil.currentTimeMillis();
+        return now < degradedUntil || !quota.degradedUntil.compareAndSet(degradedUntil, now + PROBE_INTERVAL_MS);
+    }
+
+    /**
+     * Record the result of the token server, which updates the estimated share when the server
+     * is available, or marks the server failing.
+     */
+    static void onResult(/*@Valid*/ FlowRule rule, TokenResult result, int acquireCount) {
+        Long flowId = rule.getClusterConfig().getFlowId();
+        switch (result.getStatus()) {
+            case TokenResultStatus.OK:
+            case TokenResultStatus.SHOULD_WAIT:
+                FlowQuota quota = getOrCreate(flowId);
+                quota.grants.addPass(acquireCount);
+                quota.update(rule, result);
+                break;
+            case TokenResultStatus.BLOCKED:
+                getOrCreate(flowId).update(rule, result);
+                break;
+            case TokenResultStatus.FAIL:
+            case TokenResultStatus.TOO_MANY_REQUEST:
+                onFailure(flowId);
+                break;
+            default:
+        }
+    }
+
+    static void onFailure(Long flowId) {
+        getOrCreate(flowId).degradedUntil.compareAndSet(0, TimeUtil.currentTimeMillis() + PROBE_INTERVAL_MS);
+    }
+
+    static boolean hasShare(Long flowId) {
+        FlowQuota quota = QUOTAS.get(flowId);
+        return quota != null && quota.share >= 0;
+    }
+
+    /**
+     * Check the flow against the estimated share, and count the passed tokens if passed.
+     */
+    static boolean tryPass(Long flowId, int acquireCount) {
+        FlowQuota quota = QUOTAS.get(flowId);
+        if (quota == null || quota.share < 0) {
+            return true;
+        }
+        if (quota.grantedQps() + acquireCount > quota.share) {
+            return false;
+        }
+        quota.grants.addPass(acquireCount);
+        return true;
+    }
+
+    /**
+     * Drop the quotas of the flows no longer falling back with approximate quota.
+     */
+    static void retainRules(Map<String, List<FlowRule>> rules) {
+        Set<Long> flowIds = new HashSet<>();
+        for (List<FlowRule> list : rules.values()) {
+            for (FlowRule rule : list) {
+                if (rule.isClusterMode() && isEnabled(rule)) {
+                    flowIds.add(rule.getClusterConfig().getFlowId());
+                }
+            }
+        }
+        QUOTAS.keySet().retainAll(flowIds);
+    }
+
+    static void clear() {
+        QUOTAS.clear();
+    }
+
+    private static FlowQuota getOrCreate(Long flowId) {
+        FlowQuota quota = QUOTAS.get(flowId);
+        if (quota == null) {
+            FlowQuota newQuota = new FlowQuota();
+            quota = QUOTAS.putIfAbsent(flowId, newQuota);
+            if (quota == null) {
+                quota = newQuota;
+            }
+        }
+        return quota;
+    }
+
+    private static final class FlowQuota {
+
+        /**
+         * Tokens granted to current client, either by the token server or by the local quota.
+         */
+        private final ArrayMetric grants = new ArrayMetric(SAMPLE_COUNT, INTERVAL_IN_MS);
+        /**
+         * Time until which the token server is regarded failing, or 0 if available.
+         */
+        private final AtomicLong degradedUntil = new AtomicLong(0);
+        /**
+         * Estimated share of current client (in QPS), or negative if unknown.
+         */
+        private volatile double share = -1;
+
+        double grantedQps() {
+            return grants.pass() / grants.getWindowIntervalInSec();
+        }
+
+        void update(FlowRule rule, TokenResult result) {
+            int connectedCount = result.getConnectedCount();
+            double count = rule.getCount();
+            double threshold;
+            double fairShare;
+            if (rule.getClusterConfig().getThresholdType() == ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL) {
+                threshold = count;
+                fairShare = connectedCount > 0 ? count / connectedCount : -1;
+            } else {
+                threshold = connectedCount > 0 ? count * connectedCount : -1;
+                fairShare = count;
+            }
+            double estimated = fairShare;
+            if (threshold > 0) {
+                // The pass QPS of all clients is about the threshold minus the remaining count,
+                // of which current client takes the same proportion in the headroom.
+                double globalQps = Math.max(threshold - result.getRemaining(), 1);
+                estimated = Math.min(threshold, Math.max(fairShare, grantedQps() * threshold / globalQps));
+            }
+            if (estimated >= 0) {
+                this.share = estimated;
+            }
+            degradedUntil.set(0);
+        }
+    }
+
+    private ClusterFallbackQuota() {}
+}
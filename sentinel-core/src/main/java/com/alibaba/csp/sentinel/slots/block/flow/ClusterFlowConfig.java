@@ -38,9 +38,14 @@ public class ClusterFlowConfig {
      */
     private int thresholdType = ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL;
     private boolean fallbackToLocalWhenFail = true;
+    /**
+     * How to check the flow locally when falling back (0: local rule, 1: approximate quota),
+     * which takes effect only if {@code fallbackToLocalWhenFail} is true.
+     */
+    private int fallbackStrategy = ClusterRuleConstant.FLOW_FALLBACK_STRATEGY_LOCAL_RULE;
 
     /**
-     * 0: normal.
+     * 0: normal (sliding window), 2: token bucket.
      */
     private int strategy = ClusterRuleConstant.FLOW_CLUSTER_STRATEGY_NORMAL;
 
@@ -141,6 +146,15 @@ public class ClusterFlowConfig {
         return this;
     }
 
+    public int getFallbackStrategy() {
+        return fallbackStrategy;
+    }
+
+    public ClusterFlowConfig setFallbackStrategy(int fallbackStrategy) {
+        this.fallbackStrategy = fallbackStrategy;
+        return this;
+    }
+
     public int getSampleCount() {
         return sampleCount;
     }
@@ -176,6 +190,9 @@ public class ClusterFlowConfig {
         if (fallbackToLocalWhenFail != that.fallbackToLocalWhenFail) {
             return false;
         }
+        if (fallbackStrategy != that.fallbackStrategy) {
+            return false;
+        }
         if (strategy != that.strategy) {
             return false;
         }
@@ -205,6 +222,7 @@ public class ClusterFlowConfig {
         int result = flowId != null ? flowId.hashCode() : 0;
         result = 31 * result + thresholdType;
         result = 31 * result + (fallbackToLocalWhenFail ? 1 : 0);
+        result = 31 * result + fallbackStrategy;
         result = 31 * result + strategy;
         result = 31 * result + sampleCount;
         result = 31 * result + windowIntervalMs;
@@ -221,6 +239,7 @@ public class ClusterFlowConfig {
                 "flowId=" + flowId +
                 ", thresholdType=" + thresholdType +
                 ", fallbackToLocalWhenFail=" + fallbackToLocalWhenFail +
+                ", fallbackStrategy=" + fallbackStrategy +
                 ", strategy=" + strategy +
                 ", sampleCount=" + sampleCount +
                 ", windowIntervalMs=" + windowIntervalMs +
@@ -0,0 +1,235 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.AsyncEntry;
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.TokenService;
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.context.NullContext;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.function.BiConsumer;
+
+/**
+ * <p>Requests the cluster tokens of a resource asynchronously before entering it, so that the cluster flow
+ * checking in the slot chain uses the prefetched results instead of waiting for the token server.</p>
+ *
+ * <p>The tokens of all cluster rules are requested together. If a rule is blocked, the tokens acquired for the
+ * other rules are not used, which is the price of a single round trip. The resource is entered on an executor
+ * rather than the thread completing the token requests (e.g. the I/O thread of the token client), where the
+ * slot chain requesting tokens synchronously would deadlock. Like {@link AsyncEntry}, the resource is entered
+ * on a separate async context sharing the entrance node and origin of the caller's context, so the caller's
+ * context is never changed by another thread. The prefetched results are bound to the thread only while
+ * entering the resource, and each of them is taken by the flow checker once.</p>
+ */
+public final class ClusterTokenPrefetcher {
+
+    private static final ThreadLocal<Map<Long, TokenResult>> PREFETCHED_RESULTS = new ThreadLocal<>();
+
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    private static final ExecutorService ENTRY_EXECUTOR = Executors.newFixedThreadPool(
+        Math.max(2, Runtime.getRuntime().availableProcessors()),
+        new NamedThreadFactory("sentinel-cluster-prefetch-entry-task", true));
+
+    /**
+     * Enter the resource after the cluster tokens of its cluster flow rules are acquired asynchronously.
+     * The returned stage is completed with the entry, or exceptionally with the {@code BlockException}.
+     * The entry is made on an async context derived from the context of current thread.
+     *
+     * @param name         the unique name for the protected resource
+     * @param resourceType classification of the resource (e.g. Web or RPC)
+     * @param trafficType  the traffic type (inbound, outbound or internal)
+     * @param batchCount   the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param args         args for parameter flow control or customized slots
+     * @return the stage completed with the async entry
+     */
+    public static CompletionStage<AsyncEntry> asyncEntry(String name, int resourceType, EntryType trafficType,
+                                                        int batchCount, Object[] args) {
+        return asyncEntry(name, resourceType, trafficType, batchCount, args, ENTRY_EXECUTOR);
+    }
+
+    /**
+     * Same as {@link #asyncEntry(String, int, EntryType, int, Object[])}, but the resource is entered on the
+     * provided executor once the token requests are completed (or on current thread if no token request
+     * is pending).
+     *
+     * @param executor executor to enter the resource, which should allow blocking for the token requests
+     *                 of the slot chain
+     * @return the stage completed with the async entry
+     */
+    public static CompletionStage<AsyncEntry> asyncEntry(final String name, final int resourceType,
+                                                        final EntryType trafficType, final int batchCount,
+                                                        final Object[] args, Executor executor) {
+        final Context context = newEntryContext(ContextUtil.getContext());
+        final CompletableFuture<AsyncEntry> future = new CompletableFuture<>();
+        BiConsumer<Map<Long, TokenResult>, Throwable> enter = new BiConsumer<Map<Long, TokenResult>, Throwable>() {
+            @Override
+            public void accept(final Map<Long, TokenResult> results, Throwable ex) {
+                ContextUtil.runOnContext(context, new Runnable() {
+                    @Override
+                    public void run() {
+                        bind(results);
+                        try {
+                            future.complete(SphU.asyncEntry(name, resourceType, trafficType, batchCount, args));
+                        } catch (Throwable e) {
+                            future.completeExceptionally(e);
+                        } finally {
+                            PREFETCHED_RESULTS.remove();
+                        }
+                    }
+                });
+            }
+        };
+        CompletableFuture<Map<Long, TokenResult>> prefetched = prefetch(FlowRuleChecker.pickClusterService(),
+            FlowRuleManager.getFlowRuleMap().get(name), batchCount).toCompletableFuture();
+        if (prefetched.isDone()) {
+            prefetched.whenComplete(adapt(enter));
+        } else {
+            prefetched.whenCompleteAsync(adapt(enter), executor)
+                .whenComplete(adapt(new BiConsumer<Map<Long, TokenResult>, Throwable>() {
+                    @Override
+                    public void accept(Map<Long, TokenResult> results, Throwable ex) {
+                        // e.g. rejected by the executor
+                        if (ex != null) {
+                            future.completeExceptionally(ex);
+                        }
+                    }
+                }));
+        }
+        return future;
+    }
+
+    /**
+     * Create the context to enter the resource on, which shares the entrance node and origin of the caller's
+     * context but keeps its own current entry. Without a caller's context the default context is used,
+     * and the {@link NullContext} (i.e. too many contexts) is kept as is.
+     */
+    static Context newEntryContext(Context context) {
+        if (context == null || context instanceof NullContext) {
+            return context;
+        }
+        return Context.newAsyncContext(context.getEntranceNode(), context.getName()).setOrigin(context.getOrigin());
+    }
+
+    /**
+     * Request tokens of the cluster flow rules together. The stage is completed with the results keyed by
+     * flow ID when all the requests are done, and the failed requests result in {@link TokenResultStatus#FAIL}.
+     */
+    static CompletionStage<Map<Long, TokenResult>> prefetch(TokenService service, Collection<FlowRule> rules,
+                                                            int acquireCount) {
+        if (service == null || rules == null || rules.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Set<Long> flowIds = new LinkedHashSet<>();
+        for (FlowRule rule : rules) {
+            if (!rule.isClusterMode() || rule.getLimitApp() == null || rule.getClusterConfig() == null) {
+                continue;
+            }
+            Long flowId = rule.getClusterConfig().getFlowId();
+            if (flowId != null) {
+                flowIds.add(flowId);
+            }
+        }
+        if (flowIds.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final CompletableFuture<Map<Long, TokenResult>> future = new CompletableFuture<>();
+        final Map<Long, TokenResult> results = new ConcurrentHashMap<>(flowIds.size());
+        final AtomicInteger remaining = new AtomicInteger(flowIds.size());
+        for (final Long flowId : flowIds) {
+            requestToken(service, flowId, acquireCount).whenComplete(adapt(new BiConsumer<TokenResult, Throwable>() {
+                @Override
+                public void accept(TokenResult result, Throwable ex) {
+                    results.put(flowId, result);
+                    if (remaining.decrementAndGet() == 0) {
+                        future.complete(results);
+                    }
+                }
+            }));
+        }
+        return future;
+    }
+
+    private static CompletableFuture<TokenResult> requestToken(TokenService service, Long flowId, int acquireCount) {
+        final CompletableFuture<TokenResult> future = new CompletableFuture<>();
+        try {
+            service.requestTokenAsync(flowId, acquireCount, false)
+                .whenComplete(adapt(new BiConsumer<TokenResult, Throwable>() {
+                    @Override
+                    public void accept(TokenResult result, Throwable ex) {
+                        if (ex != null) {
+                            RecordLog.warn("[ClusterTokenPrefetcher] Request cluster token unexpected failed", ex);
+                        }
+                        future.complete(result == null ? new TokenResult(TokenResultStatus.FAIL) : result);
+                    }
+                }));
+        } catch (Throwable ex) {
+            RecordLog.warn("[ClusterTokenPrefetcher] Request cluster token unexpected failed", ex);
+            future.complete(new TokenResult(TokenResultStatus.FAIL));
+        }
+        return future;
+    }
+
+    private static <T, U> java.util.function.BiConsumer<T, U> adapt(final BiConsumer<T, U> consumer) {
+        return new java.util.function.BiConsumer<T, U>() {
+            @Override
+            public void accept(T t, U u) {
+                consumer.accept(t, u);
+            }
+        };
+    }
+
+    static void bind(Map<Long, TokenResult> results) {
+        if (results == null || results.isEmpty()) {
+            PREFETCHED_RESULTS.remove();
+        } else {
+            PREFETCHED_RESULTS.set(new HashMap<>(results));
+        }
+    }
+
+    /**
+     * Take the prefetched result of the flow ID bound to current thread.
+     *
+     * @return the prefetched result, or null if absent
+     */
+    static TokenResult take(Long flowId) {
+        Map<Long, TokenResult> results = PREFETCHED_RESULTS.get();
+        if (results == null) {
+            return null;
+        }
+        return results.remove(flowId);
+    }
+
+    private ClusterTokenPrefetcher() {}
+}
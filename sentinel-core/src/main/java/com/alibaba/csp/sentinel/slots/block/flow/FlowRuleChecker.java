@@ -152,11 +152,26 @@ public class FlowRuleChecker {
                 return fallbackToLocalOrPass(rule, context, node, acquireCount, prioritized);
             }
             long flowId = rule.getClusterConfig().getFlowId();
-            TokenResult result = clusterService.requestToken(flowId, acquireCount, prioritized);
+            // The token may have been requested asynchronously before entering.
+            boolean approximateFallback = ClusterFallbackQuota.isEnabled(rule);
+            TokenResult result = ClusterTokenPrefetcher.take(flowId);
+            if (result == null) {
+                if (approximateFallback && ClusterFallbackQuota.shouldSkipServer(flowId)) {
+                    // The token server is failing, so check locally until it recovers.
+                    return fallbackToLocalOrPass(rule, context, node, acquireCount, prioritized);
+                }
+                result = clusterService.requestToken(flowId, acquireCount, prioritized);
+            }
+            if (approximateFallback) {
+                ClusterFallbackQuota.onResult(rule, result, acquireCount);
+            }
             return applyTokenResult(result, rule, context, node, acquireCount, prioritized);
             // If client is absent, then fallback to local mode.
         } catch (Throwable ex) {
             RecordLog.warn("[FlowRuleChecker] Request cluster token unexpected failed", ex);
+            if (ClusterFallbackQuota.isEnabled(rule)) {
+                ClusterFallbackQuota.onFailure(rule.getClusterConfig().getFlowId());
+            }
         }
         // Fallback to local flow control when token client or server for this rule is not available.
         // If fallback is not enabled, then directly pass.
@@ -166,6 +181,10 @@ public class FlowRuleChecker {
     private static boolean fallbackToLocalOrPass(FlowRule rule, Context context, DefaultNode node, int acquireCount,
                                                  boolean prioritized) {
         if (rule.getClusterConfig().isFallbackToLocalWhenFail()) {
+            Long flowId = rule.getClusterConfig().getFlowId();
+            if (ClusterFallbackQuota.isEnabled(rule) && ClusterFallbackQuota.hasShare(flowId)) {
+                return ClusterFallbackQuota.tryPass(flowId, acquireCount);
+            }
             return passLocalCheck(rule, context, node, acquireCount, prioritized);
         } else {
             // The rule won't be activated, just pass.
@@ -173,7 +192,7 @@ public class FlowRuleChecker {
         }
     }
 
-    private static TokenService pickClusterService() {
+    static TokenService pickClusterService() {
         if (ClusterStateManager.isClient()) {
             return TokenClientProvider.getClient();
         }
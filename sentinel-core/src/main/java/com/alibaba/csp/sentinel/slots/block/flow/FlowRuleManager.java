@@ -22,10 +22,12 @@ import com.alibaba.csp.sentinel.node.metric.MetricTimerListener;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
+import com.alibaba.csp.sentinel.slots.block.ResourceRulePlan;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -121,6 +123,17 @@ public class FlowRuleManager {
         return flowRules;
     }
 
+    /**
+     * Get the flow rules of given resource.
+     *
+     * @param resource name of the resource
+     * @return unmodifiable list of the rules, or null if the resource has no rules
+     */
+    public static List<FlowRule> getRulesOfResource(String resource) {
+        List<FlowRule> rules = flowRules.get(resource);
+        return rules == null ? null : Collections.unmodifiableList(rules);
+    }
+
     public static boolean hasConfig(String resource) {
         return flowRules.containsKey(resource);
     }
@@ -150,6 +163,8 @@ public class FlowRuleManager {
             Map<String, List<FlowRule>> rules = FlowRuleUtil.buildFlowRuleMap(value);
             if (rules != null) {
                 flowRules = rules;
+                ClusterFallbackQuota.retainRules(rules);
+                ResourceRulePlan.invalidateAll();
             }
             RecordLog.info("[FlowRuleManager] Flow rules received: {}", rules);
         }
@@ -159,6 +174,8 @@ public class FlowRuleManager {
             Map<String, List<FlowRule>> rules = FlowRuleUtil.buildFlowRuleMap(conf);
             if (rules != null) {
                 flowRules = rules;
+                ClusterFallbackQuota.retainRules(rules);
+                ResourceRulePlan.invalidateAll();
             }
             RecordLog.info("[FlowRuleManager] Flow rules loaded: {}", rules);
         }
@@ -218,8 +218,13 @@ public final class FlowRuleUtil {
         if (!isWindowConfigValid(clusterConfig.getSampleCount(), clusterConfig.getWindowIntervalMs())) {
             return false;
         }
+        if (clusterConfig.getFallbackStrategy() != ClusterRuleConstant.FLOW_FALLBACK_STRATEGY_LOCAL_RULE
+            && clusterConfig.getFallbackStrategy() != ClusterRuleConstant.FLOW_FALLBACK_STRATEGY_APPROXIMATE_QUOTA) {
+            return false;
+        }
         switch (clusterConfig.getStrategy()) {
             case ClusterRuleConstant.FLOW_CLUSTER_STRATEGY_NORMAL:
+            case ClusterRuleConstant.FLOW_CLUSTER_STRATEGY_TOKEN_BUCKET:
                 return true;
             default:
                 return false;
@@ -19,7 +19,9 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.csp.sentinel.slots.block.flow.TrafficShapingController;
 
-import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.clock.Clock;
+import com.alibaba.csp.sentinel.util.clock.GlobalClock;
 import com.alibaba.csp.sentinel.node.Node;
 
 /**
@@ -43,9 +45,17 @@ public class RateLimiterController implements TrafficShapingController {
      */
     private final AtomicLong latestPassedTime = new AtomicLong(-1);
 
+    private final Clock clock;
+
     public RateLimiterController(int timeOut, double count) {
+        this(timeOut, count, GlobalClock.INSTANCE);
+    }
+
+    public RateLimiterController(int timeOut, double count, Clock clock) {
+        AssertUtil.notNull(clock, "clock cannot be null");
         this.maxQueueingTimeMs = timeOut;
         this.count = count;
+        this.clock = clock;
     }
 
     @Override
@@ -65,7 +75,7 @@ public class RateLimiterController implements TrafficShapingController {
             return false;
         }
 
-        long currentTime = TimeUtil.currentTimeMillis();
+        long currentTime = clock.currentTimeMillis();
         // 计算连续两个请求通过的时间间隔，即通过一个请求的固定速率，QPS为200时，cosTime为 5毫秒，也可以说每5毫秒通过一个请求就是固定速率
         long costTime = Math.round(1.0 * (acquireCount) / count * 1000);
 
@@ -81,14 +91,14 @@ public class RateLimiterController implements TrafficShapingController {
         // 当前请求的期望通过时间 => 当前时间
         else {
             // 需要休眠等待，等待时间为 期望通过时间 - 当前时间
-            long waitTime = costTime + latestPassedTime.get() - TimeUtil.currentTimeMillis();
+            long waitTime = costTime + latestPassedTime.get() - clock.currentTimeMillis();
             // 如果等待时间 > 队列允许最大等待时间，请求被拒绝
             if (waitTime > maxQueueingTimeMs) {
                 return false;
             } else {
                 long oldTime = latestPassedTime.addAndGet(costTime);
                 try {
-                    waitTime = oldTime - TimeUtil.currentTimeMillis();
+                    waitTime = oldTime - clock.currentTimeMillis();
                     if (waitTime > maxQueueingTimeMs) {
                         latestPassedTime.addAndGet(-costTime);
                         return false;
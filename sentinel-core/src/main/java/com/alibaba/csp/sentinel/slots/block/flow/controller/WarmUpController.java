@@ -17,7 +17,9 @@ package com.alibaba.csp.sentinel.slots.block.flow.controller;
 
 import java.util.concurrent.atomic.AtomicLong;
 
-import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.clock.Clock;
+import com.alibaba.csp.sentinel.util.clock.GlobalClock;
 import com.alibaba.csp.sentinel.node.Node;
 import com.alibaba.csp.sentinel.slots.block.flow.TrafficShapingController;
 
@@ -61,13 +63,21 @@ public class WarmUpController implements TrafficShapingController {
     protected AtomicLong storedTokens = new AtomicLong(0);
     // 上一次生产令牌的时间
     protected AtomicLong lastFilledTime = new AtomicLong(0);
+    // 提供当前时间的时钟
+    protected final Clock clock;
 
     public WarmUpController(double count, int warmUpPeriodInSec, int coldFactor) {
-        construct(count, warmUpPeriodInSec, coldFactor);
+        this(count, warmUpPeriodInSec, coldFactor, GlobalClock.INSTANCE);
     }
 
     public WarmUpController(double count, int warmUpPeriodInSec) {
-        construct(count, warmUpPeriodInSec, 3);
+        this(count, warmUpPeriodInSec, 3);
+    }
+
+    public WarmUpController(double count, int warmUpPeriodInSec, int coldFactor, Clock clock) {
+        AssertUtil.notNull(clock, "clock cannot be null");
+        this.clock = clock;
+        construct(count, warmUpPeriodInSec, coldFactor);
     }
 
     private void construct(double count, int warmUpPeriodInSec, int coldFactor) {
@@ -133,7 +143,7 @@ public class WarmUpController implements TrafficShapingController {
     }
 
     protected void syncToken(long passQps) {
-        long currentTime = TimeUtil.currentTimeMillis();
+        long currentTime = clock.currentTimeMillis();
         currentTime = currentTime - currentTime % 1000;
         long oldLastFillTime = lastFilledTime.get();
         // 控制每秒只更新一次
@@ -18,7 +18,8 @@ package com.alibaba.csp.sentinel.slots.block.flow.controller;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.csp.sentinel.node.Node;
-import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.Clock;
+import com.alibaba.csp.sentinel.util.clock.GlobalClock;
 
 /**
  * @author jialiang.linjl
@@ -30,7 +31,12 @@ public class WarmUpRateLimiterController extends WarmUpController {
     private final AtomicLong latestPassedTime = new AtomicLong(-1);
 
     public WarmUpRateLimiterController(double count, int warmUpPeriodSec, int timeOutMs, int coldFactor) {
-        super(count, warmUpPeriodSec, coldFactor);
+        this(count, warmUpPeriodSec, timeOutMs, coldFactor, GlobalClock.INSTANCE);
+    }
+
+    public WarmUpRateLimiterController(double count, int warmUpPeriodSec, int timeOutMs, int coldFactor,
+                                       Clock clock) {
+        super(count, warmUpPeriodSec, coldFactor, clock);
         this.timeoutInMs = timeOutMs;
     }
 
@@ -44,7 +50,7 @@ public class WarmUpRateLimiterController extends WarmUpController {
         long previousQps = (long) node.previousPassQps();
         syncToken(previousQps);
 
-        long currentTime = TimeUtil.currentTimeMillis();
+        long currentTime = clock.currentTimeMillis();
 
         long restToken = storedTokens.get();
         long costTime = 0;
@@ -70,7 +76,7 @@ public class WarmUpRateLimiterController extends WarmUpController {
             } else {
                 long oldTime = latestPassedTime.addAndGet(costTime);
                 try {
-                    waitTime = oldTime - TimeUtil.currentTimeMillis();
+                    waitTime = oldTime - clock.currentTimeMillis();
                     if (waitTime > timeoutInMs) {
                         latestPassedTime.addAndGet(-costTime);
                         return false;
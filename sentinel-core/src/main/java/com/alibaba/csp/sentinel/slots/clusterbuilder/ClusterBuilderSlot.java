@@ -15,7 +15,6 @@
  */
 package com.alibaba.csp.sentinel.slots.clusterbuilder;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import com.alibaba.csp.sentinel.Constants;
@@ -32,6 +31,7 @@ import com.alibaba.csp.sentinel.slotchain.ProcessorSlotChain;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
 import com.alibaba.csp.sentinel.spi.Spi;
+import com.alibaba.csp.sentinel.util.ConcurrentRegistry;
 
 /**
  * <p>
@@ -51,14 +51,11 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
 
     /**
      * 缓存不同资源的全局唯一 ClusterNode
-     * clusterNodeMap 会随着时间越来越稳定（资源的数量是有限的），只是系统初始运行时会对 map 频繁的修改，所以这里使用了一个锁，并没有将 clusterNodeMap 声明为并发容器
+     * 资源首次被访问时注册，注册时不会拷贝已有的映射，也不会阻塞其他资源的注册
+     * 数量上限与 slot chain 一致
      */
-    private static volatile Map<ResourceWrapper, ClusterNode> clusterNodeMap = new HashMap<>();
-
-    /**
-     * 保证修改 clusterNodeMap 时的线程安全
-     */
-    private static final Object lock = new Object();
+    private static final ConcurrentRegistry<ResourceWrapper, ClusterNode> clusterNodeMap
+        = new ConcurrentRegistry<>(Constants.MAX_SLOT_CHAIN_SIZE);
 
     /**
      * 非静态字段，持有当前资源的 ClusterNode
@@ -71,15 +68,13 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
         throws Throwable {
         // clusterNode 实例为空，表示该资源是首次被访问，所以需要给资源创建一个 clusterNode
         if (clusterNode == null) {
-            synchronized (lock) {
+            // 每个资源只有一个 slot chain，所以这里只需锁住当前 slot 实例
+            synchronized (this) {
                 if (clusterNode == null) {
                     // Create the cluster node.
-                    clusterNode = new ClusterNode(resourceWrapper.getName(), resourceWrapper.getResourceType());
-                    HashMap<ResourceWrapper, ClusterNode> newMap = new HashMap<>(Math.max(clusterNodeMap.size(), 16));
-                    newMap.putAll(clusterNodeMap);
-                    newMap.put(node.getId(), clusterNode);
-
-                    clusterNodeMap = newMap;
+                    ClusterNode newNode = new ClusterNode(resourceWrapper.getName(), resourceWrapper.getResourceType());
+                    clusterNodeMap.put(node.getId(), newNode);
+                    clusterNode = newNode;
                 }
             }
         }
@@ -111,6 +106,16 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
         return clusterNodeMap.get(new StringResourceWrapper(id, type));
     }
 
+    /**
+     * Get {@link ClusterNode} of the resource, without allocating a new resource wrapper.
+     *
+     * @param resourceWrapper the resource
+     * @return the {@link ClusterNode}
+     */
+    public static ClusterNode getClusterNode(ResourceWrapper resourceWrapper) {
+        return clusterNodeMap.get(resourceWrapper);
+    }
+
     /**
      * Get {@link ClusterNode} of the resource name.
      *
@@ -135,13 +140,19 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
 
     /**
      * Get {@link ClusterNode}s map, this map holds all {@link ClusterNode}s, it's key is resource name,
-     * value is the related {@link ClusterNode}. <br/>
-     * DO NOT MODIFY the map returned.
+     * value is the related {@link ClusterNode}. The map returned is read-only.
      *
      * @return all {@link ClusterNode}s
      */
     public static Map<ResourceWrapper, ClusterNode> getClusterNodeMap() {
-        return clusterNodeMap;
+        return clusterNodeMap.asMap();
+    }
+
+    /**
+     * Clear all registered {@link ClusterNode}s. Only for internal test.
+     */
+    public static void clearClusterNodeMap() {
+        clusterNodeMap.clear();
     }
 
     /**
@@ -149,7 +160,7 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
      * {@link SampleCountProperty#SAMPLE_COUNT} is changed.
      */
     public static void resetClusterNodes() {
-        for (ClusterNode node : clusterNodeMap.values()) {
+        for (ClusterNode node : clusterNodeMap.asMap().values()) {
             node.reset();
         }
     }
@@ -24,9 +24,7 @@ import com.alibaba.csp.sentinel.node.EntranceNode;
 import com.alibaba.csp.sentinel.slotchain.AbstractLinkedProcessorSlot;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.spi.Spi;
-
-import java.util.HashMap;
-import java.util.Map;
+import com.alibaba.csp.sentinel.util.ConcurrentRegistry;
 
 /**
  *
@@ -135,7 +133,7 @@ public class NodeSelectorSlot extends AbstractLinkedProcessorSlot<Object> {
     /**
      * map 缓存的是 同一资源 在不同调用链入口创建的 DefaultNode。
      */
-    private volatile Map<String/*调用链入口名称*/, DefaultNode> map = new HashMap<String, DefaultNode>(10);
+    private final ConcurrentRegistry<String/*调用链入口名称*/, DefaultNode> map = new ConcurrentRegistry<>();
 
     @Override
     public void entry(Context context, ResourceWrapper resourceWrapper, Object obj, int count, boolean prioritized, Object... args)
@@ -143,20 +141,12 @@ public class NodeSelectorSlot extends AbstractLinkedProcessorSlot<Object> {
 
         DefaultNode node = map.get(context.getName());
         if (node == null) {
-            synchronized (this) {
-                node = map.get(context.getName());
-                if (node == null) {
-                    // 为资源创建 DefaultNode
-                    node = new DefaultNode(resourceWrapper, null);
-                    // todo 将数据拷贝到新map，新map插入新数据后，再将旧map 的指针指向新map
-                    HashMap<String, DefaultNode> cacheMap = new HashMap<String, DefaultNode>(map.size());
-                    cacheMap.putAll(map);
-                    cacheMap.put(context.getName(), node);
-                    map = cacheMap;
-                    // // 将当前资源的 DefaultNode 绑定到调用树上
-                    ((DefaultNode) context.getLastNode()).addChild(node);
-                }
-
+            // 为资源创建 DefaultNode
+            DefaultNode newNode = new DefaultNode(resourceWrapper, null);
+            node = map.register(context.getName(), newNode);
+            if (node == newNode) {
+                // 将当前资源的 DefaultNode 绑定到调用树上，只有注册成功的节点会被绑定
+                ((DefaultNode) context.getLastNode()).addChild(newNode);
             }
         }
 
@@ -21,7 +21,8 @@ import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
 
 import com.alibaba.csp.sentinel.util.AssertUtil;
-import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.Clock;
+import com.alibaba.csp.sentinel.util.clock.GlobalClock;
 
 /**
  * <p>1、统计指标的基础数据结构</p>
@@ -51,6 +52,11 @@ public abstract class LeapArray<T> {
      */
     private final ReentrantLock updateLock = new ReentrantLock();
 
+    /**
+     * The clock providing current time for the methods without explicit time.
+     */
+    protected final Clock clock;
+
     /**
      * The total bucket count is: {@code sampleCount = intervalInMs / windowLengthInMs}.
      *
@@ -58,6 +64,16 @@ public abstract class LeapArray<T> {
      * @param intervalInMs the total time interval of this {@link LeapArray} in milliseconds
      */
     public LeapArray(int sampleCount, int intervalInMs) {
+        this(sampleCount, intervalInMs, GlobalClock.INSTANCE);
+    }
+
+    /**
+     * @param sampleCount  bucket count of the sliding window
+     * @param intervalInMs the total time interval of this {@link LeapArray} in milliseconds
+     * @param clock        the clock providing current time
+     */
+    public LeapArray(int sampleCount, int intervalInMs, Clock clock) {
+        AssertUtil.notNull(clock, "clock cannot be null");
         AssertUtil.isTrue(sampleCount > 0, "bucket count is invalid: " + sampleCount);
         AssertUtil.isTrue(intervalInMs > 0, "total time interval of the sliding window should be positive");
         AssertUtil.isTrue(intervalInMs % sampleCount == 0, "time span needs to be evenly divided");
@@ -68,13 +84,14 @@ public abstract class LeapArray<T> {
         this.sampleCount = sampleCount;
 
         this.array = new AtomicReferenceArray<>(sampleCount);
+        this.clock = clock;
     }
 
     /**
      * 获取当前时间戳所在的 bucket
      */
     public WindowWrap<T> currentWindow() {
-        return currentWindow(TimeUtil.currentTimeMillis());
+        return currentWindow(clock.currentTimeMillis());
     }
 
     /**
@@ -245,7 +262,7 @@ public abstract class LeapArray<T> {
      * 获取当前时间戳所在的前一个 bucket
      */
     public WindowWrap<T> getPreviousWindow() {
-        return getPreviousWindow(TimeUtil.currentTimeMillis());
+        return getPreviousWindow(clock.currentTimeMillis());
     }
 
     /**
@@ -270,7 +287,7 @@ public abstract class LeapArray<T> {
      * 检查bucket是否已弃用，这意味着 bucket 已经落后了至少一整段时间
      */
     public boolean isWindowDeprecated(/*@NonNull*/ WindowWrap<T> windowWrap) {
-        return isWindowDeprecated(TimeUtil.currentTimeMillis(), windowWrap);
+        return isWindowDeprecated(clock.currentTimeMillis(), windowWrap);
     }
 
     public boolean isWindowDeprecated(long time, WindowWrap<T> windowWrap) {
@@ -281,7 +298,7 @@ public abstract class LeapArray<T> {
      * 获取当前时刻滑动时间窗口的有效 bucket 集合
      */
     public List<WindowWrap<T>> list() {
-        return list(TimeUtil.currentTimeMillis());
+        return list(clock.currentTimeMillis());
     }
 
     public List<WindowWrap<T>> list(long validTime) {
@@ -324,7 +341,7 @@ public abstract class LeapArray<T> {
      * @return aggregated value list for entire sliding window
      */
     public List<T> values() {
-        return values(TimeUtil.currentTimeMillis());
+        return values(clock.currentTimeMillis());
     }
 
     public List<T> values(long timeMillis) {
@@ -369,7 +386,7 @@ public abstract class LeapArray<T> {
      * @return the "head" bucket if it exists and is valid; otherwise null
      */
     public WindowWrap<T> getValidHead() {
-        return getValidHead(TimeUtil.currentTimeMillis());
+        return getValidHead(clock.currentTimeMillis());
     }
 
     /**
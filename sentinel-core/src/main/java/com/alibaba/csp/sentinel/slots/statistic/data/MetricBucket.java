@@ -39,10 +39,23 @@ public class MetricBucket {
     private volatile long minRt;
 
     public MetricBucket() {
-        MetricEvent[] events = MetricEvent.values();
-        this.counters = new LongAdder[events.length];
-        for (MetricEvent event : events) {
-            counters[event.ordinal()] = new LongAdder();
+        this(true);
+    }
+
+    /**
+     * For subclasses that keep the counters in their own storage.
+     *
+     * @param allocateCounters whether to allocate the default {@link LongAdder} counters
+     */
+    protected MetricBucket(boolean allocateCounters) {
+        if (allocateCounters) {
+            MetricEvent[] events = MetricEvent.values();
+            this.counters = new LongAdder[events.length];
+            for (MetricEvent event : events) {
+                counters[event.ordinal()] = new LongAdder();
+            }
+        } else {
+            this.counters = null;
         }
         initMinRt();
     }
@@ -59,7 +72,7 @@ public class MetricBucket {
         return this;
     }
 
-    private void initMinRt() {
+    protected void initMinRt() {
         this.minRt = SentinelConfig.statisticMaxRt();
     }
 
@@ -0,0 +1,175 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
+
+/**
+ * <p>A {@link MetricBucket} that keeps the counters of all {@link MetricEvent}s in primitive long arrays
+ * instead of one {@link java.util.concurrent.atomic.LongAdder} per event.</p>
+ *
+ * <p>Uncontended writes go to a small base row holding one slot per event. Once a CAS on the base row fails,
+ * a striped array is allocated (only once) and later writes are spread across its rows by a per-thread probe.
+ * Each row holds the counters of all events and is padded to {@code 128} bytes, so different threads do not
+ * share a cache line. Compared to one {@code LongAdder} (and its {@code Cell} objects) per event, this keeps
+ * the footprint of an idle bucket to a single small array and of a contended bucket to one contiguous array.</p>
+ */
+public class StripedMetricBucket extends MetricBucket {
+
+    private static final MetricEvent[] EVENTS = MetricEvent.values();
+    private static final int EVENT_COUNT = EVENTS.length;
+
+    /**
+     * Number of longs in one stripe row: all events, padded to 128 bytes.
+     */
+    private static final int ROW_SHIFT = rowShift(EVENT_COUNT);
+
+    /**
+     * Max count of stripe rows, the power of two that is not less than CPU count (at most 64).
+     */
+    static final int MAX_STRIPES = maxStripes(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray base = new AtomicLongArray(EVENT_COUNT);
+
+    /**
+     * Lazily allocated striped counters, laid out as {@code MAX_STRIPES} rows of {@code 1 << ROW_SHIFT} longs.
+     * It will never be replaced once allocated, so no update would get lost.
+     */
+    private volatile AtomicLongArray stripes;
+
+    public StripedMetricBucket() {
+        super(false);
+    }
+
+    @Override
+    public MetricBucket reset(MetricBucket bucket) {
+        clearStripes();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            base.set(i, bucket.get(EVENTS[i]));
+        }
+        initMinRt();
+        return this;
+    }
+
+    @Override
+    public MetricBucket reset() {
+        clearStripes();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            base.set(i, 0);
+        }
+        initMinRt();
+        return this;
+    }
+
+    private void clearStripes() {
+        AtomicLongArray s = stripes;
+        if (s != null) {
+            for (int i = 0; i < s.length(); i++) {
+                s.set(i, 0);
+            }
+        }
+    }
+
+    @Override
+    public long get(MetricEvent event) {
+        int idx = event.ordinal();
+        long sum = base.get(idx);
+        AtomicLongArray s = stripes;
+        if (s != null) {
+            for (int i = idx; i < s.length(); i += 1 << ROW_SHIFT) {
+                sum += s.get(i);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public MetricBucket add(MetricEvent event, long n) {
+        int idx = event.ordinal();
+        AtomicLongArray s = stripes;
+        if (s == null) {
+            long v = base.get(idx);
+            if (base.compareAndSet(idx, v, v + n)) {
+                return this;
+            }
+            if (MAX_STRIPES <= 1) {
+                // Striping won't help on a single CPU.
+                base.addAndGet(idx, n);
+                return this;
+            }
+            s = inflate();
+        }
+        int h = probe();
+        for (int retry = 0; ; retry++) {
+            int i = ((h & (MAX_STRIPES - 1)) << ROW_SHIFT) + idx;
+            long v = s.get(i);
+            if (s.compareAndSet(i, v, v + n)) {
+                return this;
+            }
+            if (retry >= MAX_STRIPES) {
+                s.addAndGet(i, n);
+                return this;
+            }
+            h = advanceProbe(h);
+        }
+    }
+
+    private AtomicLongArray inflate() {
+        AtomicLongArray s = stripes;
+        if (s == null) {
+            synchronized (this) {
+                s = stripes;
+                if (s == null) {
+                    stripes = s = new AtomicLongArray(MAX_STRIPES << ROW_SHIFT);
+                }
+            }
+        }
+        return s;
+    }
+
+    private static int probe() {
+        long id = Thread.currentThread().getId();
+        int h = (int)(id ^ (id >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int advanceProbe(int h) {
+        // Marsaglia xorshift, same as the one used by Striped64.
+        h ^= h << 13;
+        h ^= h >>> 17;
+        h ^= h << 5;
+        return h;
+    }
+
+    private static int rowShift(int eventCount) {
+        // At least 16 longs (128 bytes) per row to avoid false sharing with adjacent-line prefetch.
+        int shift = 4;
+        while ((1 << shift) < eventCount) {
+            shift++;
+        }
+        return shift;
+    }
+
+    private static int maxStripes(int cpuCount) {
+        int n = 1;
+        while (n < cpuCount && n < 64) {
+            n <<= 1;
+        }
+        return n;
+    }
+}
@@ -42,10 +42,18 @@ public class ArrayMetric implements Metric {
     }
 
     public ArrayMetric(int sampleCount, int intervalInMs, boolean enableOccupy) {
+        this(sampleCount, intervalInMs, enableOccupy, SentinelConfig.statisticStripedBucketEnabled());
+    }
+
+    /**
+     * @param striped whether to use {@link com.alibaba.csp.sentinel.slots.statistic.data.StripedMetricBucket}
+     *                as the bucket of the sliding window
+     */
+    public ArrayMetric(int sampleCount, int intervalInMs, boolean enableOccupy, boolean striped) {
         if (enableOccupy) {
-            this.data = new OccupiableBucketLeapArray(sampleCount, intervalInMs);
+            this.data = new OccupiableBucketLeapArray(sampleCount, intervalInMs, striped);
         } else {
-            this.data = new BucketLeapArray(sampleCount, intervalInMs);
+            this.data = new BucketLeapArray(sampleCount, intervalInMs, striped);
         }
     }
 
@@ -15,9 +15,11 @@
  */
 package com.alibaba.csp.sentinel.slots.statistic.metric;
 
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
 import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
 import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
+import com.alibaba.csp.sentinel.slots.statistic.data.StripedMetricBucket;
 
 /**
  * The fundamental data structure for metric statistics in a time span.
@@ -28,13 +30,20 @@ import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
  */
 public class BucketLeapArray extends LeapArray<MetricBucket> {
 
+    private final boolean striped;
+
     public BucketLeapArray(int sampleCount, int intervalInMs) {
+        this(sampleCount, intervalInMs, SentinelConfig.statisticStripedBucketEnabled());
+    }
+
+    public BucketLeapArray(int sampleCount, int intervalInMs, boolean striped) {
         super(sampleCount, intervalInMs);
+        this.striped = striped;
     }
 
     @Override
     public MetricBucket newEmptyBucket(long time) {
-        return new MetricBucket();
+        return striped ? new StripedMetricBucket() : new MetricBucket();
     }
 
     @Override
@@ -15,9 +15,11 @@
  */
 package com.alibaba.csp.sentinel.slots.statistic.metric.occupy;
 
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
 import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
 import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
+import com.alibaba.csp.sentinel.slots.statistic.data.StripedMetricBucket;
 
 /**
  * 一种 {@code BucketLeapArray}，仅用于储备未来的 bucket
@@ -27,14 +29,21 @@ import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
  */
 public class FutureBucketLeapArray extends LeapArray<MetricBucket> {
 
+    private final boolean striped;
+
     public FutureBucketLeapArray(int sampleCount, int intervalInMs) {
+        this(sampleCount, intervalInMs, SentinelConfig.statisticStripedBucketEnabled());
+    }
+
+    public FutureBucketLeapArray(int sampleCount, int intervalInMs, boolean striped) {
         // This class is the original "BorrowBucketArray".
         super(sampleCount, intervalInMs);
+        this.striped = striped;
     }
 
     @Override
     public MetricBucket newEmptyBucket(long time) {
-        return new MetricBucket();
+        return striped ? new StripedMetricBucket() : new MetricBucket();
     }
 
     @Override
@@ -0,0 +1,143 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.csp.sentinel.util.function.Function;
+
+/**
+ * <p>A concurrent registry with an optional size limit, which is used to hold the entities created for
+ * resources or contexts (e.g. slot chains, cluster nodes and entrance nodes).</p>
+ *
+ * <p>Different from the copy-on-write maps guarded by a global lock, registering a new key won't copy
+ * the existing entries and won't block the registration of other keys, so warming up {@code N} keys
+ * costs {@code O(N)} rather than {@code O(N^2)}. New values are created outside of the map, so a slow
+ * factory won't block the readers or writers of other keys either. The first value registered for a key
+ * wins, and all callers will get the same value.</p>
+ *
+ * <p>The size limit is checked when registering a new key, so it may be exceeded slightly
+ * when many new keys are being registered concurrently.</p>
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public final class ConcurrentRegistry<K, V> {
+
+    private final ConcurrentHashMap<K, V> map;
+    private final Map<K, V> readOnlyView;
+    private final int maxSize;
+
+    /**
+     * Create a registry without size limit.
+     */
+    public ConcurrentRegistry() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxSize max count of keys that could be registered
+     */
+    public ConcurrentRegistry(int maxSize) {
+        AssertUtil.isTrue(maxSize > 0, "maxSize should be positive");
+        this.maxSize = maxSize;
+        this.map = new ConcurrentHashMap<>(Math.min(maxSize, 16));
+        this.readOnlyView = Collections.unmodifiableMap(map);
+    }
+
+    public V get(K key) {
+        return map.get(key);
+    }
+
+    /**
+     * Get the value of provided key, or create and register a new one via the factory if the key is absent.
+     * The factory may be invoked by several threads racing for the same key, and only one of the created
+     * values will be registered, so it must be free of side effects. Use {@link #register(Object, Object)}
+     * if something should be done only for the registered value.
+     *
+     * @param key     the key
+     * @param factory the factory to create the value, which must not modify this registry
+     * @return the registered value, or null if the key is absent and the registry is full
+     */
+    public V getOrCreate(K key, Function<? super K, ? extends V> factory) {
+        V value = map.get(key);
+        if (value != null) {
+            return value;
+        }
+        if (map.size() >= maxSize) {
+            return null;
+        }
+        return register(key, factory.apply(key));
+    }
+
+    /**
+     * Register the value of provided key if the key is absent and the registry is not full.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the registered value of the key, which is exactly the provided value if it's registered by this
+     * call, or null if the key is absent and the registry is full
+     */
+    public V register(K key, V value) {
+        V old = map.get(key);
+        if (old != null) {
+            return old;
+        }
+        if (map.size() >= maxSize) {
+            return null;
+        }
+        old = map.putIfAbsent(key, value);
+        return old == null ? value : old;
+    }
+
+    /**
+     * Register the value of provided key, replacing the old one if present.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return false if the key is absent and the registry is full, otherwise true
+     */
+    public boolean put(K key, V value) {
+        if (!map.containsKey(key) && map.size() >= maxSize) {
+            return false;
+        }
+        map.put(key, value);
+        return true;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * Get the read-only view of this registry, which reflects later registrations.
+     *
+     * @return the unmodifiable map view of this registry
+     */
+    public Map<K, V> asMap() {
+        return readOnlyView;
+    }
+}
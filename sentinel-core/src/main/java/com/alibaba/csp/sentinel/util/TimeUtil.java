@@ -22,6 +22,9 @@ import java.util.concurrent.atomic.LongAdder;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
 import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.util.clock.Clock;
+import com.alibaba.csp.sentinel.util.clock.ClockProvider;
+import com.alibaba.csp.sentinel.util.clock.TickerClock;
 import com.alibaba.csp.sentinel.util.function.Tuple2;
 
 /**
@@ -35,6 +38,12 @@ import com.alibaba.csp.sentinel.util.function.Tuple2;
  * </pre>
  * For detail design and proposals please goto
  * <a href="https://github.com/alibaba/Sentinel/issues/1702#issuecomment-692151160">https://github.com/alibaba/Sentinel/issues/1702</a>
+ * </p>
+ * <p>
+ * The tick thread only backs the default {@link TickerClock}. {@link #currentTimeMillis()} actually reads the
+ * global {@link Clock} resolved by {@link ClockProvider}, so the tick thread won't be started at all
+ * if another clock (e.g. {@code csp.sentinel.clock.type=system}) is used.
+ * </p>
  *
  * @author qinan.qn
  * @author jason
@@ -63,8 +72,6 @@ public final class TimeUtil implements Runnable {
         }
     }
 
-    private static TimeUtil INSTANCE;
-
     private volatile long currentTimeMillis;
     private volatile STATE state = STATE.IDLE;
 
@@ -75,8 +82,8 @@ public final class TimeUtil implements Runnable {
      */
     private long lastCheck = 0;
 
-    static {
-        INSTANCE = new TimeUtil();
+    private static class InstanceHolder {
+        private static final TimeUtil INSTANCE = new TimeUtil();
     }
 
     public TimeUtil() {
@@ -215,11 +222,26 @@ public final class TimeUtil implements Runnable {
         return this.currentTime(false);
     }
 
+    /**
+     * Get the ticker instance, which will be created (and the tick thread started) on first call.
+     *
+     * @return the ticker instance
+     */
     public static TimeUtil instance() {
-        return INSTANCE;
+        return InstanceHolder.INSTANCE;
     }
 
+    /**
+     * Current timestamp in milliseconds of the global {@link Clock}.
+     *
+     * @return current timestamp in milliseconds
+     */
     public static long currentTimeMillis() {
-        return INSTANCE.getTime();
+        Clock clock = ClockProvider.getClock();
+        if (clock == TickerClock.INSTANCE) {
+            // The default clock, read the ticker directly.
+            return InstanceHolder.INSTANCE.getTime();
+        }
+        return clock.currentTimeMillis();
     }
 }
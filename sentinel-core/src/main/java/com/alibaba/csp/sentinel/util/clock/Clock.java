@@ -0,0 +1,36 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+/**
+ * <p>The millisecond-level time source of Sentinel, which is used by the sliding windows and traffic shaping
+ * controllers via {@link com.alibaba.csp.sentinel.util.TimeUtil#currentTimeMillis()}.</p>
+ *
+ * <p>The global clock is resolved by {@link ClockProvider}: a custom clock could be provided via SPI, otherwise
+ * the built-in clock specified by {@code csp.sentinel.clock.type} will be used.</p>
+ *
+ * <p>Implementations must be thread-safe and cheap, as the clock will be read several times per entry.</p>
+ */
+public interface Clock {
+
+    /**
+     * Get current time in milliseconds. The value is expected to be close to epoch milliseconds,
+     * as it's also used as the timestamp of metrics.
+     *
+     * @return current time in milliseconds
+     */
+    long currentTimeMillis();
+}
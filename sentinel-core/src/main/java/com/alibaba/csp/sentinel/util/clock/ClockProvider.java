@@ -0,0 +1,89 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.spi.SpiLoader;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>Provider for the global {@link Clock}. The clock is resolved in order below:</p>
+ *
+ * <ol>
+ * <li>the first {@link Clock} provided via SPI;</li>
+ * <li>the built-in clock specified by {@code csp.sentinel.clock.type}: {@code ticker} ({@link TickerClock},
+ * by default), {@code monotonic} ({@link MonotonicClock}) or {@code system} ({@link SystemClock}).</li>
+ * </ol>
+ */
+public final class ClockProvider {
+
+    public static final String CLOCK_TYPE_TICKER = "ticker";
+    public static final String CLOCK_TYPE_MONOTONIC = "monotonic";
+    public static final String CLOCK_TYPE_SYSTEM = "system";
+
+    private static volatile Clock clock;
+
+    static {
+        resolveClockInstance();
+    }
+
+    public static Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Replace the global clock, e.g. with a {@link ManualClock} in tests.
+     *
+     * @param newClock new clock, should not be null
+     */
+    public static void setClock(Clock newClock) {
+        AssertUtil.notNull(newClock, "clock cannot be null");
+        clock = newClock;
+        RecordLog.info("[ClockProvider] Global clock changed to: {}", newClock.getClass().getCanonicalName());
+    }
+
+    /**
+     * Reset the global clock to the resolved one.
+     */
+    public static void resetClock() {
+        resolveClockInstance();
+    }
+
+    static Clock newBuiltInClock(String type) {
+        if (CLOCK_TYPE_MONOTONIC.equalsIgnoreCase(type)) {
+            return new MonotonicClock();
+        }
+        if (CLOCK_TYPE_SYSTEM.equalsIgnoreCase(type)) {
+            return SystemClock.INSTANCE;
+        }
+        if (type != null && !CLOCK_TYPE_TICKER.equalsIgnoreCase(type)) {
+            RecordLog.warn("[ClockProvider] Unknown clock type <{}>, using the default ticker clock", type);
+        }
+        return TickerClock.INSTANCE;
+    }
+
+    private static void resolveClockInstance() {
+        Clock resolvedClock = SpiLoader.of(Clock.class).loadFirstInstance();
+        if (resolvedClock == null) {
+            resolvedClock = newBuiltInClock(SentinelConfig.clockType());
+        }
+        clock = resolvedClock;
+        RecordLog.info("[ClockProvider] Global clock resolved: {}", resolvedClock.getClass().getCanonicalName());
+    }
+
+    private ClockProvider() {}
+}
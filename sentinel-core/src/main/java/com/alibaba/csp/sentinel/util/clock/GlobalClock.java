@@ -0,0 +1,34 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * The view of {@link TimeUtil#currentTimeMillis()}, which always follows the current global clock.
+ * It's the default clock of sliding windows and traffic shaping controllers.
+ */
+public final class GlobalClock implements Clock {
+
+    public static final GlobalClock INSTANCE = new GlobalClock();
+
+    private GlobalClock() {}
+
+    @Override
+    public long currentTimeMillis() {
+        return TimeUtil.currentTimeMillis();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The clock which only moves when being told to, mainly for tests.
+ */
+public final class ManualClock implements Clock {
+
+    private final AtomicLong currentMillis;
+
+    public ManualClock() {
+        this(0);
+    }
+
+    public ManualClock(long initialMillis) {
+        this.currentMillis = new AtomicLong(initialMillis);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return currentMillis.get();
+    }
+
+    public ManualClock setCurrentTimeMillis(long millis) {
+        currentMillis.set(millis);
+        return this;
+    }
+
+    /**
+     * Move the clock forward (or backward if negative).
+     *
+     * @param millis milliseconds to move
+     * @return new time of this clock
+     */
+    public long advance(long millis) {
+        return currentMillis.addAndGet(millis);
+    }
+}
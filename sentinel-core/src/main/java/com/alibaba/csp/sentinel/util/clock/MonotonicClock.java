@@ -0,0 +1,42 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The clock derived from {@link System#nanoTime()}, which is anchored to the wall clock when created
+ * and never goes backwards or jumps when the wall clock is adjusted (e.g. stepped by NTP).</p>
+ *
+ * <p>As the wall clock is read only once, the value may drift away from it slowly (usually a few milliseconds
+ * per hour), which is acceptable for the statistics but should be kept in mind when comparing the timestamps
+ * of metrics from different machines.</p>
+ */
+public final class MonotonicClock implements Clock {
+
+    private final long baseMillis;
+    private final long baseNanos;
+
+    public MonotonicClock() {
+        this.baseMillis = System.currentTimeMillis();
+        this.baseNanos = System.nanoTime();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return baseMillis + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - baseNanos);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * The clock backed by the tick thread of {@link TimeUtil}, which caches {@link System#currentTimeMillis()}
+ * under heavy load. It's the default clock. The tick thread is started when the clock is first read.
+ */
+public final class TickerClock implements Clock {
+
+    public static final TickerClock INSTANCE = new TickerClock();
+
+    private TickerClock() {}
+
+    @Override
+    public long currentTimeMillis() {
+        return TimeUtil.instance().getTime();
+    }
+}
@@ -279,21 +279,21 @@ public class CtSphTest {
     private void fillFullResources() {
         for (int i = 0; i < Constants.MAX_SLOT_CHAIN_SIZE; i++) {
             ResourceWrapper resourceWrapper = new StringResourceWrapper("test-resource-" + i, EntryType.IN);
-            CtSph.getChainMap().put(resourceWrapper, SlotChainProvider.newSlotChain());
+            CtSph.putChain(resourceWrapper, SlotChainProvider.newSlotChain());
         }
     }
 
     private void addShouldNotPassSlotFor(ResourceWrapper resourceWrapper) {
         ProcessorSlotChain slotChain = new DefaultProcessorSlotChain();
         slotChain.addLast(new ShouldNotPassSlot());
-        CtSph.getChainMap().put(resourceWrapper, slotChain);
+        CtSph.putChain(resourceWrapper, slotChain);
     }
 
     private ShouldPassSlot addShouldPassSlotFor(ResourceWrapper resourceWrapper) {
         ProcessorSlotChain slotChain = new DefaultProcessorSlotChain();
         ShouldPassSlot shouldPassSlot = new ShouldPassSlot();
         slotChain.addLast(shouldPassSlot);
-        CtSph.getChainMap().put(resourceWrapper, slotChain);
+        CtSph.putChain(resourceWrapper, slotChain);
         return shouldPassSlot;
     }
 
@@ -301,7 +301,7 @@ public class CtSphTest {
         ProcessorSlotChain slotChain = new DefaultProcessorSlotChain();
         MustBlockSlot mustBlockSlot = new MustBlockSlot();
         slotChain.addLast(mustBlockSlot);
-        CtSph.getChainMap().put(resourceWrapper, slotChain);
+        CtSph.putChain(resourceWrapper, slotChain);
         return mustBlockSlot;
     }
 
@@ -0,0 +1,189 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for pooled entries of {@link CtSph}.
+ */
+public class EntryPoolTest {
+
+    private final CtSph ctSph = new CtSph(true);
+
+    @Before
+    public void setUp() {
+        ContextUtil.exit();
+        Constants.ON = true;
+    }
+
+    @After
+    public void tearDown() {
+        ContextUtil.exit();
+        Constants.ON = true;
+    }
+
+    @Test
+    public void testEntryRecycledAfterExit() throws BlockException {
+        ResourceWrapper resource = new StringResourceWrapper("testEntryRecycledAfterExit", EntryType.IN);
+
+        Entry e1 = ctSph.entry(resource, 1);
+        assertTrue(e1 instanceof CtEntry);
+        Context context = ContextUtil.getContext();
+        assertNotNull(context);
+        assertSame(e1, context.getCurEntry());
+        assertNotNull(e1.getCurNode());
+        e1.exit();
+
+        assertTrue(((CtEntry)e1).isReleased());
+        assertNull(e1.getResourceWrapper());
+        assertNull(ContextUtil.getContext());
+
+        Entry e2 = ctSph.entry(resource, 1);
+        // Both the entry and the default context are reused.
+        assertSame(e1, e2);
+        assertSame(context, ContextUtil.getContext());
+        assertFalse(((CtEntry)e2).isReleased());
+        assertSame(resource, e2.getResourceWrapper());
+        e2.exit();
+    }
+
+    @Test
+    public void testNestedPooledEntries() throws BlockException {
+        ResourceWrapper r1 = new StringResourceWrapper("testNestedPooledEntries1", EntryType.IN);
+        ResourceWrapper r2 = new StringResourceWrapper("testNestedPooledEntries2", EntryType.IN);
+
+        Entry outer = ctSph.entry(r1, 1);
+        Entry inner = ctSph.entry(r2, 1);
+        assertNotSame(outer, inner);
+        assertSame(inner, ContextUtil.getContext().getCurEntry());
+        assertSame(outer.getCurNode(), inner.getLastNode());
+
+        inner.exit();
+        assertSame(outer, ContextUtil.getContext().getCurEntry());
+        outer.exit();
+        assertNull(ContextUtil.getContext());
+
+        // Exit in wrong order.
+        outer = ctSph.entry(r1, 1);
+        inner = ctSph.entry(r2, 1);
+        try {
+            outer.exit();
+            fail("should throw ErrorEntryFreeException");
+        } catch (ErrorEntryFreeException ex) {
+            assertTrue(((CtEntry)inner).isReleased());
+        }
+    }
+
+    @Test
+    public void testExitNestedPooledEntriesInWrongOrder() throws BlockException {
+        ResourceWrapper r1 = new StringResourceWrapper("testExitNestedPooledEntriesInWrongOrder1", EntryType.IN);
+        ResourceWrapper r2 = new StringResourceWrapper("testExitNestedPooledEntriesInWrongOrder2", EntryType.IN);
+        ResourceWrapper r3 = new StringResourceWrapper("testExitNestedPooledEntriesInWrongOrder3", EntryType.IN);
+
+        Entry e1 = ctSph.entry(r1, 1);
+        Entry e2 = ctSph.entry(r2, 1);
+        Entry e3 = ctSph.entry(r3, 1);
+        try {
+            e1.exit();
+            fail("should throw ErrorEntryFreeException");
+        } catch (ErrorEntryFreeException ex) {
+            // All entries of the call stack are exited, and the default context is exited as well.
+            assertTrue(((CtEntry)e1).isReleased());
+            assertTrue(((CtEntry)e2).isReleased());
+            assertTrue(((CtEntry)e3).isReleased());
+            assertNull(ContextUtil.getContext());
+        }
+    }
+
+    @Test
+    public void testStaleExitIgnored() throws Exception {
+        ResourceWrapper resource = new StringResourceWrapper("testStaleExitIgnored", EntryType.IN);
+
+        Entry e1 = ctSph.entry(resource, 1);
+        e1.exit();
+        int poolSize = EntryPool.local().size();
+        // Exiting again is ignored, and the entry is not given back twice.
+        e1.exit();
+        assertEquals(poolSize, EntryPool.local().size());
+
+        final Entry e2 = ctSph.entry(resource, 1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                e2.exit();
+            }
+        });
+        thread.start();
+        thread.join();
+        // The exit from another thread is ignored.
+        assertFalse(((CtEntry)e2).isReleased());
+        assertSame(e2, ContextUtil.getContext().getCurEntry());
+        e2.exit();
+        assertNull(ContextUtil.getContext());
+    }
+
+    @Test
+    public void testNoOpEntryForPassThrough() throws BlockException {
+        ResourceWrapper resource = new StringResourceWrapper("testNoOpEntryForPassThrough", EntryType.IN);
+        Constants.ON = false;
+
+        Entry entry = ctSph.entry(resource, 1);
+        assertTrue(entry instanceof NoOpEntry);
+        assertSame(resource, entry.getResourceWrapper());
+        assertNull(ContextUtil.getContext());
+        entry.setError(new RuntimeException());
+        assertNull(entry.getError());
+        entry.exit();
+    }
+
+    @Test
+    public void testNoOpEntryKeptByResourceHandle() throws BlockException {
+        ResourceHandle handle = ResourceHandle.of("testNoOpEntryKeptByResourceHandle", EntryType.IN, 0);
+        Constants.ON = false;
+
+        Entry e1 = ctSph.entry(handle, 1);
+        assertTrue(e1 instanceof NoOpEntry);
+        assertSame(handle, e1.getResourceWrapper());
+        e1.exit();
+        assertSame(e1, ctSph.entry(handle, 1));
+    }
+
+    @Test
+    public void testLocalPoolCapacity() {
+        EntryPool.LocalPool pool = EntryPool.local();
+        int initSize = pool.size();
+        CtEntry[] entries = new CtEntry[EntryPool.MAX_POOLED_PER_THREAD + 1];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new CtEntry(pool);
+        }
+        for (CtEntry entry : entries) {
+            pool.release(entry);
+        }
+        assertEquals(EntryPool.MAX_POOLED_PER_THREAD, pool.size());
+        assertTrue(pool.size() >= initSize);
+    }
+}
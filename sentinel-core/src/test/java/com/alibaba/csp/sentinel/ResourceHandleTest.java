@@ -0,0 +1,87 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlotChain;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ResourceHandle}.
+ */
+public class ResourceHandleTest {
+
+    @Before
+    public void setUp() {
+        CtSph.resetChainMap();
+    }
+
+    @After
+    public void tearDown() {
+        CtSph.resetChainMap();
+    }
+
+    @Test
+    public void testInternedHandle() {
+        ResourceHandle h1 = SphU.resource("testInternedHandle");
+        ResourceHandle h2 = SphU.resource("testInternedHandle");
+        assertSame(h1, h2);
+        assertTrue(h1.getId() >= 0);
+        assertEquals(EntryType.OUT, h1.getEntryType());
+
+        ResourceHandle in = SphU.resource("testInternedHandle", EntryType.IN);
+        assertNotSame(h1, in);
+        assertNotEquals(h1.getId(), in.getId());
+        // Same resource name means same resource.
+        assertEquals(new StringResourceWrapper("testInternedHandle", EntryType.IN), h1);
+    }
+
+    @Test
+    public void testEntryWithHandle() throws BlockException {
+        String resourceName = "testEntryWithHandle";
+        ResourceHandle handle = SphU.resource(resourceName);
+        assertNull(handle.getChain());
+        assertNull(handle.getClusterNode());
+
+        Entry entry = SphU.entry(handle);
+        ProcessorSlotChain chain = handle.getChain();
+        assertNotNull(chain);
+        assertSame(chain, CtSph.getChainMap().get(handle));
+        assertSame(handle, entry.getResourceWrapper());
+        entry.exit();
+
+        ClusterNode clusterNode = handle.getClusterNode();
+        assertNotNull(clusterNode);
+        assertSame(clusterNode, ClusterBuilderSlot.getClusterNode(resourceName, EntryType.OUT));
+        assertEquals(1, clusterNode.totalRequest());
+
+        // Entering with plain resource name shares the same slot chain and node.
+        SphU.entry(resourceName).exit();
+        assertSame(chain, handle.getChain());
+        assertEquals(2, clusterNode.totalRequest());
+
+        ContextUtil.exit();
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.util.PidUtil;
+
+public class BinaryMetricWriterTest {
+
+    private static final long BASE_TIME = 1600000000000L;
+
+    private File baseDir;
+    private String baseFileName;
+
+    @Before
+    public void setUp() throws Exception {
+        baseDir = File.createTempFile("sentinel-metrics", "");
+        baseDir.delete();
+        baseDir.mkdirs();
+        baseFileName = BinaryMetricWriter.formBinaryMetricFileName(SentinelConfig.getAppName(), PidUtil.getPid());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = baseDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        baseDir.delete();
+    }
+
+    private static List<MetricNode> metricsOf(int count, long passQps) {
+        List<MetricNode> nodes = new ArrayList<MetricNode>();
+        for (int i = 0; i < count; i++) {
+            MetricNode node = new MetricNode();
+            node.setResource("resource-" + i);
+            node.setClassification(i % 3);
+            node.setPassQps(passQps);
+            node.setBlockQps(i);
+            node.setSuccessQps(passQps - 1);
+            node.setExceptionQps(2);
+            node.setRt(30 + i);
+            node.setOccupiedPassQps(1);
+            node.setConcurrency(i + 1);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testWriteAndFind() throws Exception {
+        BinaryMetricWriter writer = new BinaryMetricWriter(baseDir.getAbsolutePath(), 1024 * 1024, 6);
+        for (int i = 0; i < 10; i++) {
+            writer.write(BASE_TIME + i * 1000, metricsOf(5, i));
+        }
+        // Metrics of the same second should be appended to the same index entry.
+        writer.write(BASE_TIME + 9000, metricsOf(1, 100));
+
+        BinaryMetricSearcher searcher = new BinaryMetricSearcher(baseDir.getAbsolutePath(), baseFileName);
+        assertNull(searcher.find(BASE_TIME + 10000, 100));
+
+        List<MetricNode> nodes = searcher.find(BASE_TIME + 2000, 12);
+        // Metrics of the same second are never split.
+        assertEquals(15, nodes.size());
+        MetricNode node = nodes.get(4);
+        assertEquals(BASE_TIME + 2000, node.getTimestamp());
+        assertEquals("resource-4", node.getResource());
+        assertEquals(1, node.getClassification());
+        assertEquals(2, node.getPassQps());
+        assertEquals(4, node.getBlockQps());
+        assertEquals(1, node.getSuccessQps());
+        assertEquals(2, node.getExceptionQps());
+        assertEquals(34, node.getRt());
+        assertEquals(1, node.getOccupiedPassQps());
+        assertEquals(5, node.getConcurrency());
+
+        nodes = searcher.findByTimeAndResource(BASE_TIME + 3000, BASE_TIME + 5999, null);
+        assertEquals(15, nodes.size());
+        nodes = searcher.findByTimeAndResource(BASE_TIME + 8000, BASE_TIME + 9000, "resource-0");
+        assertEquals(3, nodes.size());
+        assertEquals(100, nodes.get(2).getPassQps());
+        nodes = searcher.findByTimeAndResource(BASE_TIME, BASE_TIME + 9000, "absent");
+        assertTrue(nodes.isEmpty());
+        writer.close();
+    }
+
+    @Test
+    public void testRollWhenFull() throws Exception {
+        // 64 KB per file, which could hold about 900 records.
+        BinaryMetricWriter writer = new BinaryMetricWriter(baseDir.getAbsolutePath(), 64 * 1024, 3);
+        for (int i = 0; i < 60; i++) {
+            writer.write(BASE_TIME + i * 1000, metricsOf(50, i));
+        }
+        List<String> files = MetricWriter.listMetricFiles(baseDir.getAbsolutePath(), baseFileName);
+        assertEquals(3, files.size());
+
+        BinaryMetricSearcher searcher = new BinaryMetricSearcher(baseDir.getAbsolutePath(), baseFileName);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BASE_TIME + 40000, BASE_TIME + 59000, "resource-7");
+        assertEquals(20, nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(BASE_TIME + (40 + i) * 1000, nodes.get(i).getTimestamp());
+            assertEquals(40 + i, nodes.get(i).getPassQps());
+        }
+        writer.close();
+    }
+
+    @Test
+    public void testWriteBatchLargerThanFile() throws Exception {
+        // 64 KB per file, which could hold about 900 records.
+        BinaryMetricWriter writer = new BinaryMetricWriter(baseDir.getAbsolutePath(), 64 * 1024, 6);
+        List<MetricNode> batch = new ArrayList<MetricNode>();
+        for (int i = 0; i < 2000; i++) {
+            MetricNode node = new MetricNode();
+            node.setResource("resource-" + i % 10);
+            node.setPassQps(i);
+            batch.add(node);
+        }
+        writer.write(BASE_TIME, batch);
+        writer.write(BASE_TIME + 1000, metricsOf(5, 1));
+
+        List<String> files = MetricWriter.listMetricFiles(baseDir.getAbsolutePath(), baseFileName);
+        assertEquals(3, files.size());
+        BinaryMetricSearcher searcher = new BinaryMetricSearcher(baseDir.getAbsolutePath(), baseFileName);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BASE_TIME, BASE_TIME, "resource-3");
+        assertEquals(200, nodes.size());
+        assertEquals(3, nodes.get(0).getPassQps());
+        assertEquals(1993, nodes.get(199).getPassQps());
+        nodes = searcher.findByTimeAndResource(BASE_TIME + 1000, BASE_TIME + 1000, null);
+        assertEquals(5, nodes.size());
+        writer.close();
+    }
+
+    @Test
+    public void testWriteLongResourceName() throws Exception {
+        // The dictionary takes 1/32 of the file.
+        BinaryMetricWriter writer = new BinaryMetricWriter(baseDir.getAbsolutePath(), 4 * 1024 * 1024, 6);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            // 3 bytes per char in UTF-8, so the name takes 60000 bytes.
+            sb.append('\u4e2d');
+        }
+        String resource = sb.toString();
+        List<MetricNode> metrics = metricsOf(2, 7);
+        metrics.get(1).setResource(resource);
+        writer.write(BASE_TIME, metrics);
+
+        BinaryMetricSearcher searcher = new BinaryMetricSearcher(baseDir.getAbsolutePath(), baseFileName);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BASE_TIME, BASE_TIME, resource);
+        assertEquals(1, nodes.size());
+        assertEquals(resource, nodes.get(0).getResource());
+        writer.close();
+    }
+
+    @Test
+    public void testNewFileAfterRemoved() throws Exception {
+        BinaryMetricWriter writer = new BinaryMetricWriter(baseDir.getAbsolutePath(), 1024 * 1024, 6);
+        writer.write(BASE_TIME, metricsOf(1, 1));
+        String fileName = MetricWriter.listMetricFiles(baseDir.getAbsolutePath(), baseFileName).get(0);
+        assertTrue(new File(fileName).delete());
+
+        // The removal is not checked on every write.
+        writer.write(BASE_TIME + 1000, metricsOf(1, 2));
+        assertTrue(MetricWriter.listMetricFiles(baseDir.getAbsolutePath(), baseFileName).isEmpty());
+        writer.write(BASE_TIME + BinaryMetricWriter.FILE_CHECK_INTERVAL_SEC * 1000, metricsOf(1, 3));
+        assertEquals(1, MetricWriter.listMetricFiles(baseDir.getAbsolutePath(), baseFileName).size());
+
+        BinaryMetricSearcher searcher = new BinaryMetricSearcher(baseDir.getAbsolutePath(), baseFileName);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BASE_TIME, BASE_TIME + 60000, null);
+        assertEquals(1, nodes.size());
+        assertEquals(3, nodes.get(0).getPassQps());
+        writer.close();
+    }
+
+    @Test
+    public void testExportAsText() throws Exception {
+        BinaryMetricWriter writer = new BinaryMetricWriter(baseDir.getAbsolutePath(), 1024 * 1024, 6);
+        List<MetricNode> metrics = metricsOf(3, 7);
+        writer.write(BASE_TIME, metrics);
+        writer.close();
+
+        String fileName = MetricWriter.listMetricFiles(baseDir.getAbsolutePath(), baseFileName).get(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryMetricSearcher.exportAsText(fileName, out);
+        String[] lines = out.toString(SentinelConfig.charset()).split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(metrics.get(i).toFatString(), lines[i] + "\n");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.reflect.Field;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricIndexTest {
+
+    private File indexFile;
+
+    @Before
+    public void setUp() throws Exception {
+        indexFile = File.createTempFile("sentinel-metrics", ".idx");
+    }
+
+    @After
+    public void tearDown() {
+        indexFile.delete();
+    }
+
+    private void appendEntry(DataOutputStream out, long second) throws Exception {
+        out.writeLong(second);
+        out.writeLong(second * 100);
+        out.flush();
+    }
+
+    @Test
+    public void testSnapshotWaitsForRefreshInProgress() throws Exception {
+        final MetricIndex index = new MetricIndex(indexFile.getAbsolutePath());
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(indexFile, true));
+        for (int s = 0; s < 10; s++) {
+            appendEntry(out, s);
+        }
+        assertEquals(900, index.snapshot().findOffset(9));
+
+        Field lockField = MetricIndex.class.getDeclaredField("refreshLock");
+        lockField.setAccessible(true);
+        ReentrantLock refreshLock = (ReentrantLock)lockField.get(index);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        // Simulate a refresh in progress.
+        refreshLock.lock();
+        try {
+            for (int s = 10; s < 20; s++) {
+                appendEntry(out, s);
+            }
+            Future<Long> future = pool.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return index.snapshot().findOffset(19);
+                }
+            });
+            try {
+                future.get(200, TimeUnit.MILLISECONDS);
+                fail("The query should wait for the refresh in progress");
+            } catch (TimeoutException ex) {
+                // Expected.
+            }
+            refreshLock.unlock();
+            // Entries written before the query are visible to it.
+            assertEquals(1900, (long)future.get());
+        } finally {
+            if (refreshLock.isHeldByCurrentThread()) {
+                refreshLock.unlock();
+            }
+            out.close();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSnapshotAfterIndexRecreated() throws Exception {
+        MetricIndex index = new MetricIndex(indexFile.getAbsolutePath());
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(indexFile));
+        for (int s = 0; s < 10; s++) {
+            appendEntry(out, s);
+        }
+        out.close();
+        assertEquals(500, index.snapshot().findOffset(5));
+
+        out = new DataOutputStream(new FileOutputStream(indexFile));
+        appendEntry(out, 100);
+        out.close();
+        assertEquals(10000, index.snapshot().findOffset(5));
+        assertTrue(index.snapshot().findOffset(101) < 0);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricPushClientTest {
+
+    private File spoolFile;
+    private ServerSocket serverSocket;
+    private MetricPushClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        spoolFile = File.createTempFile("sentinel-metric", ".spool");
+        serverSocket = new ServerSocket(0, 8, InetAddress.getLoopbackAddress());
+        serverSocket.setSoTimeout(10000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.stop();
+        }
+        MetricPushClient.setRuntimeCommandPort(-1);
+        serverSocket.close();
+        spoolFile.delete();
+    }
+
+    @Test
+    public void testPushMetricFrames() throws Exception {
+        client = new MetricPushClient("127.0.0.1", serverSocket.getLocalPort(), 16, spoolFile.getAbsolutePath(),
+            1024 * 1024, "secret");
+        // The command center gets its port after the client is created.
+        MetricPushClient.setRuntimeCommandPort(8721);
+        client.start();
+        client.push(1000, Collections.singletonList(newNode("resA", 10)));
+        client.push(2000, Collections.singletonList(newNode("resB", 20)));
+
+        Socket socket = serverSocket.accept();
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            MetricFrameCodec.Hello hello = MetricFrameCodec.decodeHello(MetricFrameCodec.readFrame(in));
+            assertNotNull(hello.getApp());
+            assertEquals("secret", hello.getToken());
+            assertEquals(8721, hello.getPort());
+
+            List<MetricNode> nodes = readNodes(in, 2);
+            assertEquals("resA", nodes.get(0).getResource());
+            assertEquals(1000, nodes.get(0).getTimestamp());
+            assertEquals(10, nodes.get(0).getPassQps());
+            assertEquals("resB", nodes.get(1).getResource());
+            assertEquals(2000, nodes.get(1).getTimestamp());
+            assertEquals(20, nodes.get(1).getBlockQps());
+            assertEquals(3, nodes.get(1).getConcurrency());
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testSpoolWhenQueueIsFullAndCollectorUnreachable() throws Exception {
+        int port = serverSocket.getLocalPort();
+        serverSocket.close();
+        client = new MetricPushClient("127.0.0.1", port, 1, spoolFile.getAbsolutePath(), 1024 * 1024);
+        for (int i = 1; i <= 5; i++) {
+            client.push(i * 1000, Collections.singletonList(newNode("res" + i, i)));
+        }
+        // Seconds that don't fit in the queue go to the spool.
+        assertTrue(client.spoolSize() > 0);
+        client.start();
+
+        Thread.sleep(500);
+        serverSocket = new ServerSocket(port, 8, InetAddress.getLoopbackAddress());
+        serverSocket.setSoTimeout(10000);
+        Socket socket = serverSocket.accept();
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            MetricFrameCodec.decodeHello(MetricFrameCodec.readFrame(in));
+            List<MetricNode> nodes = readNodes(in, 5);
+            List<String> resources = new ArrayList<String>();
+            for (MetricNode node : nodes) {
+                resources.add(node.getResource());
+            }
+            Collections.sort(resources);
+            assertEquals(5, resources.size());
+            assertEquals("res1", resources.get(0));
+            assertEquals("res5", resources.get(4));
+            assertEquals(0, client.droppedSeconds());
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testSpoolBoundedAndPersistent() throws Exception {
+        byte[] segment = MetricFrameCodec.encodeSecond(1000, Collections.singletonList(newNode("res", 1)));
+        MetricSpool spool = new MetricSpool(spoolFile.getAbsolutePath(), 8 + 2 * (4 + segment.length));
+        assertTrue(spool.append(segment));
+        assertTrue(spool.append(segment));
+        assertFalse(spool.append(segment));
+        assertNotNull(spool.poll());
+        // The consumed head is compacted for the new segment.
+        assertTrue(spool.append(segment));
+        spool.close();
+
+        spool = new MetricSpool(spoolFile.getAbsolutePath(), 1024);
+        assertEquals(2 * (4 + segment.length), spool.size());
+        assertArrayEquals(segment, spool.poll());
+        assertArrayEquals(segment, spool.poll());
+        assertNull(spool.poll());
+        assertTrue(spool.isEmpty());
+        spool.close();
+    }
+
+    private List<MetricNode> readNodes(DataInputStream in, int count) throws Exception {
+        List<MetricNode> nodes = new ArrayList<MetricNode>();
+        while (nodes.size() < count) {
+            byte[] frame = MetricFrameCodec.readFrame(in);
+            assertNotNull(frame);
+            assertEquals(MetricFrameCodec.TYPE_METRICS, MetricFrameCodec.frameType(frame));
+            nodes.addAll(MetricFrameCodec.decodeMetrics(frame));
+        }
+        return nodes;
+    }
+
+    private MetricNode newNode(String resource, long qps) {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setPassQps(qps);
+        node.setBlockQps(qps);
+        node.setSuccessQps(qps);
+        node.setRt(qps);
+        node.setConcurrency(3);
+        return node;
+    }
+}
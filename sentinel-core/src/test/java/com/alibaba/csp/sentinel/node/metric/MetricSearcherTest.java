@@ -0,0 +1,147 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricSearcherTest {
+
+    private static final long BASE_TIME = 1600000000000L;
+    private static final String BASE_FILE_NAME = "searcher-test-metrics.log";
+    private static final int RESOURCE_COUNT = 10;
+
+    private File baseDir;
+
+    @Before
+    public void setUp() throws Exception {
+        baseDir = File.createTempFile("sentinel-metrics", "");
+        baseDir.delete();
+        baseDir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = baseDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        baseDir.delete();
+    }
+
+    /**
+     * Append metrics of the seconds in [fromSecond, toSecond) in the format of {@link MetricWriter}.
+     */
+    private void appendMetrics(String fileName, int fromSecond, int toSecond) throws Exception {
+        File metricFile = new File(baseDir, fileName);
+        FileOutputStream out = new FileOutputStream(metricFile, true);
+        DataOutputStream indexOut = new DataOutputStream(
+            new FileOutputStream(MetricWriter.formIndexFileName(metricFile.getAbsolutePath()), true));
+        try {
+            for (int s = fromSecond; s < toSecond; s++) {
+                long time = BASE_TIME + s * 1000L;
+                indexOut.writeLong(time / 1000);
+                indexOut.writeLong(out.getChannel().position());
+                for (int i = 0; i < RESOURCE_COUNT; i++) {
+                    MetricNode node = new MetricNode();
+                    node.setTimestamp(time);
+                    node.setResource("resource-" + i);
+                    node.setPassQps(s);
+                    out.write(node.toFatString().getBytes("UTF-8"));
+                }
+            }
+        } finally {
+            out.close();
+            indexOut.close();
+        }
+    }
+
+    @Test
+    public void testFindAcrossFiles() throws Exception {
+        appendMetrics(BASE_FILE_NAME + ".2020-09-13", 0, 50);
+        appendMetrics(BASE_FILE_NAME + ".2020-09-13.1", 50, 100);
+        MetricSearcher searcher = new MetricSearcher(baseDir.getAbsolutePath(), BASE_FILE_NAME);
+
+        List<MetricNode> nodes = searcher.find(BASE_TIME + 45000, 95);
+        // Metrics of the same second are never split.
+        assertEquals(100, nodes.size());
+        assertEquals(45, nodes.get(0).getPassQps());
+        assertEquals(54, nodes.get(99).getPassQps());
+
+        nodes = searcher.findByTimeAndResource(BASE_TIME + 48000, BASE_TIME + 51000, "resource-3");
+        assertEquals(4, nodes.size());
+        assertEquals(48, nodes.get(0).getPassQps());
+        assertEquals(51, nodes.get(3).getPassQps());
+
+        assertNull(searcher.find(BASE_TIME + 100000, 10));
+        // The cached index should be refreshed when the index file grows.
+        appendMetrics(BASE_FILE_NAME + ".2020-09-13.1", 100, 110);
+        nodes = searcher.findByTimeAndResource(BASE_TIME + 100000, BASE_TIME + 200000, null);
+        assertEquals(10 * RESOURCE_COUNT, nodes.size());
+    }
+
+    @Test
+    public void testConcurrentFind() throws Exception {
+        appendMetrics(BASE_FILE_NAME + ".2020-09-13", 0, 300);
+        appendMetrics(BASE_FILE_NAME + ".2020-09-13.1", 300, 600);
+        final MetricSearcher searcher = new MetricSearcher(baseDir.getAbsolutePath(), BASE_FILE_NAME);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 64; t++) {
+                final int beginSecond = (t * 37) % 590;
+                final String identity = t % 2 == 0 ? null : "resource-" + (t % RESOURCE_COUNT);
+                futures.add(pool.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        int mismatch = 0;
+                        for (int round = 0; round < 20; round++) {
+                            List<MetricNode> nodes = searcher.findByTimeAndResource(BASE_TIME + beginSecond * 1000L,
+                                BASE_TIME + (beginSecond + 5) * 1000L, identity);
+                            int expected = identity == null ? 6 * RESOURCE_COUNT : 6;
+                            if (nodes.size() != expected || nodes.get(0).getPassQps() != beginSecond) {
+                                mismatch++;
+                            }
+                        }
+                        return mismatch;
+                    }
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(0, (int)future.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.slotchain.DefaultProcessorSlotChain;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlotChain;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.authority.AuthorityRule;
+import com.alibaba.csp.sentinel.slots.block.authority.AuthorityRuleManager;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowException;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ResourceRulePlan}.
+ */
+public class ResourceRulePlanTest {
+
+    private static final String RESOURCE = "testResourceRulePlan";
+
+    @Before
+    public void setUp() {
+        clearRules();
+    }
+
+    @After
+    public void tearDown() {
+        clearRules();
+    }
+
+    @Test
+    public void testCompileRules() {
+        ResourceRulePlan plan = ResourceRulePlan.compile(RESOURCE);
+        assertFalse(plan.hasFlowRules());
+        assertFalse(plan.hasCircuitBreakers());
+        assertFalse(plan.hasAuthorityRules());
+        assertTrue(plan.isUpToDate());
+
+        FlowRuleManager.loadRules(Collections.singletonList(new FlowRule(RESOURCE).setCount(10)));
+        DegradeRuleManager.loadRules(Collections.singletonList(new DegradeRule(RESOURCE).setCount(10)
+            .setTimeWindow(1)));
+        AuthorityRuleManager.loadRules(Collections.singletonList(new AuthorityRule().setResource(RESOURCE)
+            .setLimitApp("appA").as(AuthorityRule.class)));
+        assertFalse(plan.isUpToDate());
+
+        plan = ResourceRulePlan.compile(RESOURCE);
+        assertEquals(1, plan.getFlowRules().size());
+        assertEquals(1, plan.getCircuitBreakers().size());
+        assertEquals(1, plan.getAuthorityRules().size());
+        assertFalse(ResourceRulePlan.compile("otherResource").hasFlowRules());
+    }
+
+    @Test
+    public void testPlanCachedOnSlotChain() {
+        ResourceWrapper resource = new StringResourceWrapper(RESOURCE, EntryType.IN);
+        ProcessorSlotChain chain = new DefaultProcessorSlotChain();
+        ResourceRulePlan plan = chain.getRulePlan(resource);
+        assertSame(plan, chain.getRulePlan(resource));
+        assertFalse(plan.hasFlowRules());
+
+        FlowRuleManager.loadRules(Collections.singletonList(new FlowRule(RESOURCE).setCount(10)));
+        ResourceRulePlan newPlan = chain.getRulePlan(resource);
+        assertNotSame(plan, newPlan);
+        assertTrue(newPlan.hasFlowRules());
+        assertSame(newPlan, chain.getRulePlan(resource));
+    }
+
+    @Test
+    public void testRulesTakeEffectAfterLoaded() throws Exception {
+        Entry entry = SphU.entry(RESOURCE);
+        entry.exit();
+
+        FlowRuleManager.loadRules(Collections.singletonList(new FlowRule(RESOURCE).setCount(0)));
+        try {
+            entry = SphU.entry(RESOURCE);
+            entry.exit();
+            fail("Should be blocked by the flow rule");
+        } catch (FlowException e) {
+            // Expected.
+        }
+
+        FlowRuleManager.loadRules(new ArrayList<FlowRule>());
+        entry = SphU.entry(RESOURCE);
+        entry.exit();
+    }
+
+    private void clearRules() {
+        FlowRuleManager.loadRules(new ArrayList<FlowRule>());
+        DegradeRuleManager.loadRules(new ArrayList<DegradeRule>());
+        AuthorityRuleManager.loadRules(new ArrayList<AuthorityRule>());
+        ContextUtil.exit();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.test.AbstractTimeBasedTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ClusterFallbackQuota}.
+ */
+public class ClusterFallbackQuotaTest extends AbstractTimeBasedTest {
+
+    @Before
+    public void setUp() {
+        setCurrentMillis(100000);
+        ClusterFallbackQuota.clear();
+    }
+
+    @After
+    public void tearDown() {
+        ClusterFallbackQuota.clear();
+    }
+
+    @Test
+    public void testEstimateShareFromHeadroom() {
+        FlowRule rule = newClusterRule(1L, 100, ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL);
+        assertTrue(ClusterFallbackQuota.isEnabled(rule));
+        assertFalse(ClusterFallbackQuota.hasShare(1L));
+
+        // Current client takes 20 of the 50 QPS passed globally, so it takes 40 when the threshold is reached.
+        for (int i = 0; i < 20; i++) {
+            ClusterFallbackQuota.onResult(rule, new TokenResult(TokenResultStatus.OK)
+                .setRemaining(50).setConnectedCount(4), 1);
+        }
+        assertTrue(ClusterFallbackQuota.hasShare(1L));
+        assertEquals(20, countPassed(1L, 100));
+    }
+
+    @Test
+    public void testFairShareWithoutGrants() {
+        FlowRule rule = newClusterRule(2L, 10, ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL);
+        ClusterFallbackQuota.onResult(rule, new TokenResult(TokenResultStatus.BLOCKED), 1);
+        assertEquals(10, countPassed(2L, 100));
+
+        FlowRule globalRule = newClusterRule(3L, 100, ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL);
+        ClusterFallbackQuota.onResult(globalRule, new TokenResult(TokenResultStatus.BLOCKED).setConnectedCount(5), 1);
+        assertEquals(20, countPassed(3L, 100));
+
+        // Quotas are reset in the next window.
+        sleep(1000);
+        assertEquals(20, countPassed(3L, 100));
+    }
+
+    @Test
+    public void testSkipServerUntilRecovered() {
+        FlowRule rule = newClusterRule(4L, 10, ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL);
+        assertFalse(ClusterFallbackQuota.shouldSkipServer(4L));
+        ClusterFallbackQuota.onResult(rule, new TokenResult(TokenResultStatus.FAIL), 1);
+        assertTrue(ClusterFallbackQuota.shouldSkipServer(4L));
+        // No share is estimated, so the local rule is used.
+        assertFalse(ClusterFallbackQuota.hasShare(4L));
+
+        sleep(ClusterFallbackQuota.PROBE_INTERVAL_MS);
+        // Only one request probes the token server.
+        assertFalse(ClusterFallbackQuota.shouldSkipServer(4L));
+        assertTrue(ClusterFallbackQuota.shouldSkipServer(4L));
+
+        ClusterFallbackQuota.onResult(rule, new TokenResult(TokenResultStatus.OK), 1);
+        assertFalse(ClusterFallbackQuota.shouldSkipServer(4L));
+        assertTrue(ClusterFallbackQuota.hasShare(4L));
+    }
+
+    @Test
+    public void testRetainRules() {
+        FlowRule rule = newClusterRule(5L, 10, ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL);
+        ClusterFallbackQuota.onResult(rule, new TokenResult(TokenResultStatus.OK), 1);
+        Map<String, List<FlowRule>> rules = Collections.singletonMap(rule.getResource(),
+            Collections.singletonList(rule));
+        ClusterFallbackQuota.retainRules(rules);
+        assertTrue(ClusterFallbackQuota.hasShare(5L));
+
+        rule.getClusterConfig().setFallbackStrategy(ClusterRuleConstant.FLOW_FALLBACK_STRATEGY_LOCAL_RULE);
+        assertFalse(ClusterFallbackQuota.isEnabled(rule));
+        ClusterFallbackQuota.retainRules(rules);
+        assertFalse(ClusterFallbackQuota.hasShare(5L));
+    }
+
+    private int countPassed(Long flowId, int max) {
+        int passed = 0;
+        for (int i = 0; i < max; i++) {
+            if (ClusterFallbackQuota.tryPass(flowId, 1)) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    private FlowRule newClusterRule(Long flowId, double count, int thresholdType) {
+        ClusterFlowConfig config = new ClusterFlowConfig()
+            .setFlowId(flowId)
+            .setThresholdType(thresholdType)
+            .setFallbackStrategy(ClusterRuleConstant.FLOW_FALLBACK_STRATEGY_APPROXIMATE_QUOTA);
+        return new FlowRule("resource-" + flowId)
+            .setCount(count)
+            .setClusterMode(true)
+            .setClusterConfig(config);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.TokenService;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.context.NullContext;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test cases for {@link ClusterTokenPrefetcher}.
+ */
+public class ClusterTokenPrefetcherTest {
+
+    @After
+    public void tearDown() {
+        ClusterTokenPrefetcher.bind(null);
+    }
+
+    @Test
+    public void testPrefetchClusterRules() {
+        TokenService service = mock(TokenService.class);
+        List<CompletableFuture<TokenResult>> pending = new ArrayList<>();
+        when(service.requestTokenAsync(anyLong(), anyInt(), anyBoolean())).thenAnswer(invocation -> {
+            CompletableFuture<TokenResult> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        });
+
+        List<FlowRule> rules = Arrays.asList(newClusterRule(1L), newClusterRule(1L), newClusterRule(2L),
+            new FlowRule("abc").setCount(10));
+        CompletableFuture<Map<Long, TokenResult>> stage = ClusterTokenPrefetcher.prefetch(service, rules, 2)
+            .toCompletableFuture();
+        // The tokens are requested together, local rules are skipped and each flow ID is requested once.
+        verify(service).requestTokenAsync(1L, 2, false);
+        verify(service).requestTokenAsync(2L, 2, false);
+        verifyNoMoreInteractions(service);
+        assertEquals(2, pending.size());
+
+        pending.get(1).completeExceptionally(new IllegalStateException("timeout"));
+        assertFalse(stage.isDone());
+        pending.get(0).complete(new TokenResult(TokenResultStatus.BLOCKED));
+        assertTrue(stage.isDone());
+
+        Map<Long, TokenResult> results = stage.join();
+        assertEquals(TokenResultStatus.BLOCKED, (int) results.get(1L).getStatus());
+        assertEquals(TokenResultStatus.FAIL, (int) results.get(2L).getStatus());
+    }
+
+    @Test
+    public void testEntryContextNotSharedWithCaller() {
+        Context context = ContextUtil.enter("prefetch-context", "app");
+        try {
+            Context entryContext = ClusterTokenPrefetcher.newEntryContext(context);
+            assertNotSame(context, entryContext);
+            assertTrue(entryContext.isAsync());
+            assertSame(context.getEntranceNode(), entryContext.getEntranceNode());
+            assertEquals(context.getName(), entryContext.getName());
+            assertEquals("app", entryContext.getOrigin());
+            assertNull(entryContext.getCurEntry());
+        } finally {
+            ContextUtil.exit();
+        }
+        assertNull(ClusterTokenPrefetcher.newEntryContext(null));
+        Context nullContext = new NullContext();
+        assertSame(nullContext, ClusterTokenPrefetcher.newEntryContext(nullContext));
+    }
+
+    @Test
+    public void testPrefetchWithoutClusterRules() {
+        TokenService service = mock(TokenService.class);
+        CompletionStage<Map<Long, TokenResult>> stage = ClusterTokenPrefetcher.prefetch(service,
+            Collections.singletonList(new FlowRule("abc").setCount(10)), 1);
+        assertNull(stage.toCompletableFuture().getNow(null));
+        assertNull(ClusterTokenPrefetcher.prefetch(null, Collections.singletonList(newClusterRule(1L)), 1)
+            .toCompletableFuture().getNow(null));
+        verifyZeroInteractions(service);
+    }
+
+    @Test
+    public void testTakeBoundResults() {
+        assertNull(ClusterTokenPrefetcher.take(1L));
+        ClusterTokenPrefetcher.bind(Collections.singletonMap(1L, new TokenResult(TokenResultStatus.BLOCKED)));
+        assertNull(ClusterTokenPrefetcher.take(2L));
+        assertEquals(TokenResultStatus.BLOCKED, (int) ClusterTokenPrefetcher.take(1L).getStatus());
+        // Each result is taken only once.
+        assertNull(ClusterTokenPrefetcher.take(1L));
+    }
+
+    private FlowRule newClusterRule(Long flowId) {
+        FlowRule rule = new FlowRule("abc").setCount(10);
+        rule.setClusterMode(true);
+        rule.setClusterConfig(new ClusterFlowConfig().setFlowId(flowId));
+        return rule;
+    }
+}
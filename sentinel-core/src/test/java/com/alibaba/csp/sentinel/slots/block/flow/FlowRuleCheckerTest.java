@@ -21,6 +21,7 @@ import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.node.ClusterNode;
 import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
@@ -111,13 +112,18 @@ public class FlowRuleCheckerTest {
     }
 
     @Test
-    public void testSelectNodeForRelateReference() {
+    public void testSelectNodeForRelateReference() throws Throwable {
         String refResource = "testSelectNodeForRelateReference_refResource";
 
         DefaultNode node = mock(DefaultNode.class);
-        ClusterNode refCn = mock(ClusterNode.class);
-        ClusterBuilderSlot.getClusterNodeMap().put(new StringResourceWrapper(refResource, EntryType.IN), refCn);
         Context context = mock(Context.class);
+        when(context.getOrigin()).thenReturn("");
+        // Register the cluster node of the reference resource.
+        ResourceWrapper refWrapper = new StringResourceWrapper(refResource, EntryType.IN);
+        DefaultNode refNode = new DefaultNode(refWrapper, null);
+        new ClusterBuilderSlot().entry(context, refWrapper, refNode, 1, false);
+        ClusterNode refCn = refNode.getClusterNode();
+        assertNotNull(refCn);
 
         FlowRule rule = new FlowRule("testSelectNodeForRelateReference")
             .setCount(1)
@@ -169,12 +175,12 @@ public class FlowRuleCheckerTest {
     @Before
     public void setUp() throws Exception {
         FlowRuleManager.loadRules(null);
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
     }
 
     @After
     public void tearDown() throws Exception {
         FlowRuleManager.loadRules(null);
-        ClusterBuilderSlot.getClusterNodeMap().clear();
+        ClusterBuilderSlot.clearClusterNodeMap();
     }
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 
 import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
 import com.alibaba.csp.sentinel.node.Node;
 
 /**
@@ -95,4 +96,19 @@ public class RateLimiterControllerTest {
             assertTrue(paceController.canPass(node, 0));
         }
     }
+
+    @Test
+    public void testPaceControllerWithManualClock() {
+        ManualClock clock = new ManualClock(10000);
+        RateLimiterController paceController = new RateLimiterController(0, 10d, clock);
+        Node node = mock(Node.class);
+
+        assertTrue(paceController.canPass(node, 1));
+        // No queueing allowed, so the next request should wait for 100ms.
+        assertFalse(paceController.canPass(node, 1));
+        clock.advance(99);
+        assertFalse(paceController.canPass(node, 1));
+        clock.advance(1);
+        assertTrue(paceController.canPass(node, 1));
+    }
 }
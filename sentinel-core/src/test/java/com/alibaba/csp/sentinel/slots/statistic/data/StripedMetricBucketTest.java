@@ -0,0 +1,98 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link StripedMetricBucket}.
+ */
+public class StripedMetricBucketTest {
+
+    @Test
+    public void testAddAndGet() {
+        StripedMetricBucket bucket = new StripedMetricBucket();
+        bucket.addPass(3);
+        bucket.addBlock(2);
+        bucket.addException(1);
+        bucket.addSuccess(5);
+        bucket.addOccupiedPass(4);
+        bucket.addRT(20);
+        bucket.addRT(10);
+
+        assertEquals(3, bucket.pass());
+        assertEquals(2, bucket.block());
+        assertEquals(1, bucket.exception());
+        assertEquals(5, bucket.success());
+        assertEquals(4, bucket.occupiedPass());
+        assertEquals(30, bucket.rt());
+        assertEquals(10, bucket.minRt());
+    }
+
+    @Test
+    public void testReset() {
+        MetricBucket other = new MetricBucket();
+        other.addPass(7);
+        other.addBlock(3);
+
+        StripedMetricBucket bucket = new StripedMetricBucket();
+        bucket.addPass(1);
+        bucket.addRT(5);
+
+        bucket.reset(other);
+        assertEquals(7, bucket.pass());
+        assertEquals(3, bucket.block());
+        assertEquals(0, bucket.rt());
+        assertEquals(SentinelConfig.statisticMaxRt(), bucket.minRt());
+
+        bucket.reset();
+        for (MetricEvent event : MetricEvent.values()) {
+            assertEquals(0, bucket.get(event));
+        }
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        final StripedMetricBucket bucket = new StripedMetricBucket();
+        final int threadCount = 8;
+        final int addCount = 20000;
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < addCount; j++) {
+                        bucket.addPass(1);
+                        bucket.addSuccess(2);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+
+        assertEquals(threadCount * addCount, bucket.pass());
+        assertEquals(threadCount * addCount * 2, bucket.success());
+        assertEquals(0, bucket.block());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.util.function.Function;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ConcurrentRegistry}.
+ */
+public class ConcurrentRegistryTest {
+
+    private final AtomicInteger createCount = new AtomicInteger();
+
+    private final Function<String, Object> factory = new Function<String, Object>() {
+        @Override
+        public Object apply(String s) {
+            createCount.incrementAndGet();
+            return new Object();
+        }
+    };
+
+    @Test
+    public void testGetOrCreate() {
+        ConcurrentRegistry<String, Object> registry = new ConcurrentRegistry<>();
+        assertNull(registry.get("a"));
+
+        Object a = registry.getOrCreate("a", factory);
+        assertNotNull(a);
+        assertSame(a, registry.get("a"));
+        assertSame(a, registry.getOrCreate("a", factory));
+        assertEquals(1, createCount.get());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void testSizeLimit() {
+        ConcurrentRegistry<String, Object> registry = new ConcurrentRegistry<>(2);
+        assertNotNull(registry.getOrCreate("a", factory));
+        assertNotNull(registry.getOrCreate("b", factory));
+        assertNull(registry.getOrCreate("c", factory));
+        // Existing keys are still available when the registry is full.
+        assertNotNull(registry.getOrCreate("a", factory));
+        assertEquals(2, registry.size());
+
+        registry.clear();
+        assertNotNull(registry.getOrCreate("c", factory));
+    }
+
+    @Test
+    public void testRegister() {
+        ConcurrentRegistry<String, Object> registry = new ConcurrentRegistry<>(1);
+        Object a = new Object();
+        assertSame(a, registry.register("a", a));
+        assertSame(a, registry.register("a", new Object()));
+        assertNull(registry.register("b", new Object()));
+
+        assertFalse(registry.put("b", new Object()));
+        Object a2 = new Object();
+        assertTrue(registry.put("a", a2));
+        assertSame(a2, registry.get("a"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMapViewIsReadOnly() {
+        ConcurrentRegistry<String, Object> registry = new ConcurrentRegistry<>();
+        registry.getOrCreate("a", factory);
+        assertTrue(registry.asMap().containsKey("a"));
+        registry.asMap().clear();
+    }
+
+    @Test
+    public void testConcurrentCreateRegisterOnce() throws Exception {
+        final ConcurrentRegistry<String, Object> registry = new ConcurrentRegistry<>();
+        final int threadCount = 8;
+        final int keyCount = 1000;
+        final Object[][] values = new Object[threadCount][keyCount];
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final int t = i;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < keyCount; j++) {
+                        values[t][j] = registry.getOrCreate("key" + j, factory);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+
+        assertEquals(keyCount, registry.size());
+        // All threads get the same registered value, even if the value is created more than once.
+        for (int j = 0; j < keyCount; j++) {
+            Object value = registry.get("key" + j);
+            for (int t = 0; t < threadCount; t++) {
+                assertSame(value, values[t][j]);
+            }
+        }
+        assertTrue(createCount.get() >= keyCount);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util.clock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
+import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+public class ClockProviderTest {
+
+    @After
+    public void tearDown() {
+        ClockProvider.resetClock();
+    }
+
+    @Test
+    public void testNewBuiltInClock() {
+        assertSame(TickerClock.INSTANCE, ClockProvider.newBuiltInClock(null));
+        assertSame(TickerClock.INSTANCE, ClockProvider.newBuiltInClock("ticker"));
+        assertSame(TickerClock.INSTANCE, ClockProvider.newBuiltInClock("unknown"));
+        assertSame(SystemClock.INSTANCE, ClockProvider.newBuiltInClock("SYSTEM"));
+        assertTrue(ClockProvider.newBuiltInClock("monotonic") instanceof MonotonicClock);
+    }
+
+    @Test
+    public void testMonotonicClock() throws Exception {
+        MonotonicClock clock = new MonotonicClock();
+        long t1 = clock.currentTimeMillis();
+        assertTrue(Math.abs(t1 - System.currentTimeMillis()) < 1000);
+        Thread.sleep(20);
+        long t2 = clock.currentTimeMillis();
+        assertTrue(t2 - t1 >= 19);
+    }
+
+    @Test
+    public void testSetGlobalClock() {
+        assertNotNull(ClockProvider.getClock());
+        ManualClock clock = new ManualClock(12345);
+        ClockProvider.setClock(clock);
+
+        assertEquals(12345, TimeUtil.currentTimeMillis());
+        assertEquals(12345, GlobalClock.INSTANCE.currentTimeMillis());
+        clock.advance(10);
+        assertEquals(12355, TimeUtil.currentTimeMillis());
+    }
+
+    @Test
+    public void testLeapArrayWithManualClock() {
+        ManualClock clock = new ManualClock(1000);
+        LeapArray<long[]> leapArray = new LeapArray<long[]>(2, 1000, clock) {
+            @Override
+            public long[] newEmptyBucket(long timeMillis) {
+                return new long[1];
+            }
+
+            @Override
+            protected WindowWrap<long[]> resetWindowTo(WindowWrap<long[]> windowWrap, long startTime) {
+                windowWrap.value()[0] = 0;
+                return windowWrap.resetTo(startTime);
+            }
+        };
+
+        assertEquals(1000, leapArray.currentWindow().windowStart());
+        leapArray.currentWindow().value()[0]++;
+        clock.advance(500);
+        assertEquals(1500, leapArray.currentWindow().windowStart());
+        assertEquals(2, leapArray.values().size());
+        clock.advance(1000);
+        assertEquals(1, leapArray.values().size());
+    }
+}
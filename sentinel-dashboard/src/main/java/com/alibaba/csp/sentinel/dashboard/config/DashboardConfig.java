@@ -63,6 +63,38 @@ public class DashboardConfig {
      * Auto remove unhealthy machine after specific period in millisecond.
      */
     public static final String CONFIG_AUTO_REMOVE_MACHINE_MILLIS = "sentinel.dashboard.autoRemoveMachineMillis";
+    /**
+     * Port of the collector receiving the metrics pushed by machines, 0 (by default) to disable the collector.
+     */
+    public static final String CONFIG_METRIC_COLLECTOR_PORT = "sentinel.dashboard.metric.collector.port";
+    /**
+     * Token authenticating the machines pushing metrics (see {@code csp.sentinel.metric.push.token}), which is
+     * required by the collector.
+     */
+    public static final String CONFIG_METRIC_COLLECTOR_TOKEN = "sentinel.dashboard.metric.collector.token";
+    /**
+     * Max count of the connections of the collector.
+     */
+    public static final String CONFIG_METRIC_COLLECTOR_MAX_CONNECTIONS
+        = "sentinel.dashboard.metric.collector.maxConnections";
+    /**
+     * Store of metrics, {@code memory} (by default) or {@code offheap}.
+     */
+    public static final String CONFIG_METRIC_STORE = "sentinel.dashboard.metric.store";
+    /**
+     * Retention of metrics in minutes, only for the off-heap store.
+     */
+    public static final String CONFIG_METRIC_RETENTION_MINUTES = "sentinel.dashboard.metric.retentionMinutes";
+    /**
+     * Max off-heap memory of the off-heap metric store in MB.
+     */
+    public static final String CONFIG_METRIC_OFF_HEAP_CAPACITY_MB = "sentinel.dashboard.metric.offHeapCapacityMb";
+
+    public static final String METRIC_STORE_MEMORY = "memory";
+    public static final String METRIC_STORE_OFF_HEAP = "offheap";
+    public static final int DEFAULT_METRIC_RETENTION_MINUTES = 60;
+    public static final int DEFAULT_METRIC_OFF_HEAP_CAPACITY_MB = 512;
+    public static final int DEFAULT_METRIC_COLLECTOR_MAX_CONNECTIONS = 256;
 
     private static final ConcurrentMap<String, Object> cacheMap = new ConcurrentHashMap<>();
     
@@ -134,6 +166,26 @@ public class DashboardConfig {
         return getConfigInt(CONFIG_UNHEALTHY_MACHINE_MILLIS, DEFAULT_MACHINE_HEALTHY_TIMEOUT_MS, 30000);
     }
     
+    public static int getMetricCollectorPort() {
+        return getConfigInt(CONFIG_METRIC_COLLECTOR_PORT, 0, 1);
+    }
+
+    public static String getMetricCollectorToken() {
+        return getConfigStr(CONFIG_METRIC_COLLECTOR_TOKEN);
+    }
+
+    public static int getMetricCollectorMaxConnections() {
+        return getConfigInt(CONFIG_METRIC_COLLECTOR_MAX_CONNECTIONS, DEFAULT_METRIC_COLLECTOR_MAX_CONNECTIONS, 1);
+    }
+
+    public static int getMetricRetentionMinutes() {
+        return getConfigInt(CONFIG_METRIC_RETENTION_MINUTES, DEFAULT_METRIC_RETENTION_MINUTES, 5);
+    }
+
+    public static int getMetricOffHeapCapacityMb() {
+        return getConfigInt(CONFIG_METRIC_OFF_HEAP_CAPACITY_MB, DEFAULT_METRIC_OFF_HEAP_CAPACITY_MB, 16);
+    }
+
     public static void clearCache() {
         cacheMap.clear();
     }
@@ -25,6 +25,8 @@ import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.dashboard.domain.Result;
+import com.alibaba.csp.sentinel.dashboard.metric.TopResourceIndex;
+import com.alibaba.csp.sentinel.dashboard.metric.TopResourceIndex.RankType;
 import com.alibaba.csp.sentinel.dashboard.repository.metric.MetricsRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +54,8 @@ public class MetricController {
 
     @Autowired
     private MetricsRepository<MetricEntity> metricStore;
+    @Autowired
+    private TopResourceIndex topResourceIndex;
 
     @ResponseBody
     @RequestMapping("/queryTopResourceMetric.json")
@@ -84,30 +88,32 @@ public class MetricController {
         if (endTime - startTime > maxQueryIntervalMs) {
             return Result.ofFail(-1, "time intervalMs is too big, must <= 1h");
         }
-        List<String> resources = metricStore.listResourcesOfApp(app);
-        logger.debug("queryTopResourceMetric(), resources.size()={}", resources.size());
+        int totalCount;
+        List<String> topResource = new ArrayList<>();
+        if (topResourceIndex.contains(app) && StringUtil.isEmpty(searchKey)) {
+            // Only the resources of the page are read from the index.
+            totalCount = topResourceIndex.size(app);
+            if (totalCount == 0) {
+                return Result.ofSuccess(null);
+            }
+            topResource = topResourceIndex.list(app, RankType.BLOCK_QPS, desc, null, (pageIndex - 1) * pageSize,
+                pageSize);
+        } else {
+            List<String> resources = topResourceIndex.contains(app)
+                ? topResourceIndex.list(app, RankType.BLOCK_QPS, desc, searchKey, 0, Integer.MAX_VALUE)
+                : listResourcesOfApp(app, desc, searchKey);
+            logger.debug("queryTopResourceMetric(), resources.size()={}", resources.size());
 
-        if (resources == null || resources.isEmpty()) {
-            return Result.ofSuccess(null);
-        }
-        if (!desc) {
-            Collections.reverse(resources);
-        }
-        if (StringUtil.isNotEmpty(searchKey)) {
-            List<String> searched = new ArrayList<>();
-            for (String resource : resources) {
-                if (resource.contains(searchKey)) {
-                    searched.add(resource);
-                }
+            if (resources.isEmpty()) {
+                return Result.ofSuccess(null);
+            }
+            totalCount = resources.size();
+            if ((pageIndex - 1) * pageSize < totalCount) {
+                topResource = resources.subList((pageIndex - 1) * pageSize,
+                    Math.min(pageIndex * pageSize, totalCount));
             }
-            resources = searched;
-        }
-        int totalPage = (resources.size() + pageSize - 1) / pageSize;
-        List<String> topResource = new ArrayList<>();
-        if (pageIndex <= totalPage) {
-            topResource = resources.subList((pageIndex - 1) * pageSize,
-                Math.min(pageIndex * pageSize, resources.size()));
         }
+        int totalPage = (totalCount + pageSize - 1) / pageSize;
         final Map<String, Iterable<MetricVo>> map = new ConcurrentHashMap<>();
         logger.debug("topResource={}", topResource);
         long time = System.currentTimeMillis();
@@ -121,7 +127,7 @@ public class MetricController {
         }
         logger.debug("queryTopResourceMetric() total query time={} ms", System.currentTimeMillis() - time);
         Map<String, Object> resultMap = new HashMap<>(16);
-        resultMap.put("totalCount", resources.size());
+        resultMap.put("totalCount", totalCount);
         resultMap.put("totalPage", totalPage);
         resultMap.put("pageIndex", pageIndex);
         resultMap.put("pageSize", pageSize);
@@ -135,6 +141,29 @@ public class MetricController {
         return Result.ofSuccess(resultMap);
     }
 
+    @ResponseBody
+    @RequestMapping("/queryTopResources.json")
+    public Result<?> queryTopResources(String app, String type, Integer k) {
+        if (StringUtil.isEmpty(app)) {
+            return Result.ofFail(-1, "app can't be null or empty");
+        }
+        RankType rankType = RankType.BLOCK_QPS;
+        if (StringUtil.isNotEmpty(type)) {
+            try {
+                rankType = RankType.valueOf(type.toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                return Result.ofFail(-1, "invalid type: " + type);
+            }
+        }
+        if (k == null || k <= 0) {
+            k = 10;
+        }
+        if (k > 100) {
+            k = 100;
+        }
+        return Result.ofSuccess(topResourceIndex.top(app, rankType, k));
+    }
+
     @ResponseBody
     @RequestMapping("/queryByAppAndResource.json")
     public Result<?> queryByAppAndResource(String app, String identity, Long startTime, Long endTime) {
@@ -159,6 +188,26 @@ public class MetricController {
         return Result.ofSuccess(sortMetricVoAndDistinct(vos));
     }
 
+    private List<String> listResourcesOfApp(String app, boolean desc, String searchKey) {
+        List<String> resources = metricStore.listResourcesOfApp(app);
+        if (resources == null) {
+            return new ArrayList<>();
+        }
+        if (!desc) {
+            Collections.reverse(resources);
+        }
+        if (StringUtil.isNotEmpty(searchKey)) {
+            List<String> searched = new ArrayList<>();
+            for (String resource : resources) {
+                if (resource.contains(searchKey)) {
+                    searched.add(resource);
+                }
+            }
+            resources = searched;
+        }
+        return resources;
+    }
+
     private Iterable<MetricVo> sortMetricVoAndDistinct(List<MetricVo> vos) {
         if (vos == null) {
             return null;
@@ -0,0 +1,332 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.metric;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.dashboard.config.DashboardConfig;
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.alibaba.csp.sentinel.dashboard.discovery.MachineInfo;
+import com.alibaba.csp.sentinel.dashboard.repository.metric.MetricsRepository;
+import com.alibaba.csp.sentinel.node.metric.MetricFrameCodec;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricPushClient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>Receives the metrics pushed by machines (see {@link MetricPushClient}), which is enabled by
+ * {@code sentinel.dashboard.metric.collector.port}. {@link MetricFetcher} won't pull metrics from the
+ * machines that are pushing.</p>
+ *
+ * <p>Metrics of the same app, resource and second are accumulated across machines (including the pulled ones),
+ * and the accumulated metrics are saved to the repository every second, so the metrics arriving late (e.g. from
+ * the spool of a machine) are merged rather than overwriting.</p>
+ *
+ * <p>The collector requires {@code sentinel.dashboard.metric.collector.token}, and only the machines presenting
+ * the same token in the hello frame are accepted. Connections are served by a bounded pool
+ * ({@code sentinel.dashboard.metric.collector.maxConnections}), and the ones idle longer than
+ * {@code 60s} are closed (the pushing machines send heartbeats).</p>
+ *
+ * @see MetricPushClient
+ */
+@Component
+public class MetricCollectorServer {
+
+    private static final long MAX_PENDING_LIVE_TIME_MS = 1000 * 60 * 5;
+    private static final int READ_TIMEOUT_MS = 60 * 1000;
+
+    private static Logger logger = LoggerFactory.getLogger(MetricCollectorServer.class);
+
+    @Autowired
+    private MetricsRepository<MetricEntity> metricStore;
+    @Autowired
+    private TopResourceIndex topResourceIndex;
+
+    /**
+     * {@code app__resource__timeSecond -> accumulated metric}
+     */
+    private final Map<String, MetricEntity> pendingMetrics = new ConcurrentHashMap<>();
+    private final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * {@code app:ip:port -> count of connections}
+     */
+    private final Map<String, AtomicInteger> pushingMachines = new ConcurrentHashMap<>();
+
+    private volatile ServerSocket serverSocket;
+    private byte[] token;
+    private ExecutorService connectionService;
+    private ScheduledExecutorService flushScheduleService;
+
+    public MetricCollectorServer() {}
+
+    MetricCollectorServer(MetricsRepository<MetricEntity> metricStore, TopResourceIndex topResourceIndex) {
+        this.metricStore = metricStore;
+        this.topResourceIndex = topResourceIndex;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        int port = DashboardConfig.getMetricCollectorPort();
+        if (port <= 0) {
+            return;
+        }
+        String token = DashboardConfig.getMetricCollectorToken();
+        if (token == null) {
+            logger.warn("Metric collector is not started since {} is not configured",
+                DashboardConfig.CONFIG_METRIC_COLLECTOR_TOKEN);
+            return;
+        }
+        start(port, token, DashboardConfig.getMetricCollectorMaxConnections());
+    }
+
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    synchronized void start(int port, String token, int maxConnections) throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        ServerSocket socket = new ServerSocket(port);
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        connectionService = new ThreadPoolExecutor(1, maxConnections, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), new NamedThreadFactory("sentinel-dashboard-metrics-collector", true));
+        flushScheduleService = Executors.newSingleThreadScheduledExecutor(
+            new NamedThreadFactory("sentinel-dashboard-metrics-collector-flush", true));
+        flushScheduleService.scheduleAtFixedRate(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                logger.warn("Flush collected metrics error", e);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+        serverSocket = socket;
+        Thread acceptThread = new NamedThreadFactory("sentinel-dashboard-metrics-collector-accept", true)
+            .newThread(this::acceptConnections);
+        acceptThread.start();
+        logger.info("Metric collector started at port {}", getPort());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (serverSocket == null) {
+            return;
+        }
+        ServerSocket socket = serverSocket;
+        serverSocket = null;
+        try {
+            socket.close();
+        } catch (IOException ignore) {
+        }
+        connectionService.shutdownNow();
+        flushScheduleService.shutdownNow();
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return serverSocket != null;
+    }
+
+    int getPort() {
+        ServerSocket socket = serverSocket;
+        return socket == null ? -1 : socket.getLocalPort();
+    }
+
+    /**
+     * Whether the machine is pushing metrics to the collector.
+     */
+    public boolean isPushing(MachineInfo machine) {
+        return isConnected(machineKey(machine.getApp(), machine.getIp(), machine.getPort()))
+            || isConnected(machineKey(machine.getApp(), machine.getIp(), -1));
+    }
+
+    /**
+     * Accumulate the metrics pulled by {@link MetricFetcher}, so that they are merged with the pushed ones.
+     */
+    public void accumulate(Collection<MetricEntity> entities) {
+        for (MetricEntity entity : entities) {
+            String key = buildMetricKey(entity.getApp(), entity.getResource(), entity.getTimestamp().getTime());
+            pendingMetrics.compute(key, (k, v) -> {
+                if (v == null) {
+                    return MetricEntity.copyOf(entity);
+                }
+                v.addPassQps(entity.getPassQps());
+                v.addBlockQps(entity.getBlockQps());
+                // The rt of entity is the total rt of the success requests.
+                v.setRt(v.getRt() + entity.getRt());
+                v.setSuccessQps(v.getSuccessQps() + entity.getSuccessQps());
+                v.addExceptionQps(entity.getExceptionQps());
+                v.addCount(entity.getCount());
+                return v;
+            });
+            dirtyKeys.add(key);
+        }
+    }
+
+    void accumulate(String app, List<MetricNode> nodes) {
+        for (MetricNode node : nodes) {
+            if (MetricFetcher.shouldFilterOut(node.getResource())) {
+                continue;
+            }
+            topResourceIndex.add(app, node);
+            String key = buildMetricKey(app, node.getResource(), node.getTimestamp());
+            pendingMetrics.compute(key, (k, v) -> {
+                if (v == null) {
+                    v = new MetricEntity();
+                    v.setApp(app);
+                    v.setResource(node.getResource());
+                    v.setTimestamp(new Date(node.getTimestamp()));
+                    v.setPassQps(0L);
+                    v.setBlockQps(0L);
+                    v.setRtAndSuccessQps(0, 0L);
+                    v.setExceptionQps(0L);
+                    v.setCount(0);
+                }
+                v.addPassQps(node.getPassQps());
+                v.addBlockQps(node.getBlockQps());
+                v.addRtAndSuccessQps(node.getRt(), node.getSuccessQps());
+                v.addExceptionQps(node.getExceptionQps());
+                v.addCount(1);
+                return v;
+            });
+            dirtyKeys.add(key);
+        }
+    }
+
+    /**
+     * Save the metrics accumulated since last flush, and evict the expired ones.
+     */
+    void flush() {
+        List<MetricEntity> toSave = new ArrayList<>();
+        Date date = new Date();
+        for (Iterator<String> it = dirtyKeys.iterator(); it.hasNext(); ) {
+            String key = it.next();
+            it.remove();
+            pendingMetrics.computeIfPresent(key, (k, v) -> {
+                MetricEntity entity = MetricEntity.copyOf(v);
+                entity.setGmtCreate(date);
+                entity.setGmtModified(date);
+                toSave.add(entity);
+                return v;
+            });
+        }
+        if (!toSave.isEmpty()) {
+            metricStore.saveAll(toSave);
+        }
+        long expireTime = System.currentTimeMillis() - MAX_PENDING_LIVE_TIME_MS;
+        pendingMetrics.values().removeIf(e -> e.getTimestamp().getTime() < expireTime);
+    }
+
+    private void acceptConnections() {
+        ServerSocket socket;
+        while ((socket = serverSocket) != null) {
+            try {
+                Socket connection = socket.accept();
+                try {
+                    connectionService.submit(() -> handleConnection(connection));
+                } catch (RejectedExecutionException e) {
+                    logger.warn("Too many metric collector connections, rejecting <{}>",
+                        connection.getRemoteSocketAddress());
+                    connection.close();
+                }
+            } catch (Exception e) {
+                if (serverSocket != null) {
+                    logger.warn("Accept metric collector connection error", e);
+                }
+            }
+        }
+    }
+
+    private void handleConnection(Socket connection) {
+        String machineKey = null;
+        try {
+            connection.setKeepAlive(true);
+            connection.setSoTimeout(READ_TIMEOUT_MS);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(),
+                64 * 1024));
+            byte[] frame = MetricFrameCodec.readFrame(in);
+            if (frame == null) {
+                return;
+            }
+            MetricFrameCodec.Hello hello = MetricFrameCodec.decodeHello(frame);
+            if (!MessageDigest.isEqual(token, hello.getToken().getBytes(StandardCharsets.UTF_8))) {
+                logger.warn("Metric collector connection from <{}> rejected: invalid token",
+                    connection.getRemoteSocketAddress());
+                return;
+            }
+            machineKey = machineKey(hello.getApp(), hello.getIp(), hello.getPort());
+            pushingMachines.computeIfAbsent(machineKey, k -> new AtomicInteger()).incrementAndGet();
+            logger.info("Machine starts pushing metrics: {}", hello);
+            while ((frame = MetricFrameCodec.readFrame(in)) != null) {
+                if (MetricFrameCodec.frameType(frame) == MetricFrameCodec.TYPE_METRICS) {
+                    accumulate(hello.getApp(), MetricFrameCodec.decodeMetrics(frame));
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Metric collector connection from <{}> error: {}", connection.getRemoteSocketAddress(),
+                e.toString());
+        } finally {
+            if (machineKey != null) {
+                pushingMachines.computeIfPresent(machineKey, (k, v) -> v.decrementAndGet() <= 0 ? null : v);
+                logger.info("Machine stops pushing metrics: {}", machineKey);
+            }
+            try {
+                connection.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private boolean isConnected(String machineKey) {
+        return pushingMachines.containsKey(machineKey);
+    }
+
+    private static String machineKey(String app, String ip, Integer port) {
+        return app + ":" + ip + ":" + port;
+    }
+
+    private static String buildMetricKey(String app, String resource, long timestamp) {
+        return app + "__" + resource + "__" + (timestamp / 1000);
+    }
+}
@@ -84,6 +84,10 @@ public class MetricFetcher {
     private MetricsRepository<MetricEntity> metricStore;
     @Autowired
     private AppManagement appManagement;
+    @Autowired
+    private MetricCollectorServer metricCollector;
+    @Autowired
+    private TopResourceIndex topResourceIndex;
 
     private CloseableHttpAsyncClient httpclient;
 
@@ -143,6 +147,12 @@ public class MetricFetcher {
             entity.setGmtCreate(date);
             entity.setGmtModified(date);
         }
+        topResourceIndex.addAll(map.values());
+        if (metricCollector.isEnabled()) {
+            // Merge with the metrics pushed by other machines of the same app.
+            metricCollector.accumulate(map.values());
+            return;
+        }
         metricStore.saveAll(map.values());
     }
 
@@ -207,6 +217,10 @@ public class MetricFetcher {
                 unhealthy.incrementAndGet();
                 continue;
             }
+            if (metricCollector.isPushing(machine)) {
+                latch.countDown();
+                continue;
+            }
             final String url = "http://" + machine.getIp() + ":" + machine.getPort() + "/" + METRIC_URL_PATH
                 + "?startTime=" + startTime + "&endTime=" + endTime + "&refetch=" + false;
             final HttpGet httpGet = new HttpGet(url);
@@ -359,7 +373,7 @@ public class MetricFetcher {
         return app + "__" + resource + "__" + (timestamp / 1000);
     }
 
-    private boolean shouldFilterOut(String resource) {
+    static boolean shouldFilterOut(String resource) {
         return RES_EXCLUSION_SET.contains(resource);
     }
 
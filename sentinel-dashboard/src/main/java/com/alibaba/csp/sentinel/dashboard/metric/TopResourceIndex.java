@@ -0,0 +1,422 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>Incrementally maintained ranking of the resources of each app by their metrics of the last minute,
+ * so the monitoring page doesn't need to aggregate and sort all the resources on every load.</p>
+ *
+ * <p>The last minute is divided into {@link #BUCKET_COUNT} buckets of {@link #BUCKET_SECONDS} seconds. For each
+ * app, the metrics are added to the buckets of the resources when ingested, and when the window moves on,
+ * only the resources having metrics in the expired bucket are updated. Every update of a resource re-ranks it
+ * in the sorted set of each {@link RankType} (O(log n)).</p>
+ *
+ * <p>Readers never iterate the sorted sets being re-ranked. They read an immutable snapshot of the rankings,
+ * which is copied from the sorted sets (O(n)) only when the rankings have changed since the last read, so the
+ * top K resources are read in O(K) in steady state and every listing sees a consistent ranking.</p>
+ *
+ * <p>Only additive metrics should be ingested (each metric of a machine and second is added once), which is
+ * guaranteed by {@link MetricFetcher} and {@link MetricCollectorServer}.</p>
+ */
+@Component
+public class TopResourceIndex {
+
+    static final int BUCKET_SECONDS = 10;
+    static final int BUCKET_COUNT = 6;
+
+    private static final int PASS = 0;
+    private static final int BLOCK = 1;
+    private static final int SUCCESS = 2;
+    private static final int EXCEPTION = 3;
+    private static final int RT = 4;
+    private static final int VALUES = 5;
+
+    private final Map<String, AppIndex> appIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Ranking types of resources, all in descending order.
+     */
+    public enum RankType {
+        /**
+         * By block QPS, then by pass QPS, which is the default order of the monitoring page.
+         */
+        BLOCK_QPS,
+        PASS_QPS,
+        /**
+         * By average rt of the success requests.
+         */
+        RT,
+        /**
+         * By exceptions per success request.
+         */
+        EXCEPTION_RATE
+    }
+
+    /**
+     * Add the metrics pulled from machines.
+     */
+    public void addAll(Collection<MetricEntity> entities) {
+        for (MetricEntity entity : entities) {
+            long[] values = new long[VALUES];
+            values[PASS] = entity.getPassQps();
+            values[BLOCK] = entity.getBlockQps();
+            values[SUCCESS] = entity.getSuccessQps();
+            values[EXCEPTION] = entity.getExceptionQps();
+            values[RT] = Math.round(entity.getRt());
+            add(entity.getApp(), entity.getResource(), entity.getTimestamp().getTime(), values);
+        }
+    }
+
+    /**
+     * Add the metrics of a machine.
+     */
+    public void add(String app, MetricNode node) {
+        long[] values = new long[VALUES];
+        values[PASS] = node.getPassQps();
+        values[BLOCK] = node.getBlockQps();
+        values[SUCCESS] = node.getSuccessQps();
+        values[EXCEPTION] = node.getExceptionQps();
+        values[RT] = node.getRt() * node.getSuccessQps();
+        add(app, node.getResource(), node.getTimestamp(), values);
+    }
+
+    private void add(String app, String resource, long timeMs, long[] values) {
+        if (StringUtil.isBlank(app) || resource == null) {
+            return;
+        }
+        appIndexes.computeIfAbsent(app, e -> new AppIndex())
+            .add(resource, timeMs / 1000 / BUCKET_SECONDS, values);
+    }
+
+    /**
+     * Whether the app has ever been indexed.
+     */
+    public boolean contains(String app) {
+        return app != null && appIndexes.containsKey(app);
+    }
+
+    /**
+     * @return count of the resources having metrics in the last minute
+     */
+    public int size(String app) {
+        AppIndex index = advancedIndex(app);
+        return index == null ? 0 : index.snapshot().get(RankType.BLOCK_QPS).length;
+    }
+
+    /**
+     * List the resources of the app in the order of rank type.
+     *
+     * @param app       app name
+     * @param type      rank type
+     * @param desc      false to list in ascending order
+     * @param searchKey only the resources containing the key are listed if not empty
+     * @param offset    count of the resources to skip
+     * @param limit     max count of the resources
+     * @return the resources
+     */
+    public List<String> list(String app, RankType type, boolean desc, String searchKey, int offset, int limit) {
+        List<String> results = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+        AppIndex index = advancedIndex(app);
+        if (index == null) {
+            return results;
+        }
+        Ranked[] ranked = index.snapshot().get(type);
+        int skipped = 0;
+        for (int i = 0; i < ranked.length && results.size() < limit; i++) {
+            String resource = ranked[desc ? i : ranked.length - 1 - i].resource;
+            if (StringUtil.isNotEmpty(searchKey) && !resource.contains(searchKey)) {
+                continue;
+            }
+            if (skipped++ < offset) {
+                continue;
+            }
+            results.add(resource);
+        }
+        return results;
+    }
+
+    /**
+     * Get the top K resources with their metrics of the last minute.
+     */
+    public List<ResourceRank> top(String app, RankType type, int k) {
+        List<ResourceRank> results = new ArrayList<>(Math.max(0, Math.min(k, 64)));
+        AppIndex index = advancedIndex(app);
+        if (index == null) {
+            return results;
+        }
+        Ranked[] ranked = index.snapshot().get(type);
+        for (int i = 0; i < ranked.length && results.size() < k; i++) {
+            results.add(new ResourceRank(ranked[i].resource, ranked[i].totals));
+        }
+        return results;
+    }
+
+    void advance(String app, long nowMs) {
+        AppIndex index = appIndexes.get(app);
+        if (index != null) {
+            index.advance(nowMs / 1000 / BUCKET_SECONDS);
+        }
+    }
+
+    private AppIndex advancedIndex(String app) {
+        if (app == null) {
+            return null;
+        }
+        AppIndex index = appIndexes.get(app);
+        if (index != null) {
+            index.advance(System.currentTimeMillis() / 1000 / BUCKET_SECONDS);
+        }
+        return index;
+    }
+
+    private static final class AppIndex {
+
+        private final Map<String, ResourceWindow> resources = new HashMap<>();
+        private final Map<RankType, NavigableSet<Ranked>> ranks = new EnumMap<>(RankType.class);
+        @SuppressWarnings("unchecked")
+        private final Set<String>[] touched = new Set[BUCKET_COUNT];
+        private long currentBucket = -1;
+
+        /**
+         * Immutable copy of the rankings for readers, which is null if the rankings have changed since the copy.
+         */
+        private Map<RankType, Ranked[]> snapshot;
+
+        AppIndex() {
+            for (RankType type : RankType.values()) {
+                ranks.put(type, new TreeSet<>(comparatorOf(type)));
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                touched[i] = new HashSet<>();
+            }
+        }
+
+        synchronized void add(String resource, long bucket, long[] values) {
+            advance(bucket);
+            if (bucket <= currentBucket - BUCKET_COUNT) {
+                // Out of the window.
+                return;
+            }
+            int slot = (int)(bucket % BUCKET_COUNT);
+            ResourceWindow window = resources.computeIfAbsent(resource, ResourceWindow::new);
+            window.add(slot, bucket, values);
+            touched[slot].add(resource);
+            rerank(window);
+        }
+
+        synchronized void advance(long bucket) {
+            if (bucket <= currentBucket) {
+                return;
+            }
+            long firstExpired = Math.max(currentBucket - BUCKET_COUNT + 1, bucket - 2 * BUCKET_COUNT + 1);
+            for (long expired = Math.max(0, firstExpired); expired <= bucket - BUCKET_COUNT; expired++) {
+                int slot = (int)(expired % BUCKET_COUNT);
+                for (String resource : touched[slot]) {
+                    ResourceWindow window = resources.get(resource);
+                    if (window != null && window.expire(slot, expired)) {
+                        rerank(window);
+                    }
+                }
+                touched[slot].clear();
+            }
+            currentBucket = bucket;
+        }
+
+        synchronized Map<RankType, Ranked[]> snapshot() {
+            if (snapshot == null) {
+                Map<RankType, Ranked[]> copy = new EnumMap<>(RankType.class);
+                for (RankType type : RankType.values()) {
+                    copy.put(type, ranks.get(type).toArray(new Ranked[0]));
+                }
+                snapshot = copy;
+            }
+            return snapshot;
+        }
+
+        private void rerank(ResourceWindow window) {
+            snapshot = null;
+            Ranked[] rankedArray = window.ranked;
+            for (RankType type : RankType.values()) {
+                if (rankedArray[type.ordinal()] != null) {
+                    ranks.get(type).remove(rankedArray[type.ordinal()]);
+                    rankedArray[type.ordinal()] = null;
+                }
+            }
+            if (window.isEmpty()) {
+                resources.remove(window.resource);
+                return;
+            }
+            long[] totals = window.totals.clone();
+            for (RankType type : RankType.values()) {
+                Ranked ranked = new Ranked(window.resource, scoreOf(type, totals), totals);
+                rankedArray[type.ordinal()] = ranked;
+                ranks.get(type).add(ranked);
+            }
+        }
+    }
+
+    private static final class ResourceWindow {
+        private final String resource;
+        private final long[] bucketIds = new long[BUCKET_COUNT];
+        private final long[][] buckets = new long[BUCKET_COUNT][VALUES];
+        private final long[] totals = new long[VALUES];
+        private final Ranked[] ranked = new Ranked[RankType.values().length];
+
+        ResourceWindow(String resource) {
+            this.resource = resource;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                bucketIds[i] = -1;
+            }
+        }
+
+        void add(int slot, long bucket, long[] values) {
+            if (bucketIds[slot] != bucket) {
+                expire(slot, bucketIds[slot]);
+                bucketIds[slot] = bucket;
+            }
+            for (int i = 0; i < VALUES; i++) {
+                buckets[slot][i] += values[i];
+                totals[i] += values[i];
+            }
+        }
+
+        boolean expire(int slot, long bucket) {
+            if (bucket < 0 || bucketIds[slot] != bucket) {
+                return false;
+            }
+            for (int i = 0; i < VALUES; i++) {
+                totals[i] -= buckets[slot][i];
+                buckets[slot][i] = 0;
+            }
+            bucketIds[slot] = -1;
+            return true;
+        }
+
+        boolean isEmpty() {
+            for (long bucketId : bucketIds) {
+                if (bucketId >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static double scoreOf(RankType type, long[] totals) {
+        switch (type) {
+            case BLOCK_QPS:
+                return totals[BLOCK];
+            case PASS_QPS:
+                return totals[PASS];
+            case RT:
+                return totals[SUCCESS] == 0 ? 0 : (double)totals[RT] / totals[SUCCESS];
+            case EXCEPTION_RATE:
+                return totals[SUCCESS] == 0 ? totals[EXCEPTION] : (double)totals[EXCEPTION] / totals[SUCCESS];
+            default:
+                return 0;
+        }
+    }
+
+    private static Comparator<Ranked> comparatorOf(RankType type) {
+        Comparator<Ranked> comparator = Comparator.comparingDouble((Ranked r) -> r.score).reversed();
+        if (type == RankType.BLOCK_QPS) {
+            comparator = comparator.thenComparing(Comparator.comparingLong((Ranked r) -> r.totals[PASS]).reversed());
+        }
+        return comparator.thenComparing(r -> r.resource);
+    }
+
+    /**
+     * Immutable entry of the sorted sets.
+     */
+    private static final class Ranked {
+        private final String resource;
+        private final double score;
+        private final long[] totals;
+
+        Ranked(String resource, double score, long[] totals) {
+            this.resource = resource;
+            this.score = score;
+            this.totals = totals;
+        }
+    }
+
+    /**
+     * A resource with its total metrics of the last minute.
+     */
+    public static final class ResourceRank {
+        private final String resource;
+        private final long pass;
+        private final long block;
+        private final long success;
+        private final long exception;
+        private final double rt;
+
+        ResourceRank(String resource, long[] totals) {
+            this.resource = resource;
+            this.pass = totals[PASS];
+            this.block = totals[BLOCK];
+            this.success = totals[SUCCESS];
+            this.exception = totals[EXCEPTION];
+            this.rt = totals[SUCCESS] == 0 ? 0 : (double)totals[RT] / totals[SUCCESS];
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public long getPass() {
+            return pass;
+        }
+
+        public long getBlock() {
+            return block;
+        }
+
+        public long getSuccess() {
+            return success;
+        }
+
+        public long getException() {
+            return exception;
+        }
+
+        /**
+         * @return average rt of the success requests
+         */
+        public double getRt() {
+            return rt;
+        }
+    }
+}
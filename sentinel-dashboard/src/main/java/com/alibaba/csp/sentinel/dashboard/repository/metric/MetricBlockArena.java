@@ -0,0 +1,94 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Fixed-size blocks allocated from off-heap pages, which hold the encoded points of {@link MetricSeries}.
+ * Pages are allocated on demand until the capacity is reached, and freed blocks are reused.</p>
+ *
+ * <p>A block is addressed by an int handle ({@code page * blocksPerPage + index}). Blocks are only accessed
+ * by absolute gets and puts, so different blocks of a page could be accessed concurrently.</p>
+ */
+final class MetricBlockArena {
+
+    static final int BLOCK_SIZE = 256;
+    private static final int PAGE_SIZE = 1024 * 1024;
+    private static final int BLOCKS_PER_PAGE = PAGE_SIZE / BLOCK_SIZE;
+
+    /**
+     * Handles are published to readers through the locks of series, so are the pages.
+     */
+    private final ByteBuffer[] pages;
+    private int pageCount = 0;
+
+    private int[] freeBlocks = new int[BLOCKS_PER_PAGE];
+    private int freeCount = 0;
+    private int allocatedCount = 0;
+
+    /**
+     * @param capacityInBytes max off-heap bytes of the arena
+     */
+    MetricBlockArena(long capacityInBytes) {
+        this.pages = new ByteBuffer[(int)Math.max(1, Math.min(Integer.MAX_VALUE / BLOCKS_PER_PAGE,
+            capacityInBytes / PAGE_SIZE))];
+    }
+
+    /**
+     * @return handle of the allocated block, or -1 if the arena is exhausted
+     */
+    synchronized int allocate() {
+        if (freeCount == 0) {
+            if (pageCount >= pages.length) {
+                return -1;
+            }
+            int page = pageCount++;
+            pages[page] = ByteBuffer.allocateDirect(PAGE_SIZE);
+            for (int i = BLOCKS_PER_PAGE - 1; i >= 0; i--) {
+                freeBlocks[freeCount++] = page * BLOCKS_PER_PAGE + i;
+            }
+        }
+        allocatedCount++;
+        return freeBlocks[--freeCount];
+    }
+
+    synchronized void free(int block) {
+        if (freeCount == freeBlocks.length) {
+            int[] newFreeBlocks = new int[freeBlocks.length * 2];
+            System.arraycopy(freeBlocks, 0, newFreeBlocks, 0, freeCount);
+            freeBlocks = newFreeBlocks;
+        }
+        freeBlocks[freeCount++] = block;
+        allocatedCount--;
+    }
+
+    ByteBuffer page(int block) {
+        return pages[block / BLOCKS_PER_PAGE];
+    }
+
+    static int offset(int block) {
+        return (block % BLOCKS_PER_PAGE) * BLOCK_SIZE;
+    }
+
+    synchronized long usedBytes() {
+        return (long)allocatedCount * BLOCK_SIZE;
+    }
+
+    synchronized long reservedBytes() {
+        return (long)pageCount * PAGE_SIZE;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * <p>The blocks of all the series in the order they were added, so that the oldest block is reclaimed in
+ * amortized O(1) when the arena is exhausted, rather than scanning all the series.</p>
+ *
+ * <p>A block is recorded as its series and its sequence within the series. The records are never updated
+ * when the blocks are released or overwritten by the series, and such stale records are skipped when
+ * reclaiming, or dropped from the front when the series expire. Reclaiming the last block of a series wipes
+ * out the series, so such records are moved to the back of a second deque, which is only reclaimed from when
+ * no other series has a spare block. Each record is moved once at most. The deques are lock-free, so the series
+ * may add records while holding their own locks.</p>
+ */
+final class MetricBlockQueue {
+
+    private final Deque<BlockRecord> records = new ConcurrentLinkedDeque<>();
+    private final Deque<BlockRecord> lastBlockRecords = new ConcurrentLinkedDeque<>();
+
+    void add(MetricSeries series, long sequence) {
+        records.offerLast(new BlockRecord(series, sequence));
+    }
+
+    /**
+     * Take over the oldest block of the other series.
+     *
+     * @param requester the series requesting the block, of which the blocks are skipped
+     * @return handle of the block, or -1 if there's no block of other series
+     */
+    int reclaim(MetricSeries requester) {
+        int block = reclaim(records, requester, false);
+        return block >= 0 ? block : reclaim(lastBlockRecords, requester, true);
+    }
+
+    private int reclaim(Deque<BlockRecord> deque, MetricSeries requester, boolean lastBlockAllowed) {
+        BlockRecord skipped = null;
+        try {
+            BlockRecord record;
+            while ((record = deque.pollFirst()) != null) {
+                MetricSeries series = record.series;
+                if (series == requester) {
+                    // The requester has a single block at most, otherwise it would overwrite its own blocks.
+                    if (!series.isStale(record.sequence)) {
+                        skipped = record;
+                    }
+                    continue;
+                }
+                int block = series.reclaimBlock(record.sequence, lastBlockAllowed);
+                if (block >= 0) {
+                    // An older block of the series was taken, the recorded one is kept.
+                    if (!series.isStale(record.sequence)) {
+                        deque.offerFirst(record);
+                    }
+                    return block;
+                }
+                if (block == MetricSeries.LAST_BLOCK) {
+                    lastBlockRecords.offerLast(record);
+                }
+            }
+            return -1;
+        } finally {
+            if (skipped != null) {
+                deque.offerFirst(skipped);
+            }
+        }
+    }
+
+    /**
+     * Drop the stale records from the front, e.g. after the blocks are expired.
+     */
+    void pruneStale() {
+        pruneStale(records);
+        pruneStale(lastBlockRecords);
+    }
+
+    private static void pruneStale(Deque<BlockRecord> deque) {
+        BlockRecord record;
+        while ((record = deque.peekFirst()) != null && record.series.isStale(record.sequence)) {
+            deque.remove(record);
+        }
+    }
+
+    int size() {
+        return records.size() + lastBlockRecords.size();
+    }
+
+    private static final class BlockRecord {
+        final MetricSeries series;
+        final long sequence;
+
+        BlockRecord(MetricSeries series, long sequence) {
+            this.series = series;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * <p>Time series of one resource, stored as a ring of {@link MetricBlockArena} blocks in append order.</p>
+ *
+ * <p>Every point is {@code second} followed by the {@link #COLUMNS} columns, and each of them is encoded as
+ * the zigzag varint of the delta to the previous point of the block (the first point of a block is encoded
+ * against zeros, so blocks are decoded independently). Points are append-only: saving a second again appends
+ * a new version, and the last version wins when reading. The min and max seconds of each block are kept on
+ * heap as the time index, so range queries only decode the overlapping blocks, and expired blocks are
+ * released from the head of the ring.</p>
+ */
+final class MetricSeries {
+
+    static final int PASS = 0;
+    static final int SUCCESS = 1;
+    static final int BLOCK = 2;
+    static final int EXCEPTION = 3;
+    static final int RT = 4;
+    static final int COUNT = 5;
+    static final int COLUMNS = 6;
+
+    static final int STALE = -1;
+    static final int LAST_BLOCK = -2;
+
+    private static final int MAX_POINT_SIZE = 10 * (COLUMNS + 1);
+
+    private final MetricBlockArena arena;
+    private final MetricBlockQueue blockQueue;
+
+    private int[] blocks = new int[4];
+    private long[] minSeconds = new long[4];
+    private long[] maxSeconds = new long[4];
+    private int[] usedBytes = new int[4];
+    private int head = 0;
+    private int size = 0;
+    /**
+     * Sequence of the head block, and the blocks in the ring have consecutive sequences.
+     */
+    private long headSequence = 0;
+    private boolean closed = false;
+
+    /**
+     * Delta base of the tail block.
+     */
+    private long lastSecond;
+    private final long[] lastValues = new long[COLUMNS];
+    private final byte[] encoded = new byte[MAX_POINT_SIZE];
+
+    MetricSeries(MetricBlockArena arena, MetricBlockQueue blockQueue) {
+        this.arena = arena;
+        this.blockQueue = blockQueue;
+    }
+
+    /**
+     * Append a point.
+     *
+     * @return false if dropped as the arena is exhausted, or the series has been closed
+     */
+    synchronized boolean append(long second, long[] values) {
+        return append(second, values, -1);
+    }
+
+    /**
+     * Append a point, with the block reclaimed from another series (see {@link #reclaimBlock(long, boolean)}) which
+     * is used if a new block is needed, or freed to the arena otherwise.
+     *
+     * @param spareBlock handle of the reclaimed block, or -1 if none
+     * @return false if dropped as the arena is exhausted, or the series has been closed
+     */
+    synchronized boolean append(long second, long[] values, int spareBlock) {
+        if (closed) {
+            freeBlock(spareBlock);
+            return false;
+        }
+        int length = size == 0 ? -1 : encode(second, values);
+        int tail = size - 1;
+        if (length < 0 || usedBytes[slot(tail)] + length > MetricBlockArena.BLOCK_SIZE) {
+            if (!addBlock(spareBlock)) {
+                return false;
+            }
+            tail = size - 1;
+            length = encode(second, values);
+        } else {
+            freeBlock(spareBlock);
+        }
+        int slot = slot(tail);
+        ByteBuffer page = arena.page(blocks[slot]);
+        int offset = MetricBlockArena.offset(blocks[slot]) + usedBytes[slot];
+        for (int i = 0; i < length; i++) {
+            page.put(offset + i, encoded[i]);
+        }
+        usedBytes[slot] += length;
+        minSeconds[slot] = Math.min(minSeconds[slot], second);
+        maxSeconds[slot] = Math.max(maxSeconds[slot], second);
+        lastSecond = second;
+        System.arraycopy(values, 0, lastValues, 0, COLUMNS);
+        return true;
+    }
+
+    /**
+     * Read the latest version of the points in {@code [fromSecond, toSecond]}.
+     *
+     * @param out {@code second -> values}, the later versions replace the earlier ones
+     */
+    synchronized void read(long fromSecond, long toSecond, Map<Long, long[]> out) {
+        for (int i = 0; i < size; i++) {
+            int slot = slot(i);
+            if (maxSeconds[slot] < fromSecond || minSeconds[slot] > toSecond) {
+                continue;
+            }
+            ByteBuffer page = arena.page(blocks[slot]);
+            int offset = MetricBlockArena.offset(blocks[slot]);
+            int end = offset + usedBytes[slot];
+            long second = 0;
+            long[] values = new long[COLUMNS];
+            while (offset < end) {
+                for (int column = -1; column < COLUMNS; column++) {
+                    // Inline varint decoding.
+                    long raw = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = page.get(offset++);
+                        raw |= (long)(b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    long delta = (raw >>> 1) ^ -(raw & 1);
+                    if (column < 0) {
+                        second += delta;
+                    } else {
+                        values[column] += delta;
+                    }
+                }
+                if (second >= fromSecond && second <= toSecond) {
+                    out.put(second, values.clone());
+                }
+            }
+        }
+    }
+
+    /**
+     * Release the blocks of which all the points are earlier than provided second. The series is closed
+     * if it becomes empty, so that it could be removed safely.
+     *
+     * @return true if the series is closed
+     */
+    synchronized boolean expire(long minSecond) {
+        while (size > 0 && maxSeconds[head] < minSecond) {
+            releaseHead();
+        }
+        closed = size == 0;
+        return closed;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Take the oldest block out of the series for another series when the arena is exhausted, if the block of
+     * provided sequence has not been released or taken. The block is not freed to the arena, so that it can't
+     * be allocated by others before being handed over. The series is closed if it becomes empty.
+     *
+     * @param lastBlockAllowed whether the last block of the series could be taken
+     * @return handle of the block, or {@link #STALE} if the block of provided sequence has been released or
+     * taken, or {@link #LAST_BLOCK} if it's the last block which is not allowed to be taken
+     */
+    synchronized int reclaimBlock(long sequence, boolean lastBlockAllowed) {
+        if (closed || sequence < headSequence) {
+            return STALE;
+        }
+        if (size == 1 && !lastBlockAllowed) {
+            return LAST_BLOCK;
+        }
+        int block = takeHead();
+        closed = size == 0;
+        return block;
+    }
+
+    /**
+     * @return true if the block of provided sequence has been released or taken
+     */
+    synchronized boolean isStale(long sequence) {
+        return closed || sequence < headSequence;
+    }
+
+    private boolean addBlock(int spareBlock) {
+        int block = spareBlock >= 0 ? spareBlock : arena.allocate();
+        if (block < 0 && size > 1) {
+            // Overwrite the oldest block of the ring when the arena is exhausted. The block is reused
+            // directly rather than freed to the arena, where it could be allocated by other series.
+            block = takeHead();
+        }
+        if (block < 0) {
+            return false;
+        }
+        if (size == blocks.length) {
+            grow();
+        }
+        int slot = slot(size);
+        blocks[slot] = block;
+        minSeconds[slot] = Long.MAX_VALUE;
+        maxSeconds[slot] = Long.MIN_VALUE;
+        usedBytes[slot] = 0;
+        blockQueue.add(this, headSequence + size);
+        size++;
+        lastSecond = 0;
+        for (int i = 0; i < COLUMNS; i++) {
+            lastValues[i] = 0;
+        }
+        return true;
+    }
+
+    private void releaseHead() {
+        arena.free(takeHead());
+    }
+
+    private int takeHead() {
+        int block = blocks[head];
+        head = (head + 1) % blocks.length;
+        headSequence++;
+        size--;
+        return block;
+    }
+
+    private void freeBlock(int block) {
+        if (block >= 0) {
+            arena.free(block);
+        }
+    }
+
+    private void grow() {
+        int capacity = blocks.length * 2;
+        int[] newBlocks = new int[capacity];
+        long[] newMinSeconds = new long[capacity];
+        long[] newMaxSeconds = new long[capacity];
+        int[] newUsedBytes = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            int slot = slot(i);
+            newBlocks[i] = blocks[slot];
+            newMinSeconds[i] = minSeconds[slot];
+            newMaxSeconds[i] = maxSeconds[slot];
+            newUsedBytes[i] = usedBytes[slot];
+        }
+        blocks = newBlocks;
+        minSeconds = newMinSeconds;
+        maxSeconds = newMaxSeconds;
+        usedBytes = newUsedBytes;
+        head = 0;
+    }
+
+    private int slot(int i) {
+        return (head + i) % blocks.length;
+    }
+
+    private int encode(long second, long[] values) {
+        int length = writeVarLong(encoded, 0, second - lastSecond);
+        for (int i = 0; i < COLUMNS; i++) {
+            length = writeVarLong(encoded, length, values[i] - lastValues[i]);
+        }
+        return length;
+    }
+
+    private static int writeVarLong(byte[] buf, int pos, long value) {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte)((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte)v;
+        return pos;
+    }
+}
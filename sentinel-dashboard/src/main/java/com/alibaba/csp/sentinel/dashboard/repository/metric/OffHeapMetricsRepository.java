@@ -0,0 +1,263 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.dashboard.config.DashboardConfig;
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>Stores metrics as columnar, delta-encoded time series in off-heap blocks (see {@link MetricSeries}),
+ * which takes a few bytes per point instead of a {@link MetricEntity} object, so that hours of metrics
+ * could be kept at the same heap. It's enabled by {@code sentinel.dashboard.metric.store=offheap}, the retention
+ * is {@code sentinel.dashboard.metric.retentionMinutes} (60 by default) and the off-heap capacity is
+ * {@code sentinel.dashboard.metric.offHeapCapacityMb} (512 by default). When the capacity is exhausted,
+ * the series overwrite their own oldest blocks, and a series without a spare block (e.g. a new one) takes over
+ * the oldest block of all the series, which is found in O(1) by the {@link MetricBlockQueue} of the blocks in
+ * the order they were added.</p>
+ *
+ * <p>The timestamps are truncated to seconds, and the rt is kept as integer.</p>
+ */
+@Component
+@ConditionalOnProperty(name = DashboardConfig.CONFIG_METRIC_STORE, havingValue = DashboardConfig.METRIC_STORE_OFF_HEAP)
+public class OffHeapMetricsRepository implements MetricsRepository<MetricEntity> {
+
+    private static final long EXPIRE_INTERVAL_SEC = 10;
+
+    private static Logger logger = LoggerFactory.getLogger(OffHeapMetricsRepository.class);
+
+    private final long retentionMs;
+    private final MetricBlockArena arena;
+    private final MetricBlockQueue blockQueue = new MetricBlockQueue();
+
+    /**
+     * {@code app -> resource -> series}
+     */
+    private final Map<String, Map<String, MetricSeries>> allSeries = new ConcurrentHashMap<>();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private ScheduledExecutorService expireScheduleService;
+
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    public OffHeapMetricsRepository() {
+        this(DashboardConfig.getMetricRetentionMinutes() * 60 * 1000L,
+            DashboardConfig.getMetricOffHeapCapacityMb() * 1024L * 1024L);
+        expireScheduleService = Executors.newSingleThreadScheduledExecutor(
+            new NamedThreadFactory("sentinel-dashboard-metrics-expire-task", true));
+        expireScheduleService.scheduleAtFixedRate(() -> {
+            try {
+                expire();
+            } catch (Exception e) {
+                logger.warn("Expire metrics error", e);
+            }
+        }, EXPIRE_INTERVAL_SEC, EXPIRE_INTERVAL_SEC, TimeUnit.SECONDS);
+        logger.info("Off-heap metrics repository enabled, retention: {} ms, capacity: {} bytes", retentionMs,
+            DashboardConfig.getMetricOffHeapCapacityMb() * 1024L * 1024L);
+    }
+
+    OffHeapMetricsRepository(long retentionMs, long capacityInBytes) {
+        this.retentionMs = retentionMs;
+        this.arena = new MetricBlockArena(capacityInBytes);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (expireScheduleService != null) {
+            expireScheduleService.shutdownNow();
+        }
+    }
+
+    @Override
+    public void save(MetricEntity entity) {
+        if (entity == null || StringUtil.isBlank(entity.getApp())) {
+            return;
+        }
+        long time = entity.getTimestamp().getTime();
+        if (time < TimeUtil.currentTimeMillis() - retentionMs) {
+            return;
+        }
+        long[] values = new long[MetricSeries.COLUMNS];
+        values[MetricSeries.PASS] = entity.getPassQps();
+        values[MetricSeries.SUCCESS] = entity.getSuccessQps();
+        values[MetricSeries.BLOCK] = entity.getBlockQps();
+        values[MetricSeries.EXCEPTION] = entity.getExceptionQps();
+        values[MetricSeries.RT] = Math.round(entity.getRt());
+        values[MetricSeries.COUNT] = entity.getCount();
+        Map<String, MetricSeries> resourceMap = allSeries.computeIfAbsent(entity.getApp(),
+            e -> new ConcurrentHashMap<>(16));
+        while (true) {
+            MetricSeries series = resourceMap.computeIfAbsent(entity.getResource(), e -> new MetricSeries(arena, blockQueue));
+            if (series.append(time / 1000, values)) {
+                return;
+            }
+            if (!series.isClosed()) {
+                int block = blockQueue.reclaim(series);
+                if (block >= 0 && series.append(time / 1000, values, block)) {
+                    return;
+                }
+            }
+            if (!series.isClosed()) {
+                if (droppedCount.getAndIncrement() % 10000 == 0) {
+                    logger.warn("Metrics dropped as the off-heap capacity is exhausted, {} dropped in total",
+                        droppedCount.get());
+                }
+                return;
+            }
+            // The series has just been expired, retry with a new one.
+            resourceMap.remove(entity.getResource(), series);
+        }
+    }
+
+    @Override
+    public void saveAll(Iterable<MetricEntity> metrics) {
+        if (metrics == null) {
+            return;
+        }
+        metrics.forEach(this::save);
+    }
+
+    @Override
+    public List<MetricEntity> queryByAppAndResourceBetween(String app, String resource,
+                                                           long startTime, long endTime) {
+        List<MetricEntity> results = new ArrayList<>();
+        if (StringUtil.isBlank(app)) {
+            return results;
+        }
+        Map<String, MetricSeries> resourceMap = allSeries.get(app);
+        if (resourceMap == null) {
+            return results;
+        }
+        MetricSeries series = resourceMap.get(resource);
+        if (series == null) {
+            return results;
+        }
+        Map<Long, long[]> points = new TreeMap<>();
+        series.read(ceilSecond(startTime), endTime / 1000, points);
+        for (Entry<Long, long[]> point : points.entrySet()) {
+            results.add(toEntity(app, resource, point.getKey(), point.getValue()));
+        }
+        return results;
+    }
+
+    @Override
+    public List<String> listResourcesOfApp(String app) {
+        List<String> results = new ArrayList<>();
+        if (StringUtil.isBlank(app)) {
+            return results;
+        }
+        Map<String, MetricSeries> resourceMap = allSeries.get(app);
+        if (resourceMap == null) {
+            return results;
+        }
+        final long minSecond = ceilSecond(System.currentTimeMillis() - 1000 * 60);
+        Map<String, long[]> resourceCount = new HashMap<>(32);
+        Map<Long, long[]> points = new HashMap<>(64);
+        for (Entry<String, MetricSeries> resourceSeries : resourceMap.entrySet()) {
+            points.clear();
+            resourceSeries.getValue().read(minSecond, Long.MAX_VALUE, points);
+            if (points.isEmpty()) {
+                continue;
+            }
+            long[] total = new long[MetricSeries.COLUMNS];
+            for (long[] values : points.values()) {
+                for (int i = 0; i < MetricSeries.COLUMNS; i++) {
+                    total[i] += values[i];
+                }
+            }
+            resourceCount.put(resourceSeries.getKey(), total);
+        }
+        // Order by last minute b_qps DESC.
+        return resourceCount.entrySet()
+            .stream()
+            .sorted((o1, o2) -> {
+                int t = Long.compare(o2.getValue()[MetricSeries.BLOCK], o1.getValue()[MetricSeries.BLOCK]);
+                if (t != 0) {
+                    return t;
+                }
+                return Long.compare(o2.getValue()[MetricSeries.PASS], o1.getValue()[MetricSeries.PASS]);
+            })
+            .map(Entry::getKey)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Release the expired blocks, and remove the empty series (the maps of apps are kept).
+     */
+    void expire() {
+        expire(TimeUtil.currentTimeMillis());
+    }
+
+    void expire(long now) {
+        long minSecond = ceilSecond(now - retentionMs);
+        for (Map<String, MetricSeries> resourceMap : allSeries.values()) {
+            resourceMap.entrySet().removeIf(e -> e.getValue().expire(minSecond));
+        }
+        blockQueue.pruneStale();
+    }
+
+    long usedBytes() {
+        return arena.usedBytes();
+    }
+
+    int queuedBlocks() {
+        return blockQueue.size();
+    }
+
+    private static long ceilSecond(long timeMs) {
+        return (timeMs + 999) / 1000;
+    }
+
+    private static MetricEntity toEntity(String app, String resource, long second, long[] values) {
+        MetricEntity entity = new MetricEntity();
+        Date date = new Date(second * 1000);
+        entity.setGmtCreate(date);
+        entity.setGmtModified(date);
+        entity.setApp(app);
+        entity.setResource(resource);
+        entity.setTimestamp(date);
+        entity.setPassQps(values[MetricSeries.PASS]);
+        entity.setSuccessQps(values[MetricSeries.SUCCESS]);
+        entity.setBlockQps(values[MetricSeries.BLOCK]);
+        entity.setExceptionQps(values[MetricSeries.EXCEPTION]);
+        entity.setRt(values[MetricSeries.RT]);
+        entity.setCount((int)values[MetricSeries.COUNT]);
+        return entity;
+    }
+}
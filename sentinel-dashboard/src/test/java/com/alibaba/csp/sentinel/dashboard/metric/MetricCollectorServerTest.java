@@ -0,0 +1,159 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.metric;
+
+import java.io.File;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.alibaba.csp.sentinel.dashboard.discovery.MachineInfo;
+import com.alibaba.csp.sentinel.dashboard.repository.metric.InMemoryMetricsRepository;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricPushClient;
+import com.alibaba.csp.sentinel.util.HostNameUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link MetricCollectorServer}.
+ */
+public class MetricCollectorServerTest {
+
+    private InMemoryMetricsRepository repository;
+    private MetricCollectorServer collector;
+    private File spoolFile;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = new InMemoryMetricsRepository();
+        collector = new MetricCollectorServer(repository, new TopResourceIndex());
+        collector.start(0, "secret", 2);
+        spoolFile = File.createTempFile("sentinel-metric", ".spool");
+    }
+
+    @After
+    public void tearDown() {
+        collector.stop();
+        spoolFile.delete();
+    }
+
+    @Test
+    public void testCollectPushedMetrics() throws Exception {
+        String app = SentinelConfig.getAppName();
+        long time = System.currentTimeMillis() / 1000 * 1000;
+        MetricPushClient client = new MetricPushClient("127.0.0.1", collector.getPort(), 16,
+            spoolFile.getAbsolutePath(), 1024 * 1024, "secret");
+        client.start();
+        try {
+            client.push(time, Collections.singletonList(newNode("res", time, 10, 5)));
+
+            List<MetricEntity> metrics = waitForMetrics(app, "res", time);
+            assertEquals(10L, metrics.get(0).getPassQps().longValue());
+            assertEquals(5.0, metrics.get(0).getRt(), 0.01);
+            assertTrue(collector.isPushing(MachineInfo.of(app, HostNameUtil.getIp(), -1)));
+
+            // The pulled metrics of other machines are merged.
+            MetricEntity pulled = new MetricEntity();
+            pulled.setApp(app);
+            pulled.setResource("res");
+            pulled.setTimestamp(new Date(time));
+            pulled.setPassQps(20L);
+            pulled.setBlockQps(0L);
+            pulled.setExceptionQps(0L);
+            pulled.setRtAndSuccessQps(10, 2L);
+            pulled.setCount(1);
+            collector.accumulate(Collections.singletonList(pulled));
+            collector.flush();
+
+            MetricEntity merged = repository.queryByAppAndResourceBetween(app, "res", time, time).get(0);
+            assertEquals(30L, merged.getPassQps().longValue());
+            assertEquals(3L, merged.getSuccessQps().longValue());
+            assertEquals(25.0, merged.getRt(), 0.01);
+            assertEquals(2, merged.getCount());
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    public void testRejectInvalidToken() throws Exception {
+        String app = SentinelConfig.getAppName();
+        long time = System.currentTimeMillis() / 1000 * 1000;
+        MetricPushClient client = new MetricPushClient("127.0.0.1", collector.getPort(), 16,
+            spoolFile.getAbsolutePath(), 1024 * 1024, "wrong");
+        client.start();
+        try {
+            client.push(time, Collections.singletonList(newNode("res", time, 10, 5)));
+            Thread.sleep(1000);
+            collector.flush();
+
+            assertTrue(repository.queryByAppAndResourceBetween(app, "res", time, time).isEmpty());
+            assertFalse(collector.isPushing(MachineInfo.of(app, HostNameUtil.getIp(), -1)));
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    public void testRejectConnectionsOverLimit() throws Exception {
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                Socket socket = new Socket("127.0.0.1", collector.getPort());
+                socket.setSoTimeout(5000);
+                sockets.add(socket);
+            }
+            // The third connection is closed by the collector since the pool is full.
+            assertEquals(-1, sockets.get(2).getInputStream().read());
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    private List<MetricEntity> waitForMetrics(String app, String resource, long time) throws Exception {
+        for (int i = 0; i < 50; i++) {
+            collector.flush();
+            List<MetricEntity> metrics = repository.queryByAppAndResourceBetween(app, resource, time, time);
+            if (!metrics.isEmpty()) {
+                return metrics;
+            }
+            Thread.sleep(100);
+        }
+        fail("Pushed metrics not collected");
+        return null;
+    }
+
+    private MetricNode newNode(String resource, long time, long passQps, long rt) {
+        MetricNode node = new MetricNode();
+        node.setTimestamp(time);
+        node.setResource(resource);
+        node.setPassQps(passQps);
+        node.setSuccessQps(1);
+        node.setRt(rt);
+        return node;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.alibaba.csp.sentinel.dashboard.metric.TopResourceIndex.RankType;
+import com.alibaba.csp.sentinel.dashboard.metric.TopResourceIndex.ResourceRank;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link TopResourceIndex}.
+ */
+public class TopResourceIndexTest {
+
+    private static final String APP = "app";
+
+    private TopResourceIndex index;
+    private long now;
+
+    @Before
+    public void setUp() {
+        index = new TopResourceIndex();
+        now = System.currentTimeMillis() / 1000 * 1000;
+    }
+
+    @Test
+    public void testRankAndPage() {
+        List<MetricEntity> entities = new ArrayList<>();
+        entities.add(newEntity("resA", now - 1000, 10, 0, 0, 5));
+        entities.add(newEntity("resB", now - 1000, 5, 3, 2, 50));
+        entities.add(newEntity("resC", now - 2000, 20, 0, 0, 20));
+        // Resources of the same block qps are ordered by pass qps.
+        entities.add(newEntity("resC", now - 1000, 20, 0, 1, 20));
+        index.addAll(entities);
+
+        assertEquals(3, index.size(APP));
+        assertEquals(Arrays.asList("resB", "resC", "resA"),
+            index.list(APP, RankType.BLOCK_QPS, true, null, 0, 10));
+        assertEquals(Arrays.asList("resA", "resC"), index.list(APP, RankType.BLOCK_QPS, false, null, 0, 2));
+        assertEquals(Collections.singletonList("resC"), index.list(APP, RankType.BLOCK_QPS, true, null, 1, 1));
+        assertEquals(Collections.singletonList("resA"), index.list(APP, RankType.BLOCK_QPS, true, "A", 0, 10));
+        assertEquals(Arrays.asList("resC", "resA", "resB"), index.list(APP, RankType.PASS_QPS, true, null, 0, 10));
+        assertEquals(Arrays.asList("resB", "resC", "resA"), index.list(APP, RankType.RT, true, null, 0, 10));
+        assertEquals("resB", index.list(APP, RankType.EXCEPTION_RATE, true, null, 0, 1).get(0));
+
+        List<ResourceRank> top = index.top(APP, RankType.PASS_QPS, 1);
+        assertEquals(1, top.size());
+        assertEquals("resC", top.get(0).getResource());
+        assertEquals(40, top.get(0).getPass());
+        assertEquals(1, top.get(0).getException());
+        assertEquals(20.0, top.get(0).getRt(), 0.01);
+    }
+
+    @Test
+    public void testWindowMovesOn() {
+        index.addAll(Collections.singletonList(newEntity("resA", now - 1000, 100, 0, 0, 1)));
+        index.addAll(Collections.singletonList(newEntity("resB", now - 1000, 10, 0, 0, 1)));
+        assertEquals("resA", index.list(APP, RankType.PASS_QPS, true, null, 0, 1).get(0));
+
+        // resA is not updated any more, but its metrics expire when the window moves on.
+        long later = now + 1000 * 40;
+        index.addAll(Collections.singletonList(newEntity("resB", later, 10, 0, 0, 1)));
+        assertEquals("resA", index.list(APP, RankType.PASS_QPS, true, null, 0, 1).get(0));
+        index.advance(APP, later + 1000 * 40);
+        index.addAll(Collections.singletonList(newEntity("resB", later + 1000 * 40, 10, 0, 0, 1)));
+        List<ResourceRank> top = index.top(APP, RankType.PASS_QPS, 10);
+        assertEquals(1, top.size());
+        assertEquals("resB", top.get(0).getResource());
+        assertEquals(20, top.get(0).getPass());
+
+        // Metrics out of the window are ignored.
+        index.addAll(Collections.singletonList(newEntity("resC", now, 1000, 0, 0, 1)));
+        assertEquals(1, index.top(APP, RankType.PASS_QPS, 10).size());
+    }
+
+    @Test
+    public void testListConsistentWhileReranking() throws Exception {
+        final int resourceCount = 50;
+        for (int i = 0; i < resourceCount; i++) {
+            index.addAll(Collections.singletonList(newEntity("res" + i, now - 1000, 1, 0, 0, 1)));
+        }
+        Thread writer = new Thread(() -> {
+            for (int round = 0; round < 2000; round++) {
+                int i = (round * 31) % resourceCount;
+                index.addAll(Collections.singletonList(newEntity("res" + i, now - 1000, round, 0, 0, 1)));
+            }
+        });
+        writer.start();
+        int inconsistent = 0;
+        while (writer.isAlive()) {
+            // A listing should see each resource exactly once, even if they are being re-ranked.
+            List<String> resources = index.list(APP, RankType.PASS_QPS, true, null, 0, resourceCount * 2);
+            if (resources.size() != resourceCount || new HashSet<>(resources).size() != resourceCount) {
+                inconsistent++;
+            }
+        }
+        writer.join();
+        assertEquals(0, inconsistent);
+        assertEquals(resourceCount, index.size(APP));
+    }
+
+    private MetricEntity newEntity(String resource, long timestamp, long passQps, long blockQps, long exceptionQps,
+                                   long rt) {
+        MetricEntity entity = new MetricEntity();
+        entity.setApp(APP);
+        entity.setResource(resource);
+        entity.setTimestamp(new Date(timestamp));
+        entity.setPassQps(passQps);
+        entity.setBlockQps(blockQps);
+        entity.setExceptionQps(exceptionQps);
+        entity.setRtAndSuccessQps(rt, passQps);
+        entity.setCount(1);
+        return entity;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link OffHeapMetricsRepository}.
+ */
+public class OffHeapMetricsRepositoryTest {
+
+    private final static String DEFAULT_APP = "defaultApp";
+    private final static String DEFAULT_RESOURCE = "defaultResource";
+    private static final long RETENTION_MS = 1000 * 60 * 60L;
+
+    private OffHeapMetricsRepository repository;
+
+    @Before
+    public void setUp() {
+        repository = new OffHeapMetricsRepository(RETENTION_MS, 16 * 1024 * 1024);
+    }
+
+    @Test
+    public void testSaveAndQueryRange() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        List<MetricEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 1800; i++) {
+            entities.add(newEntity(DEFAULT_RESOURCE, now - i * 1000L, i, i % 7, 3 * i));
+        }
+        repository.saveAll(entities);
+
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween(DEFAULT_APP, DEFAULT_RESOURCE,
+            now - 1200 * 1000L, now - 1000 * 1000L);
+        assertEquals(201, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            MetricEntity entity = results.get(i);
+            int n = 1200 - i;
+            assertEquals(now - n * 1000L, entity.getTimestamp().getTime());
+            assertEquals(n, entity.getPassQps().longValue());
+            assertEquals(n % 7, entity.getBlockQps().longValue());
+            assertEquals(3.0 * n, entity.getRt(), 0.01);
+            assertEquals(1, entity.getCount());
+        }
+        // Points of 30 minutes take far less than MetricEntity objects.
+        assertTrue(repository.usedBytes() < 1800 * 40);
+    }
+
+    @Test
+    public void testSaveSameSecondLastWins() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        repository.save(newEntity(DEFAULT_RESOURCE, now - 2000, 10, 0, 1));
+        repository.save(newEntity(DEFAULT_RESOURCE, now - 1000, 20, 0, 1));
+        repository.save(newEntity(DEFAULT_RESOURCE, now - 2000, 15, 1, 1));
+
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween(DEFAULT_APP, DEFAULT_RESOURCE,
+            now - 2000, now);
+        assertEquals(2, results.size());
+        assertEquals(15, results.get(0).getPassQps().longValue());
+        assertEquals(1, results.get(0).getBlockQps().longValue());
+        assertEquals(20, results.get(1).getPassQps().longValue());
+    }
+
+    @Test
+    public void testExpireAndRetention() {
+        repository = new OffHeapMetricsRepository(1000 * 60 * 10L, 16 * 1024 * 1024);
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        // Older than retention, ignored.
+        repository.save(newEntity(DEFAULT_RESOURCE, now - 1000 * 60 * 11L, 1, 0, 1));
+        assertTrue(repository.queryByAppAndResourceBetween(DEFAULT_APP, DEFAULT_RESOURCE, 0, now).isEmpty());
+
+        repository.save(newEntity(DEFAULT_RESOURCE, now - 1000 * 60 * 9L, 1, 0, 1));
+        repository.save(newEntity("other", now, 1, 0, 1));
+        repository.expire();
+        assertEquals(1, repository.queryByAppAndResourceBetween(DEFAULT_APP, DEFAULT_RESOURCE, 0, now).size());
+        assertTrue(repository.usedBytes() > 0);
+
+        repository.expire(now + 1000 * 60 * 11L);
+        assertTrue(repository.queryByAppAndResourceBetween(DEFAULT_APP, DEFAULT_RESOURCE, 0, now).isEmpty());
+        assertTrue(repository.listResourcesOfApp(DEFAULT_APP).isEmpty());
+        assertEquals(0, repository.usedBytes());
+    }
+
+    @Test
+    public void testArenaExhaustedOverwritesOldestBlocks() {
+        repository = new OffHeapMetricsRepository(RETENTION_MS, 1024 * 1024);
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        // Each resource needs 2 blocks at least, so the arena (4096 blocks) is exhausted.
+        for (int r = 0; r < 2500; r++) {
+            for (int i = 0; i < 60; i++) {
+                repository.save(newEntity("res" + r, now - (60 - i) * 1000L, 100000 + i, 100000 + i,
+                    100000 + i));
+            }
+        }
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween(DEFAULT_APP, "res0", 0, now);
+        // The latest second is still available.
+        assertEquals(now - 1000, results.get(results.size() - 1).getTimestamp().getTime());
+        assertTrue(repository.usedBytes() <= 1024 * 1024);
+    }
+
+    @Test
+    public void testArenaExhaustedReclaimsInAddedOrder() {
+        repository = new OffHeapMetricsRepository(RETENTION_MS, 1024 * 1024);
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        // One block for each resource, so the arena (4096 blocks) is exhausted.
+        for (int r = 0; r < 4096; r++) {
+            repository.save(newEntity("res" + r, now - 1000, r, 0, 1));
+        }
+        assertEquals(4096, repository.queuedBlocks());
+
+        repository.save(newEntity("new0", now - 1000, 1, 0, 1));
+        assertTrue(repository.queryByAppAndResourceBetween(DEFAULT_APP, "res0", 0, now).isEmpty());
+        assertFalse(repository.queryByAppAndResourceBetween(DEFAULT_APP, "res1", 0, now).isEmpty());
+        repository.save(newEntity("new1", now - 1000, 1, 0, 1));
+        assertTrue(repository.queryByAppAndResourceBetween(DEFAULT_APP, "res1", 0, now).isEmpty());
+        assertFalse(repository.queryByAppAndResourceBetween(DEFAULT_APP, "res2", 0, now).isEmpty());
+        assertEquals(1, repository.queryByAppAndResourceBetween(DEFAULT_APP, "new0", 0, now).size());
+        assertEquals(1, repository.queryByAppAndResourceBetween(DEFAULT_APP, "new1", 0, now).size());
+
+        // The records of the expired blocks are dropped.
+        repository.expire(now + RETENTION_MS + 1000);
+        assertEquals(0, repository.usedBytes());
+        assertEquals(0, repository.queuedBlocks());
+    }
+
+    @Test
+    public void testArenaExhaustedConcurrentNewSeries() throws Exception {
+        long retentionMs = 1000 * 60 * 60 * 24L;
+        repository = new OffHeapMetricsRepository(retentionMs, 1024 * 1024);
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        long start = now - retentionMs / 2;
+        // Exhaust the arena by a single series.
+        for (int i = 0; repository.usedBytes() < 1024 * 1024; i++) {
+            long value = i % 2 == 0 ? 0 : 1L << 40;
+            repository.save(newEntity(DEFAULT_RESOURCE, start + i * 1000L, value, value, value));
+        }
+
+        int threadCount = 8;
+        int resourcesPerThread = 200;
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int r = 0; r < resourcesPerThread; r++) {
+                    repository.save(newEntity("res-" + thread + "-" + r, now - 1000, r, 0, 1));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Every new series gets a block reclaimed from the oldest series.
+        for (int t = 0; t < threadCount; t++) {
+            for (int r = 0; r < resourcesPerThread; r++) {
+                List<MetricEntity> results = repository.queryByAppAndResourceBetween(DEFAULT_APP,
+                    "res-" + t + "-" + r, 0, now);
+                assertEquals(1, results.size());
+                assertEquals(r, results.get(0).getPassQps().longValue());
+            }
+        }
+        assertFalse(repository.queryByAppAndResourceBetween(DEFAULT_APP, DEFAULT_RESOURCE, 0, now).isEmpty());
+        assertTrue(repository.usedBytes() <= 1024 * 1024);
+    }
+
+    @Test
+    public void testListResourcesOfApp() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        repository.save(newEntity("resA", now - 1000, 10, 0, 1));
+        repository.save(newEntity("resB", now - 1000, 5, 3, 1));
+        repository.save(newEntity("resC", now - 2000, 20, 0, 1));
+        repository.save(newEntity("resC", now - 1000, 20, 0, 1));
+        // Earlier than 1 minute, not counted.
+        repository.save(newEntity("resD", now - 1000 * 120, 1000, 1000, 1));
+
+        List<String> resources = repository.listResourcesOfApp(DEFAULT_APP);
+        assertEquals(3, resources.size());
+        assertEquals("resB", resources.get(0));
+        assertEquals("resC", resources.get(1));
+        assertEquals("resA", resources.get(2));
+    }
+
+    private MetricEntity newEntity(String resource, long timestamp, long passQps, long blockQps, long rt) {
+        MetricEntity entity = new MetricEntity();
+        entity.setApp(DEFAULT_APP);
+        entity.setResource(resource);
+        entity.setTimestamp(new Date(timestamp));
+        entity.setGmtCreate(new Date());
+        entity.setGmtModified(new Date());
+        entity.setPassQps(passQps);
+        entity.setBlockQps(blockQps);
+        entity.setExceptionQps(0L);
+        entity.setRtAndSuccessQps(rt, 1L);
+        entity.setCount(1);
+        return entity;
+    }
+}
@@ -35,6 +35,8 @@ import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.statistic.cache.CacheMap;
+import com.alibaba.csp.sentinel.slots.statistic.cache.ConcurrentLongCacheMap;
+import com.alibaba.csp.sentinel.slots.statistic.sketch.WindowedFrequencySketch;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
@@ -105,7 +107,9 @@ public final class ParamFlowChecker {
     static boolean passSingleValueCheck(ResourceWrapper resourceWrapper, ParamFlowRule rule, int acquireCount,
                                         Object value) {
         if (rule.getGrade() == RuleConstant.FLOW_GRADE_QPS) {
-            if (rule.getControlBehavior() == RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER) {
+            if (rule.isSketchMode()) {
+                return passSketchLocalCheck(resourceWrapper, rule, acquireCount, value);
+            } else if (rule.getControlBehavior() == RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER) {
                 return passThrottleLocalCheck(resourceWrapper, rule, acquireCount, value);
             } else {
                 return passDefaultLocalCheck(resourceWrapper, rule, acquireCount, value);
@@ -127,10 +131,9 @@ public final class ParamFlowChecker {
     static boolean passDefaultLocalCheck(ResourceWrapper resourceWrapper, ParamFlowRule rule, int acquireCount,
                                          Object value) {
         ParameterMetric metric = getParameterMetric(resourceWrapper);
-        CacheMap<Object, AtomicLong> tokenCounters = metric == null ? null : metric.getRuleTokenCounter(rule);
-        CacheMap<Object, AtomicLong> timeCounters = metric == null ? null : metric.getRuleTimeCounter(rule);
+        CacheMap<Object, ParamTokenBucket> tokenBuckets = metric == null ? null : metric.getRuleTokenBuckets(rule);
 
-        if (tokenCounters == null || timeCounters == null) {
+        if (tokenBuckets == null) {
             return true;
         }
 
@@ -150,55 +153,55 @@ public final class ParamFlowChecker {
             return false;
         }
 
-        while (true) {
-            long currentTime = TimeUtil.currentTimeMillis();
-
-            AtomicLong lastAddTokenTime = timeCounters.putIfAbsent(value, new AtomicLong(currentTime));
-            if (lastAddTokenTime == null) {
-                // Token never added, just replenish the tokens and consume {@code acquireCount} immediately.
-                tokenCounters.putIfAbsent(value, new AtomicLong(maxCount - acquireCount));
-                return true;
+        long currentTime = TimeUtil.currentTimeMillis();
+        // The bucket is only created for a new value, so the check of existing values allocates nothing.
+        ParamTokenBucket bucket;
+        ConcurrentLongCacheMap<ParamTokenBucket> longTokenBuckets = metric.getRuleLongTokenBuckets(rule);
+        if (longTokenBuckets != null && ParameterMetric.isLongKey(value)) {
+            // Numeric values are looked up by primitive key, without hashing the boxed value.
+            long key = ((Number)value).longValue();
+            bucket = longTokenBuckets.get(key);
+            if (bucket == null) {
+                bucket = longTokenBuckets.putIfAbsent(key,
+                    new ParamTokenBucket(currentTime, maxCount - acquireCount));
             }
+        } else {
+            bucket = tokenBuckets.get(value);
+            if (bucket == null) {
+                bucket = tokenBuckets.putIfAbsent(value, new ParamTokenBucket(currentTime, maxCount - acquireCount));
+            }
+        }
+        if (bucket == null) {
+            // Token never added, just replenish the tokens and consume {@code acquireCount} immediately.
+            return true;
+        }
+        return bucket.tryAcquire(currentTime, acquireCount, tokenCount, maxCount, rule.getDurationInSec() * 1000);
+    }
 
-            // Calculate the time duration since last token was added.
-            long passTime = currentTime - lastAddTokenTime.get();
-            // A simplified token bucket algorithm that will replenish the tokens only when statistic window has passed.
-            if (passTime > rule.getDurationInSec() * 1000) {
-                AtomicLong oldQps = tokenCounters.putIfAbsent(value, new AtomicLong(maxCount - acquireCount));
-                if (oldQps == null) {
-                    // Might not be accurate here.
-                    lastAddTokenTime.set(currentTime);
-                    return true;
-                } else {
-                    long restQps = oldQps.get();
-                    long toAddCount = (passTime * tokenCount) / (rule.getDurationInSec() * 1000);
-                    long newQps = toAddCount + restQps > maxCount ? (maxCount - acquireCount)
-                        : (restQps + toAddCount - acquireCount);
+    /**
+     * Check by the estimated count of the value in the sliding window (of {@code durationInSec}), which is never
+     * less than the actual count. The threshold of a window is the token count plus the burst count.
+     */
+    static boolean passSketchLocalCheck(ResourceWrapper resourceWrapper, ParamFlowRule rule, int acquireCount,
+                                        Object value) {
+        ParameterMetric metric = getParameterMetric(resourceWrapper);
+        WindowedFrequencySketch sketch = metric == null ? null : metric.getRuleSketch(rule);
+        if (sketch == null) {
+            return true;
+        }
 
-                    if (newQps < 0) {
-                        return false;
-                    }
-                    if (oldQps.compareAndSet(restQps, newQps)) {
-                        lastAddTokenTime.set(currentTime);
-                        return true;
-                    }
-                    Thread.yield();
-                }
-            } else {
-                AtomicLong oldQps = tokenCounters.get(value);
-                if (oldQps != null) {
-                    long oldQpsValue = oldQps.get();
-                    if (oldQpsValue - acquireCount >= 0) {
-                        if (oldQps.compareAndSet(oldQpsValue, oldQpsValue - acquireCount)) {
-                            return true;
-                        }
-                    } else {
-                        return false;
-                    }
-                }
-                Thread.yield();
-            }
+        long tokenCount = (long)rule.getCount();
+        Integer itemThreshold = rule.getParsedHotItems().get(value);
+        if (itemThreshold != null) {
+            tokenCount = itemThreshold;
         }
+        long maxCount = tokenCount + rule.getBurstCount();
+        // Checking and adding are not atomic, so concurrent requests may pass slightly more than the threshold.
+        if (sketch.estimate(value) + acquireCount > maxCount) {
+            return false;
+        }
+        sketch.add(value, acquireCount);
+        return true;
     }
 
     static boolean passThrottleLocalCheck(ResourceWrapper resourceWrapper, ParamFlowRule rule, int acquireCount,
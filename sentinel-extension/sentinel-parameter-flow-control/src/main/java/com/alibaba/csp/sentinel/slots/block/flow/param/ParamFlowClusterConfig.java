@@ -43,6 +43,20 @@ public class ParamFlowClusterConfig {
      */
     private int windowIntervalMs = RuleConstant.DEFAULT_WINDOW_INTERVAL_MS;
 
+    /**
+     * Statistic type of the parameter values on token server (0: per-value counters, 1: sketch).
+     */
+    private int statisticType = ClusterRuleConstant.PARAM_STATISTIC_TYPE_DEFAULT;
+    /**
+     * Error bound of the estimated count by the sketch, relative to the total count of all values in the window.
+     * The default takes 1024 counters in each row of the sketch.
+     */
+    private double sketchEpsilon = 0.003;
+    /**
+     * Probability that the estimation error of the sketch exceeds the bound. The default takes 4 rows.
+     */
+    private double sketchDelta = 0.02;
+
     public Long getFlowId() {
         return flowId;
     }
@@ -88,6 +102,33 @@ public class ParamFlowClusterConfig {
         return this;
     }
 
+    public int getStatisticType() {
+        return statisticType;
+    }
+
+    public ParamFlowClusterConfig setStatisticType(int statisticType) {
+        this.statisticType = statisticType;
+        return this;
+    }
+
+    public double getSketchEpsilon() {
+        return sketchEpsilon;
+    }
+
+    public ParamFlowClusterConfig setSketchEpsilon(double sketchEpsilon) {
+        this.sketchEpsilon = sketchEpsilon;
+        return this;
+    }
+
+    public double getSketchDelta() {
+        return sketchDelta;
+    }
+
+    public ParamFlowClusterConfig setSketchDelta(double sketchDelta) {
+        this.sketchDelta = sketchDelta;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) { return true; }
@@ -99,6 +140,9 @@ public class ParamFlowClusterConfig {
         if (fallbackToLocalWhenFail != config.fallbackToLocalWhenFail) { return false; }
         if (sampleCount != config.sampleCount) { return false; }
         if (windowIntervalMs != config.windowIntervalMs) { return false; }
+        if (statisticType != config.statisticType) { return false; }
+        if (Double.compare(config.sketchEpsilon, sketchEpsilon) != 0) { return false; }
+        if (Double.compare(config.sketchDelta, sketchDelta) != 0) { return false; }
         return flowId != null ? flowId.equals(config.flowId) : config.flowId == null;
     }
 
@@ -109,6 +153,11 @@ public class ParamFlowClusterConfig {
         result = 31 * result + (fallbackToLocalWhenFail ? 1 : 0);
         result = 31 * result + sampleCount;
         result = 31 * result + windowIntervalMs;
+        result = 31 * result + statisticType;
+        long temp = Double.doubleToLongBits(sketchEpsilon);
+        result = 31 * result + (int)(temp ^ (temp >>> 32));
+        temp = Double.doubleToLongBits(sketchDelta);
+        result = 31 * result + (int)(temp ^ (temp >>> 32));
         return result;
     }
 
@@ -120,6 +169,9 @@ public class ParamFlowClusterConfig {
             ", fallbackToLocalWhenFail=" + fallbackToLocalWhenFail +
             ", sampleCount=" + sampleCount +
             ", windowIntervalMs=" + windowIntervalMs +
+            ", statisticType=" + statisticType +
+            ", sketchEpsilon=" + sketchEpsilon +
+            ", sketchDelta=" + sketchDelta +
             '}';
     }
 }
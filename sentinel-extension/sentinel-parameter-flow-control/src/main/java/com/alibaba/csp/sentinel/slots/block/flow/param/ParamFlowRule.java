@@ -23,6 +23,7 @@ import java.util.Objects;
 
 import com.alibaba.csp.sentinel.slots.block.AbstractRule;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.statistic.sketch.FrequencySketch;
 
 /**
  * Rules for "hot-spot" frequent parameter flow control.
@@ -63,6 +64,28 @@ public class ParamFlowRule extends AbstractRule {
     private int burstCount = 0;
     private long durationInSec = 1;
 
+    /**
+     * Whether to count the parameter values by a sliding window of Count-Min Sketch and heavy hitters,
+     * which takes fixed memory regardless of the count of distinct values (e.g. client IP), instead of
+     * the token buckets in LRU maps, which forget the evicted hot values. The estimated count is never
+     * less than the actual count, so hot values are never under-limited. Only for QPS mode with default
+     * control behavior.
+     */
+    private boolean sketchMode = false;
+    /**
+     * Error bound of the estimated count in sketch mode, relative to the total count of all values in the window.
+     * A value may be blocked once {@code sketchEpsilon * total} reaches the threshold even if it is rarely
+     * passed, so it should be well below {@code count / total} of the expected peak total. The memory of the
+     * sketch is in proportion to {@code 1 / sketchEpsilon}, and the rule is invalid if the sketch has more than
+     * {@link FrequencySketch#MAX_COUNTER_COUNT} counters.
+     */
+    private double sketchEpsilon = 0.001;
+    /**
+     * Probability that the estimation error exceeds the bound in sketch mode.
+     * The memory of the sketch is in proportion to {@code ln(1 / sketchDelta)}.
+     */
+    private double sketchDelta = 0.01;
+
     /**
      * Original exclusion items of parameters.
      */
@@ -118,6 +141,33 @@ public class ParamFlowRule extends AbstractRule {
         return this;
     }
 
+    public boolean isSketchMode() {
+        return sketchMode;
+    }
+
+    public ParamFlowRule setSketchMode(boolean sketchMode) {
+        this.sketchMode = sketchMode;
+        return this;
+    }
+
+    public double getSketchEpsilon() {
+        return sketchEpsilon;
+    }
+
+    public ParamFlowRule setSketchEpsilon(double sketchEpsilon) {
+        this.sketchEpsilon = sketchEpsilon;
+        return this;
+    }
+
+    public double getSketchDelta() {
+        return sketchDelta;
+    }
+
+    public ParamFlowRule setSketchDelta(double sketchDelta) {
+        this.sketchDelta = sketchDelta;
+        return this;
+    }
+
     public int getGrade() {
         return grade;
     }
@@ -202,6 +252,9 @@ public class ParamFlowRule extends AbstractRule {
         if (maxQueueingTimeMs != that.maxQueueingTimeMs) { return false; }
         if (burstCount != that.burstCount) { return false; }
         if (durationInSec != that.durationInSec) { return false; }
+        if (sketchMode != that.sketchMode) { return false; }
+        if (Double.compare(that.sketchEpsilon, sketchEpsilon) != 0) { return false; }
+        if (Double.compare(that.sketchDelta, sketchDelta) != 0) { return false; }
         if (clusterMode != that.clusterMode) { return false; }
         if (!Objects.equals(paramIdx, that.paramIdx)) { return false; }
         if (!Objects.equals(paramFlowItemList, that.paramFlowItemList)) { return false; }
@@ -220,6 +273,11 @@ public class ParamFlowRule extends AbstractRule {
         result = 31 * result + maxQueueingTimeMs;
         result = 31 * result + burstCount;
         result = 31 * result + (int)(durationInSec ^ (durationInSec >>> 32));
+        result = 31 * result + (sketchMode ? 1 : 0);
+        temp = Double.doubleToLongBits(sketchEpsilon);
+        result = 31 * result + (int)(temp ^ (temp >>> 32));
+        temp = Double.doubleToLongBits(sketchDelta);
+        result = 31 * result + (int)(temp ^ (temp >>> 32));
         result = 31 * result + (paramFlowItemList != null ? paramFlowItemList.hashCode() : 0);
         result = 31 * result + (clusterMode ? 1 : 0);
         result = 31 * result + (clusterConfig != null ? clusterConfig.hashCode() : 0);
@@ -236,6 +294,9 @@ public class ParamFlowRule extends AbstractRule {
             ", maxQueueingTimeMs=" + maxQueueingTimeMs +
             ", burstCount=" + burstCount +
             ", durationInSec=" + durationInSec +
+            ", sketchMode=" + sketchMode +
+            ", sketchEpsilon=" + sketchEpsilon +
+            ", sketchDelta=" + sketchDelta +
             ", paramFlowItemList=" + paramFlowItemList +
             ", clusterMode=" + clusterMode +
             ", clusterConfig=" + clusterConfig +
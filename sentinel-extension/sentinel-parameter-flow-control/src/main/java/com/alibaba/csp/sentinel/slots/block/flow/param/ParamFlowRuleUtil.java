@@ -25,8 +25,10 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleUtil;
+import com.alibaba.csp.sentinel.slots.statistic.sketch.FrequencySketch;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.StringUtil;
 import com.alibaba.csp.sentinel.util.function.Function;
@@ -48,7 +50,17 @@ public final class ParamFlowRuleUtil {
             && rule.getGrade() >= 0 && rule.getParamIdx() != null
             && rule.getBurstCount() >= 0 && rule.getControlBehavior() >= 0
             && rule.getDurationInSec() > 0 && rule.getMaxQueueingTimeMs() >= 0
-            && checkCluster(rule);
+            && checkSketch(rule) && checkCluster(rule);
+    }
+
+    private static boolean checkSketch(/*@PreChecked*/ ParamFlowRule rule) {
+        if (!rule.isSketchMode()) {
+            return true;
+        }
+        return rule.getGrade() == RuleConstant.FLOW_GRADE_QPS
+            && rule.getControlBehavior() == RuleConstant.CONTROL_BEHAVIOR_DEFAULT
+            && rule.getDurationInSec() <= Integer.MAX_VALUE / 1000
+            && FrequencySketch.isValidErrorBound(rule.getSketchEpsilon(), rule.getSketchDelta());
     }
 
     private static boolean checkCluster(/*@PreChecked*/ ParamFlowRule rule) {
@@ -62,6 +74,14 @@ public final class ParamFlowRuleUtil {
         if (!FlowRuleUtil.isWindowConfigValid(clusterConfig.getSampleCount(), clusterConfig.getWindowIntervalMs())) {
             return false;
         }
+        if (clusterConfig.getStatisticType() != ClusterRuleConstant.PARAM_STATISTIC_TYPE_DEFAULT
+            && clusterConfig.getStatisticType() != ClusterRuleConstant.PARAM_STATISTIC_TYPE_SKETCH) {
+            return false;
+        }
+        if (clusterConfig.getStatisticType() == ClusterRuleConstant.PARAM_STATISTIC_TYPE_SKETCH
+            && !FrequencySketch.isValidErrorBound(clusterConfig.getSketchEpsilon(), clusterConfig.getSketchDelta())) {
+            return false;
+        }
         return validClusterRuleId(clusterConfig.getFlowId());
     }
 
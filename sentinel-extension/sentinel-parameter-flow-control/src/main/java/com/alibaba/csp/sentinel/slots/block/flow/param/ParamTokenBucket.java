@@ -0,0 +1,110 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow.param;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * <p>Token bucket state of a parameter value, of which the time when tokens were last added and the
+ * rest token count are packed into a single {@code long}, so that both are updated atomically by one CAS
+ * and no allocation is needed after the bucket is created.</p>
+ *
+ * <p>The high 32 bits hold the lower 32 bits of the timestamp (in milliseconds), and the low 32 bits hold
+ * the rest token count, which is capped at {@link Integer#MAX_VALUE}. The full timestamp is also kept in
+ * its own field, which is written right after the state and may lag behind it for a moment, so the higher
+ * bits of the timestamp in the state are recovered from it and the elapsed time is correct however long
+ * the bucket is idle. The elapsed time is taken as 0 if the current time is earlier than the stored one
+ * (e.g. a caller read the clock before another one updated the bucket).</p>
+ */
+public final class ParamTokenBucket {
+
+    private static final AtomicLongFieldUpdater<ParamTokenBucket> STATE_UPDATER
+        = AtomicLongFieldUpdater.newUpdater(ParamTokenBucket.class, "state");
+
+    private volatile long state;
+    private volatile long lastAddTokenTime;
+
+    public ParamTokenBucket(long lastAddTokenTime, long restTokens) {
+        this.lastAddTokenTime = lastAddTokenTime;
+        this.state = pack(lastAddTokenTime, restTokens);
+    }
+
+    /**
+     * Try to take tokens from the bucket. A simplified token bucket algorithm is adopted, which will replenish
+     * the tokens only when the statistic duration has passed.
+     *
+     * @param currentTime  current time in milliseconds
+     * @param acquireCount count of tokens to take
+     * @param tokenCount   token count to add per duration (the threshold)
+     * @param maxCount     max token count of the bucket (threshold + burst count)
+     * @param durationInMs statistic duration in milliseconds
+     * @return true if the tokens are taken, otherwise false
+     */
+    public boolean tryAcquire(long currentTime, int acquireCount, long tokenCount, long maxCount,
+                              long durationInMs) {
+        while (true) {
+            long current = state;
+            long restTokens = current & 0xFFFFFFFFL;
+            long passTime = Math.max(0, currentTime - unpackTime(current));
+            long next;
+            if (passTime > durationInMs) {
+                // Do the multiplication in double to avoid overflow when the bucket is idle for a long time.
+                double toAddCount = (double) passTime * tokenCount / durationInMs;
+                long newTokens = toAddCount + restTokens > maxCount ? maxCount - acquireCount
+                    : (long) (restTokens + toAddCount - acquireCount);
+                if (newTokens < 0) {
+                    return false;
+                }
+                next = pack(currentTime, newTokens);
+            } else {
+                if (restTokens - acquireCount < 0) {
+                    return false;
+                }
+                next = current - acquireCount;
+            }
+            if (STATE_UPDATER.compareAndSet(this, current, next)) {
+                if (passTime > durationInMs) {
+                    lastAddTokenTime = currentTime;
+                }
+                return true;
+            }
+        }
+    }
+
+    public long getRestTokens() {
+        return state & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Recover the full timestamp in the state, which is within {@code 2^31} milliseconds of
+     * {@link #lastAddTokenTime} in either direction.
+     */
+    private long unpackTime(long state) {
+        long time = lastAddTokenTime;
+        return time + ((int) (state >>> 32) - (int) time);
+    }
+
+    private static long pack(long time, long tokens) {
+        return (time << 32) | Math.min(tokens, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public String toString() {
+        return "ParamTokenBucket{" +
+            "restTokens=" + getRestTokens() +
+            '}';
+    }
+}
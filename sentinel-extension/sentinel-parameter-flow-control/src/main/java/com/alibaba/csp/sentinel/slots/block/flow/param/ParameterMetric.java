@@ -16,18 +16,34 @@
 package com.alibaba.csp.sentinel.slots.block.flow.param;
 
 import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.slots.statistic.cache.CacheMap;
+import com.alibaba.csp.sentinel.slots.statistic.cache.ConcurrentClockCacheMap;
 import com.alibaba.csp.sentinel.slots.statistic.cache.ConcurrentLinkedHashMapWrapper;
+import com.alibaba.csp.sentinel.slots.statistic.cache.ConcurrentLongCacheMap;
+import com.alibaba.csp.sentinel.slots.statistic.sketch.FrequencySketch;
+import com.alibaba.csp.sentinel.slots.statistic.sketch.WindowedFrequencySketch;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.function.Predicate;
 
 /**
- * Metrics for frequent ("hot spot") parameters.
+ * <p>Metrics for frequent ("hot spot") parameters.</p>
+ *
+ * <p>The metrics of rules and the thread counters of parameter indexes are kept in an immutable snapshot,
+ * which is copied and swapped atomically when a rule is initialized or cleared, so the readers never
+ * take a lock or see a map under modification.</p>
  *
  * @author Eric Zhao
  * @since 0.2.0
@@ -37,32 +53,63 @@ public class ParameterMetric {
     private static final int THREAD_COUNT_MAX_CAPACITY = 4000;
     private static final int BASE_PARAM_MAX_CAPACITY = 4000;
     private static final int TOTAL_MAX_CAPACITY = 20_0000;
+    private static final int SKETCH_SAMPLE_COUNT = 2;
+    private static final int SKETCH_HEAVY_HITTER_CAPACITY = 256;
 
     private final Object lock = new Object();
 
+    private volatile MetricSnapshot snapshot = MetricSnapshot.EMPTY;
+
     /**
-     * Format: (rule, (value, timeRecorder))
+     * Get the token counter for given parameter rule.
      *
+     * @param rule valid parameter rule
+     * @return a view of the rest tokens in the token buckets, or null if absent (or in sketch mode)
      * @since 1.6.0
+     * @deprecated the tokens are kept in {@link #getRuleTokenBuckets(ParamFlowRule)} together with the time,
+     * so the counters of this view are copies of the rest tokens, and putting a counter resets the bucket
      */
-    private final Map<ParamFlowRule, CacheMap<Object, AtomicLong>> ruleTimeCounters = new HashMap<>();
+    @Deprecated
+    public CacheMap<Object, AtomicLong> getRuleTokenCounter(ParamFlowRule rule) {
+        RuleMetric ruleMetric = snapshot.getRuleMetric(rule);
+        if (ruleMetric == null || ruleMetric.tokenBuckets == null) {
+            return null;
+        }
+        return new TokenCounterView(ruleMetric.tokenBuckets, ruleMetric.longTokenBuckets);
+    }
+
     /**
-     * Format: (rule, (value, tokenCounter))
+     * Get the token buckets of parameter values for given parameter rule.
      *
-     * @since 1.6.0
+     * @param rule valid parameter rule
+     * @return the associated token buckets
      */
-    private final Map<ParamFlowRule, CacheMap<Object, AtomicLong>> ruleTokenCounter = new HashMap<>();
-    private final Map<Integer, CacheMap<Object, AtomicInteger>> threadCountMap = new HashMap<>();
+    public CacheMap<Object, ParamTokenBucket> getRuleTokenBuckets(ParamFlowRule rule) {
+        RuleMetric ruleMetric = snapshot.getRuleMetric(rule);
+        return ruleMetric == null ? null : ruleMetric.tokenBuckets;
+    }
 
     /**
-     * Get the token counter for given parameter rule.
+     * Get the token buckets of numeric parameter values (see {@link #isLongKey(Object)}) for given parameter rule,
+     * which are keyed by primitive {@code long}.
      *
      * @param rule valid parameter rule
-     * @return the associated token counter
-     * @since 1.6.0
+     * @return the associated token buckets
      */
-    public CacheMap<Object, AtomicLong> getRuleTokenCounter(ParamFlowRule rule) {
-        return ruleTokenCounter.get(rule);
+    public ConcurrentLongCacheMap<ParamTokenBucket> getRuleLongTokenBuckets(ParamFlowRule rule) {
+        RuleMetric ruleMetric = snapshot.getRuleMetric(rule);
+        return ruleMetric == null ? null : ruleMetric.longTokenBuckets;
+    }
+
+    /**
+     * Get the sliding window sketch of parameter values for given parameter rule in sketch mode.
+     *
+     * @param rule valid parameter rule
+     * @return the associated sketch, or null if the rule is not in sketch mode
+     */
+    public WindowedFrequencySketch getRuleSketch(ParamFlowRule rule) {
+        RuleMetric ruleMetric = snapshot.getRuleMetric(rule);
+        return ruleMetric == null ? null : ruleMetric.sketch;
     }
 
     /**
@@ -73,195 +120,443 @@ public class ParameterMetric {
      * @since 1.6.0
      */
     public CacheMap<Object, AtomicLong> getRuleTimeCounter(ParamFlowRule rule) {
-        return ruleTimeCounters.get(rule);
+        RuleMetric ruleMetric = snapshot.getRuleMetric(rule);
+        return ruleMetric == null ? null : ruleMetric.timeCounter;
     }
 
     public void clear() {
         synchronized (lock) {
-            threadCountMap.clear();
-            ruleTimeCounters.clear();
-            ruleTokenCounter.clear();
+            snapshot = MetricSnapshot.EMPTY;
         }
     }
 
     public void clearForRule(ParamFlowRule rule) {
         synchronized (lock) {
-            ruleTimeCounters.remove(rule);
-            ruleTokenCounter.remove(rule);
-            threadCountMap.remove(rule.getParamIdx());
+            MetricSnapshot current = snapshot;
+            Map<ParamFlowRule, RuleMetric> ruleMetrics = new HashMap<>(current.ruleMetrics);
+            ruleMetrics.remove(rule);
+            ThreadCounter[] threadCounters = current.threadCounters;
+            Integer paramIdx = rule.getParamIdx();
+            if (paramIdx != null && paramIdx >= 0 && paramIdx < threadCounters.length) {
+                threadCounters = threadCounters.clone();
+                threadCounters[paramIdx] = null;
+            }
+            snapshot = new MetricSnapshot(ruleMetrics, threadCounters);
         }
     }
 
     public void initialize(ParamFlowRule rule) {
-        if (!ruleTimeCounters.containsKey(rule)) {
-            synchronized (lock) {
-                if (ruleTimeCounters.get(rule) == null) {
-                    long size = Math.min(BASE_PARAM_MAX_CAPACITY * rule.getDurationInSec(), TOTAL_MAX_CAPACITY);
-                    ruleTimeCounters.put(rule, new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(size));
-                }
-            }
+        // Called for every check, so it should be cheap when the rule has been initialized.
+        MetricSnapshot current = snapshot;
+        if (current.getRuleMetric(rule) != null
+            && (rule.getParamIdx() < 0 || current.getThreadCounter(rule.getParamIdx()) != null)) {
+            return;
         }
-
-        if (!ruleTokenCounter.containsKey(rule)) {
-            synchronized (lock) {
-                if (ruleTokenCounter.get(rule) == null) {
-                    long size = Math.min(BASE_PARAM_MAX_CAPACITY * rule.getDurationInSec(), TOTAL_MAX_CAPACITY);
-                    ruleTokenCounter.put(rule, new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(size));
-                }
+        synchronized (lock) {
+            current = snapshot;
+            Map<ParamFlowRule, RuleMetric> ruleMetrics = current.ruleMetrics;
+            if (!ruleMetrics.containsKey(rule)) {
+                ruleMetrics = new HashMap<>(ruleMetrics);
+                ruleMetrics.put(rule, new RuleMetric(rule));
             }
-        }
-
-        if (!threadCountMap.containsKey(rule.getParamIdx())) {
-            synchronized (lock) {
-                if (threadCountMap.get(rule.getParamIdx()) == null) {
-                    threadCountMap.put(rule.getParamIdx(),
-                        new ConcurrentLinkedHashMapWrapper<Object, AtomicInteger>(THREAD_COUNT_MAX_CAPACITY));
-                }
+            ThreadCounter[] threadCounters = current.threadCounters;
+            int paramIdx = rule.getParamIdx();
+            if (paramIdx >= 0 && (paramIdx >= threadCounters.length || threadCounters[paramIdx] == null)) {
+                threadCounters = Arrays.copyOf(threadCounters, Math.max(threadCounters.length, paramIdx + 1));
+                threadCounters[paramIdx] = new ThreadCounter();
+            }
+            if (ruleMetrics != current.ruleMetrics || threadCounters != current.threadCounters) {
+                snapshot = new MetricSnapshot(ruleMetrics, threadCounters);
             }
         }
     }
 
-    @SuppressWarnings("rawtypes")
     public void decreaseThreadCount(Object... args) {
         if (args == null) {
             return;
         }
 
         try {
-            for (int index = 0; index < args.length; index++) {
-                CacheMap<Object, AtomicInteger> threadCount = threadCountMap.get(index);
-                if (threadCount == null) {
-                    continue;
-                }
-
+            ThreadCounter[] threadCounters = snapshot.threadCounters;
+            for (int index = 0; index < args.length && index < threadCounters.length; index++) {
+                ThreadCounter threadCounter = threadCounters[index];
                 Object arg = args[index];
-                if (arg == null) {
+                if (threadCounter == null || arg == null) {
                     continue;
                 }
-                if (Collection.class.isAssignableFrom(arg.getClass())) {
-
-                    for (Object value : ((Collection)arg)) {
-                        AtomicInteger oldValue = threadCount.putIfAbsent(value, new AtomicInteger());
-                        if (oldValue != null) {
-                            int currentValue = oldValue.decrementAndGet();
-                            if (currentValue <= 0) {
-                                threadCount.remove(value);
-                            }
-                        }
-
+                if (arg instanceof List && arg instanceof RandomAccess) {
+                    List<?> list = (List<?>)arg;
+                    for (int i = 0; i < list.size(); i++) {
+                        threadCounter.decrease(list.get(i));
+                    }
+                } else if (arg instanceof Collection) {
+                    for (Object value : (Collection<?>)arg) {
+                        threadCounter.decrease(value);
+                    }
+                } else if (arg instanceof Object[]) {
+                    for (Object value : (Object[])arg) {
+                        threadCounter.decrease(value);
+                    }
+                } else if (isLongArray(arg)) {
+                    int length = Array.getLength(arg);
+                    for (int i = 0; i < length; i++) {
+                        threadCounter.decrease(Array.getLong(arg, i));
                     }
                 } else if (arg.getClass().isArray()) {
                     int length = Array.getLength(arg);
                     for (int i = 0; i < length; i++) {
-                        Object value = Array.get(arg, i);
-                        AtomicInteger oldValue = threadCount.putIfAbsent(value, new AtomicInteger());
-                        if (oldValue != null) {
-                            int currentValue = oldValue.decrementAndGet();
-                            if (currentValue <= 0) {
-                                threadCount.remove(value);
-                            }
-                        }
-
+                        threadCounter.decrease(Array.get(arg, i));
                     }
                 } else {
-                    AtomicInteger oldValue = threadCount.putIfAbsent(arg, new AtomicInteger());
-                    if (oldValue != null) {
-                        int currentValue = oldValue.decrementAndGet();
-                        if (currentValue <= 0) {
-                            threadCount.remove(arg);
-                        }
-                    }
-
+                    threadCounter.decrease(arg);
                 }
-
             }
         } catch (Throwable e) {
             RecordLog.warn("[ParameterMetric] Param exception", e);
         }
     }
 
-    @SuppressWarnings("rawtypes")
     public void addThreadCount(Object... args) {
         if (args == null) {
             return;
         }
 
         try {
-            for (int index = 0; index < args.length; index++) {
-                CacheMap<Object, AtomicInteger> threadCount = threadCountMap.get(index);
-                if (threadCount == null) {
-                    continue;
-                }
-
+            ThreadCounter[] threadCounters = snapshot.threadCounters;
+            for (int index = 0; index < args.length && index < threadCounters.length; index++) {
+                ThreadCounter threadCounter = threadCounters[index];
                 Object arg = args[index];
-
-                if (arg == null) {
+                if (threadCounter == null || arg == null) {
                     continue;
                 }
-
-                if (Collection.class.isAssignableFrom(arg.getClass())) {
-                    for (Object value : ((Collection)arg)) {
-                        AtomicInteger oldValue = threadCount.putIfAbsent(value, new AtomicInteger());
-                        if (oldValue != null) {
-                            oldValue.incrementAndGet();
-                        } else {
-                            threadCount.put(value, new AtomicInteger(1));
-                        }
-
+                if (arg instanceof List && arg instanceof RandomAccess) {
+                    List<?> list = (List<?>)arg;
+                    for (int i = 0; i < list.size(); i++) {
+                        threadCounter.increase(list.get(i));
+                    }
+                } else if (arg instanceof Collection) {
+                    for (Object value : (Collection<?>)arg) {
+                        threadCounter.increase(value);
+                    }
+                } else if (arg instanceof Object[]) {
+                    for (Object value : (Object[])arg) {
+                        threadCounter.increase(value);
+                    }
+                } else if (isLongArray(arg)) {
+                    int length = Array.getLength(arg);
+                    for (int i = 0; i < length; i++) {
+                        threadCounter.increase(Array.getLong(arg, i));
                     }
                 } else if (arg.getClass().isArray()) {
                     int length = Array.getLength(arg);
                     for (int i = 0; i < length; i++) {
-                        Object value = Array.get(arg, i);
-                        AtomicInteger oldValue = threadCount.putIfAbsent(value, new AtomicInteger());
-                        if (oldValue != null) {
-                            oldValue.incrementAndGet();
-                        } else {
-                            threadCount.put(value, new AtomicInteger(1));
-                        }
-
+                        threadCounter.increase(Array.get(arg, i));
                     }
                 } else {
-                    AtomicInteger oldValue = threadCount.putIfAbsent(arg, new AtomicInteger());
-                    if (oldValue != null) {
-                        oldValue.incrementAndGet();
-                    } else {
-                        threadCount.put(arg, new AtomicInteger(1));
-                    }
-
+                    threadCounter.increase(arg);
                 }
-
             }
-
         } catch (Throwable e) {
             RecordLog.warn("[ParameterMetric] Param exception", e);
         }
     }
 
     public long getThreadCount(int index, Object value) {
-        CacheMap<Object, AtomicInteger> cacheMap = threadCountMap.get(index);
-        if (cacheMap == null) {
+        ThreadCounter threadCounter = snapshot.getThreadCounter(index);
+        if (threadCounter == null || value == null) {
             return 0;
         }
-
-        AtomicInteger count = cacheMap.get(value);
+        AtomicInteger count = isLongKey(value) ? threadCounter.longCounters.get(((Number)value).longValue())
+            : threadCounter.counters.get(value);
         return count == null ? 0L : count.get();
     }
 
     /**
-     * Get the token counter map. Package-private for test.
+     * Check whether the parameter value is an integral number, which is counted in the maps keyed by
+     * primitive {@code long} rather than the general maps. Note that the numbers of different types
+     * but the same value (e.g. {@code 1} and {@code 1L}) share the counter.
      *
-     * @return the token counter map
+     * @param value the parameter value
+     * @return true if the value is a {@link Long}, {@link Integer}, {@link Short} or {@link Byte}
      */
-    Map<ParamFlowRule, CacheMap<Object, AtomicLong>> getRuleTokenCounterMap() {
-        return ruleTokenCounter;
+    static boolean isLongKey(Object value) {
+        if (value == null) {
+            return false;
+        }
+        Class<?> clazz = value.getClass();
+        return clazz == Long.class || clazz == Integer.class || clazz == Short.class || clazz == Byte.class;
+    }
+
+    private static boolean isLongArray(Object value) {
+        Class<?> clazz = value.getClass();
+        return clazz == long[].class || clazz == int[].class || clazz == short[].class || clazz == byte[].class;
     }
 
     Map<Integer, CacheMap<Object, AtomicInteger>> getThreadCountMap() {
-        return threadCountMap;
+        Map<Integer, CacheMap<Object, AtomicInteger>> map = new HashMap<>();
+        ThreadCounter[] threadCounters = snapshot.threadCounters;
+        for (int i = 0; i < threadCounters.length; i++) {
+            if (threadCounters[i] != null) {
+                map.put(i, threadCounters[i].counters);
+            }
+        }
+        return Collections.unmodifiableMap(map);
     }
 
-    Map<ParamFlowRule, CacheMap<Object, AtomicLong>> getRuleTimeCounterMap() {
-        return ruleTimeCounters;
+    Map<Integer, ConcurrentLongCacheMap<AtomicInteger>> getLongThreadCountMap() {
+        Map<Integer, ConcurrentLongCacheMap<AtomicInteger>> map = new HashMap<>();
+        ThreadCounter[] threadCounters = snapshot.threadCounters;
+        for (int i = 0; i < threadCounters.length; i++) {
+            if (threadCounters[i] != null) {
+                map.put(i, threadCounters[i].longCounters);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Get the rules of which the metrics have been initialized. Package-private for test.
+     */
+    Map<ParamFlowRule, ?> getRuleMetricMap() {
+        return snapshot.ruleMetrics;
+    }
+
+    /**
+     * Metrics of a parameter rule, which are created at once when the rule is initialized.
+     */
+    private static final class RuleMetric {
+        /**
+         * Format: (value, timeRecorder), for the throttle check
+         */
+        final CacheMap<Object, AtomicLong> timeCounter;
+        /**
+         * Format: (value, tokenBucket), or null in sketch mode
+         */
+        final CacheMap<Object, ParamTokenBucket> tokenBuckets;
+        /**
+         * Format: (numeric value, tokenBucket), or null in sketch mode
+         */
+        final ConcurrentLongCacheMap<ParamTokenBucket> longTokenBuckets;
+        /**
+         * Sketch of values, only in sketch mode
+         */
+        final WindowedFrequencySketch sketch;
+
+        RuleMetric(ParamFlowRule rule) {
+            long size = Math.min(BASE_PARAM_MAX_CAPACITY * rule.getDurationInSec(), TOTAL_MAX_CAPACITY);
+            this.timeCounter = new ConcurrentLinkedHashMapWrapper<>(size);
+            if (rule.isSketchMode()) {
+                // The memory is fixed: (depth * width) counters and the heavy hitters for each sample window.
+                this.sketch = new WindowedFrequencySketch(SKETCH_SAMPLE_COUNT, (int)(rule.getDurationInSec() * 1000),
+                    FrequencySketch.depthOf(rule.getSketchDelta()), FrequencySketch.widthOf(rule.getSketchEpsilon()),
+                    SKETCH_HEAVY_HITTER_CAPACITY);
+                this.tokenBuckets = null;
+                this.longTokenBuckets = null;
+            } else {
+                this.sketch = null;
+                this.tokenBuckets = new ConcurrentClockCacheMap<>(size);
+                this.longTokenBuckets = new ConcurrentLongCacheMap<>(size);
+            }
+        }
+    }
+
+    /**
+     * Adapts the token buckets of a rule to the token counter of previous versions.
+     */
+    private static final class TokenCounterView implements CacheMap<Object, AtomicLong> {
+        private final CacheMap<Object, ParamTokenBucket> tokenBuckets;
+        private final ConcurrentLongCacheMap<ParamTokenBucket> longTokenBuckets;
+
+        TokenCounterView(CacheMap<Object, ParamTokenBucket> tokenBuckets,
+                         ConcurrentLongCacheMap<ParamTokenBucket> longTokenBuckets) {
+            this.tokenBuckets = tokenBuckets;
+            this.longTokenBuckets = longTokenBuckets;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public AtomicLong get(Object key) {
+            return toCounter(isLongKey(key) ? longTokenBuckets.get(((Number)key).longValue())
+                : tokenBuckets.get(key));
+        }
+
+        @Override
+        public AtomicLong remove(Object key) {
+            return toCounter(isLongKey(key) ? longTokenBuckets.remove(((Number)key).longValue())
+                : tokenBuckets.remove(key));
+        }
+
+        @Override
+        public AtomicLong put(Object key, AtomicLong value) {
+            ParamTokenBucket bucket = new ParamTokenBucket(TimeUtil.currentTimeMillis(), value.get());
+            if (isLongKey(key)) {
+                long longKey = ((Number)key).longValue();
+                ParamTokenBucket old = longTokenBuckets.remove(longKey);
+                longTokenBuckets.putIfAbsent(longKey, bucket);
+                return toCounter(old);
+            }
+            return toCounter(tokenBuckets.put(key, bucket));
+        }
+
+        @Override
+        public AtomicLong putIfAbsent(Object key, AtomicLong value) {
+            ParamTokenBucket bucket = new ParamTokenBucket(TimeUtil.currentTimeMillis(), value.get());
+            return toCounter(isLongKey(key) ? longTokenBuckets.putIfAbsent(((Number)key).longValue(), bucket)
+                : tokenBuckets.putIfAbsent(key, bucket));
+        }
+
+        @Override
+        public long size() {
+            return tokenBuckets.size() + longTokenBuckets.size();
+        }
+
+        @Override
+        public void clear() {
+            tokenBuckets.clear();
+            longTokenBuckets.clear();
+        }
+
+        @Override
+        public Set<Object> keySet(boolean ascending) {
+            Set<Object> keys = new LinkedHashSet<>(tokenBuckets.keySet(ascending));
+            keys.addAll(longTokenBuckets.keySet());
+            return keys;
+        }
+
+        private static AtomicLong toCounter(ParamTokenBucket bucket) {
+            return bucket == null ? null : new AtomicLong(bucket.getRestTokens());
+        }
+    }
+
+    /**
+     * Thread counters of the values of a parameter index. The counters are only created for new values,
+     * and are kept when they drop to zero, so that entering and exiting allocate nothing. The counters at zero
+     * are evicted first once the capacity is reached, so they never push out the counters in use.
+     */
+    private static final class ThreadCounter {
+        /**
+         * Count of an evicted counter, which is never increased again.
+         */
+        private static final int EVICTED = -1;
+
+        private static final Predicate<AtomicInteger> IDLE = new Predicate<AtomicInteger>() {
+            @Override
+            public boolean test(AtomicInteger count) {
+                return count.compareAndSet(0, EVICTED);
+            }
+        };
+
+        final CacheMap<Object, AtomicInteger> counters
+            = new ConcurrentClockCacheMap<>(THREAD_COUNT_MAX_CAPACITY, IDLE);
+        final ConcurrentLongCacheMap<AtomicInteger> longCounters
+            = new ConcurrentLongCacheMap<>(THREAD_COUNT_MAX_CAPACITY, IDLE);
+
+        void increase(Object value) {
+            if (value == null) {
+                return;
+            }
+            if (isLongKey(value)) {
+                increase(((Number)value).longValue());
+                return;
+            }
+            while (true) {
+                AtomicInteger count = counters.get(value);
+                if (count == null && (count = counters.putIfAbsent(value, new AtomicInteger(1))) == null) {
+                    return;
+                }
+                if (tryIncrease(count)) {
+                    return;
+                }
+                // Evicted concurrently, which is removed right after.
+                Thread.yield();
+            }
+        }
+
+        void increase(long value) {
+            while (true) {
+                AtomicInteger count = longCounters.get(value);
+                if (count == null && (count = longCounters.putIfAbsent(value, new AtomicInteger(1))) == null) {
+                    return;
+                }
+                if (tryIncrease(count)) {
+                    return;
+                }
+                Thread.yield();
+            }
+        }
+
+        private static boolean tryIncrease(AtomicInteger count) {
+            int current;
+            do {
+                current = count.get();
+                if (current == EVICTED) {
+                    return false;
+                }
+            } while (!count.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void decrease(Object value) {
+            if (value == null) {
+                return;
+            }
+            if (isLongKey(value)) {
+                decrease(((Number)value).longValue());
+                return;
+            }
+            decrease(counters.get(value));
+        }
+
+        void decrease(long value) {
+            decrease(longCounters.get(value));
+        }
+
+        private static void decrease(AtomicInteger count) {
+            if (count == null) {
+                return;
+            }
+            int current;
+            do {
+                current = count.get();
+                if (current <= 0) {
+                    return;
+                }
+            } while (!count.compareAndSet(current, current - 1));
+        }
+    }
+
+    /**
+     * Immutable snapshot of the metrics, which is never modified once published.
+     */
+    private static final class MetricSnapshot {
+
+        static final MetricSnapshot EMPTY = new MetricSnapshot(
+            Collections.<ParamFlowRule, RuleMetric>emptyMap(), new ThreadCounter[0]);
+
+        final Map<ParamFlowRule, RuleMetric> ruleMetrics;
+        /**
+         * Thread counters indexed by the parameter index.
+         */
+        final ThreadCounter[] threadCounters;
+
+        MetricSnapshot(Map<ParamFlowRule, RuleMetric> ruleMetrics, ThreadCounter[] threadCounters) {
+            this.ruleMetrics = ruleMetrics;
+            this.threadCounters = threadCounters;
+        }
+
+        RuleMetric getRuleMetric(ParamFlowRule rule) {
+            return ruleMetrics.get(rule);
+        }
+
+        ThreadCounter getThreadCounter(Integer index) {
+            if (index == null || index < 0 || index >= threadCounters.length) {
+                return null;
+            }
+            return threadCounters[index];
+        }
     }
 }
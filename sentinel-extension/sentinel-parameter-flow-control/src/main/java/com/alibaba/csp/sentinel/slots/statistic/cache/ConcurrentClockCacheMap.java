@@ -0,0 +1,258 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
+/**
+ * <p>A bounded {@link CacheMap} which approximates LRU eviction by the CLOCK (second chance) algorithm.</p>
+ *
+ * <p>Reading an existing key is lock-free and allocates nothing: it only sets the reference bit of the entry
+ * (if not set yet). Inserting a new key takes the lock, and once the capacity is reached, the clock hand
+ * sweeps the entries, clearing the reference bits until an entry not referenced since the last sweep is found,
+ * which is then evicted. Compared to {@link ConcurrentLinkedHashMapWrapper}, no read buffer is involved, so
+ * it fits the frequently read entries of which the value is updated in place.</p>
+ *
+ * <p>An optional predicate tells the idle values (e.g. counters dropped to zero), which are evicted first
+ * regardless of the reference bit, so they do not push out the entries in use.</p>
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public class ConcurrentClockCacheMap<K, V> implements CacheMap<K, V> {
+
+    private static final int INITIAL_RING_SIZE = 16;
+
+    private final int capacity;
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    private final Predicate<V> idle;
+
+    private final Object lock = new Object();
+    /**
+     * Slots of the entries, which grows on demand up to the capacity.
+     */
+    private Node<K, V>[] ring;
+    /**
+     * Count of the slots ever used.
+     */
+    private int usedSlots = 0;
+    /**
+     * Slots released by removal, which are reused first.
+     */
+    private int[] freeSlots = new int[INITIAL_RING_SIZE];
+    private int freeCount = 0;
+    private int hand = 0;
+
+    public ConcurrentClockCacheMap(long size) {
+        this(size, null);
+    }
+
+    /**
+     * @param size max count of the entries
+     * @param idle tells whether a value is idle, which is tested with the lock when the clock hand sweeps it,
+     *             and may mark the value as evicted (the entry is removed right after it returns true);
+     *             null if no value is idle
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentClockCacheMap(long size, Predicate<V> idle) {
+        if (size <= 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cache max capacity should be positive: " + size);
+        }
+        this.capacity = (int) size;
+        this.idle = idle;
+        this.map = new ConcurrentHashMap<>(Math.min(capacity, INITIAL_RING_SIZE));
+        this.ring = new Node[Math.min(capacity, INITIAL_RING_SIZE)];
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V get(K key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        node.markReferenced();
+        return node.value;
+    }
+
+    @Override
+    public V remove(K key) {
+        synchronized (lock) {
+            Node<K, V> node = map.remove(key);
+            if (node == null) {
+                return null;
+            }
+            releaseSlot(node.slot);
+            return node.value;
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            synchronized (lock) {
+                node = map.get(key);
+                if (node == null) {
+                    insert(key, value);
+                    return null;
+                }
+            }
+        }
+        V oldValue = node.value;
+        node.value = value;
+        node.markReferenced();
+        return oldValue;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            synchronized (lock) {
+                node = map.get(key);
+                if (node == null) {
+                    insert(key, value);
+                    return null;
+                }
+            }
+        }
+        node.markReferenced();
+        return node.value;
+    }
+
+    @Override
+    public long size() {
+        return map.size();
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            map.clear();
+            Arrays.fill(ring, null);
+            usedSlots = 0;
+            freeCount = 0;
+            hand = 0;
+        }
+    }
+
+    /**
+     * Get a snapshot of the keys. The order is approximate: in ascending order, the keys not referenced since
+     * the last sweep (which are evicted first) come before the referenced ones.
+     */
+    @Override
+    public Set<K> keySet(boolean ascending) {
+        List<K> cold = new ArrayList<>();
+        List<K> hot = new ArrayList<>();
+        synchronized (lock) {
+            for (int i = 0; i < usedSlots; i++) {
+                Node<K, V> node = ring[(hand + i) % usedSlots];
+                if (node != null) {
+                    (node.referenced ? hot : cold).add(node.key);
+                }
+            }
+        }
+        cold.addAll(hot);
+        if (!ascending) {
+            Collections.reverse(cold);
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(cold));
+    }
+
+    private void insert(K key, V value) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else if (usedSlots < capacity) {
+            if (usedSlots == ring.length) {
+                ring = Arrays.copyOf(ring, (int) Math.min(capacity, ring.length * 2L));
+            }
+            slot = usedSlots++;
+        } else {
+            slot = evict();
+        }
+        Node<K, V> node = new Node<>(key, value, slot);
+        ring[slot] = node;
+        map.put(key, node);
+    }
+
+    private int evict() {
+        if (idle != null) {
+            for (int i = 0; i < usedSlots; i++) {
+                Node<K, V> node = ring[hand];
+                int slot = hand;
+                hand = hand + 1 == usedSlots ? 0 : hand + 1;
+                if (idle.test(node.value)) {
+                    map.remove(node.key);
+                    return slot;
+                }
+            }
+        }
+        while (true) {
+            Node<K, V> node = ring[hand];
+            int slot = hand;
+            hand = hand + 1 == usedSlots ? 0 : hand + 1;
+            if (node.referenced) {
+                // Second chance.
+                node.referenced = false;
+            } else {
+                map.remove(node.key);
+                return slot;
+            }
+        }
+    }
+
+    private void releaseSlot(int slot) {
+        ring[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final int slot;
+        volatile V value;
+        volatile boolean referenced;
+
+        Node(K key, V value, int slot) {
+            this.key = key;
+            this.value = value;
+            this.slot = slot;
+        }
+
+        void markReferenced() {
+            // Avoid writing the shared cache line when already referenced.
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
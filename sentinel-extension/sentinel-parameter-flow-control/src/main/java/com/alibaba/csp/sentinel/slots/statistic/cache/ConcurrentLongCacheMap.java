@@ -0,0 +1,375 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.cache;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
+/**
+ * <p>A bounded cache keyed by primitive {@code long}, which serves the numeric parameters (e.g. user ID)
+ * without boxing the keys or hashing them via {@link Long#hashCode()} and {@link Long#equals(Object)}.</p>
+ *
+ * <p>The entries are kept in an open-addressed table, and each key may only reside in a short probe window
+ * starting from its hashed slot. Reading an existing key is lock-free and allocates nothing. Inserting a new key
+ * takes the lock. The capacity is a hard limit: once it is reached, an entry is evicted by the CLOCK (second
+ * chance) algorithm, which approximates LRU. An entry in the window of the new key not referenced since it was
+ * swept is replaced, or else the entry found by a clock hand sweeping the whole table is removed, so that the
+ * hot entries crowding a window are kept.</p>
+ *
+ * <p>The table starts small and is doubled when it is half full, or when the window of a new key is full, up to
+ * the smallest power of two not less than twice the capacity. Readers keep working on the old table until the
+ * new one is published. When the window of a new key is full in the largest table, the entries are moved within
+ * their windows to make room for it (as hopscotch hashing does), and only if that fails an entry in the window
+ * is evicted even though the capacity is not reached.</p>
+ *
+ * <p>An optional predicate tells the idle values (e.g. counters dropped to zero), which are evicted first
+ * regardless of the reference bit, so they do not push out the entries in use.</p>
+ *
+ * @param <V> type of the value
+ */
+public class ConcurrentLongCacheMap<V> {
+
+    private static final int PROBE_WINDOW = 8;
+    private static final int INITIAL_TABLE_SIZE = 16;
+
+    private final int capacity;
+    private final int initialTableSize;
+    private final int maxTableSize;
+    private final int probeWindow;
+    private final Predicate<V> idle;
+
+    private final Object lock = new Object();
+    /**
+     * The table is created on first insertion, since many rules never see a numeric parameter.
+     */
+    private volatile AtomicReferenceArray<Node<V>> table;
+    private volatile int size = 0;
+    /**
+     * Position of the clock hand sweeping the whole table, guarded by the lock.
+     */
+    private int hand = 0;
+
+    public ConcurrentLongCacheMap(long capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * @param capacity max count of the entries
+     * @param idle     tells whether a value is idle, which is tested with the lock when its window is swept,
+     *                 and may mark the value as evicted (the entry is replaced right after it returns true);
+     *                 null if no value is idle
+     */
+    public ConcurrentLongCacheMap(long capacity, Predicate<V> idle) {
+        if (capacity <= 0 || capacity > 1 << 29) {
+            throw new IllegalArgumentException("Cache max capacity should be positive: " + capacity);
+        }
+        this.capacity = (int) capacity;
+        this.maxTableSize = Integer.highestOneBit((int) capacity * 2 - 1) << 1;
+        this.initialTableSize = Math.min(INITIAL_TABLE_SIZE, maxTableSize);
+        this.probeWindow = Math.min(PROBE_WINDOW, initialTableSize);
+        this.idle = idle;
+    }
+
+    public V get(long key) {
+        AtomicReferenceArray<Node<V>> table = this.table;
+        if (table == null) {
+            return null;
+        }
+        int mask = table.length() - 1;
+        int index = indexOf(key);
+        for (int i = 0; i < probeWindow; i++) {
+            Node<V> node = table.get((index + i) & mask);
+            if (node != null && node.key == key) {
+                node.markReferenced();
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Put the value if the key is absent.
+     *
+     * @return the existing value, or null if the value is put
+     */
+    public V putIfAbsent(long key, V value) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (lock) {
+            existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+            AtomicReferenceArray<Node<V>> table = this.table;
+            if (table == null) {
+                table = this.table = new AtomicReferenceArray<>(initialTableSize);
+            } else if (size >= table.length() >> 1) {
+                table = grow(table);
+            }
+            int index = indexOf(key);
+            int slot = -1;
+            if (size >= capacity) {
+                slot = evictSlot(table, index);
+                if (slot < 0) {
+                    // The window is full of the entries in use, so an entry elsewhere is evicted.
+                    evictByHand(table);
+                }
+            }
+            if (slot < 0) {
+                slot = findFreeSlot(table, index);
+            }
+            if (slot < 0) {
+                table = grow(table);
+                slot = findFreeSlot(table, index);
+            }
+            if (slot < 0) {
+                slot = displace(table, index);
+            }
+            if (slot < 0) {
+                // Not able to make room, so an entry in the window is evicted.
+                slot = evictSlot(table, index);
+                if (slot < 0) {
+                    slot = index & (table.length() - 1);
+                }
+            }
+            if (table.get(slot) == null) {
+                size++;
+            }
+            table.set(slot, new Node<>(key, value));
+            return null;
+        }
+    }
+
+    public V remove(long key) {
+        synchronized (lock) {
+            AtomicReferenceArray<Node<V>> table = this.table;
+            if (table == null) {
+                return null;
+            }
+            int mask = table.length() - 1;
+            int index = indexOf(key);
+            for (int i = 0; i < probeWindow; i++) {
+                int slot = (index + i) & mask;
+                Node<V> node = table.get(slot);
+                if (node != null && node.key == key) {
+                    table.set(slot, null);
+                    size--;
+                    return node.value;
+                }
+            }
+            return null;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Get the keys in the cache, in no particular order.
+     *
+     * @return a copy of the keys
+     */
+    public Set<Long> keySet() {
+        Set<Long> keys = new LinkedHashSet<>();
+        synchronized (lock) {
+            AtomicReferenceArray<Node<V>> table = this.table;
+            if (table != null) {
+                for (int i = 0; i < table.length(); i++) {
+                    Node<V> node = table.get(i);
+                    if (node != null) {
+                        keys.add(node.key);
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            table = null;
+            size = 0;
+        }
+    }
+
+    private int findFreeSlot(AtomicReferenceArray<Node<V>> table, int index) {
+        int mask = table.length() - 1;
+        for (int i = 0; i < probeWindow; i++) {
+            int slot = (index + i) & mask;
+            if (table.get(slot) == null) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find an idle entry, or else an entry not referenced since it was swept by the clock hand, in the probe
+     * window. Should be called with the lock.
+     *
+     * @return the slot, or -1 if there is no such entry in the window
+     */
+    private int evictSlot(AtomicReferenceArray<Node<V>> table, int index) {
+        int mask = table.length() - 1;
+        if (idle != null) {
+            for (int i = 0; i < probeWindow; i++) {
+                int slot = (index + i) & mask;
+                Node<V> node = table.get(slot);
+                if (node != null && idle.test(node.value)) {
+                    return slot;
+                }
+            }
+        }
+        for (int i = 0; i < probeWindow; i++) {
+            int slot = (index + i) & mask;
+            Node<V> node = table.get(slot);
+            if (node != null && !node.referenced) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Make a free slot in the full probe window, by moving the nearest free slot after the window backwards.
+     * Each step moves an entry into the free slot within its own window, and the entry is put into the new
+     * slot before clearing the old one, so the readers always find it. Should be called with the lock.
+     *
+     * @return the free slot in the window, or -1 if no entry could be moved
+     */
+    private int displace(AtomicReferenceArray<Node<V>> table, int index) {
+        int mask = table.length() - 1;
+        int distance = probeWindow;
+        while (distance < table.length() && table.get((index + distance) & mask) != null) {
+            distance++;
+        }
+        if (distance >= table.length()) {
+            return -1;
+        }
+        int free = index + distance;
+        while (((free - index) & mask) >= probeWindow) {
+            boolean moved = false;
+            // All the slots between the window and the free slot are taken.
+            for (int j = free - probeWindow + 1; j != free; j++) {
+                Node<V> node = table.get(j & mask);
+                if (((free - indexOf(node.key)) & mask) < probeWindow) {
+                    table.set(free & mask, node);
+                    table.set(j & mask, null);
+                    free = j;
+                    moved = true;
+                    break;
+                }
+            }
+            if (!moved) {
+                return -1;
+            }
+        }
+        return free & mask;
+    }
+
+    /**
+     * Remove the first entry that is idle or not referenced since the last sweep, by the clock hand sweeping
+     * the whole table. Should be called with the lock.
+     */
+    private void evictByHand(AtomicReferenceArray<Node<V>> table) {
+        int mask = table.length() - 1;
+        // All the reference bits have been cleared after a round, so two rounds at most.
+        for (int i = 0, rounds = table.length() << 1; i < rounds; i++) {
+            int slot = hand++ & mask;
+            Node<V> node = table.get(slot);
+            if (node == null) {
+                continue;
+            }
+            if ((idle != null && idle.test(node.value)) || !node.referenced) {
+                table.set(slot, null);
+                size--;
+                return;
+            }
+            node.referenced = false;
+        }
+    }
+
+    /**
+     * Double the table until all entries fit in their windows. Should be called with the lock.
+     *
+     * @return the new table, or the given table if it could not grow any more
+     */
+    private AtomicReferenceArray<Node<V>> grow(AtomicReferenceArray<Node<V>> table) {
+        int length = table.length();
+        while (length < maxTableSize) {
+            length <<= 1;
+            AtomicReferenceArray<Node<V>> newTable = new AtomicReferenceArray<>(length);
+            if (rehash(table, newTable)) {
+                this.table = newTable;
+                return newTable;
+            }
+        }
+        return table;
+    }
+
+    private boolean rehash(AtomicReferenceArray<Node<V>> table, AtomicReferenceArray<Node<V>> newTable) {
+        for (int i = 0; i < table.length(); i++) {
+            Node<V> node = table.get(i);
+            if (node != null) {
+                int slot = findFreeSlot(newTable, indexOf(node.key));
+                if (slot < 0) {
+                    return false;
+                }
+                newTable.set(slot, node);
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(long key) {
+        // Finalizer of MurmurHash3, so that the sequential keys are spread.
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static final class Node<V> {
+        final long key;
+        final V value;
+        volatile boolean referenced;
+
+        Node(long key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        void markReferenced() {
+            // Avoid writing the shared cache line when already referenced.
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.sketch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>Frequency statistic of unbounded keys in fixed memory, which consists of a Count-Min Sketch
+ * and a bounded set of heavy hitters.</p>
+ *
+ * <p>The Count-Min Sketch keeps {@code depth} rows of {@code width} counters, and the count of a key is
+ * estimated by the minimum of its counters, which is never less than the actual count and exceeds it
+ * by no more than {@code e / width} of the total count with probability {@code 1 - exp(-depth)}.
+ * So a rare key may be limited as a hot one once {@code e / width} of the total count reaches the threshold.
+ * The keys of which the estimated count exceeds the minimum of the heavy hitters replace the minimum
+ * (similar to SpaceSaving), and are counted exactly since then, so the heaviest keys are estimated
+ * accurately and can be listed.</p>
+ *
+ * <p>Adding a key takes {@code depth} atomic increments, and only the admission of a new heavy hitter
+ * takes the lock, which finds the minimum heavy hitter by a min-heap in {@code O(log(heavyHitterCapacity))}.
+ * The counters are not updated conservatively (i.e. only raised to the new estimate), which cannot be done
+ * by independent atomic operations without losing concurrent increments of a key.</p>
+ */
+public class FrequencySketch {
+
+    /**
+     * Max count of the counters ({@code depth * width}) of a sketch, which take 8 MB of memory.
+     */
+    public static final int MAX_COUNTER_COUNT = 1 << 20;
+
+    private final int depth;
+    private final int width;
+    private final int widthMask;
+    private final AtomicLongArray counters;
+
+    private final int heavyHitterCapacity;
+    private final Map<Object, HeavyHitter> heavyHitters;
+    /**
+     * Min-heap of the heavy hitters by their {@link HeavyHitter#heapCount}, guarded by the lock of heavyHitters.
+     */
+    private final HeavyHitter[] heap;
+    private int heapSize = 0;
+    /**
+     * Minimum count of the heavy hitters when it is computed last time (the actual minimum is no less than it),
+     * or 0 if the heavy hitters are not full.
+     */
+    private volatile long minHeavyCount = 0;
+
+    /**
+     * @param depth               count of the hash rows
+     * @param width               count of the counters in each row, which is rounded up to a power of two
+     * @param heavyHitterCapacity max count of the heavy hitters
+     */
+    public FrequencySketch(int depth, int width, int heavyHitterCapacity) {
+        AssertUtil.isTrue(depth > 0, "depth should be positive");
+        AssertUtil.isTrue(width > 0 && width <= 1 << 30, "width should be positive");
+        AssertUtil.isTrue(heavyHitterCapacity > 0, "heavyHitterCapacity should be positive");
+        this.depth = depth;
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        AssertUtil.isTrue((long) depth * this.width <= MAX_COUNTER_COUNT, "depth * width should not exceed "
+            + MAX_COUNTER_COUNT);
+        this.widthMask = this.width - 1;
+        this.counters = new AtomicLongArray(depth * this.width);
+        this.heavyHitterCapacity = heavyHitterCapacity;
+        this.heavyHitters = new ConcurrentHashMap<>(heavyHitterCapacity * 2);
+        this.heap = new HeavyHitter[heavyHitterCapacity];
+    }
+
+    /**
+     * Width of which the estimation error is within {@code epsilon} of the total count.
+     */
+    public static int widthOf(double epsilon) {
+        AssertUtil.isTrue(epsilon > 0 && epsilon < 1, "epsilon should be in (0, 1)");
+        double width = Math.ceil(Math.E / epsilon);
+        AssertUtil.isTrue(width <= MAX_COUNTER_COUNT, "epsilon is too small");
+        return (int) width;
+    }
+
+    /**
+     * Depth of which the estimation error exceeds the bound with probability no more than {@code delta}.
+     */
+    public static int depthOf(double delta) {
+        AssertUtil.isTrue(delta > 0 && delta < 1, "delta should be in (0, 1)");
+        return Math.max(1, (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    /**
+     * Check whether the error bounds are valid and the sketch of them fits in {@link #MAX_COUNTER_COUNT}.
+     */
+    public static boolean isValidErrorBound(double epsilon, double delta) {
+        if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+            return false;
+        }
+        double width = Math.ceil(Math.E / epsilon);
+        if (width > MAX_COUNTER_COUNT) {
+            return false;
+        }
+        long roundedWidth = width == 1 ? 1 : Integer.highestOneBit((int) width - 1) << 1;
+        return depthOf(delta) * roundedWidth <= MAX_COUNTER_COUNT;
+    }
+
+    public void add(Object key, long count) {
+        if (key == null || count <= 0) {
+            return;
+        }
+        long hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            long c = counters.addAndGet(indexOf(hash, i), count);
+            if (c < estimate) {
+                estimate = c;
+            }
+        }
+        AtomicLong heavyCount = heavyHitters.get(key);
+        if (heavyCount != null) {
+            heavyCount.addAndGet(count);
+        } else if (estimate > minHeavyCount) {
+            admitHeavyHitter(key, estimate, count);
+        }
+    }
+
+    /**
+     * Estimate the count of the key, which is never less than the actual count.
+     */
+    public long estimate(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        AtomicLong heavyCount = heavyHitters.get(key);
+        long estimate = heavyCount == null ? Long.MAX_VALUE : heavyCount.get();
+        long hash = key.hashCode();
+        for (int i = 0; i < depth; i++) {
+            long c = counters.get(indexOf(hash, i));
+            if (c < estimate) {
+                estimate = c;
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * @return a copy of the heavy hitters with their counts
+     */
+    public Map<Object, Long> heavyHitters() {
+        Map<Object, Long> result = new HashMap<>(heavyHitters.size() * 2);
+        for (Map.Entry<Object, HeavyHitter> entry : heavyHitters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    public void reset() {
+        synchronized (heavyHitters) {
+            heavyHitters.clear();
+            Arrays.fill(heap, 0, heapSize, null);
+            heapSize = 0;
+            minHeavyCount = 0;
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    private void admitHeavyHitter(Object key, long estimate, long count) {
+        synchronized (heavyHitters) {
+            AtomicLong heavyCount = heavyHitters.get(key);
+            if (heavyCount != null) {
+                // Admitted concurrently, which may not include the count.
+                heavyCount.addAndGet(count);
+                return;
+            }
+            // The key inherits the estimated count, which covers its count before admitted.
+            HeavyHitter heavyHitter = new HeavyHitter(key, estimate);
+            if (heapSize < heavyHitterCapacity) {
+                heavyHitters.put(key, heavyHitter);
+                heap[heapSize] = heavyHitter;
+                siftUp(heapSize++);
+                if (heapSize == heavyHitterCapacity) {
+                    minHeavyCount = minHeavyHitter().heapCount;
+                }
+                return;
+            }
+            HeavyHitter min = minHeavyHitter();
+            if (estimate > min.heapCount) {
+                heavyHitters.remove(min.key);
+                heavyHitters.put(key, heavyHitter);
+                heap[0] = heavyHitter;
+                siftDown(0);
+                min = minHeavyHitter();
+            }
+            minHeavyCount = min.heapCount;
+        }
+    }
+
+    /**
+     * The heap is ordered by the counts of the heavy hitters when they were placed, which only grow since then,
+     * so the root is the minimum if its count has not grown, otherwise it is placed again by its current count.
+     */
+    private HeavyHitter minHeavyHitter() {
+        for (int i = 0; i < heapSize; i++) {
+            HeavyHitter root = heap[0];
+            long count = root.get();
+            if (count == root.heapCount) {
+                return root;
+            }
+            root.heapCount = count;
+            siftDown(0);
+        }
+        // Counted concurrently all the time, of which the root is still close to the minimum.
+        return heap[0];
+    }
+
+    private void siftUp(int i) {
+        HeavyHitter h = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].heapCount <= h.heapCount) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = h;
+    }
+
+    private void siftDown(int i) {
+        HeavyHitter h = heap[i];
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1].heapCount < heap[child].heapCount) {
+                child++;
+            }
+            if (h.heapCount <= heap[child].heapCount) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = h;
+    }
+
+    private int indexOf(long hash, int row) {
+        // Each row is hashed with its own seed by the finalizer of MurmurHash3, so that the keys colliding
+        // in one row hardly collide in the others.
+        long h = hash + (row + 1) * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return row * width + ((int) h & widthMask);
+    }
+
+    private static final class HeavyHitter extends AtomicLong {
+
+        private final Object key;
+        /**
+         * Count when placed in the heap, which is no more than the current count.
+         */
+        private long heapCount;
+
+        HeavyHitter(Object key, long count) {
+            super(count);
+            this.key = key;
+            this.heapCount = count;
+        }
+    }
+}
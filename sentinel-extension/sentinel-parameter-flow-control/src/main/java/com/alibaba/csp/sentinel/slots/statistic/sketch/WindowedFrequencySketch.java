@@ -0,0 +1,134 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.sketch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
+import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.clock.Clock;
+import com.alibaba.csp.sentinel.util.clock.GlobalClock;
+
+/**
+ * <p>Sliding window of {@link FrequencySketch}, of which the memory is fixed regardless of the count of keys.</p>
+ *
+ * <p>A deprecated window is reset by swapping in a new sketch rather than clearing the counters of the old one,
+ * since clearing up to {@link FrequencySketch#MAX_COUNTER_COUNT} counters one by one would hold the update
+ * lock of the window on the request thread, while a new array is zeroed in bulk by the allocator.</p>
+ */
+public class WindowedFrequencySketch extends LeapArray<FrequencySketch> {
+
+    private final int depth;
+    private final int width;
+    private final int heavyHitterCapacity;
+
+    public WindowedFrequencySketch(int sampleCount, int intervalInMs, int depth, int width,
+                                   int heavyHitterCapacity) {
+        this(sampleCount, intervalInMs, depth, width, heavyHitterCapacity, GlobalClock.INSTANCE);
+    }
+
+    public WindowedFrequencySketch(int sampleCount, int intervalInMs, int depth, int width,
+                                   int heavyHitterCapacity, Clock clock) {
+        super(sampleCount, intervalInMs, clock);
+        AssertUtil.isTrue(depth > 0, "depth should be positive");
+        AssertUtil.isTrue(width > 0, "width should be positive");
+        AssertUtil.isTrue(heavyHitterCapacity > 0, "heavyHitterCapacity should be positive");
+        this.depth = depth;
+        this.width = width;
+        this.heavyHitterCapacity = heavyHitterCapacity;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeavyHitterCapacity() {
+        return heavyHitterCapacity;
+    }
+
+    @Override
+    public FrequencySketch newEmptyBucket(long timeMillis) {
+        return new FrequencySketch(depth, width, heavyHitterCapacity);
+    }
+
+    @Override
+    protected WindowWrap<FrequencySketch> resetWindowTo(WindowWrap<FrequencySketch> w, long startTime) {
+        w.setValue(newEmptyBucket(startTime));
+        w.resetTo(startTime);
+        return w;
+    }
+
+    public void add(Object key, long count) {
+        currentWindow().value().add(key, count);
+    }
+
+    /**
+     * Estimate the count of the key in the sliding window, which is never less than the actual count.
+     */
+    public long estimate(Object key) {
+        long now = clock.currentTimeMillis();
+        currentWindow(now);
+        long sum = 0;
+        for (int i = 0; i < array.length(); i++) {
+            WindowWrap<FrequencySketch> w = array.get(i);
+            if (w != null && !isWindowDeprecated(now, w)) {
+                sum += w.value().estimate(key);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Get the heaviest keys in the sliding window with their estimated counts, in descending order of the count.
+     *
+     * @param number max count of the keys
+     */
+    public Map<Object, Long> topKeys(int number) {
+        AssertUtil.isTrue(number > 0, "number must be positive");
+        currentWindow();
+        Map<Object, Long> counts = new HashMap<>();
+        for (FrequencySketch sketch : values()) {
+            for (Object key : sketch.heavyHitters().keySet()) {
+                if (!counts.containsKey(key)) {
+                    counts.put(key, estimate(key));
+                }
+            }
+        }
+        List<Map.Entry<Object, Long>> list = new ArrayList<>(counts.entrySet());
+        Collections.sort(list, new Comparator<Map.Entry<Object, Long>>() {
+            @Override
+            public int compare(Map.Entry<Object, Long> a, Map.Entry<Object, Long> b) {
+                return Long.compare(b.getValue(), a.getValue());
+            }
+        });
+        Map<Object, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < list.size() && i < number; i++) {
+            result.put(list.get(i).getKey(), list.get(i).getValue());
+        }
+        return result;
+    }
+}
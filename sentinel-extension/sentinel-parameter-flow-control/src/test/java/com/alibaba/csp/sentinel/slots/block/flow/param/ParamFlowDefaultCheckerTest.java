@@ -23,7 +23,6 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.After;
 import org.junit.Before;
@@ -32,7 +31,6 @@ import org.junit.Test;
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
-import com.alibaba.csp.sentinel.slots.statistic.cache.ConcurrentLinkedHashMapWrapper;
 import com.alibaba.csp.sentinel.test.AbstractTimeBasedTest;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 
@@ -59,9 +57,7 @@ public class ParamFlowDefaultCheckerTest extends AbstractTimeBasedTest {
         String valueA = "valueA";
         ParameterMetric metric = new ParameterMetric();
         ParameterMetricStorage.getMetricsMap().put(resourceWrapper.getName(), metric);
-        metric.getRuleTimeCounterMap().put(rule, new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(4000));
-        metric.getRuleTokenCounterMap().put(rule,
-            new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(4000));
+        metric.initialize(rule);
 
         // We mock the time directly to avoid unstable behaviour.
         setCurrentMillis(System.currentTimeMillis());
@@ -97,9 +93,7 @@ public class ParamFlowDefaultCheckerTest extends AbstractTimeBasedTest {
         String valueA = "valueA";
         ParameterMetric metric = new ParameterMetric();
         ParameterMetricStorage.getMetricsMap().put(resourceWrapper.getName(), metric);
-        metric.getRuleTimeCounterMap().put(rule, new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(4000));
-        metric.getRuleTokenCounterMap().put(rule,
-            new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(4000));
+        metric.initialize(rule);
 
         // We mock the time directly to avoid unstable behaviour.
         setCurrentMillis(System.currentTimeMillis());
@@ -137,9 +131,7 @@ public class ParamFlowDefaultCheckerTest extends AbstractTimeBasedTest {
         String valueA = "valueA";
         ParameterMetric metric = new ParameterMetric();
         ParameterMetricStorage.getMetricsMap().put(resourceWrapper.getName(), metric);
-        metric.getRuleTimeCounterMap().put(rule, new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(4000));
-        metric.getRuleTokenCounterMap().put(rule,
-            new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(4000));
+        metric.initialize(rule);
 
         // We mock the time directly to avoid unstable behaviour.
         setCurrentMillis(System.currentTimeMillis());
@@ -190,6 +182,38 @@ public class ParamFlowDefaultCheckerTest extends AbstractTimeBasedTest {
         assertFalse(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, valueA));
     }
 
+    @Test
+    public void testParamFlowDefaultCheckNumericValues() {
+        final String resourceName = "testParamFlowDefaultCheckNumericValues";
+        final ResourceWrapper resourceWrapper = new StringResourceWrapper(resourceName, EntryType.IN);
+
+        ParamFlowRule rule = new ParamFlowRule(resourceName)
+            .setCount(2)
+            .setParamIdx(0);
+        ParameterMetric metric = new ParameterMetric();
+        ParameterMetricStorage.getMetricsMap().put(resourceWrapper.getName(), metric);
+        metric.initialize(rule);
+
+        setCurrentMillis(System.currentTimeMillis());
+
+        // Numbers of the same value share the bucket keyed by primitive long.
+        assertTrue(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, 10086L));
+        assertTrue(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, 10086));
+        assertFalse(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, 10086L));
+        assertTrue(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, 10087L));
+        assertEquals(2, metric.getRuleLongTokenBuckets(rule).size());
+        assertEquals(0, metric.getRuleTokenBuckets(rule).size());
+
+        // Other values are kept in the general buckets.
+        assertTrue(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, "10086"));
+        assertEquals(1, metric.getRuleTokenBuckets(rule).size());
+
+        sleep(1002);
+        assertTrue(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, 10086L));
+        assertTrue(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, 10086L));
+        assertFalse(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, 10086L));
+    }
+
     @Test
     public void testParamFlowDefaultCheckQpsInDifferentDuration() throws InterruptedException {
         final String resourceName = "testParamFlowDefaultCheckQpsInDifferentDuration";
@@ -207,9 +231,7 @@ public class ParamFlowDefaultCheckerTest extends AbstractTimeBasedTest {
         String valueA = "helloWorld";
         ParameterMetric metric = new ParameterMetric();
         ParameterMetricStorage.getMetricsMap().put(resourceWrapper.getName(), metric);
-        metric.getRuleTimeCounterMap().put(rule, new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(4000));
-        metric.getRuleTokenCounterMap().put(rule,
-            new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(4000));
+        metric.initialize(rule);
 
         // We mock the time directly to avoid unstable behaviour.
         setCurrentMillis(System.currentTimeMillis());
@@ -260,9 +282,7 @@ public class ParamFlowDefaultCheckerTest extends AbstractTimeBasedTest {
         final String valueA = "valueA";
         ParameterMetric metric = new ParameterMetric();
         ParameterMetricStorage.getMetricsMap().put(resourceWrapper.getName(), metric);
-        metric.getRuleTimeCounterMap().put(rule, new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(4000));
-        metric.getRuleTokenCounterMap().put(rule,
-            new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(4000));
+        metric.initialize(rule);
         int threadCount = 40;
 
         final CountDownLatch waitLatch = new CountDownLatch(threadCount);
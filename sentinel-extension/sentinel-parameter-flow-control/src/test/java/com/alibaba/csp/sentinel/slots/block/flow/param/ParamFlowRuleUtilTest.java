@@ -5,6 +5,9 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -41,6 +44,36 @@ public class ParamFlowRuleUtilTest {
             .setCount(10)
             .setParamIdx(1);
         assertTrue(ParamFlowRuleUtil.isValidRule(goodRule));
+
+        // Sketch mode is only for QPS mode with default control behavior and valid error bounds.
+        assertTrue(ParamFlowRuleUtil.isValidRule(new ParamFlowRule("abc").setCount(10).setParamIdx(1)
+            .setSketchMode(true)));
+        assertFalse(ParamFlowRuleUtil.isValidRule(new ParamFlowRule("abc").setCount(10).setParamIdx(1)
+            .setSketchMode(true).setGrade(RuleConstant.FLOW_GRADE_THREAD)));
+        assertFalse(ParamFlowRuleUtil.isValidRule(new ParamFlowRule("abc").setCount(10).setParamIdx(1)
+            .setSketchMode(true).setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER)));
+        assertFalse(ParamFlowRuleUtil.isValidRule(new ParamFlowRule("abc").setCount(10).setParamIdx(1)
+            .setSketchMode(true).setSketchEpsilon(0)));
+        assertFalse(ParamFlowRuleUtil.isValidRule(new ParamFlowRule("abc").setCount(10).setParamIdx(1)
+            .setSketchMode(true).setSketchDelta(1)));
+        // The sketch of too small error bounds takes too much memory.
+        assertFalse(ParamFlowRuleUtil.isValidRule(new ParamFlowRule("abc").setCount(10).setParamIdx(1)
+            .setSketchMode(true).setSketchEpsilon(1e-6)));
+        assertFalse(ParamFlowRuleUtil.isValidRule(new ParamFlowRule("abc").setCount(10).setParamIdx(1)
+            .setSketchMode(true).setSketchEpsilon(1e-5).setSketchDelta(0.01)));
+        assertTrue(ParamFlowRuleUtil.isValidRule(new ParamFlowRule("abc").setCount(10).setParamIdx(1)
+            .setSketchMode(true).setSketchEpsilon(1e-4).setSketchDelta(0.01)));
+
+        // The sketch on token server is validated in the same way.
+        ParamFlowClusterConfig clusterConfig = new ParamFlowClusterConfig().setFlowId(1L)
+            .setStatisticType(ClusterRuleConstant.PARAM_STATISTIC_TYPE_SKETCH);
+        ParamFlowRule clusterRule = new ParamFlowRule("abc").setCount(10).setParamIdx(1)
+            .setClusterMode(true).setClusterConfig(clusterConfig);
+        assertTrue(ParamFlowRuleUtil.isValidRule(clusterRule));
+        clusterConfig.setSketchEpsilon(1e-6);
+        assertFalse(ParamFlowRuleUtil.isValidRule(clusterRule));
+        clusterConfig.setSketchEpsilon(0.01).setSketchDelta(0);
+        assertFalse(ParamFlowRuleUtil.isValidRule(clusterRule));
     }
 
     @Test
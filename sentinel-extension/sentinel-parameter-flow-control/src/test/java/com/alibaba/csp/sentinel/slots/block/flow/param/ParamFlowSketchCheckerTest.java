@@ -0,0 +1,120 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow.param;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.test.AbstractTimeBasedTest;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for parameter flow rules in sketch mode.
+ */
+public class ParamFlowSketchCheckerTest extends AbstractTimeBasedTest {
+
+    @Test
+    public void testSketchCheckQps() {
+        final String resourceName = "testSketchCheckQps";
+        final ResourceWrapper resourceWrapper = new StringResourceWrapper(resourceName, EntryType.IN);
+        ParamFlowRule rule = new ParamFlowRule(resourceName)
+            .setParamIdx(0)
+            .setCount(3)
+            .setBurstCount(1)
+            .setSketchMode(true);
+        ParameterMetric metric = new ParameterMetric();
+        ParameterMetricStorage.getMetricsMap().put(resourceWrapper.getName(), metric);
+        metric.initialize(rule);
+        assertNotNull(metric.getRuleSketch(rule));
+        assertNull(metric.getRuleTokenBuckets(rule));
+
+        setCurrentMillis(System.currentTimeMillis() / 1000 * 1000);
+        String valueA = "192.168.0.1";
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, valueA));
+        }
+        assertFalse(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, valueA));
+        assertTrue(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, "192.168.0.2"));
+
+        // The counts slide out with the window.
+        sleep(500);
+        assertFalse(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, valueA));
+        sleep(500);
+        assertTrue(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 3, valueA));
+        assertFalse(ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 2, valueA));
+    }
+
+    @Test
+    public void testSketchCheckHotValueAmongManyValues() {
+        final String resourceName = "testSketchCheckHotValueAmongManyValues";
+        final ResourceWrapper resourceWrapper = new StringResourceWrapper(resourceName, EntryType.IN);
+        ParamFlowRule rule = new ParamFlowRule(resourceName)
+            .setParamIdx(0)
+            .setCount(10)
+            .setSketchMode(true)
+            .setSketchEpsilon(0.0001);
+        ParamFlowItem item = new ParamFlowItem().setObject("10.0.0.1").setClassType(String.class.getName())
+            .setCount(20);
+        rule.setParamFlowItemList(Collections.singletonList(item));
+        ParamFlowRuleUtil.fillExceptionFlowItems(rule);
+        ParameterMetric metric = new ParameterMetric();
+        ParameterMetricStorage.getMetricsMap().put(resourceWrapper.getName(), metric);
+        metric.initialize(rule);
+
+        setCurrentMillis(System.currentTimeMillis() / 1000 * 1000);
+        String hotValue = "10.0.0.2";
+        int hotPassed = 0;
+        for (int i = 0; i < 200000; i++) {
+            // Far more distinct values than the LRU maps could keep.
+            ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, "ip-" + i);
+            if (i % 1000 == 0 && ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, hotValue)) {
+                hotPassed++;
+            }
+        }
+        // The hot value is never under-limited, while the error of the estimation is bounded.
+        assertTrue(hotPassed <= 10);
+        assertTrue(hotPassed >= 5);
+
+        int itemPassed = 0;
+        for (int i = 0; i < 30; i++) {
+            if (ParamFlowChecker.passSingleValueCheck(resourceWrapper, rule, 1, "10.0.0.1")) {
+                itemPassed++;
+            }
+        }
+        assertTrue(itemPassed <= 20);
+        assertTrue(itemPassed >= 10);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        ParameterMetricStorage.getMetricsMap().clear();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ParameterMetricStorage.getMetricsMap().clear();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow.param;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test cases for {@link ParamTokenBucket}.
+ */
+public class ParamTokenBucketTest {
+
+    @Test
+    public void testRefillAfterDuration() {
+        long now = 1_000_000L;
+        ParamTokenBucket bucket = new ParamTokenBucket(now, 0);
+        assertFalse(bucket.tryAcquire(now + 500, 1, 5, 5, 1000));
+        assertTrue(bucket.tryAcquire(now + 1001, 1, 5, 5, 1000));
+        assertEquals(4, bucket.getRestTokens());
+    }
+
+    @Test
+    public void testCurrentTimeEarlierThanStored() {
+        long now = 1_000_000L;
+        ParamTokenBucket bucket = new ParamTokenBucket(now, 2);
+        // A caller which read the clock before the bucket was updated must not refill the bucket.
+        assertTrue(bucket.tryAcquire(now - 10, 1, 100, 100, 1000));
+        assertTrue(bucket.tryAcquire(now - 10, 1, 100, 100, 1000));
+        assertFalse(bucket.tryAcquire(now - 10, 1, 100, 100, 1000));
+        assertEquals(0, bucket.getRestTokens());
+        assertTrue(bucket.tryAcquire(now + 1001, 1, 100, 100, 1000));
+    }
+
+    @Test
+    public void testTimestampWrapAround() {
+        // The stored timestamp keeps only the lower 32 bits.
+        long now = 0xFFFFFFFFL - 100;
+        ParamTokenBucket bucket = new ParamTokenBucket(now, 0);
+        assertTrue(bucket.tryAcquire(now + 1100, 1, 10, 10, 1000));
+        assertEquals(9, bucket.getRestTokens());
+    }
+
+    @Test
+    public void testRefillAfterIdleLongerThan32Bits() {
+        long now = 1_000_000L;
+        ParamTokenBucket bucket = new ParamTokenBucket(now, 0);
+        assertFalse(bucket.tryAcquire(now + 10, 1, 10, 10, 1000));
+        // The lower 32 bits of the elapsed time are negative as int.
+        now += (1L << 31) + 10;
+        assertTrue(bucket.tryAcquire(now, 1, 10, 10, 1000));
+        assertEquals(9, bucket.getRestTokens());
+        for (int i = 0; i < 9; i++) {
+            assertTrue(bucket.tryAcquire(now, 1, 10, 10, 1000));
+        }
+        assertFalse(bucket.tryAcquire(now, 1, 10, 10, 1000));
+        // The lower 32 bits of the elapsed time are only 10 ms.
+        now += (1L << 32) + 10;
+        assertTrue(bucket.tryAcquire(now, 1, 10, 10, 1000));
+        assertEquals(9, bucket.getRestTokens());
+    }
+}
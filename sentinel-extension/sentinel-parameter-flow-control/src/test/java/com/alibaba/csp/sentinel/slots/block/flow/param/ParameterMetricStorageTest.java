@@ -48,7 +48,7 @@ public class ParameterMetricStorageTest {
         ParameterMetricStorage.initParamMetricsFor(resourceWrapper, rule);
         ParameterMetric metric = ParameterMetricStorage.getParamMetric(resourceWrapper);
         assertNotNull(metric);
-        assertNotNull(metric.getRuleTimeCounterMap().get(rule));
+        assertNotNull(metric.getRuleTimeCounter(rule));
         assertNotNull(metric.getThreadCountMap().get(index));
 
         // Duplicate init.
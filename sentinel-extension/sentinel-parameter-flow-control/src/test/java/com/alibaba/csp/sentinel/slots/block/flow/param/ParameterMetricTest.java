@@ -18,10 +18,14 @@ package com.alibaba.csp.sentinel.slots.block.flow.param;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -29,6 +33,7 @@ import org.junit.Test;
 
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.statistic.cache.CacheMap;
+import com.alibaba.csp.sentinel.slots.statistic.cache.ConcurrentLongCacheMap;
 
 /**
  * Test cases for {@link ParameterMetric}.
@@ -50,7 +55,10 @@ public class ParameterMetricTest {
         assertNotNull(threadCountMap);
         CacheMap<Object, AtomicLong> timeRecordMap = metric.getRuleTimeCounter(rule);
         assertNotNull(timeRecordMap);
+        CacheMap<Object, ParamTokenBucket> tokenBuckets = metric.getRuleTokenBuckets(rule);
+        assertNotNull(tokenBuckets);
         metric.initialize(rule);
+        assertSame(tokenBuckets, metric.getRuleTokenBuckets(rule));
         assertSame(threadCountMap, metric.getThreadCountMap().get(rule.getParamIdx()));
         assertSame(timeRecordMap, metric.getRuleTimeCounter(rule));
 
@@ -72,8 +80,9 @@ public class ParameterMetricTest {
 
         metric.clear();
         assertEquals(0, metric.getThreadCountMap().size());
-        assertEquals(0, metric.getRuleTimeCounterMap().size());
-        assertEquals(0, metric.getRuleTokenCounterMap().size());
+        assertEquals(0, metric.getRuleMetricMap().size());
+        assertNull(metric.getRuleTimeCounter(rule));
+        assertNull(metric.getRuleTokenBuckets(rule));
     }
 
     @Test
@@ -110,10 +119,13 @@ public class ParameterMetricTest {
         }
 
         assertEquals(1, metric.getThreadCountMap().size());
-        CacheMap<Object, AtomicInteger> threadCountMap = metric.getThreadCountMap().get(rule.getParamIdx());
+        // Numeric values are counted in the long-keyed map.
+        ConcurrentLongCacheMap<AtomicInteger> threadCountMap = metric.getLongThreadCountMap().get(rule.getParamIdx());
         assertEquals(v.length, threadCountMap.size());
+        assertEquals(0, metric.getThreadCountMap().get(rule.getParamIdx()).size());
         for (long vs : v) {
             assertEquals(1, threadCountMap.get(vs).get());
+            assertEquals(1, metric.getThreadCount(rule.getParamIdx(), vs));
         }
 
         for (int i = 1; i < n; i++) {
@@ -133,7 +145,7 @@ public class ParameterMetricTest {
             }
         }
         assertEquals(1, metric.getThreadCountMap().size());
-        threadCountMap = metric.getThreadCountMap().get(rule.getParamIdx());
+        threadCountMap = metric.getLongThreadCountMap().get(rule.getParamIdx());
         assertEquals(v.length, threadCountMap.size());
         for (long vs : v) {
             assertEquals(n, threadCountMap.get(vs).get());
@@ -156,7 +168,7 @@ public class ParameterMetricTest {
             }
         }
         assertEquals(1, metric.getThreadCountMap().size());
-        threadCountMap = metric.getThreadCountMap().get(rule.getParamIdx());
+        threadCountMap = metric.getLongThreadCountMap().get(rule.getParamIdx());
         assertEquals(v.length, threadCountMap.size());
         for (long vs : v) {
             assertEquals(1, threadCountMap.get(vs).get());
@@ -177,8 +189,142 @@ public class ParameterMetricTest {
                 break;
         }
         assertEquals(1, metric.getThreadCountMap().size());
-        threadCountMap = metric.getThreadCountMap().get(rule.getParamIdx());
-        assertEquals(0, threadCountMap.size());
+        for (long vs : v) {
+            assertEquals(0, metric.getThreadCount(rule.getParamIdx(), vs));
+        }
+        // Not decreased below zero.
+        metric.decreaseThreadCount(v[0]);
+        assertEquals(0, metric.getThreadCount(rule.getParamIdx(), v[0]));
+    }
+
+    @Test
+    public void testThreadCountOfObjectValues() {
+        ParamFlowRule rule = new ParamFlowRule().setParamIdx(0);
+        ParameterMetric metric = new ParameterMetric();
+        metric.initialize(rule);
+
+        metric.addThreadCount("a");
+        metric.addThreadCount("a");
+        metric.addThreadCount(1.5d);
+        CacheMap<Object, AtomicInteger> threadCountMap = metric.getThreadCountMap().get(rule.getParamIdx());
+        assertEquals(2, threadCountMap.size());
+        assertEquals(2, metric.getThreadCount(rule.getParamIdx(), "a"));
+        assertEquals(1, metric.getThreadCount(rule.getParamIdx(), 1.5d));
+        assertEquals(0, metric.getLongThreadCountMap().get(rule.getParamIdx()).size());
+
+        metric.decreaseThreadCount("a");
+        metric.decreaseThreadCount("a");
+        assertEquals(0, metric.getThreadCount(rule.getParamIdx(), "a"));
+        // The counter of zero is kept (until evicted), so the next entry of "a" allocates nothing.
+        AtomicInteger counter = threadCountMap.get("a");
+        metric.addThreadCount("a");
+        assertSame(counter, threadCountMap.get("a"));
+        assertEquals(1, metric.getThreadCount(rule.getParamIdx(), "a"));
+    }
+
+    @Test
+    public void testIdleThreadCountersNotPushOutLiveOnes() {
+        ParamFlowRule rule = new ParamFlowRule().setParamIdx(0);
+        ParameterMetric metric = new ParameterMetric();
+        metric.initialize(rule);
+
+        metric.addThreadCount("live");
+        metric.addThreadCount(-1L);
+        // Far more values than the capacity enter and exit, of which the counters stay at zero.
+        for (int i = 0; i < 20000; i++) {
+            metric.addThreadCount("v" + i);
+            metric.decreaseThreadCount("v" + i);
+            metric.addThreadCount((long) i);
+            metric.decreaseThreadCount((long) i);
+        }
+        assertEquals(1, metric.getThreadCount(rule.getParamIdx(), "live"));
+        assertEquals(1, metric.getThreadCount(rule.getParamIdx(), -1L));
+        assertEquals(0, metric.getThreadCount(rule.getParamIdx(), "v0"));
+        assertEquals(0, metric.getThreadCount(rule.getParamIdx(), 0L));
+
+        // An evicted value is counted by a new counter.
+        metric.addThreadCount("v0");
+        assertEquals(1, metric.getThreadCount(rule.getParamIdx(), "v0"));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testRuleTokenCounterView() {
+        ParamFlowRule rule = new ParamFlowRule("abc").setParamIdx(0).setCount(10);
+        ParameterMetric metric = new ParameterMetric();
+        assertNull(metric.getRuleTokenCounter(rule));
+        metric.initialize(rule);
+
+        metric.getRuleTokenBuckets(rule).putIfAbsent("a", new ParamTokenBucket(System.currentTimeMillis(), 7));
+        metric.getRuleLongTokenBuckets(rule).putIfAbsent(42L, new ParamTokenBucket(System.currentTimeMillis(), 3));
+        CacheMap<Object, AtomicLong> tokenCounter = metric.getRuleTokenCounter(rule);
+        assertEquals(7, tokenCounter.get("a").get());
+        assertEquals(3, tokenCounter.get(42).get());
+        assertNull(tokenCounter.get("b"));
+        assertEquals(2, tokenCounter.size());
+        assertEquals(new HashSet<Object>(Arrays.asList("a", 42L)), tokenCounter.keySet(true));
+
+        // Putting a counter resets the bucket of the value.
+        assertEquals(7, tokenCounter.put("a", new AtomicLong(5)).get());
+        assertEquals(5, metric.getRuleTokenBuckets(rule).get("a").getRestTokens());
+        assertNull(tokenCounter.putIfAbsent(1L, new AtomicLong(9)));
+        assertEquals(9, metric.getRuleLongTokenBuckets(rule).get(1L).getRestTokens());
+        assertEquals(3, tokenCounter.remove(42L).get());
+        assertNull(metric.getRuleLongTokenBuckets(rule).get(42L));
+
+        ParamFlowRule sketchRule = new ParamFlowRule("abc").setParamIdx(0).setCount(10).setSketchMode(true);
+        metric.initialize(sketchRule);
+        assertNull(metric.getRuleTokenCounter(sketchRule));
+    }
+
+    @Test
+    public void testClearForRuleKeepsOtherMetrics() {
+        ParamFlowRule rule1 = new ParamFlowRule("abc").setParamIdx(0);
+        ParamFlowRule rule2 = new ParamFlowRule("abc").setParamIdx(1).setCount(5);
+        ParameterMetric metric = new ParameterMetric();
+        metric.initialize(rule1);
+        metric.initialize(rule2);
+        CacheMap<Object, ParamTokenBucket> tokenBuckets2 = metric.getRuleTokenBuckets(rule2);
+        metric.addThreadCount("a", "b");
+        assertEquals(1, metric.getThreadCount(0, "a"));
+        assertEquals(1, metric.getThreadCount(1, "b"));
+
+        metric.clearForRule(rule1);
+        assertNull(metric.getRuleTimeCounter(rule1));
+        assertEquals(0, metric.getThreadCount(0, "a"));
+        assertSame(tokenBuckets2, metric.getRuleTokenBuckets(rule2));
+        assertEquals(1, metric.getThreadCount(1, "b"));
+
+        // Exiting after the rule is cleared is ignored.
+        metric.decreaseThreadCount("a", "b");
+        assertEquals(0, metric.getThreadCount(1, "b"));
+    }
+
+    @Test
+    public void testInitializeConcurrently() throws Exception {
+        final ParameterMetric metric = new ParameterMetric();
+        final int ruleCount = 16;
+        final CountDownLatch latch = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < ruleCount; i++) {
+                        metric.initialize(new ParamFlowRule("abc").setParamIdx(i).setCount(i + 1));
+                        metric.addThreadCount(1L);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await(10, TimeUnit.SECONDS);
+
+        assertEquals(ruleCount, metric.getRuleMetricMap().size());
+        assertEquals(ruleCount, metric.getThreadCountMap().size());
+        for (int i = 0; i < ruleCount; i++) {
+            assertNotNull(metric.getRuleTokenBuckets(new ParamFlowRule("abc").setParamIdx(i).setCount(i + 1)));
+        }
+        assertEquals(4 * ruleCount, metric.getThreadCount(0, 1L));
     }
 
     private static final int PARAM_TYPE_NORMAL = 0;
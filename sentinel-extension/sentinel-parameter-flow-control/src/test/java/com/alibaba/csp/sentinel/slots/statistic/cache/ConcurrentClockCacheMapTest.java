@@ -0,0 +1,123 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.cache;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ConcurrentClockCacheMap}.
+ */
+public class ConcurrentClockCacheMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        CacheMap<String, Integer> map = new ConcurrentClockCacheMap<>(4);
+        assertNull(map.putIfAbsent("a", 1));
+        assertEquals(1, (int) map.putIfAbsent("a", 2));
+        assertEquals(1, (int) map.put("a", 3));
+        assertEquals(3, (int) map.get("a"));
+        assertTrue(map.containsKey("a"));
+        assertNull(map.get("b"));
+        assertEquals(1, map.size());
+
+        assertEquals(3, (int) map.remove("a"));
+        assertNull(map.remove("a"));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testEvictNotReferenced() {
+        CacheMap<String, Integer> map = new ConcurrentClockCacheMap<>(3);
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+        // Insertion does not count as a reference, so the first one not read is evicted.
+        map.get("a");
+        map.put("d", 4);
+        assertEquals(3, map.size());
+        assertTrue(map.containsKey("a"));
+        assertFalse(map.containsKey("b"));
+
+        map.get("a");
+        map.get("c");
+        map.get("d");
+        // All are referenced, so the hand sweeps a round and then evicts the one it started from.
+        map.put("e", 5);
+        assertEquals(3, map.size());
+        assertFalse(map.containsKey("c"));
+        assertTrue(map.containsKey("e"));
+
+        Iterator<String> coldest = map.keySet(true).iterator();
+        assertEquals(3, map.keySet(false).size());
+        assertTrue(Arrays.asList("a", "d", "e").contains(coldest.next()));
+    }
+
+    @Test
+    public void testReuseRemovedSlots() {
+        CacheMap<Integer, Integer> map = new ConcurrentClockCacheMap<>(100);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < 50; i++) {
+            map.remove(i);
+        }
+        for (int i = 100; i < 150; i++) {
+            map.put(i, i);
+        }
+        // No eviction while there are free slots.
+        assertEquals(100, map.size());
+        for (int i = 50; i < 150; i++) {
+            assertEquals(i, (int) map.get(i));
+        }
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertTrue(map.keySet(true).isEmpty());
+        map.put(1, 1);
+        assertEquals(1, (int) map.get(1));
+    }
+
+    @Test
+    public void testEvictIdleFirst() {
+        CacheMap<String, Integer> map = new ConcurrentClockCacheMap<>(3, new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer value) {
+                return value == 0;
+            }
+        });
+        map.put("a", 1);
+        map.put("b", 0);
+        map.put("c", 1);
+        // None is referenced since the last sweep, but only the idle one is evicted.
+        map.put("d", 1);
+        assertFalse(map.containsKey("b"));
+        assertTrue(map.containsKey("a"));
+        assertTrue(map.containsKey("c"));
+        assertTrue(map.containsKey("d"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalCapacity() {
+        new ConcurrentClockCacheMap<String, Integer>(0);
+    }
+}
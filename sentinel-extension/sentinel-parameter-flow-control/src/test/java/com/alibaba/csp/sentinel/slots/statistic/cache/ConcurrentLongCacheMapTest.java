@@ -0,0 +1,107 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.cache;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ConcurrentLongCacheMap}.
+ */
+public class ConcurrentLongCacheMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        ConcurrentLongCacheMap<String> map = new ConcurrentLongCacheMap<>(16);
+        assertNull(map.get(1L));
+        assertNull(map.putIfAbsent(1L, "a"));
+        assertEquals("a", map.putIfAbsent(1L, "b"));
+        assertEquals("a", map.get(1L));
+        assertNull(map.putIfAbsent(0L, "zero"));
+        assertNull(map.putIfAbsent(-1L, "minus"));
+        assertEquals("zero", map.get(0L));
+        assertEquals("minus", map.get(-1L));
+        assertTrue(map.containsKey(-1L));
+        assertEquals(3, map.size());
+
+        assertEquals("a", map.remove(1L));
+        assertNull(map.remove(1L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(2, map.size());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(0L));
+    }
+
+    @Test
+    public void testBoundedCapacity() {
+        int capacity = 100;
+        ConcurrentLongCacheMap<Long> map = new ConcurrentLongCacheMap<>(capacity);
+        for (long i = 0; i < 10000; i++) {
+            map.putIfAbsent(i, i);
+            // The hot key is read all the time, so it's never evicted.
+            assertEquals(0L, (long) map.get(0L));
+        }
+        assertEquals(capacity, map.size());
+        assertEquals(9999L, (long) map.get(9999L));
+    }
+
+    @Test
+    public void testNoEvictionBelowCapacity() {
+        int capacity = 100000;
+        ConcurrentLongCacheMap<Long> map = new ConcurrentLongCacheMap<>(capacity);
+        Random random = new Random(42);
+        long[] keys = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            keys[i] = random.nextLong();
+            assertNull(map.putIfAbsent(keys[i], keys[i]));
+            // Keep some keys hot all the time.
+            assertEquals(keys[i / 2], (long) map.get(keys[i / 2]));
+        }
+        // Some windows must have been full, which grow the table rather than evicting the keys.
+        assertEquals(capacity, map.size());
+        for (long key : keys) {
+            assertEquals(key, (long) map.get(key));
+        }
+    }
+
+    @Test
+    public void testHardCapacityWhenAllReferenced() {
+        int capacity = 1000;
+        ConcurrentLongCacheMap<Long> map = new ConcurrentLongCacheMap<>(capacity);
+        for (long i = 0; i < capacity; i++) {
+            map.putIfAbsent(i, i);
+        }
+        for (long i = capacity; i < capacity * 3; i++) {
+            // All the cached keys are read between insertions, but the capacity is never exceeded.
+            for (long k = i - capacity; k < i; k++) {
+                map.get(k);
+            }
+            assertNull(map.putIfAbsent(i, i));
+            assertEquals(i, (long) map.get(i));
+            assertTrue(map.size() <= capacity);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalCapacity() {
+        new ConcurrentLongCacheMap<String>(-1);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.sketch;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link FrequencySketch}.
+ */
+public class FrequencySketchTest {
+
+    @Test
+    public void testEstimateNoLessThanActual() {
+        FrequencySketch sketch = new FrequencySketch(4, 1000, 16);
+        assertEquals(1024, sketch.getWidth());
+        for (int i = 0; i < 50000; i++) {
+            sketch.add(i, 1 + i % 3);
+        }
+        long overestimated = 0;
+        for (int i = 0; i < 50000; i++) {
+            long estimate = sketch.estimate(i);
+            assertTrue(estimate >= 1 + i % 3);
+            overestimated += estimate - (1 + i % 3);
+        }
+        // Within e / width of the total count (100000) on average.
+        assertTrue(overestimated / 50000 < 100000 * Math.E / 1024);
+        assertEquals(0, sketch.estimate(null));
+    }
+
+    @Test
+    public void testHeavyHitters() {
+        FrequencySketch sketch = new FrequencySketch(4, 256, 4);
+        for (int i = 0; i < 20000; i++) {
+            sketch.add("k" + i, 1);
+            sketch.add("hot" + i % 3, 1);
+        }
+        Map<Object, Long> heavyHitters = sketch.heavyHitters();
+        assertEquals(4, heavyHitters.size());
+        for (int i = 0; i < 3; i++) {
+            long count = heavyHitters.get("hot" + i);
+            // Counted exactly since admitted, which inherits the estimate before admitted.
+            assertTrue(count >= 6666);
+            assertTrue(count < 6666 + 20000 * Math.E / 256);
+            assertEquals(Math.min(count, sketch.estimate("hot" + i)), sketch.estimate("hot" + i));
+        }
+
+        sketch.reset();
+        assertTrue(sketch.heavyHitters().isEmpty());
+        assertEquals(0, sketch.estimate("hot0"));
+    }
+
+    @Test
+    public void testEvictMinimumHeavyHitter() {
+        FrequencySketch sketch = new FrequencySketch(4, 4096, 3);
+        sketch.add("a", 10);
+        sketch.add("b", 20);
+        sketch.add("c", 30);
+        sketch.add("d", 15);
+        assertEquals(new HashSet<Object>(Arrays.asList("b", "c", "d")), sketch.heavyHitters().keySet());
+
+        // "d" becomes the heaviest after placed in the heap, so "b" is the minimum to evict.
+        sketch.add("d", 100);
+        sketch.add("e", 25);
+        Map<Object, Long> heavyHitters = sketch.heavyHitters();
+        assertEquals(new HashSet<Object>(Arrays.asList("c", "d", "e")), heavyHitters.keySet());
+        assertEquals(115, (long) heavyHitters.get("d"));
+        assertEquals(25, (long) heavyHitters.get("e"));
+
+        // Not heavier than the minimum ("e").
+        sketch.add("f", 25);
+        assertFalse(sketch.heavyHitters().containsKey("f"));
+    }
+
+    @Test
+    public void testSizeOfErrorBounds() {
+        assertEquals(272, FrequencySketch.widthOf(0.01));
+        assertEquals(5, FrequencySketch.depthOf(0.01));
+        assertEquals(1, FrequencySketch.depthOf(0.5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalErrorBound() {
+        FrequencySketch.widthOf(0);
+    }
+
+    @Test
+    public void testValidErrorBound() {
+        assertTrue(FrequencySketch.isValidErrorBound(0.001, 0.01));
+        assertFalse(FrequencySketch.isValidErrorBound(0, 0.01));
+        assertFalse(FrequencySketch.isValidErrorBound(0.001, 1));
+        // Width 2^20 (rounded up) with depth 1 fits exactly, but not with depth 2.
+        assertTrue(FrequencySketch.isValidErrorBound(Math.E / 1000000, 0.5));
+        assertFalse(FrequencySketch.isValidErrorBound(Math.E / 1000000, 0.1));
+        assertFalse(FrequencySketch.isValidErrorBound(1e-9, 0.5));
+    }
+
+    @Test
+    public void testEstimateNoLessThanActualConcurrently() throws Exception {
+        final FrequencySketch sketch = new FrequencySketch(4, 64, 8);
+        final int threads = 4;
+        final int rounds = 20000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < rounds; i++) {
+                        sketch.add(i % 100, 1);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        for (int i = 0; i < 100; i++) {
+            assertTrue(sketch.estimate(i) >= threads * rounds / 100);
+        }
+    }
+}
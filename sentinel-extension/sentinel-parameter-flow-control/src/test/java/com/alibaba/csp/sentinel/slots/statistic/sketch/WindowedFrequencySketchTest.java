@@ -0,0 +1,54 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.sketch;
+
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.util.clock.ManualClock;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link WindowedFrequencySketch}.
+ */
+public class WindowedFrequencySketchTest {
+
+    @Test
+    public void testSlidingWindow() {
+        ManualClock clock = new ManualClock(10000);
+        WindowedFrequencySketch sketch = new WindowedFrequencySketch(2, 1000, 4, 256, 4, clock);
+        sketch.add("a", 3);
+        clock.advance(500);
+        sketch.add("a", 2);
+        sketch.add("b", 1);
+        assertTrue(sketch.estimate("a") >= 5);
+
+        FrequencySketch deprecated = sketch.currentWindow(10000).value();
+        clock.advance(500);
+        // The deprecated window is replaced by a new sketch instead of being cleared.
+        sketch.add("b", 4);
+        assertNotSame(deprecated, sketch.currentWindow().value());
+        assertEquals(3, deprecated.estimate("a"));
+        assertTrue(sketch.estimate("a") >= 2 && sketch.estimate("a") < 5);
+        assertTrue(sketch.estimate("b") >= 5);
+
+        Map<Object, Long> topKeys = sketch.topKeys(1);
+        assertEquals(1, topKeys.size());
+        assertTrue(topKeys.containsKey("b"));
+    }
+}
@@ -17,6 +17,7 @@ package com.alibaba.csp.sentinel.transport.config;
 
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.node.metric.MetricPushClient;
 import com.alibaba.csp.sentinel.util.HostNameUtil;
 import com.alibaba.csp.sentinel.util.StringUtil;
 import com.alibaba.csp.sentinel.transport.endpoint.Endpoint;
@@ -150,6 +151,7 @@ public class TransportConfig {
      */
     public static void setRuntimePort(int port) {
         runtimePort = port;
+        MetricPushClient.setRuntimeCommandPort(port);
     }
 
     /**